@@ -0,0 +1,11 @@
+-- ===================================================================
+-- 会话消息游标分页索引
+-- 创建时间: 2025-12-20
+-- 说明: 按 (conversation_id, sent_at, id) 定位游标消息前后的记录，避免深分页时 OFFSET 扫描
+-- ===================================================================
+
+USE tcm_health_system;
+
+ALTER TABLE `conversation_message` ADD INDEX `idx_conversation_message_cursor`(`conversation_id` ASC, `sent_at` ASC, `id` ASC) USING BTREE;
+
+SELECT '✅ conversation_message 游标分页索引创建完成！' AS message;
@@ -0,0 +1,32 @@
+-- ===================================================================
+-- 创建预约日统计汇总表 appointment_daily_stats
+-- 创建时间: 2025-12-20
+-- 说明: 按 预约日期+医生+分类+状态 预聚合预约数量，统计看板从汇总表读取；
+--       由定时任务按 appointment.updated_at 增量刷新变更日期，每日凌晨重建近期数据
+-- ===================================================================
+
+USE tcm_health_system;
+
+CREATE TABLE IF NOT EXISTS `appointment_daily_stats` (
+    `stat_date` DATE NOT NULL COMMENT '预约日期',
+    `doctor_id` BIGINT NOT NULL COMMENT '中医师ID',
+    `category_id` BIGINT NOT NULL COMMENT '分类ID',
+    `status` VARCHAR(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '预约状态',
+    `appointment_count` INT NOT NULL DEFAULT 0 COMMENT '预约数量',
+    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`stat_date`, `doctor_id`, `category_id`, `status`) USING BTREE,
+    INDEX `idx_doctor_date`(`doctor_id` ASC, `stat_date` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '预约日统计汇总表' ROW_FORMAT = DYNAMIC;
+
+-- 增量刷新按更新时间查找变更的预约日期
+ALTER TABLE `appointment` ADD INDEX `idx_updated_date`(`updated_at` ASC, `appointment_date` ASC) USING BTREE;
+
+-- 管理员看板统计今日新增预约
+ALTER TABLE `appointment` ADD INDEX `idx_created_at`(`created_at` ASC) USING BTREE;
+
+-- 首次创建后由应用启动时自动回填，也可以手动执行以下语句回填
+-- INSERT INTO appointment_daily_stats (stat_date, doctor_id, category_id, status, appointment_count)
+-- SELECT appointment_date, doctor_id, category_id, status, COUNT(*) FROM appointment
+-- GROUP BY appointment_date, doctor_id, category_id, status;
+
+SELECT '✅ appointment_daily_stats 表创建完成！' AS message;
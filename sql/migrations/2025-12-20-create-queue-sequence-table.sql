@@ -0,0 +1,21 @@
+-- ===================================================================
+-- 创建排队号序列表 queue_sequence
+-- 创建时间: 2025-12-20
+-- 说明: Redis不可用时作为排队号分配的兜底序列，按 医生+日期+时段 维护当前已分配的最大排队号
+-- ===================================================================
+
+USE tcm_health_system;
+
+CREATE TABLE IF NOT EXISTS `queue_sequence` (
+    `doctor_id` BIGINT NOT NULL COMMENT '中医师ID',
+    `schedule_date` DATE NOT NULL COMMENT '排班日期',
+    `time_slot` ENUM('MORNING','AFTERNOON','EVENING') CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '时段',
+    `current_value` INT NOT NULL DEFAULT 0 COMMENT '当前已分配的最大排队号',
+    `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`doctor_id`, `schedule_date`, `time_slot`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '排队号序列表' ROW_FORMAT = DYNAMIC;
+
+-- 排队号初始化查询使用（医生+日期+时段）
+ALTER TABLE `appointment` ADD INDEX `idx_doctor_date_slot`(`doctor_id` ASC, `appointment_date` ASC, `time_slot` ASC) USING BTREE;
+
+SELECT '✅ queue_sequence 表创建完成！' AS message;
@@ -11,12 +11,12 @@ import java.lang.annotation.*;
 public @interface RateLimit {
 
     /**
-     * 时间窗口内允许的最大请求次数
+     * 时间窗口内允许的最大请求次数（令牌桶算法下为桶容量）
      */
     int limit() default 60;
 
     /**
-     * 时间窗口（秒）
+     * 时间窗口（秒）（令牌桶算法下为填满整桶所需时间）
      */
     long windowSeconds() default 60;
 
@@ -34,6 +34,33 @@ public @interface RateLimit {
      * 是否按用户ID区分
      */
     boolean perUser() default false;
-}
 
+    /**
+     * 限流算法
+     */
+    Algorithm algorithm() default Algorithm.SLIDING_WINDOW;
 
+    /**
+     * 每次从Redis预取的许可数，预取的许可在本地短时间内消费；
+     * 0 表示按 limit 自动计算，1 表示不预取（每次请求都访问Redis）
+     */
+    int leaseSize() default 0;
+
+    /**
+     * 限流算法
+     */
+    enum Algorithm {
+        /**
+         * 固定窗口计数，窗口边界处可能放行两倍突发
+         */
+        FIXED_WINDOW,
+        /**
+         * 滑动日志，任意 windowSeconds 区间内不超过 limit 次
+         */
+        SLIDING_WINDOW,
+        /**
+         * 令牌桶，允许不超过 limit 的突发，按 limit/windowSeconds 的速率恢复
+         */
+        TOKEN_BUCKET
+    }
+}
@@ -1,9 +1,7 @@
 package com.hospital.aspect;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hospital.annotation.OperationLog;
-import com.hospital.service.SystemService;
-import com.hospital.util.JwtUtil;
+import com.hospital.util.OperationLogWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -11,6 +9,9 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -35,13 +36,7 @@ import java.util.Map;
 public class OperationLogAspect {
 
     @Autowired
-    private SystemService systemService;
-
-    @Autowired
-    private JwtUtil jwtUtil;
-
-    @Autowired
-    private ObjectMapper objectMapper;
+    private OperationLogWriter operationLogWriter;
 
     /**
      * 定义切点：所有带有@OperationLog注解的方法
@@ -75,18 +70,16 @@ public class OperationLogAspect {
             operationLog.setOperationDesc(annotation.description());
         }
 
-        // 获取用户信息
+        // 获取用户信息：复用认证过滤器已解析的用户，不再重复解析JWT
         if (request != null) {
-            try {
-                String token = jwtUtil.getTokenFromRequest(request);
-                if (token != null && jwtUtil.validateToken(token)) {
-                    Long userId = jwtUtil.getUserId(token);
-                    String username = jwtUtil.getUsername(token);
-                    operationLog.setUserId(userId);
-                    operationLog.setUsername(username);
-                }
-            } catch (Exception e) {
-                log.warn("获取用户信息失败: {}", e.getMessage());
+            Object userId = request.getAttribute("userId");
+            if (userId instanceof Long) {
+                operationLog.setUserId((Long) userId);
+            }
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                operationLog.setUsername(authentication.getName());
             }
 
             // 获取请求信息
@@ -108,38 +101,28 @@ public class OperationLogAspect {
                 }
             }
 
-            // 获取请求参数
-            try {
-                if (args != null && args.length > 0) {
-                    // 过滤掉HttpServletRequest等不需要序列化的参数，并处理MultipartFile
-                    Object[] filteredArgs = new Object[args.length];
-                    for (int i = 0; i < args.length; i++) {
-                        if (args[i] instanceof HttpServletRequest ||
-                            args[i] instanceof javax.servlet.http.HttpServletResponse) {
-                            filteredArgs[i] = null;
-                        } else if (args[i] instanceof MultipartFile) {
-                            // 将MultipartFile转换为可序列化的Map
-                            MultipartFile file = (MultipartFile) args[i];
-                            Map<String, Object> fileInfo = new HashMap<>();
-                            fileInfo.put("originalFilename", file.getOriginalFilename());
-                            fileInfo.put("size", file.getSize());
-                            fileInfo.put("contentType", file.getContentType());
-                            fileInfo.put("name", file.getName());
-                            filteredArgs[i] = fileInfo;
-                        } else {
-                            filteredArgs[i] = args[i];
-                        }
-                    }
-                    String params = objectMapper.writeValueAsString(filteredArgs);
-                    // 限制参数长度
-                    if (params.length() > 2000) {
-                        params = params.substring(0, 2000) + "...";
+            // 获取请求参数：在执行目标方法之前截断序列化，避免业务方法修改入参后记录的不是原始请求
+            if (args != null && args.length > 0) {
+                // 过滤掉HttpServletRequest等不需要序列化的参数，并处理MultipartFile
+                Object[] filteredArgs = new Object[args.length];
+                for (int i = 0; i < args.length; i++) {
+                    if (args[i] instanceof HttpServletRequest ||
+                        args[i] instanceof javax.servlet.http.HttpServletResponse) {
+                        filteredArgs[i] = null;
+                    } else if (args[i] instanceof MultipartFile) {
+                        // 将MultipartFile转换为可序列化的Map
+                        MultipartFile file = (MultipartFile) args[i];
+                        Map<String, Object> fileInfo = new HashMap<>();
+                        fileInfo.put("originalFilename", file.getOriginalFilename());
+                        fileInfo.put("size", file.getSize());
+                        fileInfo.put("contentType", file.getContentType());
+                        fileInfo.put("name", file.getName());
+                        filteredArgs[i] = fileInfo;
+                    } else {
+                        filteredArgs[i] = args[i];
                     }
-                    operationLog.setRequestParams(params);
                 }
-            } catch (Exception e) {
-                log.warn("序列化请求参数失败: {}", e.getMessage());
-                operationLog.setRequestParams("参数序列化失败");
+                operationLog.setRequestParams(operationLogWriter.snapshot(filteredArgs));
             }
         }
 
@@ -176,20 +159,6 @@ public class OperationLogAspect {
                     }
                 }
             }
-
-            // 记录响应数据
-            try {
-                String responseData = objectMapper.writeValueAsString(result);
-                // 限制响应数据长度
-                if (responseData.length() > 2000) {
-                    responseData = responseData.substring(0, 2000) + "...";
-                }
-                operationLog.setResponseData(responseData);
-            } catch (Exception e) {
-                log.warn("序列化响应数据失败: {}", e.getMessage());
-                operationLog.setResponseData("响应序列化失败");
-            }
-
         } catch (Throwable e) {
             operationLog.setStatus(0); // 失败
             String errorMsg = e.getMessage();
@@ -204,11 +173,11 @@ public class OperationLogAspect {
             operationLog.setExecutionTime((int) executionTime);
             operationLog.setCreatedAt(LocalDateTime.now());
 
-            // 异步保存日志（避免影响主业务）
+            // 放入缓冲区由后台线程批量写入（避免影响主业务），响应数据由后台线程序列化，控制器返回后不再修改
             try {
-                systemService.recordOperationLog(operationLog);
+                operationLogWriter.submit(operationLog, result);
             } catch (Exception e) {
-                log.error("保存操作日志失败: {}", e.getMessage(), e);
+                log.error("提交操作日志失败: {}", e.getMessage(), e);
             }
         }
 
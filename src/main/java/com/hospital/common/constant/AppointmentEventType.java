@@ -0,0 +1,34 @@
+package com.hospital.common.constant;
+
+import lombok.Getter;
+
+/**
+ * 预约领域事件类型
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Getter
+public enum AppointmentEventType {
+
+    /**
+     * 预约创建
+     */
+    CREATED("预约创建"),
+
+    /**
+     * 预约取消
+     */
+    CANCELLED("预约取消"),
+
+    /**
+     * 爽约
+     */
+    NO_SHOW("爽约");
+
+    private final String description;
+
+    AppointmentEventType(String description) {
+        this.description = description;
+    }
+}
@@ -24,7 +24,10 @@ public class CacheConstants {
     public static final String CACHE_OSS_SIGNED_URL_PREFIX = REDIS_KEY_PREFIX + "oss:signed:url:";
     public static final String CACHE_CONVERSATION_LIST_PREFIX = REDIS_KEY_PREFIX + "conversation:list:userId:";
     public static final String CACHE_CONVERSATION_COUNT_PREFIX = REDIS_KEY_PREFIX + "conversation:count:userId:";
-    public static final String CACHE_CONVERSATION_MESSAGE_LIST_PREFIX = REDIS_KEY_PREFIX + "conversation:messages:conversationId:";
+    public static final String CACHE_CONVERSATION_MESSAGE_TAIL_PREFIX = REDIS_KEY_PREFIX + "conversation:messages:tail:";
+    public static final String CACHE_CONVERSATION_MESSAGE_TAIL_VERSION_PREFIX = REDIS_KEY_PREFIX + "conversation:messages:tail:ver:";
+    public static final String CONVERSATION_INBOX_PREFIX = REDIS_KEY_PREFIX + "conversation:inbox:userId:";
+    public static final String CONVERSATION_INBOX_STATE_PREFIX = REDIS_KEY_PREFIX + "conversation:inbox:state:userId:";
 
     /**
      * 体质相关缓存键
@@ -57,16 +60,106 @@ public class CacheConstants {
     public static final String DOCTOR_LIST_RECOMMENDED_CACHE_KEY = REDIS_KEY_PREFIX + "common:doctor:list:recommended";
     public static final String DOCTOR_LIST_BY_DEPT_CACHE_PREFIX = REDIS_KEY_PREFIX + "common:doctor:list:dept:";
 
+    /**
+     * 医生排班视图哈希键前缀（后接 doctorId），号源变化时原地调整
+     */
+    public static final String SCHEDULE_VIEW_PREFIX = REDIS_KEY_PREFIX + "schedule:view:doctor:";
+
+    /**
+     * 体质测试问卷缓存键
+     */
+    public static final String CONSTITUTION_QUESTIONNAIRE_CACHE_KEY = REDIS_KEY_PREFIX + "common:constitution:questionnaire";
+
+    /**
+     * 排班号源预扣相关键：号源哈希、排班修改版本号、待回写的脏集合
+     */
+    public static final String SCHEDULE_QUOTA_PREFIX = REDIS_KEY_PREFIX + "schedule:quota:id:";
+    public static final String SCHEDULE_QUOTA_VERSION_PREFIX = REDIS_KEY_PREFIX + "schedule:quota:version:";
+    public static final String SCHEDULE_QUOTA_DIRTY_KEY = REDIS_KEY_PREFIX + "schedule:quota:dirty";
+
+    /**
+     * 爽约检测：按时段结束时间排序的待检测预约 ZSET，以及单节点执行租约
+     */
+    public static final String APPOINTMENT_NO_SHOW_DUE_KEY = REDIS_KEY_PREFIX + "appointment:noshow:due";
+    public static final String APPOINTMENT_NO_SHOW_LEASE_KEY = REDIS_KEY_PREFIX + "appointment:noshow:lease";
+
+    /**
+     * 预约统计汇总：增量刷新水位（数据库时间）、分批刷新进度，以及单节点执行租约
+     */
+    public static final String STATISTICS_ROLLUP_WATERMARK_KEY = REDIS_KEY_PREFIX + "statistics:rollup:watermark";
+    public static final String STATISTICS_ROLLUP_CURSOR_KEY = REDIS_KEY_PREFIX + "statistics:rollup:cursor";
+    public static final String STATISTICS_ROLLUP_LEASE_KEY = REDIS_KEY_PREFIX + "statistics:rollup:lease";
+
+    /**
+     * 排队号序列相关键前缀（后接 doctorId:date:timeSlot）：序列、空号集合、数据库兜底分配过的最大号码
+     */
+    public static final String APPOINTMENT_QUEUE_SEQ_PREFIX = REDIS_KEY_PREFIX + "appointment:queue:seq:";
+    public static final String APPOINTMENT_QUEUE_FREE_PREFIX = REDIS_KEY_PREFIX + "appointment:queue:free:";
+    public static final String APPOINTMENT_QUEUE_FLOOR_PREFIX = REDIS_KEY_PREFIX + "appointment:queue:floor:";
+
+    /**
+     * 缓存标签集合键前缀（后接标签名，成员为该标签下的缓存键，见 CacheTags）
+     */
+    public static final String CACHE_TAG_PREFIX = REDIS_KEY_PREFIX + "cache:tag:";
+
+    /**
+     * 二级缓存失效广播频道（Redis Pub/Sub）
+     */
+    public static final String CACHE_INVALIDATE_CHANNEL = REDIS_KEY_PREFIX + "cache:invalidate";
+
+    /**
+     * 登录会话吊销广播频道（Redis Pub/Sub），消息为用户ID，"*" 表示全部用户
+     */
+    public static final String AUTH_REVOKE_CHANNEL = REDIS_KEY_PREFIX + "auth:revoke";
+
+    /**
+     * 搜索索引增量更新广播频道（Redis Pub/Sub），消息为 节点ID|文档类型|文档ID
+     */
+    public static final String SEARCH_INDEX_CHANNEL = REDIS_KEY_PREFIX + "search:index";
+
+    /**
+     * 药膳协同过滤模型增量更新广播频道（Redis Pub/Sub），消息为 节点ID|药膳ID|符号|该用户其他收藏（逗号分隔）
+     */
+    public static final String ITEM_CF_CHANNEL = REDIS_KEY_PREFIX + "recommendation:item-cf";
+
+    /**
+     * WebSocket集群投递：用户所在节点集合，以及每个节点订阅的投递频道（后缀为节点ID）
+     */
+    public static final String WEBSOCKET_USER_NODES_PREFIX = REDIS_KEY_PREFIX + "ws:user:nodes:";
+    public static final String WEBSOCKET_NODE_CHANNEL_PREFIX = REDIS_KEY_PREFIX + "ws:node:";
+
+    /**
+     * 内容计数器：待落库的增量哈希（后接 {目标类型}:{分片}，字段为 {ID}:{指标}），
+     * 以及按浏览、点赞、收藏加权的热度排行 Sorted Set（后接目标类型）
+     */
+    public static final String COUNTER_DELTA_PREFIX = REDIS_KEY_PREFIX + "counter:delta:";
+    public static final String COUNTER_POPULAR_PREFIX = REDIS_KEY_PREFIX + "counter:popular:";
+
+    /**
+     * 缓存回源加载锁前缀（后接缓存键），保证同一键同一时刻只有一个节点查库
+     */
+    public static final String CACHE_LOAD_LOCK_PREFIX = REDIS_KEY_PREFIX + "cache:load:lock:";
+
+    /**
+     * 异步导出任务状态键前缀（后接 taskId）
+     */
+    public static final String EXPORT_TASK_PREFIX = REDIS_KEY_PREFIX + "export:task:";
+
     /**
      * AI推荐相关缓存键前缀
      */
-    public static final String AI_RECOMMENDATION_REASON_CACHE_PREFIX = REDIS_KEY_PREFIX + "ai:recommendation:reason:";
     public static final String AI_CONVERSATION_CACHE_PREFIX = REDIS_KEY_PREFIX + "ai:conversation:";
-    public static final String AI_QUESTION_CACHE_PREFIX = REDIS_KEY_PREFIX + "ai:question:";
+    public static final String AI_LLM_RESPONSE_CACHE_PREFIX = REDIS_KEY_PREFIX + "ai:llm:response:";
     public static final String AI_CF_RECOMMEND_CACHE_PREFIX = REDIS_KEY_PREFIX + "ai:recommendation:cf:user:";
     public static final String AI_CONTENT_RECOMMEND_CACHE_PREFIX = REDIS_KEY_PREFIX + "ai:recommendation:content:user:";
     public static final String AI_PERSONALIZED_RECOMMEND_CACHE_PREFIX = REDIS_KEY_PREFIX + "ai:recommendation:personal:user:";
 
+    /**
+     * 用户收藏集合键前缀（后接 收藏类型:user:用户ID），集合中除收藏的内容ID外含一个占位成员，表示已加载；
+     * 同名加 :version 后缀的键为收藏变更版本号，防止懒加载写入变更提交前读到的数据
+     */
+    public static final String FAVORITE_MEMBERSHIP_PREFIX = REDIS_KEY_PREFIX + "favorite:";
+
     // ==================== 缓存过期时间（秒） ====================
 
     /**
@@ -77,7 +170,9 @@ public class CacheConstants {
     public static final long CACHE_OSS_SIGNED_URL_TTL_SECONDS = 3300; // OSS签名URL缓存55分钟（略小于签名URL的60分钟有效期）
     public static final long CACHE_CONVERSATION_LIST_TTL_SECONDS = 120; // 会话列表缓存2分钟（会话列表更新频繁）
     public static final long CACHE_CONVERSATION_COUNT_TTL_SECONDS = 120; // 会话总数缓存2分钟
-    public static final long CACHE_CONVERSATION_MESSAGE_LIST_TTL_SECONDS = 60; // 会话消息列表缓存1分钟
+    public static final long CACHE_CONVERSATION_MESSAGE_TAIL_TTL_SECONDS = 1800; // 会话最新消息列表缓存30分钟（发送消息时原地追加）
+    public static final int CONVERSATION_MESSAGE_TAIL_SIZE = 50; // 每个会话缓存的最新消息条数
+    public static final long CONVERSATION_INBOX_TTL_SECONDS = 86400; // 用户会话收件箱缓存1天（会话变更时原地更新）
 
     /**
      * 体质相关缓存TTL（小时）
@@ -102,6 +197,7 @@ public class CacheConstants {
     /**
      * 排班相关缓存TTL
      */
+    public static final long SCHEDULE_VIEW_TTL_SECONDS = 3600; // 医生排班视图哈希（1小时，兜底号源对账修正等未同步的偏差）
     public static final long ADMIN_SCHEDULE_LIST_TTL_SECONDS = 300; // 管理员排班列表缓存（5分钟）
 
     /**
@@ -109,6 +205,11 @@ public class CacheConstants {
      */
     public static final long AI_RECOMMENDATION_TTL_SECONDS = 1800; // AI推荐结果缓存30分钟
 
+    /**
+     * 用户收藏集合TTL
+     */
+    public static final long FAVORITE_MEMBERSHIP_TTL_SECONDS = 86400; // 用户收藏集合1天（每次读取续期）
+
     /**
      * 区域相关缓存键前缀
      */
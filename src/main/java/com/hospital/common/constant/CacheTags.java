@@ -0,0 +1,66 @@
+package com.hospital.common.constant;
+
+/**
+ * 缓存标签
+ * 列表、分页等一组相关缓存写入时登记到同一标签，数据变更时按标签批量失效，
+ * 替代 KEYS/SCAN 模式匹配删除。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public final class CacheTags {
+
+    private CacheTags() {
+    }
+
+    /** 管理端操作日志分页 */
+    public static final String OPLOG_LIST = "oplog:list";
+
+    /** 管理端预约分页 */
+    public static final String ADMIN_APPOINTMENT_LIST = "admin:appointment:list";
+
+    /** 管理端排班分页 */
+    public static final String ADMIN_SCHEDULE_LIST = "admin:schedule:list";
+
+    /** 预约统计（月度、科室排行、医生排行、趋势、最近预约） */
+    public static final String APPOINTMENT_STATS = "stats:appointment";
+
+    /** 管理端评价分页 */
+    public static final String ADMIN_REVIEW_LIST = "admin:review:list";
+
+    /** 健康文章列表与搜索分页 */
+    public static final String ARTICLE_LIST = "article:list";
+
+    /** 按科室的医生列表 */
+    public static final String DOCTOR_LIST_BY_DEPT = "doctor:list:dept";
+
+    /** 按分类的科室列表 */
+    public static final String DEPT_LIST_BY_CATEGORY = "dept:list:category";
+
+    /** 医生端接诊记录分页 */
+    public static final String DOCTOR_CONSULTATION_LIST = "consultation:list:doctor";
+
+    /** 患者端接诊记录分页 */
+    public static final String PATIENT_CONSULTATION_LIST = "consultation:list:patient";
+
+    /**
+     * 医生评价分页
+     */
+    public static String doctorReviews(Long doctorId) {
+        return "doctor:" + doctorId + ":reviews";
+    }
+
+    /**
+     * 用户会话列表分页
+     */
+    public static String conversationList(Long userId) {
+        return "conversation:list:user:" + userId;
+    }
+
+    /**
+     * 用户的协同过滤、内容偏好与个性化推荐结果
+     */
+    public static String userRecommendations(Long userId) {
+        return "recommendation:user:" + userId;
+    }
+}
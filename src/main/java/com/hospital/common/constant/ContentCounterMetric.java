@@ -0,0 +1,37 @@
+package com.hospital.common.constant;
+
+import lombok.Getter;
+
+/**
+ * 内容计数指标
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Getter
+public enum ContentCounterMetric {
+
+    /**
+     * 浏览次数
+     */
+    VIEW("view_count"),
+
+    /**
+     * 点赞次数
+     */
+    LIKE("like_count"),
+
+    /**
+     * 收藏次数
+     */
+    FAVORITE("favorite_count");
+
+    /**
+     * 对应的计数列
+     */
+    private final String column;
+
+    ContentCounterMetric(String column) {
+        this.column = column;
+    }
+}
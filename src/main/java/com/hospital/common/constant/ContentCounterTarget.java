@@ -0,0 +1,63 @@
+package com.hospital.common.constant;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 使用内容计数器的实体
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Getter
+public enum ContentCounterTarget {
+
+    /**
+     * 养生文章：浏览、点赞、收藏，维护热度排行
+     */
+    ARTICLE("health_article", "status = 1",
+            ContentCounterMetric.VIEW, ContentCounterMetric.LIKE, ContentCounterMetric.FAVORITE),
+
+    /**
+     * 药膳食谱：浏览、收藏，维护热度排行
+     */
+    RECIPE("herbal_recipe", "status = 1",
+            ContentCounterMetric.VIEW, ContentCounterMetric.FAVORITE),
+
+    /**
+     * 文章评论：点赞，不参与排行
+     */
+    COMMENT("article_comment", null,
+            ContentCounterMetric.LIKE);
+
+    /**
+     * 计数所在的表
+     */
+    private final String table;
+
+    /**
+     * 参与热度排行的记录条件，为 null 时不维护排行
+     */
+    private final String popularCondition;
+
+    /**
+     * 表中存在的计数指标
+     */
+    private final List<ContentCounterMetric> metrics;
+
+    ContentCounterTarget(String table, String popularCondition, ContentCounterMetric... metrics) {
+        this.table = table;
+        this.popularCondition = popularCondition;
+        this.metrics = Collections.unmodifiableList(Arrays.asList(metrics));
+    }
+
+    /**
+     * 是否维护热度排行
+     */
+    public boolean isRanked() {
+        return popularCondition != null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.hospital.common.constant;
+
+import lombok.Getter;
+
+/**
+ * 可收藏的内容类型
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Getter
+public enum FavoriteTarget {
+
+    /**
+     * 养生文章
+     */
+    ARTICLE("article", "养生文章"),
+
+    /**
+     * 药膳食谱
+     */
+    RECIPE("recipe", "药膳食谱");
+
+    /**
+     * 收藏集合键中的类型段
+     */
+    private final String keySegment;
+
+    private final String description;
+
+    FavoriteTarget(String keySegment, String description) {
+        this.keySegment = keySegment;
+        this.description = description;
+    }
+}
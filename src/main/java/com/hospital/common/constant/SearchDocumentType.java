@@ -0,0 +1,34 @@
+package com.hospital.common.constant;
+
+import lombok.Getter;
+
+/**
+ * 全文检索的文档类型
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Getter
+public enum SearchDocumentType {
+
+    /**
+     * 养生文章
+     */
+    ARTICLE("养生文章"),
+
+    /**
+     * 药膳食谱
+     */
+    RECIPE("药膳食谱"),
+
+    /**
+     * 穴位
+     */
+    ACUPOINT("穴位");
+
+    private final String description;
+
+    SearchDocumentType(String description) {
+        this.description = description;
+    }
+}
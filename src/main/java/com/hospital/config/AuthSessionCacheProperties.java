@@ -0,0 +1,44 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录会话本地缓存相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.auth.session-cache")
+public class AuthSessionCacheProperties {
+
+    /**
+     * 是否启用本地会话缓存，关闭后每个请求都到Redis校验会话。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地最多缓存的会话数。
+     */
+    private long maximumSize = 50000;
+
+    /**
+     * 已校验会话在本地的最长保留秒数，用于兜底丢失的吊销广播。
+     */
+    private long localTtlSeconds = 60;
+
+    /**
+     * 同一会话两次滑动续期的最小间隔（秒），须小于 localTtlSeconds。
+     */
+    private long renewIntervalSeconds = 30;
+
+    /**
+     * 批量提交续期的间隔（毫秒）。
+     */
+    private long renewFlushMs = 1000;
+
+    /**
+     * 单次续期脚本最多处理的会话数。
+     */
+    private int renewBatchSize = 200;
+}
@@ -0,0 +1,39 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 读穿透缓存加载（防击穿、提前刷新、过期后短暂返回旧值）相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.cache.loader")
+public class CacheLoaderProperties {
+
+    /**
+     * 逻辑过期后仍可返回旧值的秒数，期间由后台线程刷新；0 表示过期即回源。
+     */
+    private long staleSeconds = 60;
+
+    /**
+     * 概率提前刷新系数（XFetch 的 beta），越大越早刷新；0 表示关闭提前刷新。
+     */
+    private double earlyRefreshBeta = 1.0;
+
+    /**
+     * 回源加载锁的过期秒数，应大于最慢一次回源查询的耗时。
+     */
+    private long lockSeconds = 10;
+
+    /**
+     * 未抢到加载锁时等待其他节点写入缓存的最长毫秒数，超时后自行回源。
+     */
+    private long lockWaitMillis = 2000;
+
+    /**
+     * 等待期间轮询缓存的间隔毫秒数。
+     */
+    private long pollIntervalMillis = 50;
+}
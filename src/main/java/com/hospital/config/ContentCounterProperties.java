@@ -0,0 +1,65 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 浏览、点赞、收藏计数器相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.counter")
+public class ContentCounterProperties {
+
+    /**
+     * 是否在Redis中累积计数后批量落库；关闭后每次计数直接更新数据库。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每种实体的增量哈希分片数，分散热点键。
+     */
+    private int shards = 16;
+
+    /**
+     * 增量落库的间隔（毫秒），即数据库计数相对实际的最大延迟。
+     */
+    private long flushIntervalMs = 5000L;
+
+    /**
+     * 单条批量UPDATE最多包含的记录数。
+     */
+    private int flushBatchSize = 500;
+
+    /**
+     * 热度排行对外提供的记录数，读取排行时最多返回前多少名。
+     */
+    private int popularSize = 1000;
+
+    /**
+     * 热度排行在Redis中保留的候选记录数，也是从数据库重建排行时加载的记录数，小于 popularSize 时按 popularSize 处理。
+     * 排行外的记录只按计数增量进入排行，候选集留出余量，避免它们在追上数据库中的热度之前就被淘汰。
+     */
+    private int popularCandidateSize = 4000;
+
+    /**
+     * 精选文章从热度排行前多少名中挑选，不足时回退到数据库查询。
+     */
+    private int recommendScanSize = 200;
+
+    /**
+     * 一次浏览计入热度的分值。
+     */
+    private double viewWeight = 1.0;
+
+    /**
+     * 一次点赞计入热度的分值。
+     */
+    private double likeWeight = 3.0;
+
+    /**
+     * 一次收藏计入热度的分值。
+     */
+    private double favoriteWeight = 5.0;
+}
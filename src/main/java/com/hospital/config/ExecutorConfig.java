@@ -0,0 +1,121 @@
+package com.hospital.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 业务线程池配置
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${hospital.executor.batch-query.core-size:4}")
+    private int batchQueryCoreSize;
+
+    @Value("${hospital.executor.batch-query.max-size:8}")
+    private int batchQueryMaxSize;
+
+    @Value("${hospital.executor.batch-query.queue-capacity:200}")
+    private int batchQueryQueueCapacity;
+
+    @Value("${hospital.executor.export.core-size:2}")
+    private int exportCoreSize;
+
+    @Value("${hospital.executor.export.queue-capacity:20}")
+    private int exportQueueCapacity;
+
+    @Value("${hospital.executor.cache-refresh.core-size:2}")
+    private int cacheRefreshCoreSize;
+
+    @Value("${hospital.executor.cache-refresh.max-size:4}")
+    private int cacheRefreshMaxSize;
+
+    @Value("${hospital.executor.cache-refresh.queue-capacity:100}")
+    private int cacheRefreshQueueCapacity;
+
+    @Value("${hospital.executor.appointment-event.core-size:2}")
+    private int appointmentEventCoreSize;
+
+    @Value("${hospital.executor.appointment-event.max-size:4}")
+    private int appointmentEventMaxSize;
+
+    @Value("${hospital.executor.appointment-event.queue-capacity:500}")
+    private int appointmentEventQueueCapacity;
+
+    /**
+     * 批量关联查询线程池（大列表并行加载医生/分类/患者等关联数据）
+     * 队列满时由调用线程执行，避免丢任务
+     */
+    @Bean("batchQueryExecutor")
+    public ThreadPoolTaskExecutor batchQueryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchQueryCoreSize);
+        executor.setMaxPoolSize(batchQueryMaxSize);
+        executor.setQueueCapacity(batchQueryQueueCapacity);
+        executor.setThreadNamePrefix("batch-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 异步导出线程池（大批量导出在后台生成文件）
+     * 线程数较小以限制对数据库的压力，队列满时拒绝提交
+     */
+    @Bean("exportExecutor")
+    public ThreadPoolTaskExecutor exportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(exportCoreSize);
+        executor.setMaxPoolSize(exportCoreSize);
+        executor.setQueueCapacity(exportQueueCapacity);
+        executor.setThreadNamePrefix("export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 缓存后台刷新线程池（提前刷新、过期旧值刷新）
+     * 刷新是尽力而为的，队列满时拒绝提交，由下一次读取再触发
+     */
+    @Bean("cacheRefreshExecutor")
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cacheRefreshCoreSize);
+        executor.setMaxPoolSize(cacheRefreshMaxSize);
+        executor.setQueueCapacity(cacheRefreshQueueCapacity);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 预约事件本地处理线程池（RabbitMQ 发送失败时的兜底）
+     * 队列满时由调用线程执行，保证通知不丢失
+     */
+    @Bean("appointmentEventExecutor")
+    public ThreadPoolTaskExecutor appointmentEventExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(appointmentEventCoreSize);
+        executor.setMaxPoolSize(appointmentEventMaxSize);
+        executor.setQueueCapacity(appointmentEventQueueCapacity);
+        executor.setThreadNamePrefix("appointment-event-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
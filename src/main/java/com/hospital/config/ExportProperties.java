@@ -0,0 +1,29 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Excel导出相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.export")
+public class ExportProperties {
+
+    /**
+     * 每批读取并写出的行数。
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 异步导出文件存放目录，为空时使用系统临时目录下的 hospital-export。
+     */
+    private String tempDir;
+
+    /**
+     * 异步导出任务状态及文件保留小时数。
+     */
+    private int retainHours = 24;
+}
@@ -0,0 +1,34 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 药膳物品协同过滤模型相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.recommendation.item-cf")
+public class ItemCfProperties {
+
+    /**
+     * 是否启用预计算模型；关闭后协同过滤推荐降级为热门药膳。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 全量重建的间隔（毫秒），修正增量更新的近似误差并纳入新上架的药膳。
+     */
+    private long rebuildIntervalMs = 1800000L;
+
+    /**
+     * 每个药膳保留的相似药膳数。
+     */
+    private int neighbors = 50;
+
+    /**
+     * 收藏数超过该值的用户不参与共现统计。
+     */
+    private int maxItemsPerUser = 200;
+}
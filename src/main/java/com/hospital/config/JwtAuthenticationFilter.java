@@ -2,8 +2,10 @@ package com.hospital.config;
 
 import com.hospital.common.constant.SystemSettingKeys;
 import com.hospital.config.SystemSettingManager;
+import com.hospital.util.AuthSessionCache;
 import com.hospital.util.JwtUtil;
 import com.hospital.util.RedisUtil;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,6 +21,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -37,6 +40,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private SystemSettingManager systemSettingManager;
 
+    @Autowired
+    private AuthSessionCache authSessionCache;
+
     // 会话过期时间（秒），用于滑动过期，配置项 hospital.auth.token-ttl-seconds
     @Value("${hospital.auth.token-ttl-seconds:7200}")
     private long tokenTtlSeconds;
@@ -70,18 +76,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         // 获取token
         String token = jwtUtil.getTokenFromRequest(request);
+        if (token == null) {
+            log.warn("Token无效或不存在，URI：{}", requestURI);
+            sendUnauthorizedResponse(response, "认证令牌无效或已过期");
+            return;
+        }
+
+        // 本地已校验过的会话直接放行，滑动续期限频后批量提交
+        AuthSessionCache.AuthSession cachedSession = authSessionCache.get(token);
+        if (cachedSession != null) {
+            authSessionCache.renew(cachedSession, resolveSessionTimeoutSeconds());
+            authenticate(request, cachedSession.getUserId(), cachedSession.getUsername(), cachedSession.getRoleType());
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long revocationVersion = authSessionCache.version();
 
-        // 如果没有token或token无效，直接返回401
-        if (token == null || !jwtUtil.validateToken(token)) {
+        // 如果token无效，直接返回401
+        Claims claims = jwtUtil.parseToken(token);
+        if (claims == null || claims.getExpiration() == null || !claims.getExpiration().after(new Date())) {
             log.warn("Token无效或不存在，URI：{}", requestURI);
             sendUnauthorizedResponse(response, "认证令牌无效或已过期");
             return;
         }
 
         // 从token中获取用户信息
-        Long userId = jwtUtil.getUserId(token);
-        String username = jwtUtil.getUsername(token);
-        Integer roleType = jwtUtil.getRoleType(token);
+        Long userId = claims.get("userId", Long.class);
+        String username = claims.getSubject();
+        Integer roleType = claims.get("roleType", Integer.class);
 
         if (userId == null || username == null) {
             log.warn("无法从token中解析用户信息，URI：{}", requestURI);
@@ -148,6 +170,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             log.warn("刷新Redis会话TTL失败: tokenKey={}, error={}", tokenKey, e.getMessage());
         }
 
+        authSessionCache.put(token, new AuthSessionCache.AuthSession(userId, username, roleType,
+                claims.getExpiration().getTime(), tokenKey, userTokenKey), revocationVersion);
+
+        authenticate(request, userId, username, roleType);
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, Long userId, String username, Integer roleType) {
         // 创建认证对象
         UsernamePasswordAuthenticationToken authentication = 
             new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
@@ -159,8 +189,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 将用户信息放入请求属性中
         request.setAttribute("userId", userId);
         request.setAttribute("roleType", roleType);
-
-        filterChain.doFilter(request, response);
     }
 
     private long resolveSessionTimeoutSeconds() {
@@ -0,0 +1,69 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 大模型调用网关相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.llm.gateway")
+public class LlmGatewayProperties {
+
+    /**
+     * 同时进行中的上游调用上限（含流式输出）。
+     */
+    private int maxConcurrent = 8;
+
+    /**
+     * 并发已满时允许排队的请求数，超出后立即拒绝。
+     */
+    private int maxQueued = 32;
+
+    /**
+     * 请求在队列中等待的最长时间（毫秒），超时未开始的请求直接失败。
+     */
+    private long queueTimeoutMs = 5000L;
+
+    /**
+     * 单个用户同时排队和进行中的请求上限，避免一个用户占满并发。
+     */
+    private int perUserMaxPending = 2;
+
+    /**
+     * 系统调用（不属于任何用户，如推荐理由生成）同时排队和进行中的请求上限，应小于 maxConcurrent，为用户问答保留并发。
+     */
+    private int systemMaxPending = 3;
+
+    /**
+     * 非流式调用从提交到返回的总超时（毫秒），含排队时间。
+     */
+    private long requestTimeoutMs = 30000L;
+
+    /**
+     * 同步页面请求等待 AI 结果的最长时间（毫秒），超时先返回降级内容；上游调用继续完成并写入回答缓存。
+     */
+    private long pageWaitMs = 2000L;
+
+    /**
+     * 流式输出的总超时（毫秒）。
+     */
+    private long streamTimeoutMs = 120000L;
+
+    /**
+     * 连续失败多少次后熔断。
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * 熔断持续时间（毫秒），之后放行一个探测请求。
+     */
+    private long openDurationMs = 30000L;
+
+    /**
+     * 按规范化提示词缓存回答的时长（秒），0 表示不缓存。
+     */
+    private long responseCacheTtlSeconds = 7200L;
+}
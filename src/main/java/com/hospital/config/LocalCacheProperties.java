@@ -0,0 +1,29 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地一级缓存（Caffeine）相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.cache.local")
+public class LocalCacheProperties {
+
+    /**
+     * 是否启用本地一级缓存，关闭后所有读写直接走Redis。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存最大条目数。
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * 本地缓存最长保留秒数（键的TTL更短时以键的TTL为准），用于兜底丢失的失效广播。
+     */
+    private long maxTtlSeconds = 300;
+}
@@ -0,0 +1,39 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 爽约检测相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.appointment.no-show")
+public class NoShowProperties {
+
+    /**
+     * 检测到期预约的间隔（毫秒），决定爽约标记相对时段结束的最大延迟。
+     */
+    private long sweepIntervalMs = 30000L;
+
+    /**
+     * 每个事务标记的最大预约数。
+     */
+    private int chunkSize = 200;
+
+    /**
+     * 单次检测最多处理的分段数，剩余的留到下一轮。
+     */
+    private int maxChunksPerSweep = 50;
+
+    /**
+     * 从数据库补录待检测预约时每页读取的行数。
+     */
+    private int seedPageSize = 1000;
+
+    /**
+     * 单节点执行租约的秒数，应大于一次检测或补录的耗时。
+     */
+    private long leaseSeconds = 120L;
+}
@@ -0,0 +1,49 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 操作日志异步写入相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.operation-log")
+public class OperationLogProperties {
+
+    /**
+     * 待写入日志的缓冲区容量。
+     */
+    private int bufferCapacity = 8192;
+
+    /**
+     * 每次批量插入的最大条数，攒满即写入。
+     */
+    private int batchSize = 200;
+
+    /**
+     * 未攒满一批时的最长等待时间（毫秒）。
+     */
+    private long flushIntervalMs = 500L;
+
+    /**
+     * 缓冲区满时的处理方式：DROP 直接丢弃，BLOCK 阻塞请求线程至多 blockTimeoutMs 后丢弃。
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * BLOCK 策略下请求线程的最长等待时间（毫秒）。
+     */
+    private long blockTimeoutMs = 50L;
+
+    /**
+     * 请求参数、响应数据序列化后保留的最大长度。
+     */
+    private int maxPayloadLength = 2000;
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+}
@@ -0,0 +1,24 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 排队号分配相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.appointment.queue")
+public class QueueNumberProperties {
+
+    /**
+     * 是否回收取消预约释放的排队号（开启后新预约优先复用最小的空号）。
+     */
+    private boolean reclaimCancelled = false;
+
+    /**
+     * 排队号序列键在排班日期之后保留的天数。
+     */
+    private int keyRetainDays = 2;
+}
@@ -17,7 +17,8 @@ import org.springframework.context.annotation.Configuration;
 /**
  * RabbitMQ 配置
  *
- * 负责声明医生接诊完成后提醒患者进行体质测试所需的交换机、队列以及路由键。
+ * 负责声明医生接诊完成后提醒患者进行体质测试所需的交换机、队列以及路由键，
+ * 以及预约领域事件（创建、取消、爽约）的交换机、队列和有界消费者容器。
  */
 @Configuration
 public class RabbitMQConfig {
@@ -40,6 +41,24 @@ public class RabbitMQConfig {
     @Value("${hospital.rabbitmq.conversation.routing-key:hospital.conversation.message}")
     private String conversationRoutingKey;
 
+    @Value("${hospital.rabbitmq.appointment.exchange:hospital.appointment.exchange}")
+    private String appointmentExchange;
+
+    @Value("${hospital.rabbitmq.appointment.queue:hospital.appointment.event.queue}")
+    private String appointmentQueue;
+
+    @Value("${hospital.rabbitmq.appointment.routing-key:hospital.appointment.event}")
+    private String appointmentRoutingKey;
+
+    @Value("${hospital.rabbitmq.appointment.concurrency:2}")
+    private int appointmentConcurrency;
+
+    @Value("${hospital.rabbitmq.appointment.max-concurrency:4}")
+    private int appointmentMaxConcurrency;
+
+    @Value("${hospital.rabbitmq.appointment.prefetch:20}")
+    private int appointmentPrefetch;
+
     private final ObjectProvider<com.fasterxml.jackson.databind.ObjectMapper> objectMapperProvider;
 
     public RabbitMQConfig(ObjectProvider<com.fasterxml.jackson.databind.ObjectMapper> objectMapperProvider) {
@@ -66,6 +85,16 @@ public class RabbitMQConfig {
         return new Queue(conversationQueue, true);
     }
 
+    @Bean
+    public DirectExchange appointmentDirectExchange() {
+        return new DirectExchange(appointmentExchange, true, false);
+    }
+
+    @Bean
+    public Queue appointmentEventQueue() {
+        return new Queue(appointmentQueue, true);
+    }
+
     @Bean
     public Binding consultationCompletedBinding() {
         return BindingBuilder
@@ -82,6 +111,14 @@ public class RabbitMQConfig {
                 .with(conversationRoutingKey);
     }
 
+    @Bean
+    public Binding appointmentEventBinding() {
+        return BindingBuilder
+                .bind(appointmentEventQueue())
+                .to(appointmentDirectExchange())
+                .with(appointmentRoutingKey);
+    }
+
     @Bean
     public MessageConverter jacksonMessageConverter() {
         com.fasterxml.jackson.databind.ObjectMapper mapper =
@@ -106,6 +143,22 @@ public class RabbitMQConfig {
         return factory;
     }
 
+    /**
+     * 预约事件消费者容器：消费者线程数有上限，避免通知、缓存失效等副作用占满数据库连接
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory appointmentEventContainerFactory(
+            ConnectionFactory connectionFactory,
+            MessageConverter messageConverter) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter);
+        factory.setConcurrentConsumers(appointmentConcurrency);
+        factory.setMaxConcurrentConsumers(Math.max(appointmentMaxConcurrency, appointmentConcurrency));
+        factory.setPrefetchCount(appointmentPrefetch);
+        return factory;
+    }
+
     public String getConsultationExchange() {
         return consultationExchange;
     }
@@ -129,5 +182,16 @@ public class RabbitMQConfig {
     public String getConversationRoutingKey() {
         return conversationRoutingKey;
     }
-}
 
+    public String getAppointmentExchange() {
+        return appointmentExchange;
+    }
+
+    public String getAppointmentQueue() {
+        return appointmentQueue;
+    }
+
+    public String getAppointmentRoutingKey() {
+        return appointmentRoutingKey;
+    }
+}
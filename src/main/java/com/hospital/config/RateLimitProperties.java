@@ -0,0 +1,39 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 接口限流相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 自动预取时每次预取 limit 的几分之一（leaseSize=0 时生效）。
+     */
+    private int leaseDivisor = 20;
+
+    /**
+     * 单次预取的最大许可数。
+     */
+    private int maxLeaseSize = 50;
+
+    /**
+     * 本地预取许可的有效期（毫秒），过期未用的许可作废，避免长时间占用其他节点的配额。
+     */
+    private long leaseTtlMs = 1000L;
+
+    /**
+     * 本地最多保留预取许可的限流键数量。
+     */
+    private long localMaxKeys = 100000L;
+
+    /**
+     * Redis 不可用时是否放行请求。
+     */
+    private boolean failOpen = true;
+}
@@ -0,0 +1,24 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 药膳名称词典相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.recipe-dictionary")
+public class RecipeDictionaryProperties {
+
+    /**
+     * 是否启用内存词典；关闭后 AI 推荐结果逐行到数据库模糊匹配药膳名称。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 检查药膳数据是否变化的间隔（毫秒），有变化时重建词典。
+     */
+    private long refreshIntervalMs = 60000L;
+}
@@ -0,0 +1,29 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 药膳内容特征库相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.recommendation.content")
+public class RecipeFeatureProperties {
+
+    /**
+     * 是否启用内存特征库；关闭后内容推荐逐请求加载候选药膳并按字符串打分。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 检查药膳数据是否变化的间隔（毫秒），有变化时重新编码。
+     */
+    private long refreshIntervalMs = 60000L;
+
+    /**
+     * 热度（收藏数、浏览数）的刷新间隔（毫秒）；热度不计入数据指纹，到期时无论内容是否变化都重新编码。
+     */
+    private long popularityRefreshMs = 600000L;
+}
@@ -6,13 +6,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.messaging.UserMessageSender;
+import com.hospital.messaging.WebSocketSessionRegistry;
+import com.hospital.service.RecipeSimilarityService;
+import com.hospital.service.SearchIndexService;
+import com.hospital.util.AuthSessionCache;
+import com.hospital.util.TwoLevelCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Redis配置类
  *
@@ -56,5 +68,81 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
 
+    /**
+     * 订阅二级缓存失效广播，收到其他节点的写入/删除后清除本地缓存
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidateListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                          TwoLevelCache twoLevelCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> twoLevelCache.handleInvalidateMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheConstants.CACHE_INVALIDATE_CHANNEL));
+        return container;
+    }
+
+    /**
+     * 订阅登录会话吊销广播，清除本节点缓存的会话
+     */
+    @Bean
+    public RedisMessageListenerContainer authRevokeListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                     AuthSessionCache authSessionCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> authSessionCache.handleRevokeMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheConstants.AUTH_REVOKE_CHANNEL));
+        return container;
+    }
+
+    /**
+     * 订阅搜索索引更新广播，按数据库最新状态更新本节点的内存索引
+     */
+    @Bean
+    public RedisMessageListenerContainer searchIndexListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                      SearchIndexService searchIndexService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> searchIndexService.handleMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheConstants.SEARCH_INDEX_CHANNEL));
+        return container;
+    }
+
+    /**
+     * 订阅药膳协同过滤模型更新广播，同步其他节点上发生的收藏变化
+     */
+    @Bean
+    public RedisMessageListenerContainer itemCfListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                 RecipeSimilarityService recipeSimilarityService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> recipeSimilarityService.handleMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheConstants.ITEM_CF_CHANNEL));
+        return container;
+    }
+
+    /**
+     * 启用WebSocket集群投递时订阅本节点的投递频道，收到转发消息后推送给本地连接
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "hospital.websocket", name = "cluster-enabled", havingValue = "true")
+    public RedisMessageListenerContainer webSocketRouteListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                         UserMessageSender userMessageSender,
+                                                                         WebSocketSessionRegistry sessionRegistry) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> userMessageSender.handleRouteMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheConstants.WEBSOCKET_NODE_CHANNEL_PREFIX + sessionRegistry.getNodeId()));
+        return container;
+    }
+}
@@ -0,0 +1,29 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批量生成排班相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.schedule.batch")
+public class ScheduleBatchProperties {
+
+    /**
+     * 单条多行 INSERT 语句包含的排班数。
+     */
+    private int insertBatchSize = 500;
+
+    /**
+     * 每个事务提交的排班数，大批量生成时分段提交，避免长事务和过大的undo日志。
+     */
+    private int commitChunkSize = 5000;
+
+    /**
+     * 预查已有排班时单次 IN 查询的医生数。
+     */
+    private int doctorQueryBatchSize = 200;
+}
@@ -0,0 +1,39 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 号源预扣（Redis）相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.schedule.quota")
+public class ScheduleQuotaProperties {
+
+    /**
+     * 是否启用Redis号源预扣；关闭后回退为直接扣减数据库号源。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 号源回写数据库的间隔（毫秒）。
+     */
+    private long flushIntervalMs = 1000L;
+
+    /**
+     * 单次回写的最大排班数。
+     */
+    private int flushBatchSize = 200;
+
+    /**
+     * 预热未来多少天的排班号源（含当天）。
+     */
+    private int preloadDays = 7;
+
+    /**
+     * 号源键在排班日期之后保留的天数。
+     */
+    private int keyRetainDays = 2;
+}
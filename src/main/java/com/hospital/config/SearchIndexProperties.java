@@ -0,0 +1,54 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 内存搜索索引相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.search.index")
+public class SearchIndexProperties {
+
+    /**
+     * 是否启用内存索引；关闭后文章、食谱、穴位搜索全部走数据库模糊查询。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 全量重建的间隔（毫秒），兜底未经应用写入（如直接改库）的数据变更。
+     */
+    private long rebuildIntervalMs = 600000L;
+
+    /**
+     * BM25 词频饱和参数。
+     */
+    private float k1 = 1.2f;
+
+    /**
+     * BM25 长度归一化参数。
+     */
+    private float b = 0.75f;
+
+    /**
+     * 标题类字段（文章标题、食谱名、穴位名）的权重。
+     */
+    private float titleBoost = 3.0f;
+
+    /**
+     * 标签、拼音等短字段的权重。
+     */
+    private float keywordBoost = 2.0f;
+
+    /**
+     * 摘要、功效等正文字段的权重。
+     */
+    private float bodyBoost = 1.0f;
+
+    /**
+     * 前缀提示的最大条数。
+     */
+    private int maxSuggestions = 10;
+}
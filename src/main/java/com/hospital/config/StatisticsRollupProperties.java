@@ -0,0 +1,49 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 预约统计汇总相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.statistics.rollup")
+public class StatisticsRollupProperties {
+
+    /**
+     * 增量刷新的间隔（毫秒），决定统计看板相对预约变更的最大延迟。
+     */
+    private long refreshIntervalMs = 30000L;
+
+    /**
+     * 增量刷新时向前多查找的秒数，覆盖长事务晚于水位提交的变更。
+     */
+    private long overlapSeconds = 300L;
+
+    /**
+     * 单次增量刷新最多处理的日期数，剩余的留到下一轮。
+     */
+    private int maxDatesPerRefresh = 200;
+
+    /**
+     * 每日重建时覆盖今天之前的天数。
+     */
+    private int compactionPastDays = 90;
+
+    /**
+     * 每日重建时覆盖今天之后的天数（已提前预约的日期）。
+     */
+    private int compactionFutureDays = 60;
+
+    /**
+     * 每日重建等待增量刷新释放租约的最长秒数，超时则跳过本次重建。
+     */
+    private long compactionWaitSeconds = 120L;
+
+    /**
+     * 单节点执行租约的秒数，应大于一次刷新或重建的耗时。
+     */
+    private long leaseSeconds = 600L;
+}
@@ -2,13 +2,16 @@ package com.hospital.config;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket / STOMP 配置。
+ * 每个节点使用内存 Broker 管理本节点的订阅，跨节点推送由 UserMessageSender 经 Redis 转发到用户所在节点。
  */
 @Configuration
 @EnableWebSocketMessageBroker
@@ -17,6 +20,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtHandshakeInterceptor handshakeInterceptor;
     private final JwtHandshakeHandler handshakeHandler;
+    private final WebSocketProperties properties;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -33,5 +37,30 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.enableSimpleBroker("/queue");
         registry.setUserDestinationPrefix("/user");
     }
-}
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        WebSocketProperties.ChannelPool pool = properties.getInbound();
+        registration.taskExecutor()
+                .corePoolSize(pool.getCoreSize())
+                .maxPoolSize(pool.getMaxSize())
+                .queueCapacity(pool.getQueueCapacity());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        WebSocketProperties.ChannelPool pool = properties.getOutbound();
+        registration.taskExecutor()
+                .corePoolSize(pool.getCoreSize())
+                .maxPoolSize(pool.getMaxSize())
+                .queueCapacity(pool.getQueueCapacity());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 慢连接的发送耗时或缓冲超过上限时断开，避免单个客户端拖住出站线程
+        registration.setSendTimeLimit(properties.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(properties.getSendBufferSizeLimit())
+                .setMessageSizeLimit(properties.getMessageSizeLimit());
+    }
+}
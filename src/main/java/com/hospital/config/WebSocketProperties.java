@@ -0,0 +1,68 @@
+package com.hospital.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket 推送相关配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hospital.websocket")
+public class WebSocketProperties {
+
+    /**
+     * 是否启用集群投递：在 Redis 中登记用户所在节点，推送给其他节点上的连接时经 Redis Pub/Sub 转发。
+     * 单节点部署保持关闭即可。
+     */
+    private boolean clusterEnabled = false;
+
+    /**
+     * 用户节点登记的过期秒数，节点定期刷新仍在线用户的登记。
+     */
+    private long registryTtlSeconds = 1800L;
+
+    /**
+     * 刷新在线用户登记的间隔（毫秒），应明显小于 registryTtlSeconds。
+     */
+    private long registryRefreshMs = 600000L;
+
+    /**
+     * 客户端入站通道线程池。
+     */
+    private ChannelPool inbound = new ChannelPool();
+
+    /**
+     * 客户端出站通道线程池。
+     */
+    private ChannelPool outbound = new ChannelPool();
+
+    /**
+     * 单个连接发送一条消息的最长耗时（毫秒），超过后关闭该慢连接。
+     */
+    private int sendTimeLimitMs = 10000;
+
+    /**
+     * 单个连接待发送数据的缓冲上限（字节），超过后关闭该慢连接。
+     */
+    private int sendBufferSizeLimit = 512 * 1024;
+
+    /**
+     * 入站消息大小上限（字节）。
+     */
+    private int messageSizeLimit = 64 * 1024;
+
+    @Data
+    public static class ChannelPool {
+
+        private int coreSize = Runtime.getRuntime().availableProcessors() * 2;
+
+        private int maxSize = Runtime.getRuntime().availableProcessors() * 4;
+
+        /**
+         * 队列容量，队列满且线程数达到上限时拒绝新消息
+         */
+        private int queueCapacity = 10000;
+    }
+}
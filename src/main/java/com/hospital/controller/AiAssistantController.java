@@ -0,0 +1,79 @@
+package com.hospital.controller;
+
+import com.hospital.annotation.RateLimit;
+import com.hospital.common.result.Result;
+import com.hospital.common.result.ResultCode;
+import com.hospital.config.LlmGatewayProperties;
+import com.hospital.dto.request.AiQuestionRequest;
+import com.hospital.service.AiRecommendationService;
+import com.hospital.util.JwtUtil;
+import com.hospital.util.LlmGateway;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * AI智能问答控制器
+ * 请求线程不等待大模型返回：普通问答以 DeferredResult 异步完成，流式问答以 SSE 逐段推送
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/ai")
+public class AiAssistantController {
+
+    @Autowired
+    private AiRecommendationService aiRecommendationService;
+
+    @Autowired
+    private LlmGatewayProperties llmGatewayProperties;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    /**
+     * 智能问答
+     */
+    @RateLimit(key = "ai-ask", limit = 20, windowSeconds = 60, perIp = false, perUser = true)
+    @PostMapping("/ask")
+    public DeferredResult<Result<String>> ask(@Validated @RequestBody AiQuestionRequest request,
+                                              HttpServletRequest httpRequest) {
+        Long userId = jwtUtil.getUserIdFromRequest(httpRequest);
+        // 网关自身有总超时，这里多留1秒，保证由网关的降级回答先完成
+        DeferredResult<Result<String>> result = new DeferredResult<>(
+                llmGatewayProperties.getRequestTimeoutMs() + 1000,
+                Result.error(ResultCode.AI_SERVICE_UNAVAILABLE));
+        aiRecommendationService.answerQuestionAsync(request.getQuestion().trim(), userId)
+                .thenAccept(answer -> result.setResult(Result.success(answer)));
+        return result;
+    }
+
+    /**
+     * 流式智能问答（SSE），事件：token 增量文本、done 结束、error 失败原因
+     */
+    @RateLimit(key = "ai-ask", limit = 20, windowSeconds = 60, perIp = false, perUser = true)
+    @GetMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter askStream(@RequestParam String question, HttpServletRequest httpRequest) {
+        Long userId = jwtUtil.getUserIdFromRequest(httpRequest);
+        if (question.trim().isEmpty() || question.length() > 500) {
+            SseEmitter emitter = new SseEmitter();
+            try {
+                emitter.send(SseEmitter.event().name(LlmGateway.EVENT_ERROR).data("问题不能为空且不能超过500字"));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
+        }
+        return aiRecommendationService.streamAnswer(question.trim(), userId);
+    }
+}
@@ -4,16 +4,22 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hospital.annotation.OperationLog;
+import com.hospital.common.constant.AppointmentEventType;
 import com.hospital.common.constant.AppointmentStatus;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.common.constant.SystemConstants;
 import com.hospital.common.result.Result;
+import com.hospital.dto.AppointmentEventMessageDTO;
 import com.hospital.entity.Appointment;
 import com.hospital.mapper.DepartmentMapper;
 import com.hospital.mapper.DoctorMapper;
 import com.hospital.mapper.UserMapper;
+import com.hospital.messaging.AppointmentEventPublisher;
 import com.hospital.service.AppointmentService;
+import com.hospital.service.QueueNumberService;
 import com.hospital.service.ScheduleService;
 import com.hospital.util.JwtUtil;
+import com.hospital.util.ReadThroughCache;
 import com.hospital.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +32,7 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * 预约管理控制器
@@ -41,6 +48,9 @@ public class AppointmentController {
     @Autowired
     private ScheduleService scheduleService;
 
+    @Autowired
+    private QueueNumberService queueNumberService;
+
     @Autowired
     private DoctorMapper doctorMapper;
 
@@ -56,9 +66,15 @@ public class AppointmentController {
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
     @Autowired
     private com.hospital.service.NotificationService notificationService;
 
+    @Autowired
+    private AppointmentEventPublisher appointmentEventPublisher;
+
     /**
      * 创建预约
      */
@@ -156,28 +172,19 @@ public class AppointmentController {
         long ADMIN_APPOINTMENT_LIST_TTL_SECONDS = 300;
         int ADMIN_APPOINTMENT_LIST_HOT_PAGES = 2;
 
-        // 仅缓存前2页
-        if (page <= ADMIN_APPOINTMENT_LIST_HOT_PAGES) {
-            Object cached = redisUtil.get(cacheKey);
-            if (cached != null) {
-                @SuppressWarnings("unchecked")
-                IPage<Appointment> cachedPage = (IPage<Appointment>) cached;
-                return Result.success(cachedPage);
-            }
-        }
-
-        Page<Appointment> pageObject = new Page<>(page, pageSize);
-        IPage<Appointment> appointments = appointmentService.page(pageObject, wrapper);
-
-        // 使用Service层方法丰富预约信息（关联查询医生、科室、患者信息）
-        ((com.hospital.service.impl.AppointmentServiceImpl) appointmentService).enrichAppointmentPage(appointments);
-
-        // 缓存结果（仅缓存前2页）
-        if (page <= ADMIN_APPOINTMENT_LIST_HOT_PAGES) {
-            redisUtil.set(cacheKey, appointments, ADMIN_APPOINTMENT_LIST_TTL_SECONDS, java.util.concurrent.TimeUnit.SECONDS);
-            log.info("已缓存预约列表: page={}, pageSize={}", page, pageSize);
-        }
+        long current = page;
+        long size = pageSize;
+        Supplier<IPage<Appointment>> query = () -> {
+            IPage<Appointment> result = appointmentService.page(new Page<>(current, size), wrapper);
+            // 使用Service层方法丰富预约信息（关联查询医生、科室、患者信息）
+            ((com.hospital.service.impl.AppointmentServiceImpl) appointmentService).enrichAppointmentPage(result);
+            return result;
+        };
 
+        // 仅缓存前2页
+        IPage<Appointment> appointments = page <= ADMIN_APPOINTMENT_LIST_HOT_PAGES
+                ? readThroughCache.get(cacheKey, ADMIN_APPOINTMENT_LIST_TTL_SECONDS, query, CacheTags.ADMIN_APPOINTMENT_LIST)
+                : query.get();
         return Result.success(appointments);
     }
 
@@ -237,14 +244,13 @@ public class AppointmentController {
                                           HttpServletRequest request,
                                           HttpServletResponse response) throws java.io.IOException {
         Long userId = jwtUtil.getUserIdFromRequest(request);
-        byte[] data = appointmentService.exportPatientAppointments(userId, params);
 
         String fileName = URLEncoder.encode("预约记录_" + LocalDate.now() + ".xlsx", StandardCharsets.UTF_8)
                 .replaceAll("\\+", "%20");
         response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.setCharacterEncoding("utf-8");
         response.setHeader("Content-Disposition", "attachment; filename*=utf-8''" + fileName);
-        response.getOutputStream().write(data);
+        appointmentService.exportPatientAppointments(userId, params, response.getOutputStream());
     }
 
     /**
@@ -258,7 +264,7 @@ public class AppointmentController {
             // 增加号源（释放号源）
             if (appointment.getScheduleId() != null) {
                 try {
-                    scheduleService.increaseQuota(appointment.getScheduleId());
+                    scheduleService.increaseQuota(appointment.getScheduleId(), appointment.getDoctorId());
                     log.info("已释放号源，scheduleId={}", appointment.getScheduleId());
                 } catch (Exception e) {
                     log.warn("释放号源失败: scheduleId={}, error={}", appointment.getScheduleId(), e.getMessage());
@@ -269,56 +275,13 @@ public class AppointmentController {
             appointment.setStatus(AppointmentStatus.CANCELLED.getCode());
             boolean result = appointmentService.updateById(appointment);
             if (result) {
-                // 失效管理员列表缓存
-                redisUtil.deleteByPattern("hospital:admin:appointment:list:*");
-                log.info("已失效预约列表缓存");
-
-                // 失效医生端相关缓存（无论预约日期是否为今日，都需要刷新）
-                try {
-                    Long doctorId = appointment.getDoctorId();
-                    if (doctorId != null) {
-                        // 清理医生端患者列表缓存
-                        redisUtil.delete("hospital:doctor:patient:list:pending:doctor:" + doctorId);
-                        redisUtil.delete("hospital:doctor:patient:list:today:doctor:" + doctorId);
-                        redisUtil.delete("hospital:doctor:patient:list:completed:doctor:" + doctorId);
-                        log.info("已失效医生端患者列表缓存，doctorId={}", doctorId);
-
-                        // 清理医生端今日统计缓存（如果预约日期是今日）
-                        if (appointment.getAppointmentDate() != null &&
-                            appointment.getAppointmentDate().equals(LocalDate.now())) {
-                            String todayKey = "hospital:doctor:stats:today:doctor:" + doctorId + ":date:" + LocalDate.now();
-                            redisUtil.delete(todayKey);
-                            log.info("已失效医生端今日统计缓存，doctorId={}", doctorId);
-                        }
-                    }
+                // 回收排队号（仅在开启空号回收时生效）
+                queueNumberService.recycle(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                        appointment.getTimeSlot(), appointment.getQueueNumber());
 
-                    // 失效患者最近预约缓存
-                    if (appointment.getPatientId() != null) {
-                        redisUtil.delete("hospital:patient:stats:appointments:recent:patient:" + appointment.getPatientId());
-                        log.info("已失效患者最近预约缓存，patientId={}", appointment.getPatientId());
-                    }
-                } catch (Exception e) {
-                    log.warn("取消预约后失效缓存失败: appointmentId={}, error={}", id, e.getMessage());
-                }
-
-                // 发送通知给医生：取消预约
-                try {
-                    com.hospital.entity.Doctor doctor = doctorMapper.selectById(appointment.getDoctorId());
-                    if (doctor != null && doctor.getUserId() != null) {
-                        String patientName = appointment.getPatientName() != null ? appointment.getPatientName() : "患者";
-                        String appointmentDateStr = appointment.getAppointmentDate() != null ?
-                                appointment.getAppointmentDate().toString() : "";
-                        String content = String.format("患者%s已取消%s的预约", patientName, appointmentDateStr);
-                        notificationService.createAndSendNotification(
-                                doctor.getUserId(),
-                                "预约取消通知",
-                                content,
-                                "APPOINTMENT_CANCELLED"
-                        );
-                    }
-                } catch (Exception e) {
-                    log.warn("发送取消预约通知失败: appointmentId={}, error={}", id, e.getMessage());
-                }
+                // 通知、缓存失效在提交后异步处理
+                appointmentEventPublisher.publish(
+                        AppointmentEventMessageDTO.of(AppointmentEventType.CANCELLED, appointment));
             }
             return Result.success(result);
         }
@@ -353,24 +316,24 @@ public class AppointmentController {
             try {
                 Appointment updated = appointmentService.getById(id);
                 if (updated != null) {
-                    // 失效管理员列表缓存
-                    redisUtil.deleteByPattern("hospital:admin:appointment:list:*");
+                    // 失效管理员列表与预约统计缓存
+                    redisUtil.invalidateTag(CacheTags.ADMIN_APPOINTMENT_LIST);
+                    redisUtil.invalidateTag(CacheTags.APPOINTMENT_STATS);
                     log.info("已失效预约列表缓存");
 
                     // 失效患者最近预约缓存（任意日期都需要刷新）
                     if (updated.getPatientId() != null) {
-                        redisUtil.deleteByPattern("stats:patient:" + updated.getPatientId() + ":recentAppointments:*");
+                        redisUtil.delete("hospital:patient:stats:appointments:recent:patient:" + updated.getPatientId());
                     }
 
                     // 仅当今日预约时，失效医生端今日缓存
                     if (updated.getAppointmentDate() != null && updated.getAppointmentDate().equals(LocalDate.now())) {
                         Long doctorId = updated.getDoctorId();
                         if (doctorId != null) {
-                            redisUtil.delete("patient:doctor:" + doctorId + ":pending");
-                            redisUtil.delete("patient:doctor:" + doctorId + ":today");
-                            redisUtil.delete("patient:doctor:" + doctorId + ":completed");
-                            String todayKey = "stats:doctor:" + doctorId + ":today:" + LocalDate.now();
-                            redisUtil.delete(todayKey);
+                            redisUtil.delete("hospital:doctor:patient:list:pending:doctor:" + doctorId);
+                            redisUtil.delete("hospital:doctor:patient:list:today:doctor:" + doctorId);
+                            redisUtil.delete("hospital:doctor:patient:list:completed:doctor:" + doctorId);
+                            redisUtil.delete("hospital:doctor:stats:today:doctor:" + doctorId + ":date:" + LocalDate.now());
                         }
                     }
                 }
@@ -389,7 +352,7 @@ public class AppointmentController {
         boolean result = appointmentService.removeById(id);
         if (result) {
             // 失效管理员列表缓存
-            redisUtil.deleteByPattern("hospital:admin:appointment:list:*");
+            redisUtil.invalidateTag(CacheTags.ADMIN_APPOINTMENT_LIST);
             log.info("已失效预约列表缓存");
         }
         return Result.success(result);
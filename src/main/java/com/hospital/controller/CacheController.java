@@ -1,6 +1,7 @@
 package com.hospital.controller;
 
 import com.hospital.annotation.OperationLog;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.common.result.Result;
 import com.hospital.service.AppointmentService;
 import com.hospital.service.DepartmentService;
@@ -61,7 +62,7 @@ public class CacheController {
         }
 
         try {
-            redisUtil.deleteByPattern("hospital:admin:appointment:list:*");
+            redisUtil.invalidateTag(CacheTags.ADMIN_APPOINTMENT_LIST);
             log.info("已刷新预约列表缓存");
             return Result.success("刷新成功");
         } catch (Exception e) {
@@ -127,7 +128,7 @@ public class CacheController {
         }
 
         try {
-            redisUtil.deleteByPattern("hospital:admin:schedule:list:*");
+            redisUtil.invalidateTag(CacheTags.ADMIN_SCHEDULE_LIST);
             log.info("已刷新排班列表缓存");
             return Result.success("刷新成功");
         } catch (Exception e) {
@@ -172,10 +173,10 @@ public class CacheController {
 
         try {
             // 刷新所有缓存
-            redisUtil.deleteByPattern("hospital:admin:appointment:list:*");
+            redisUtil.invalidateTag(CacheTags.ADMIN_APPOINTMENT_LIST);
             doctorService.refreshAllDoctorCaches();
             departmentService.refreshAllDepartmentCaches();
-            redisUtil.deleteByPattern("hospital:admin:schedule:list:*");
+            redisUtil.invalidateTag(CacheTags.ADMIN_SCHEDULE_LIST);
             systemService.refreshUserListCache();
             log.info("已刷新所有缓存");
             return Result.success("刷新成功");
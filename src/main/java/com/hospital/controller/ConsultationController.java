@@ -93,11 +93,9 @@ public class ConsultationController {
     public void exportConsultationRecords(@PathVariable Long doctorId,
                                          @RequestParam Map<String, Object> params,
                                          HttpServletResponse response) throws IOException {
-        byte[] data = consultationRecordService.exportConsultationRecords(doctorId, params);
-
         response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.setHeader("Content-Disposition", "attachment; filename=consultation_records.xlsx");
-        response.getOutputStream().write(data);
+        consultationRecordService.exportConsultationRecords(doctorId, params, response.getOutputStream());
     }
 
     /**
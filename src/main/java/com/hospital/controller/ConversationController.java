@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.hospital.common.result.Result;
 import com.hospital.dto.request.ConversationCreateRequest;
 import com.hospital.dto.request.SendMessageRequest;
+import com.hospital.dto.response.MessageCursorResponse;
 import com.hospital.entity.Conversation;
 import com.hospital.entity.ConversationMessage;
 import com.hospital.service.ConversationService;
@@ -39,6 +40,19 @@ public class ConversationController {
         return Result.success(conversations);
     }
 
+    /**
+     * 查询用户会话未读消息总数
+     */
+    @GetMapping("/unread-count")
+    public Result<Long> countUnread(@RequestParam Long userId) {
+        try {
+            return Result.success(conversationService.countUnread(userId));
+        } catch (IllegalArgumentException ex) {
+            log.warn("查询会话未读总数失败: {}", ex.getMessage());
+            return Result.error(ex.getMessage());
+        }
+    }
+
     /**
      * 创建会话
      */
@@ -69,6 +83,23 @@ public class ConversationController {
         return Result.success(messages);
     }
 
+    /**
+     * 按消息游标查询会话消息
+     * 不传游标时返回最新一页，beforeId 加载更早的消息，afterId 加载更新的消息
+     */
+    @GetMapping("/{conversationId}/messages/cursor")
+    public Result<MessageCursorResponse> listMessagesByCursor(@PathVariable Long conversationId,
+                                                              @RequestParam(required = false) Long beforeId,
+                                                              @RequestParam(required = false) Long afterId,
+                                                              @RequestParam(required = false) Integer limit) {
+        try {
+            return Result.success(conversationService.listMessagesByCursor(conversationId, beforeId, afterId, limit));
+        } catch (IllegalArgumentException ex) {
+            log.warn("查询会话消息失败: {}", ex.getMessage());
+            return Result.error(ex.getMessage());
+        }
+    }
+
     /**
      * 发送消息
      */
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hospital.annotation.OperationLog;
 import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.common.constant.SystemConstants;
 import com.hospital.common.result.Result;
 import com.hospital.dto.request.BatchCreateScheduleRequest;
@@ -14,6 +15,7 @@ import com.hospital.entity.Schedule;
 import com.hospital.mapper.DepartmentMapper;
 import com.hospital.mapper.DoctorMapper;
 import com.hospital.service.ScheduleService;
+import com.hospital.util.ReadThroughCache;
 import com.hospital.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,7 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -47,6 +49,9 @@ public class ScheduleController {
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
     /**
      * 创建排班
      */
@@ -72,7 +77,7 @@ public class ScheduleController {
 
             if (result) {
                 // 失效管理员列表缓存
-                redisUtil.deleteByPattern("hospital:admin:schedule:list:*");
+                redisUtil.invalidateTag(CacheTags.ADMIN_SCHEDULE_LIST);
                 log.info("已失效排班列表缓存");
                 return Result.success(true);
             } else {
@@ -92,10 +97,10 @@ public class ScheduleController {
     public Result<Map<String, Object>> batchCreateSchedules(@RequestBody BatchCreateScheduleRequest request) {
         log.info("批量创建排班，请求: {}", request);
         Result<Map<String, Object>> result = scheduleService.batchCreateSchedules(request);
+        // 分段提交，中途失败时已提交的部分同样需要失效管理员列表缓存
+        redisUtil.invalidateTag(CacheTags.ADMIN_SCHEDULE_LIST);
+        log.info("已失效排班列表缓存");
         if (result.getCode() == 200) {
-            // 失效管理员列表缓存
-            redisUtil.deleteByPattern("hospital:admin:schedule:list:*");
-            log.info("已失效排班列表缓存");
             return result;
         }
         return Result.error(result.getMessage());
@@ -187,18 +192,22 @@ public class ScheduleController {
 
         String cacheKey = redisUtil.buildCacheKey("hospital:admin:schedule:list", page, pageSize, filterParams);
 
-        // 仅缓存前2页
-        if (page <= CacheConstants.ADMIN_SCHEDULE_LIST_HOT_PAGES) {
-            Object cached = redisUtil.get(cacheKey);
-            if (cached != null) {
-                @SuppressWarnings("unchecked")
-                IPage<Schedule> cachedPage = (IPage<Schedule>) cached;
-                return Result.success(cachedPage);
-            }
-        }
+        long current = page;
+        long size = pageSize;
+        Supplier<IPage<Schedule>> query = () -> loadSchedulePage(new Page<>(current, size), wrapper);
 
-        Page<Schedule> pageObject = new Page<>(page, pageSize);
+        // 仅缓存前2页
+        IPage<Schedule> schedules = page <= CacheConstants.ADMIN_SCHEDULE_LIST_HOT_PAGES
+                ? readThroughCache.get(cacheKey, CacheConstants.ADMIN_SCHEDULE_LIST_TTL_SECONDS, query,
+                        CacheTags.ADMIN_SCHEDULE_LIST)
+                : query.get();
+        return Result.success(schedules);
+    }
 
+    /**
+     * 分页查询排班并关联医生和分类信息
+     */
+    private IPage<Schedule> loadSchedulePage(Page<Schedule> pageObject, QueryWrapper<Schedule> wrapper) {
         IPage<Schedule> schedules = scheduleService.page(pageObject, wrapper);
 
         // 批量关联医生和科室信息（避免N+1查询）
@@ -245,13 +254,7 @@ public class ScheduleController {
             }
         }
 
-        // 缓存结果（仅缓存前2页）
-        if (page <= CacheConstants.ADMIN_SCHEDULE_LIST_HOT_PAGES) {
-            redisUtil.set(cacheKey, schedules, CacheConstants.ADMIN_SCHEDULE_LIST_TTL_SECONDS, TimeUnit.SECONDS);
-            log.info("已缓存排班列表: page={}, pageSize={}", page, pageSize);
-        }
-
-        return Result.success(schedules);
+        return schedules;
     }
 
     /**
@@ -300,7 +303,7 @@ public class ScheduleController {
         boolean result = scheduleService.updateById(schedule);
         if (result) {
             // 失效管理员列表缓存
-            redisUtil.deleteByPattern("hospital:admin:schedule:list:*");
+            redisUtil.invalidateTag(CacheTags.ADMIN_SCHEDULE_LIST);
             log.info("已失效排班列表缓存");
         }
         return Result.success(result);
@@ -316,7 +319,7 @@ public class ScheduleController {
         boolean result = scheduleService.removeById(id);
         if (result) {
             // 失效管理员列表缓存
-            redisUtil.deleteByPattern("hospital:admin:schedule:list:*");
+            redisUtil.invalidateTag(CacheTags.ADMIN_SCHEDULE_LIST);
             log.info("已失效排班列表缓存");
         }
         return Result.success(result);
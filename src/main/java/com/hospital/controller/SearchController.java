@@ -1,7 +1,12 @@
 package com.hospital.controller;
 
 import com.hospital.annotation.RateLimit;
+import com.hospital.common.constant.SearchDocumentType;
 import com.hospital.common.result.Result;
+import com.hospital.common.result.ResultCode;
+import com.hospital.dto.response.SearchHitResponse;
+import com.hospital.dto.response.UnifiedSearchResponse;
+import com.hospital.service.SearchIndexService;
 import com.hospital.service.SearchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +25,49 @@ public class SearchController {
 
     private final SearchService searchService;
 
+    private final SearchIndexService searchIndexService;
+
+    /**
+     * 跨文章、食谱、穴位的统一搜索，按相关度排序并返回分类、体质、标签的分面统计
+     * @param keyword 关键词
+     * @param types 文档类型（ARTICLE、RECIPE、ACUPOINT），为空时搜索全部
+     * @param category 分类（可选）
+     * @param constitutionType 体质类型（可选）
+     * @param tag 文章标签（可选）
+     * @return 搜索结果
+     */
+    @RateLimit(key = "search-unified", limit = 60, windowSeconds = 60, perIp = true)
+    @GetMapping
+    public Result<UnifiedSearchResponse> search(@RequestParam String keyword,
+                                                @RequestParam(required = false) List<SearchDocumentType> types,
+                                                @RequestParam(required = false) String category,
+                                                @RequestParam(required = false) String constitutionType,
+                                                @RequestParam(required = false) String tag,
+                                                @RequestParam(defaultValue = "1") Integer pageNum,
+                                                @RequestParam(defaultValue = "10") Integer pageSize) {
+        if (keyword.trim().isEmpty()) {
+            return Result.error(ResultCode.PARAM_ERROR.getCode(), "搜索关键词不能为空");
+        }
+        UnifiedSearchResponse response = searchIndexService.search(keyword.trim(), types, category,
+                constitutionType, tag, Math.max(pageNum, 1), Math.min(Math.max(pageSize, 1), 50));
+        if (response == null) {
+            return Result.error(ResultCode.SERVICE_UNAVAILABLE.getCode(), "搜索索引正在构建，请稍后再试");
+        }
+        return Result.success(response);
+    }
+
+    /**
+     * 按标题（穴位同时按拼音）前缀给出搜索提示
+     * @param prefix 已输入的前缀
+     * @param limit 返回数量限制，默认10
+     * @return 提示列表
+     */
+    @GetMapping("/suggest")
+    public Result<List<SearchHitResponse>> suggest(@RequestParam String prefix,
+                                                   @RequestParam(defaultValue = "10") Integer limit) {
+        return Result.success(searchIndexService.suggest(prefix, limit));
+    }
+
     /**
      * 获取热门搜索词
      * @param limit 返回数量限制，默认10
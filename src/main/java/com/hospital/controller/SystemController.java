@@ -6,6 +6,9 @@ import com.hospital.common.result.Result;
 import com.hospital.entity.Dictionary;
 import com.hospital.entity.SystemConfig;
 import com.hospital.entity.User;
+import com.hospital.dto.response.ExportTaskResponse;
+import com.hospital.service.ExportTaskService;
+import com.hospital.service.RateLimitService;
 import com.hospital.service.SystemService;
 import com.hospital.util.JwtUtil;
 import com.hospital.dto.request.SystemSettingsRequest;
@@ -15,7 +18,9 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -35,6 +40,12 @@ public class SystemController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private ExportTaskService exportTaskService;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
     // ==================== 操作日志管理 ====================
 
     /**
@@ -54,11 +65,51 @@ public class SystemController {
     public void exportOperationLogs(@RequestParam Map<String, Object> params, HttpServletResponse response) throws IOException {
         log.info("导出操作日志，参数：{}", params);
 
-        byte[] data = systemService.exportOperationLogs(params);
-
         response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.setHeader("Content-Disposition", "attachment; filename=operation_logs.xlsx");
-        response.getOutputStream().write(data);
+        systemService.exportOperationLogs(params, response.getOutputStream(), null);
+    }
+
+    /**
+     * 提交异步导出操作日志任务（大批量导出）
+     */
+    @OperationLog(module = "SYSTEM", type = "SELECT", description = "异步导出操作日志")
+    @PostMapping("/logs/export/async")
+    public Result<ExportTaskResponse> submitOperationLogExport(@RequestParam Map<String, Object> params,
+                                                               HttpServletRequest request) {
+        Long userId = jwtUtil.getUserIdFromRequest(request);
+        Map<String, Object> exportParams = new HashMap<>(params);
+        long total = systemService.countOperationLogs(exportParams);
+        ExportTaskResponse task = exportTaskService.submit(userId, "operation_logs.xlsx", total,
+                (outputStream, progress) -> systemService.exportOperationLogs(exportParams, outputStream, progress));
+        return Result.success(task);
+    }
+
+    /**
+     * 查询异步导出任务进度
+     */
+    @GetMapping("/logs/export/tasks/{taskId}")
+    public Result<ExportTaskResponse> getExportTask(@PathVariable String taskId, HttpServletRequest request) {
+        Long userId = jwtUtil.getUserIdFromRequest(request);
+        return Result.success(exportTaskService.getOwnedTask(taskId, userId));
+    }
+
+    /**
+     * 下载异步导出文件
+     */
+    @GetMapping("/logs/export/tasks/{taskId}/download")
+    public void downloadExportFile(@PathVariable String taskId,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        Long userId = jwtUtil.getUserIdFromRequest(request);
+        File file = exportTaskService.getResultFile(taskId, userId);
+        ExportTaskResponse task = exportTaskService.getTask(taskId);
+        String fileName = task != null && task.getFileName() != null ? task.getFileName() : file.getName();
+
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+        response.setContentLengthLong(file.length());
+        Files.copy(file.toPath(), response.getOutputStream());
     }
 
     // ==================== 系统配置管理 ====================
@@ -323,6 +374,22 @@ public class SystemController {
         return Result.success(result);
     }
 
+    // ==================== 接口限流 ====================
+
+    /**
+     * 获取本节点各限流规则的放行/拒绝次数
+     */
+    @GetMapping("/rate-limit/stats")
+    public Result<Map<String, Map<String, Long>>> getRateLimitStats(HttpServletRequest request) {
+        // 验证管理员权限
+        Integer roleType = jwtUtil.getRoleTypeFromRequest(request);
+        if (roleType == null || roleType != 3) {
+            return Result.error(403, "权限不足，仅管理员可访问");
+        }
+
+        return Result.success(rateLimitService.getStats());
+    }
+
     // ==================== 用户管理 ====================
 
     /**
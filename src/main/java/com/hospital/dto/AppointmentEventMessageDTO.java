@@ -0,0 +1,129 @@
+package com.hospital.dto;
+
+import com.hospital.common.constant.AppointmentEventType;
+import com.hospital.entity.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 预约领域事件消息体，事务提交后发送到 RabbitMQ，由消费者处理通知、缓存失效等副作用。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentEventMessageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 事件类型
+     */
+    private AppointmentEventType eventType;
+
+    /**
+     * 预约ID
+     */
+    private Long appointmentId;
+
+    /**
+     * 患者用户ID
+     */
+    private Long patientId;
+
+    /**
+     * 患者姓名
+     */
+    private String patientName;
+
+    /**
+     * 医生ID
+     */
+    private Long doctorId;
+
+    /**
+     * 预约日期
+     */
+    private LocalDate appointmentDate;
+
+    /**
+     * 预约时段
+     */
+    private String timeSlot;
+
+    /**
+     * 排队号
+     */
+    private Integer queueNumber;
+
+    /**
+     * 事件发生时间
+     */
+    private LocalDateTime occurredAt;
+
+    /**
+     * 批量事件涉及的预约ID（爽约检测按分段合并为一条事件，单条事件时为空）
+     */
+    private List<Long> appointmentIds;
+
+    /**
+     * 批量事件涉及的患者用户ID（去重）
+     */
+    private List<Long> patientIds;
+
+    /**
+     * 批量事件涉及的医生ID（去重）
+     */
+    private List<Long> doctorIds;
+
+    public static AppointmentEventMessageDTO of(AppointmentEventType eventType, Appointment appointment) {
+        return AppointmentEventMessageDTO.builder()
+                .eventType(eventType)
+                .appointmentId(appointment.getId())
+                .patientId(appointment.getPatientId())
+                .patientName(appointment.getPatientName())
+                .doctorId(appointment.getDoctorId())
+                .appointmentDate(appointment.getAppointmentDate())
+                .timeSlot(appointment.getTimeSlot())
+                .queueNumber(appointment.getQueueNumber())
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 将同一分段内的多条预约合并为一条批量事件
+     */
+    public static AppointmentEventMessageDTO batchOf(AppointmentEventType eventType, List<Appointment> appointments) {
+        List<Long> appointmentIds = new ArrayList<>(appointments.size());
+        LinkedHashSet<Long> patientIds = new LinkedHashSet<>();
+        LinkedHashSet<Long> doctorIds = new LinkedHashSet<>();
+        for (Appointment appointment : appointments) {
+            appointmentIds.add(appointment.getId());
+            if (appointment.getPatientId() != null) {
+                patientIds.add(appointment.getPatientId());
+            }
+            if (appointment.getDoctorId() != null) {
+                doctorIds.add(appointment.getDoctorId());
+            }
+        }
+        return AppointmentEventMessageDTO.builder()
+                .eventType(eventType)
+                .appointmentIds(appointmentIds)
+                .patientIds(new ArrayList<>(patientIds))
+                .doctorIds(new ArrayList<>(doctorIds))
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+}
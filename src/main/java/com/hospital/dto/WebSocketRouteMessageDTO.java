@@ -0,0 +1,35 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * WebSocket 集群转发消息体，经 Redis Pub/Sub 发送到用户所在节点后由该节点推送给本地连接。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketRouteMessageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 接收者用户ID
+     */
+    private String userId;
+
+    /**
+     * 用户目的地，如 /queue/conversations
+     */
+    private String destination;
+
+    /**
+     * 消息内容（按 JSON 原样转发）
+     */
+    private Object payload;
+}
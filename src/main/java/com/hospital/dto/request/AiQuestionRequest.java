@@ -0,0 +1,21 @@
+package com.hospital.dto.request;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+
+/**
+ * AI智能问答请求
+ */
+@Data
+public class AiQuestionRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 问题内容 */
+    @NotBlank(message = "问题不能为空")
+    @Size(max = 500, message = "问题不能超过500字")
+    private String question;
+}
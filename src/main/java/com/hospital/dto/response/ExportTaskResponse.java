@@ -0,0 +1,67 @@
+package com.hospital.dto.response;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 异步导出任务状态
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Data
+public class ExportTaskResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 任务ID
+     */
+    private String taskId;
+
+    /**
+     * 下载文件名
+     */
+    private String fileName;
+
+    /**
+     * 任务状态：PENDING/RUNNING/SUCCESS/FAILED
+     */
+    private String status;
+
+    /**
+     * 预计总行数（提交时统计，仅用于计算进度）
+     */
+    private Long total;
+
+    /**
+     * 已导出行数
+     */
+    private Long processed;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建人ID（仅创建人可下载）
+     */
+    private Long ownerId;
+
+    /**
+     * 创建时间（毫秒时间戳）
+     */
+    private Long createdAt;
+
+    /**
+     * 完成时间（毫秒时间戳）
+     */
+    private Long finishedAt;
+}
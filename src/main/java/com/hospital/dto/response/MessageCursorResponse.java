@@ -0,0 +1,39 @@
+package com.hospital.dto.response;
+
+import com.hospital.entity.ConversationMessage;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 会话消息游标分页结果
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Data
+public class MessageCursorResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 消息列表（按发送时间升序）
+     */
+    private List<ConversationMessage> records;
+
+    /**
+     * 查询方向上是否还有更多消息（向前翻页时为更早的消息，向后翻页时为更新的消息）
+     */
+    private Boolean hasMore;
+
+    /**
+     * 本页最早一条消息ID，作为 beforeId 加载更早的消息
+     */
+    private Long prevCursor;
+
+    /**
+     * 本页最新一条消息ID，作为 afterId 加载更新的消息
+     */
+    private Long nextCursor;
+}
@@ -0,0 +1,43 @@
+package com.hospital.dto.response;
+
+import com.hospital.common.constant.SearchDocumentType;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 统一搜索的单条命中结果
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Data
+public class SearchHitResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文档类型（文章、食谱、穴位）
+     */
+    private SearchDocumentType type;
+
+    /**
+     * 文档ID
+     */
+    private Long id;
+
+    /**
+     * 标题（文章标题、食谱名称、穴位名称）
+     */
+    private String title;
+
+    /**
+     * 摘要（文章摘要、食谱功效、穴位主治）
+     */
+    private String summary;
+
+    /**
+     * 相关度得分，前缀提示时为0
+     */
+    private Double score;
+}
@@ -0,0 +1,34 @@
+package com.hospital.dto.response;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨文章、食谱、穴位的统一搜索结果
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Data
+public class UnifiedSearchResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 当前页命中结果（按相关度降序）
+     */
+    private List<SearchHitResponse> records;
+
+    /**
+     * 命中总数
+     */
+    private Long total;
+
+    /**
+     * 分面统计：字段名（category、constitutionType、tags）-> (取值 -> 命中数)
+     */
+    private Map<String, Map<String, Integer>> facets;
+}
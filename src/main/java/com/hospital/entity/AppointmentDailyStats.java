@@ -0,0 +1,45 @@
+package com.hospital.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 预约日统计汇总（按 预约日期+医生+分类+状态 聚合）
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Data
+@TableName("appointment_daily_stats")
+public class AppointmentDailyStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 预约日期
+     */
+    private LocalDate statDate;
+
+    /**
+     * 中医师ID
+     */
+    private Long doctorId;
+
+    /**
+     * 分类ID
+     */
+    private Long categoryId;
+
+    /**
+     * 预约状态
+     */
+    private String status;
+
+    /**
+     * 预约数量
+     */
+    private Integer appointmentCount;
+}
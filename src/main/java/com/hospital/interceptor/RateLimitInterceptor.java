@@ -42,13 +42,24 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         }
 
         String key = buildLimitKey(rateLimit, request);
-        boolean allowed = rateLimitService.tryAcquire(key, rateLimit.limit(), rateLimit.windowSeconds());
+        boolean allowed = rateLimitService.tryAcquire(resolveRule(rateLimit, handlerMethod), key,
+                rateLimit.limit(), rateLimit.windowSeconds(), rateLimit.algorithm(), rateLimit.leaseSize());
         if (!allowed) {
             throw new BusinessException(ResultCode.FORBIDDEN, "请求过于频繁，请稍后再试");
         }
         return true;
     }
 
+    /**
+     * 统计用的规则名：优先使用注解的 key，否则取处理方法名，避免路径参数导致规则数量无限增长
+     */
+    private String resolveRule(RateLimit rateLimit, HandlerMethod handlerMethod) {
+        if (StringUtils.hasText(rateLimit.key())) {
+            return rateLimit.key();
+        }
+        return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+    }
+
     private String buildLimitKey(RateLimit rateLimit, HttpServletRequest request) {
         StringBuilder builder = new StringBuilder();
         if (StringUtils.hasText(rateLimit.key())) {
@@ -0,0 +1,75 @@
+package com.hospital.mapper;
+
+import com.hospital.entity.AppointmentDailyStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 预约日统计汇总Mapper
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Mapper
+public interface AppointmentDailyStatsMapper {
+
+    /**
+     * 数据库当前时间，作为增量刷新水位，避免应用与数据库时钟不一致
+     */
+    @Select("SELECT NOW()")
+    LocalDateTime selectNow();
+
+    /**
+     * 查询更新时间不早于 since 的预约涉及的预约日期（走 idx_updated_date 覆盖索引）
+     */
+    @Select("SELECT DISTINCT appointment_date FROM appointment WHERE updated_at >= #{since} ORDER BY appointment_date")
+    List<LocalDate> selectChangedDates(@Param("since") LocalDateTime since);
+
+    /**
+     * 预约表中最早/最晚的预约日期（首次回填使用）
+     */
+    @Select("SELECT MIN(appointment_date) FROM appointment")
+    LocalDate selectMinAppointmentDate();
+
+    @Select("SELECT MAX(appointment_date) FROM appointment")
+    LocalDate selectMaxAppointmentDate();
+
+    /**
+     * 汇总表是否已有数据
+     */
+    @Select("SELECT COUNT(*) FROM (SELECT 1 FROM appointment_daily_stats LIMIT 1) t")
+    int countAny();
+
+    /**
+     * 从预约表聚合日期区间内的统计（非锁定读，不阻塞预约写入）
+     */
+    @Select("SELECT appointment_date AS stat_date, doctor_id, category_id, status, COUNT(*) AS appointment_count " +
+            "FROM appointment WHERE appointment_date BETWEEN #{startDate} AND #{endDate} " +
+            "GROUP BY appointment_date, doctor_id, category_id, status")
+    List<AppointmentDailyStats> aggregateRange(@Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+
+    /**
+     * 删除日期区间内的汇总
+     */
+    @Delete("DELETE FROM appointment_daily_stats WHERE stat_date BETWEEN #{startDate} AND #{endDate}")
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 多行批量写入汇总
+     */
+    @Insert("<script>" +
+            "INSERT INTO appointment_daily_stats (stat_date, doctor_id, category_id, status, appointment_count) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.statDate}, #{r.doctorId}, #{r.categoryId}, #{r.status}, #{r.appointmentCount})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("rows") List<AppointmentDailyStats> rows);
+}
@@ -8,7 +8,9 @@ import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface AppointmentMapper extends BaseMapper<Appointment> {
@@ -30,12 +32,46 @@ public interface AppointmentMapper extends BaseMapper<Appointment> {
                                       @Param("appointmentDate") LocalDate appointmentDate, 
                                       @Param("timeSlot") String timeSlot);
 
+    /**
+     * 查询指定医生、日期、时段已分配的最大排队号（用于初始化排队号序列）
+     */
+    @Select("SELECT COALESCE(MAX(queue_number), 0) FROM appointment WHERE doctor_id = #{doctorId} " +
+            "AND appointment_date = #{appointmentDate} AND time_slot = #{timeSlot}")
+    Integer selectMaxQueueNumber(@Param("doctorId") Long doctorId,
+                                 @Param("appointmentDate") LocalDate appointmentDate,
+                                 @Param("timeSlot") String timeSlot);
+
+    /**
+     * 按排班分组统计有效预约数量（号源对账使用）
+     * 返回列：schedule_id, cnt
+     */
+    @Select("<script>" +
+            "SELECT schedule_id, COUNT(*) AS cnt FROM appointment WHERE schedule_id IN " +
+            "<foreach collection='scheduleIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " AND status IN ('CONFIRMED', 'IN_PROGRESS', 'COMPLETED') GROUP BY schedule_id" +
+            "</script>")
+    List<Map<String, Object>> countActiveGroupBySchedule(@Param("scheduleIds") Collection<Long> scheduleIds);
+
     /**
      * 显式更新预约状态（同时刷新更新时间）
      */
     @Update("UPDATE appointment SET status = #{status}, updated_at = NOW() WHERE id = #{id}")
     int updateStatusById(@Param("id") Long id, @Param("status") String status);
 
+    /**
+     * 批量标记爽约（仅更新仍为 CONFIRMED / IN_PROGRESS 的预约）
+     */
+    @Update("<script>" +
+            "UPDATE appointment SET status = 'NO_SHOW', updated_at = NOW() WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " AND status IN ('CONFIRMED', 'IN_PROGRESS')" +
+            "</script>")
+    int markNoShow(@Param("ids") Collection<Long> ids);
+
     /**
      * 统计患者预约数量
      */
@@ -0,0 +1,55 @@
+package com.hospital.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内容计数器Mapper
+ * 表名、列名和条件均来自 ContentCounterTarget / ContentCounterMetric 枚举，不接受外部输入
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Mapper
+public interface ContentCounterMapper {
+
+    /**
+     * 一条UPDATE批量累加多行的计数，结果不小于0
+     *
+     * @param table 表名
+     * @param column 计数列
+     * @param deltas 记录ID -> 增量
+     * @return 影响行数
+     */
+    @Update({"<script>",
+            "UPDATE ${table} SET ${column} = GREATEST(COALESCE(${column}, 0) + CASE id",
+            "<foreach collection='deltas' index='id' item='delta'> WHEN #{id} THEN #{delta}</foreach>",
+            "ELSE 0 END, 0)",
+            "WHERE id IN",
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int addDeltas(@Param("table") String table,
+                  @Param("column") String column,
+                  @Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 按加权热度查询前若干条记录（用于重建热度排行）
+     *
+     * @param table 表名
+     * @param scoreExpression 热度表达式
+     * @param condition 记录条件
+     * @param limit 数量
+     * @return id、score
+     */
+    @Select("SELECT id, ${scoreExpression} AS score FROM ${table} WHERE ${condition} " +
+            "ORDER BY score DESC, id DESC LIMIT #{limit}")
+    List<Map<String, Object>> selectTopScores(@Param("table") String table,
+                                              @Param("scoreExpression") String scoreExpression,
+                                              @Param("condition") String condition,
+                                              @Param("limit") int limit);
+}
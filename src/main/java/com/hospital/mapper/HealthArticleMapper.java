@@ -43,6 +43,14 @@ public interface HealthArticleMapper extends BaseMapper<HealthArticle> {
      */
     IPage<HealthArticle> searchArticles(Page<HealthArticle> page, @Param("keyword") String keyword);
 
+    /**
+     * 根据ID列表批量查询已发布文章（含作者姓名）
+     *
+     * @param ids 文章ID列表
+     * @return 文章列表（顺序不保证与ID列表一致）
+     */
+    List<HealthArticle> selectPublishedByIds(@Param("ids") List<Long> ids);
+
     /**
      * 根据作者ID查询文章
      *
@@ -107,5 +107,20 @@ public interface HerbalRecipeMapper extends BaseMapper<HerbalRecipe> {
      * @return 药膳列表
      */
     List<HerbalRecipe> selectActiveRecipesByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 上架药膳的数量与（ID、名称）校验和，内存词典据此判断名称是否变化。
+     * 不使用 updated_at：收藏数、浏览数回写也会刷新该列
+     *
+     * @return 形如 "数量@校验和" 的指纹
+     */
+    String selectNameFingerprint();
+
+    /**
+     * 上架药膳的数量与（ID、体质、季节、分类、功效）校验和，特征库据此判断内容特征是否变化
+     *
+     * @return 形如 "数量@校验和" 的指纹
+     */
+    String selectFeatureFingerprint();
 }
 
@@ -3,10 +3,21 @@ package com.hospital.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hospital.entity.OperationLog;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 操作日志Mapper接口
  */
 @Mapper
 public interface OperationLogMapper extends BaseMapper<OperationLog> {
+
+    /**
+     * 多行批量插入操作日志（需预先分配ID）
+     *
+     * @param logs 操作日志列表
+     * @return 影响行数
+     */
+    int insertBatch(@Param("logs") List<OperationLog> logs);
 }
@@ -0,0 +1,47 @@
+package com.hospital.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+
+/**
+ * 排队号序列Mapper（Redis不可用时的兜底序列）
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Mapper
+public interface QueueSequenceMapper {
+
+    /**
+     * 自增序列并通过 LAST_INSERT_ID 带回新值；行不存在时以 seed + 1 初始化。
+     * 与 {@link #selectLastInsertId()} 须在同一事务（同一连接）内调用。
+     *
+     * @param seed 已分配的最大排队号下界（取预约表现有最大排队号）
+     */
+    @Insert("INSERT INTO queue_sequence (doctor_id, schedule_date, time_slot, current_value) " +
+            "VALUES (#{doctorId}, #{scheduleDate}, #{timeSlot}, LAST_INSERT_ID(#{seed} + 1)) " +
+            "ON DUPLICATE KEY UPDATE current_value = LAST_INSERT_ID(GREATEST(current_value, #{seed}) + 1)")
+    int increment(@Param("doctorId") Long doctorId,
+                  @Param("scheduleDate") LocalDate scheduleDate,
+                  @Param("timeSlot") String timeSlot,
+                  @Param("seed") Integer seed);
+
+    /**
+     * 读取当前连接上最近一次 LAST_INSERT_ID
+     */
+    @Select("SELECT LAST_INSERT_ID()")
+    Long selectLastInsertId();
+
+    /**
+     * 查询序列当前值
+     */
+    @Select("SELECT current_value FROM queue_sequence " +
+            "WHERE doctor_id = #{doctorId} AND schedule_date = #{scheduleDate} AND time_slot = #{timeSlot}")
+    Integer selectCurrentValue(@Param("doctorId") Long doctorId,
+                               @Param("scheduleDate") LocalDate scheduleDate,
+                               @Param("timeSlot") String timeSlot);
+}
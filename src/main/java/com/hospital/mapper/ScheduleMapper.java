@@ -6,6 +6,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -61,5 +62,32 @@ public interface ScheduleMapper extends BaseMapper<Schedule> {
      * @return 排班列表
      */
     List<Schedule> selectByDoctorIdAndDateRange(@Param("doctorId") Long doctorId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-}
 
+    /**
+     * 按Redis号源快照覆盖写入剩余/已约号源，并同步 可预约/已满 状态（号源异步回写使用）
+     *
+     * @param id 排班ID
+     * @param remainingQuota 剩余号源
+     * @param bookedQuota 已约号源
+     * @return 影响行数
+     */
+    int syncQuota(@Param("id") Long id, @Param("remainingQuota") Integer remainingQuota, @Param("bookedQuota") Integer bookedQuota);
+
+    /**
+     * 查询多个医生在日期范围内已有的排班（批量生成排班时预查冲突，仅返回ID、医生、日期、时段）
+     *
+     * @param doctorIds 医生ID列表
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 排班列表
+     */
+    List<Schedule> selectExistingSlots(@Param("doctorIds") Collection<Long> doctorIds, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 多行批量插入排班（需预先分配ID），与已有排班唯一键冲突的行被忽略
+     *
+     * @param schedules 排班列表
+     * @return 影响行数
+     */
+    int insertBatch(@Param("schedules") List<Schedule> schedules);
+}
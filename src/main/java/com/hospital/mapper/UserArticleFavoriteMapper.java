@@ -6,6 +6,8 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hospital.entity.UserArticleFavorite;
 import org.apache.ibatis.annotations.*;
 
+import java.util.List;
+
 /**
  * 用户收藏文章Mapper接口
  *
@@ -25,6 +27,15 @@ public interface UserArticleFavoriteMapper extends BaseMapper<UserArticleFavorit
     @Select("SELECT * FROM user_article_favorite WHERE user_id = #{userId} AND article_id = #{articleId}")
     UserArticleFavorite selectByUserAndArticle(@Param("userId") Long userId, @Param("articleId") Long articleId);
 
+    /**
+     * 查询用户收藏的全部文章ID
+     *
+     * @param userId 用户ID
+     * @return 文章ID列表
+     */
+    @Select("SELECT article_id FROM user_article_favorite WHERE user_id = #{userId}")
+    List<Long> selectArticleIdsByUserId(@Param("userId") Long userId);
+
     /**
      * 分页查询用户收藏的文章
      *
@@ -5,8 +5,12 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hospital.entity.UserRecipeFavorite;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 
@@ -61,5 +65,16 @@ public interface UserRecipeFavoriteMapper extends BaseMapper<UserRecipeFavorite>
      */
     @Select("SELECT recipe_id FROM user_recipe_favorite WHERE user_id = #{userId}")
     List<Long> selectRecipeIdsByUserId(@Param("userId") Long userId);
-}
 
+    /**
+     * 按用户顺序流式扫描全部上架药膳的收藏（只取用户ID与药膳ID），逐行交给处理器，不在内存中保留结果列表
+     *
+     * @param handler 行处理器
+     */
+    @Select("SELECT f.user_id, f.recipe_id FROM user_recipe_favorite f " +
+            "INNER JOIN herbal_recipe r ON f.recipe_id = r.id " +
+            "WHERE r.status = 1 ORDER BY f.user_id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(UserRecipeFavorite.class)
+    void scanFavoritePairs(ResultHandler<UserRecipeFavorite> handler);
+}
@@ -0,0 +1,237 @@
+package com.hospital.messaging;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.hospital.common.constant.CacheTags;
+import com.hospital.dto.AppointmentEventMessageDTO;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.User;
+import com.hospital.mapper.DoctorMapper;
+import com.hospital.mapper.UserMapper;
+import com.hospital.service.NotificationService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预约领域事件处理：通知患者与医生、升级用户角色、失效缓存。
+ * 由 RabbitMQ 消费者或本地兜底线程调用，各步骤独立容错，单步失败不影响其余步骤。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class AppointmentEventHandler {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private DoctorMapper doctorMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    public void handle(AppointmentEventMessageDTO event) {
+        log.info("处理预约事件：eventType={}, appointmentId={}, appointmentIds={}",
+                event.getEventType(), event.getAppointmentId(), event.getAppointmentIds());
+        switch (event.getEventType()) {
+            case CREATED:
+                onCreated(event);
+                break;
+            case CANCELLED:
+                onCancelled(event);
+                break;
+            case NO_SHOW:
+                onNoShow(event);
+                break;
+            default:
+                log.warn("未知的预约事件类型：{}", event.getEventType());
+        }
+    }
+
+    private void onCreated(AppointmentEventMessageDTO event) {
+        // 普通用户（roleType=0）首次预约成功后升级为患者（roleType=1）
+        try {
+            int updated = userMapper.update(null, new UpdateWrapper<User>()
+                    .set("role_type", 1)
+                    .eq("id", event.getPatientId())
+                    .eq("role_type", 0));
+            if (updated > 0) {
+                log.info("用户roleType已更新: userId={}, roleType: 0 -> 1", event.getPatientId());
+            }
+        } catch (Exception e) {
+            log.warn("更新用户roleType失败: userId={}, error={}", event.getPatientId(), e.getMessage());
+        }
+
+        Doctor doctor = loadDoctor(event);
+        String doctorName = doctor != null ? doctor.getDoctorName() : "医生";
+        notify(event, event.getPatientId(), "预约确认",
+                String.format("您已成功预约%s的%s时段，排队号：%d，请按时就诊。",
+                        doctorName, event.getTimeSlot(), event.getQueueNumber()),
+                "APPOINTMENT_CONFIRMED");
+        if (doctor != null && doctor.getUserId() != null) {
+            String patientName = event.getPatientName() != null ? event.getPatientName() : "患者";
+            String appointmentDateStr = event.getAppointmentDate() != null ? event.getAppointmentDate().toString() : "";
+            notify(event, doctor.getUserId(), "新预约通知",
+                    String.format("患者%s已成功预约您的%s%s时段，排队号：%d号",
+                            patientName, appointmentDateStr, timeSlotName(event.getTimeSlot()), event.getQueueNumber()),
+                    "APPOINTMENT_CREATED");
+        }
+
+        evictDoctorPatientLists(event.getDoctorId(), event.getAppointmentDate(), false);
+        evictPatientRecent(event.getPatientId());
+    }
+
+    private void onCancelled(AppointmentEventMessageDTO event) {
+        Doctor doctor = loadDoctor(event);
+        String doctorName = doctor != null ? doctor.getDoctorName() : "医生";
+        notify(event, event.getPatientId(), "预约已取消",
+                String.format("您已取消%s的%s时段预约，如有需要请重新预约。", doctorName, event.getTimeSlot()),
+                "APPOINTMENT_CANCELLED");
+        if (doctor != null && doctor.getUserId() != null) {
+            String patientName = event.getPatientName() != null ? event.getPatientName() : "患者";
+            String appointmentDateStr = event.getAppointmentDate() != null ? event.getAppointmentDate().toString() : "";
+            notify(event, doctor.getUserId(), "预约取消通知",
+                    String.format("患者%s已取消%s的预约", patientName, appointmentDateStr),
+                    "APPOINTMENT_CANCELLED");
+        }
+
+        evictDoctorPatientLists(event.getDoctorId(), event.getAppointmentDate(), true);
+        evictPatientRecent(event.getPatientId());
+        try {
+            redisUtil.invalidateTag(CacheTags.ADMIN_APPOINTMENT_LIST);
+        } catch (Exception e) {
+            log.warn("失效管理员预约列表缓存失败: appointmentId={}, error={}", event.getAppointmentId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 爽约事件按检测分段合并发送；缓存按键删除或按标签失效，开销与受影响的预约、医生、患者数成正比
+     */
+    private void onNoShow(AppointmentEventMessageDTO event) {
+        List<Long> appointmentIds = event.getAppointmentIds() != null
+                ? event.getAppointmentIds() : Collections.singletonList(event.getAppointmentId());
+        List<Long> patientIds = event.getPatientIds() != null
+                ? event.getPatientIds() : Collections.singletonList(event.getPatientId());
+        List<Long> doctorIds = event.getDoctorIds() != null
+                ? event.getDoctorIds() : Collections.singletonList(event.getDoctorId());
+
+        try {
+            // 失效预约详情及其评价缓存
+            for (Long appointmentId : appointmentIds) {
+                if (appointmentId != null) {
+                    redisUtil.delete(String.format("hospital:appointment:detail:%d", appointmentId));
+                    redisUtil.delete(String.format("hospital:common:review:v2:detail:appointment:%d", appointmentId));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("失效爽约预约详情缓存失败: appointmentIds={}, error={}", appointmentIds, e.getMessage());
+        }
+        // 批量事件不携带单个预约日期，爽约检测处理的多为当日预约，按当日失效医生今日统计
+        LocalDate appointmentDate = event.getAppointmentIds() != null ? LocalDate.now() : event.getAppointmentDate();
+        for (Long doctorId : doctorIds) {
+            evictDoctorPatientLists(doctorId, appointmentDate, true);
+            if (doctorId != null) {
+                try {
+                    redisUtil.invalidateTag(CacheTags.doctorReviews(doctorId));
+                } catch (Exception e) {
+                    log.warn("失效医生评价缓存失败: doctorId={}, error={}", doctorId, e.getMessage());
+                }
+            }
+        }
+        for (Long patientId : patientIds) {
+            evictPatientRecent(patientId);
+        }
+        try {
+            redisUtil.invalidateTag(CacheTags.ADMIN_APPOINTMENT_LIST);
+            // 失效统计缓存（包括最近预约、月度统计等）
+            redisUtil.invalidateTag(CacheTags.APPOINTMENT_STATS);
+        } catch (Exception e) {
+            log.warn("失效爽约统计缓存失败: appointmentIds={}, error={}", appointmentIds, e.getMessage());
+        }
+    }
+
+    private Doctor loadDoctor(AppointmentEventMessageDTO event) {
+        if (event.getDoctorId() == null) {
+            return null;
+        }
+        try {
+            return doctorMapper.selectById(event.getDoctorId());
+        } catch (Exception e) {
+            log.warn("查询医生信息失败: doctorId={}, error={}", event.getDoctorId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void notify(AppointmentEventMessageDTO event, Long userId, String title, String content, String type) {
+        if (userId == null) {
+            return;
+        }
+        try {
+            notificationService.createAndSendNotification(userId, title, content, type);
+        } catch (Exception e) {
+            log.warn("发送预约通知失败: appointmentId={}, userId={}, type={}, error={}",
+                    event.getAppointmentId(), userId, type, e.getMessage());
+        }
+    }
+
+    /**
+     * 失效医生端患者列表与今日统计缓存
+     *
+     * @param always 为 false 时仅在预约日期为今日时失效患者列表
+     */
+    private void evictDoctorPatientLists(Long doctorId, LocalDate appointmentDate, boolean always) {
+        if (doctorId == null) {
+            return;
+        }
+        boolean today = LocalDate.now().equals(appointmentDate);
+        try {
+            if (always || today) {
+                redisUtil.delete("hospital:doctor:patient:list:pending:doctor:" + doctorId);
+                redisUtil.delete("hospital:doctor:patient:list:today:doctor:" + doctorId);
+                redisUtil.delete("hospital:doctor:patient:list:completed:doctor:" + doctorId);
+            }
+            if (today) {
+                redisUtil.delete("hospital:doctor:stats:today:doctor:" + doctorId + ":date:" + LocalDate.now());
+            }
+        } catch (Exception e) {
+            log.warn("失效医生端缓存失败: doctorId={}, error={}", doctorId, e.getMessage());
+        }
+    }
+
+    private void evictPatientRecent(Long patientId) {
+        if (patientId == null) {
+            return;
+        }
+        try {
+            redisUtil.delete("hospital:patient:stats:appointments:recent:patient:" + patientId);
+        } catch (Exception e) {
+            log.warn("失效患者最近预约缓存失败: patientId={}, error={}", patientId, e.getMessage());
+        }
+    }
+
+    private String timeSlotName(String timeSlot) {
+        if (timeSlot == null) {
+            return "";
+        }
+        switch (timeSlot) {
+            case "MORNING":
+                return "上午";
+            case "AFTERNOON":
+                return "下午";
+            case "EVENING":
+                return "晚间";
+            default:
+                return timeSlot;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.hospital.messaging;
+
+import com.hospital.dto.AppointmentEventMessageDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 预约领域事件监听器，在独立的有界消费者线程上处理通知、缓存失效等副作用。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AppointmentEventListener {
+
+    private final AppointmentEventHandler appointmentEventHandler;
+
+    @RabbitListener(queues = "${hospital.rabbitmq.appointment.queue:hospital.appointment.event.queue}",
+            containerFactory = "appointmentEventContainerFactory")
+    public void onAppointmentEvent(AppointmentEventMessageDTO event) {
+        if (event == null || event.getEventType() == null
+                || (event.getAppointmentId() == null && (event.getAppointmentIds() == null || event.getAppointmentIds().isEmpty()))) {
+            log.warn("收到无效的预约事件：{}", event);
+            return;
+        }
+        appointmentEventHandler.handle(event);
+    }
+}
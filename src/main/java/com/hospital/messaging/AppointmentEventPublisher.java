@@ -0,0 +1,67 @@
+package com.hospital.messaging;
+
+import com.hospital.config.RabbitMQConfig;
+import com.hospital.dto.AppointmentEventMessageDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 预约领域事件发布者。
+ *
+ * 业务代码在事务内调用 {@link #publish}，事件在事务提交后才发送到 RabbitMQ，回滚时丢弃；
+ * 没有事务时立即发送。RabbitMQ 不可用时退化为在本地有界线程池中处理，避免丢失通知。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class AppointmentEventPublisher {
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private RabbitMQConfig rabbitMQConfig;
+
+    @Autowired
+    private AppointmentEventHandler appointmentEventHandler;
+
+    @Autowired
+    @Qualifier("appointmentEventExecutor")
+    private Executor appointmentEventExecutor;
+
+    /**
+     * 登记预约事件，事务提交后发送
+     */
+    public void publish(AppointmentEventMessageDTO event) {
+        applicationEventPublisher.publishEvent(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAppointmentEvent(AppointmentEventMessageDTO event) {
+        try {
+            rabbitTemplate.convertAndSend(
+                    rabbitMQConfig.getAppointmentExchange(),
+                    rabbitMQConfig.getAppointmentRoutingKey(),
+                    event
+            );
+            log.debug("已发布预约事件：eventType={}, appointmentId={}", event.getEventType(), event.getAppointmentId());
+        } catch (Exception e) {
+            log.warn("发布预约事件失败，转为本地处理：eventType={}, appointmentId={}, error={}",
+                    event.getEventType(), event.getAppointmentId(), e.getMessage());
+            appointmentEventExecutor.execute(() -> appointmentEventHandler.handle(event));
+        }
+    }
+}
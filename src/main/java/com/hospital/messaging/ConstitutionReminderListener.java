@@ -8,7 +8,6 @@ import com.hospital.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -23,7 +22,7 @@ public class ConstitutionReminderListener {
 
     private final NotificationService notificationService;
     private final ObjectMapper objectMapper;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final UserMessageSender userMessageSender;
 
     @RabbitListener(queues = "${hospital.rabbitmq.consultation.queue:hospital.consultation.completed.queue}")
     public void onConsultationCompleted(ConsultationReminderMessageDTO message) {
@@ -62,7 +61,7 @@ public class ConstitutionReminderListener {
                     .updatedAt(notification.getUpdatedAt())
                     .build();
 
-            messagingTemplate.convertAndSendToUser(
+            userMessageSender.sendToUser(
                     String.valueOf(notification.getUserId()),
                     "/queue/notifications",
                     payload
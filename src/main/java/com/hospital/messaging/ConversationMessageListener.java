@@ -4,7 +4,6 @@ import com.hospital.dto.ConversationMessageEventDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 /**
@@ -15,7 +14,7 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class ConversationMessageListener {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final UserMessageSender userMessageSender;
 
     @RabbitListener(queues = "${hospital.rabbitmq.conversation.queue:hospital.conversation.message.queue}")
     public void onConversationMessage(ConversationMessageEventDTO event) {
@@ -51,7 +50,7 @@ public class ConversationMessageListener {
 
             // 推送给接收者
             if (receiverUserId != null) {
-                messagingTemplate.convertAndSendToUser(
+                userMessageSender.sendToUser(
                         String.valueOf(receiverUserId),
                         "/queue/conversations",
                         event
@@ -64,7 +63,7 @@ public class ConversationMessageListener {
             }
 
             // 推送给发送者自己（用于实时显示自己发送的消息）
-            messagingTemplate.convertAndSendToUser(
+            userMessageSender.sendToUser(
                     String.valueOf(senderUserId),
                     "/queue/conversations",
                     event
@@ -85,7 +84,7 @@ public class ConversationMessageListener {
             // 推送给接收者（patientId或participant1UserId）
             Long receiverUserId = event.getParticipant1UserId() != null ? event.getParticipant1UserId() : event.getPatientId();
             if (receiverUserId != null) {
-                messagingTemplate.convertAndSendToUser(
+                userMessageSender.sendToUser(
                         String.valueOf(receiverUserId),
                         "/queue/conversations",
                         event
@@ -94,7 +93,7 @@ public class ConversationMessageListener {
             // 推送给管理员自己（用于实时显示自己发送的消息）
             Long adminUserId = event.getDoctorUserId() != null ? event.getDoctorUserId() : event.getSenderId();
             if (adminUserId != null) {
-                messagingTemplate.convertAndSendToUser(
+                userMessageSender.sendToUser(
                         String.valueOf(adminUserId),
                         "/queue/conversations",
                         event
@@ -105,7 +104,7 @@ public class ConversationMessageListener {
             // 推送给管理员（doctorUserId或participant2UserId）
             Long adminUserId = event.getParticipant2UserId() != null ? event.getParticipant2UserId() : event.getDoctorUserId();
             if (adminUserId != null) {
-                messagingTemplate.convertAndSendToUser(
+                userMessageSender.sendToUser(
                         String.valueOf(adminUserId),
                         "/queue/conversations",
                         event
@@ -116,7 +115,7 @@ public class ConversationMessageListener {
             Long senderUser = senderUserId != null ? senderUserId :
                     ("DOCTOR".equals(senderRole) ? event.getDoctorUserId() : event.getSenderId());
             if (senderUser != null) {
-                messagingTemplate.convertAndSendToUser(
+                userMessageSender.sendToUser(
                         String.valueOf(senderUser),
                         "/queue/conversations",
                         event
@@ -127,7 +126,7 @@ public class ConversationMessageListener {
             if ("DOCTOR".equals(senderRole)) {
                 // 医生发送的消息，推送给患者（patientId）
                 if (event.getPatientId() != null) {
-                    messagingTemplate.convertAndSendToUser(
+                    userMessageSender.sendToUser(
                             String.valueOf(event.getPatientId()),
                             "/queue/conversations",
                             event
@@ -135,7 +134,7 @@ public class ConversationMessageListener {
                 }
                 // 推送给医生自己（用于实时显示自己发送的消息）
                 if (event.getDoctorUserId() != null) {
-                    messagingTemplate.convertAndSendToUser(
+                    userMessageSender.sendToUser(
                             String.valueOf(event.getDoctorUserId()),
                             "/queue/conversations",
                             event
@@ -144,7 +143,7 @@ public class ConversationMessageListener {
             } else if ("PATIENT".equals(senderRole)) {
                 // 患者发送的消息，推送给医生（doctorUserId）
                 if (event.getDoctorUserId() != null) {
-                    messagingTemplate.convertAndSendToUser(
+                    userMessageSender.sendToUser(
                             String.valueOf(event.getDoctorUserId()),
                             "/queue/conversations",
                             event
@@ -152,7 +151,7 @@ public class ConversationMessageListener {
                 }
                 // 推送给患者自己（用于实时显示自己发送的消息）
                 if (event.getPatientId() != null) {
-                    messagingTemplate.convertAndSendToUser(
+                    userMessageSender.sendToUser(
                             String.valueOf(event.getPatientId()),
                             "/queue/conversations",
                             event
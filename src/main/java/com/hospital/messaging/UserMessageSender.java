@@ -0,0 +1,110 @@
+package com.hospital.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.config.WebSocketProperties;
+import com.hospital.dto.WebSocketRouteMessageDTO;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 向用户推送 WebSocket 消息
+ * 未启用集群投递时直接交给本节点的 Broker；启用后本节点有连接时直接推送，
+ * 其余登记的节点经 Redis 频道转发，由对应节点推送给其本地连接。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class UserMessageSender {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    @Autowired
+    private WebSocketProperties properties;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 推送消息给用户的所有连接
+     *
+     * @param userId 用户ID
+     * @param destination 用户目的地，如 /queue/notifications
+     * @param payload 消息内容
+     */
+    public void sendToUser(String userId, String destination, Object payload) {
+        if (!properties.isClusterEnabled()) {
+            messagingTemplate.convertAndSendToUser(userId, destination, payload);
+            return;
+        }
+        if (sessionRegistry.isLocal(userId)) {
+            messagingTemplate.convertAndSendToUser(userId, destination, payload);
+        }
+        Set<String> nodes;
+        try {
+            nodes = sessionRegistry.remoteNodes(userId);
+        } catch (Exception e) {
+            log.warn("读取WebSocket用户节点失败，仅推送本节点连接: userId={}, error={}", userId, e.getMessage());
+            nodes = Collections.emptySet();
+        }
+        if (nodes.isEmpty()) {
+            return;
+        }
+        String message;
+        try {
+            message = objectMapper.writeValueAsString(WebSocketRouteMessageDTO.builder()
+                    .userId(userId)
+                    .destination(destination)
+                    .payload(payload)
+                    .build());
+        } catch (Exception e) {
+            log.error("序列化WebSocket转发消息失败: userId={}, destination={}", userId, destination, e);
+            return;
+        }
+        for (String node : nodes) {
+            try {
+                Long receivers = redisUtil.publish(CacheConstants.WEBSOCKET_NODE_CHANNEL_PREFIX + node, message);
+                if (receivers != null && receivers == 0) {
+                    // 节点已下线但登记仍在，顺带清理
+                    sessionRegistry.removeNode(userId, node);
+                }
+            } catch (Exception e) {
+                log.warn("转发WebSocket消息失败: userId={}, node={}, error={}", userId, node, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 处理其他节点转发来的消息，推送给本节点上该用户的连接
+     *
+     * @param message 转发消息JSON
+     */
+    public void handleRouteMessage(String message) {
+        try {
+            WebSocketRouteMessageDTO route = objectMapper.readValue(message, WebSocketRouteMessageDTO.class);
+            if (route.getUserId() == null || route.getDestination() == null) {
+                return;
+            }
+            if (sessionRegistry.isLocal(route.getUserId())) {
+                messagingTemplate.convertAndSendToUser(route.getUserId(), route.getDestination(), route.getPayload());
+            }
+        } catch (Exception e) {
+            log.warn("处理WebSocket转发消息失败: error={}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.hospital.messaging;
+
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.config.WebSocketProperties;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import javax.annotation.PreDestroy;
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket 会话登记
+ * 本地记录每个用户在本节点上的会话；启用集群投递时同时在 Redis 集合中登记用户所在的节点，
+ * 用户在本节点的最后一个会话断开时移除登记。节点异常退出留下的登记在转发无人接收时清理。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class WebSocketSessionRegistry {
+
+    /** 当前节点ID，同时作为本节点投递频道的后缀 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /** 用户ID -> 本节点上的会话ID */
+    private final ConcurrentMap<String, Set<String>> localSessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private WebSocketProperties properties;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 用户是否在本节点有连接
+     */
+    public boolean isLocal(String userId) {
+        return localSessions.containsKey(userId);
+    }
+
+    /**
+     * 用户所在的其他节点
+     */
+    public Set<String> remoteNodes(String userId) {
+        Set<String> nodes = new HashSet<>(redisUtil.sMembers(nodesKey(userId)));
+        nodes.remove(nodeId);
+        return nodes;
+    }
+
+    /**
+     * 移除失效节点的登记
+     */
+    public void removeNode(String userId, String node) {
+        try {
+            redisUtil.sRemove(nodesKey(userId), node);
+        } catch (Exception e) {
+            log.warn("移除WebSocket节点登记失败: userId={}, node={}, error={}", userId, node, e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String userId = userId(event.getUser());
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        if (userId == null || sessionId == null) {
+            return;
+        }
+        localSessions.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        if (properties.isClusterEnabled()) {
+            register(userId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String userId = userId(event.getUser());
+        if (userId == null) {
+            return;
+        }
+        boolean offline = localSessions.computeIfPresent(userId, (key, sessions) -> {
+            sessions.remove(event.getSessionId());
+            return sessions.isEmpty() ? null : sessions;
+        }) == null;
+        if (offline && properties.isClusterEnabled()) {
+            removeNode(userId, nodeId);
+        }
+    }
+
+    /**
+     * 定期刷新本节点在线用户的登记，避免长连接用户的登记过期
+     */
+    @Scheduled(fixedDelayString = "${hospital.websocket.registry-refresh-ms:600000}")
+    public void refresh() {
+        if (!properties.isClusterEnabled() || localSessions.isEmpty()) {
+            return;
+        }
+        for (String userId : localSessions.keySet()) {
+            register(userId);
+        }
+        log.debug("刷新WebSocket在线用户登记: node={}, users={}", nodeId, localSessions.size());
+    }
+
+    @PreDestroy
+    public void unregisterAll() {
+        if (!properties.isClusterEnabled()) {
+            return;
+        }
+        for (String userId : localSessions.keySet()) {
+            removeNode(userId, nodeId);
+        }
+    }
+
+    private void register(String userId) {
+        try {
+            redisUtil.sAdd(nodesKey(userId), nodeId);
+            redisUtil.expire(nodesKey(userId), properties.getRegistryTtlSeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("登记WebSocket用户节点失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 只登记已认证的用户，匿名连接的 Principal 为随机UUID
+     */
+    private String userId(Principal principal) {
+        if (principal == null || principal.getName() == null || principal.getName().isEmpty()) {
+            return null;
+        }
+        String name = principal.getName();
+        return name.chars().allMatch(Character::isDigit) ? name : null;
+    }
+
+    private String nodesKey(String userId) {
+        return CacheConstants.WEBSOCKET_USER_NODES_PREFIX + userId;
+    }
+}
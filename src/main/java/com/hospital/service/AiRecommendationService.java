@@ -2,8 +2,10 @@ package com.hospital.service;
 
 import com.hospital.entity.HerbalRecipe;
 import com.hospital.entity.UserConstitutionTest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * AI推荐服务接口
@@ -22,6 +24,15 @@ public interface AiRecommendationService {
      */
     String generateRecommendationReason(HerbalRecipe recipe, UserConstitutionTest constitution);
 
+    /**
+     * 异步生成个性化推荐理由，调用失败或超时时以默认推荐理由完成，不会异常结束
+     *
+     * @param recipe 药膳信息
+     * @param constitution 用户体质测试结果
+     * @return 推荐理由文本
+     */
+    CompletableFuture<String> generateRecommendationReasonAsync(HerbalRecipe recipe, UserConstitutionTest constitution);
+
     /**
      * 基于对话内容推荐药膳
      *
@@ -40,6 +51,24 @@ public interface AiRecommendationService {
      */
     String answerQuestion(String question, Long userId);
 
+    /**
+     * 异步智能问答，调用失败或超时时以默认回答完成，不会异常结束
+     *
+     * @param question 用户问题
+     * @param userId 用户ID
+     * @return AI回答
+     */
+    CompletableFuture<String> answerQuestionAsync(String question, Long userId);
+
+    /**
+     * 流式智能问答，回答逐段以 SSE 推送
+     *
+     * @param question 用户问题
+     * @param userId 用户ID
+     * @return SSE 发射器
+     */
+    SseEmitter streamAnswer(String question, Long userId);
+
     /**
      * 基于协同过滤的药膳推荐
      *
@@ -0,0 +1,35 @@
+package com.hospital.service;
+
+import com.hospital.entity.Appointment;
+
+/**
+ * 爽约检测服务
+ * 待就诊预约按时段结束时间登记到Redis有序集合，定时取出已到期的预约分段批量标记为爽约；
+ * 数据库定期补录登记缺失的预约，多节点部署时通过Redis租约保证同一时刻只有一个节点执行。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface AppointmentNoShowService {
+
+    /**
+     * 登记待检测的预约（按时段结束时间排序）
+     *
+     * @param appointment 预约
+     */
+    void track(Appointment appointment);
+
+    /**
+     * 从数据库补录今天及以前仍待就诊的预约
+     *
+     * @return 补录的预约数；未取得租约时返回 -1
+     */
+    int seed();
+
+    /**
+     * 将已过时段结束时间的预约标记为爽约
+     *
+     * @return 标记的预约数；未取得租约时返回 -1
+     */
+    int sweep();
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.hospital.common.result.Result;
 import com.hospital.entity.Appointment;
 
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -35,12 +36,12 @@ public interface AppointmentService extends IService<Appointment> {
     Result<Appointment> getAppointmentById(Long id);
 
     /**
-     * 导出患者预约记录
+     * 导出患者预约记录（分批读取，直接写入输出流）
      *
-     * @param patientId 患者ID
-     * @param params    查询参数：状态、起止日期等
-     * @return Excel 二进制字节
+     * @param patientId    患者ID
+     * @param params       查询参数：状态、起止日期等
+     * @param outputStream Excel 输出流
      */
-    byte[] exportPatientAppointments(Long patientId, Map<String, Object> params);
+    void exportPatientAppointments(Long patientId, Map<String, Object> params, OutputStream outputStream);
 }
 
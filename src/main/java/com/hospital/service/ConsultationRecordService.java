@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.hospital.entity.ConsultationRecord;
 
+import java.io.OutputStream;
 import java.util.Map;
 
 /**
@@ -48,12 +49,12 @@ public interface ConsultationRecordService extends IService<ConsultationRecord>
     boolean completeConsultation(Long appointmentId, ConsultationRecord consultationRecord);
 
     /**
-     * 导出接诊记录
+     * 导出接诊记录（分批读取，直接写入输出流）
      * @param doctorId 医生ID
      * @param params 查询参数
-     * @return 导出数据
+     * @param outputStream Excel 输出流
      */
-    byte[] exportConsultationRecords(Long doctorId, Map<String, Object> params);
+    void exportConsultationRecords(Long doctorId, Map<String, Object> params, OutputStream outputStream);
 
     /**
      * 获取接诊记录详情（包含关联信息）
@@ -0,0 +1,57 @@
+package com.hospital.service;
+
+import com.hospital.common.constant.ContentCounterMetric;
+import com.hospital.common.constant.ContentCounterTarget;
+
+import java.util.List;
+
+/**
+ * 文章、药膳、评论的浏览/点赞/收藏计数
+ * 计数先以 HINCRBY 累积在按ID分片的Redis哈希中，由定时任务原子取出后按列合并为批量UPDATE落库，
+ * 热点内容的每次访问不再对同一行执行UPDATE；同时按加权热度维护排行 Sorted Set，供热门、精选列表直接读取。
+ * Redis不可用或未启用时退化为直接更新数据库。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface ContentCounterService {
+
+    /**
+     * 累加计数；处于事务中时在提交后执行，避免回滚的点赞、收藏被计入
+     *
+     * @param target 实体类型
+     * @param id 记录ID
+     * @param metric 指标
+     * @param delta 增量（取消点赞、收藏时为负数）
+     */
+    void increment(ContentCounterTarget target, Long id, ContentCounterMetric metric, int delta);
+
+    /**
+     * 按热度降序读取排行前若干条记录ID
+     *
+     * @param target 实体类型（须维护排行）
+     * @param limit 数量，超过 popularSize 时按 popularSize 截断
+     * @return 记录ID；未启用、排行尚未建立或读取失败时返回 null，调用方回退到数据库查询
+     */
+    List<Long> getPopularIds(ContentCounterTarget target, int limit);
+
+    /**
+     * 从热度排行中移除记录（下架、删除时调用）
+     *
+     * @param target 实体类型
+     * @param id 记录ID
+     */
+    void removePopular(ContentCounterTarget target, Long id);
+
+    /**
+     * 把累积的增量批量写入数据库，并补建缺失的热度排行
+     *
+     * @return 更新的行数
+     */
+    int flush();
+
+    /**
+     * 从数据库重建热度排行，校正增量维护产生的偏差并淘汰排行外的记录
+     */
+    void rebuildPopular();
+}
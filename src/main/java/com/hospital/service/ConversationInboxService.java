@@ -0,0 +1,39 @@
+package com.hospital.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+
+/**
+ * 用户会话收件箱
+ * 每个用户一个Redis有序集合，保存其可见的会话ID并按会话更新时间排序，
+ * 同时在哈希中维护每个会话的未读数及未读总数；会话列表分页与未读角标不再查询数据库。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface ConversationInboxService {
+
+    /**
+     * 按更新时间倒序分页查询用户的会话ID，未缓存时从数据库加载
+     *
+     * @param userId 用户ID
+     * @param current 页码
+     * @param size 每页条数
+     * @return 会话ID分页
+     */
+    Page<Long> page(Long userId, long current, long size);
+
+    /**
+     * 查询用户所有可见会话的未读消息总数，未缓存时从数据库加载
+     *
+     * @param userId 用户ID
+     * @return 未读总数
+     */
+    long countUnread(Long userId);
+
+    /**
+     * 按数据库中的最新状态同步会话在双方收件箱中的位置、可见性和未读数（会话变更提交后调用）
+     *
+     * @param conversationId 会话ID
+     */
+    void sync(Long conversationId);
+}
@@ -0,0 +1,46 @@
+package com.hospital.service;
+
+import com.hospital.entity.ConversationMessage;
+
+import java.util.List;
+
+/**
+ * 会话最新消息缓存
+ * 每个会话一个Redis列表，按发送顺序保存最新的若干条消息；
+ * 发送消息时直接追加并裁剪到固定长度，不再整体失效，打开会话时无需随历史长度增长而变慢。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface ConversationMessageCacheService {
+
+    /**
+     * 缓存可以返回的最大条数
+     *
+     * @return 每个会话缓存的消息条数
+     */
+    int capacity();
+
+    /**
+     * 查询会话最新的若干条消息（按发送时间升序），未缓存时从数据库加载
+     *
+     * @param conversationId 会话ID
+     * @param count 条数，不能超过 {@link #capacity()}
+     * @return 最新消息，不足 count 条时即为会话全部消息
+     */
+    List<ConversationMessage> getLatest(Long conversationId, int count);
+
+    /**
+     * 追加一条新消息；会话未缓存时只标记变更
+     *
+     * @param message 已提交的消息
+     */
+    void append(ConversationMessage message);
+
+    /**
+     * 失效会话的消息缓存（清空或批量删除消息时调用）
+     *
+     * @param conversationId 会话ID
+     */
+    void evict(Long conversationId);
+}
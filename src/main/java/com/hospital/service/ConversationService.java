@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.hospital.dto.request.ConversationCreateRequest;
 import com.hospital.dto.request.SendMessageRequest;
+import com.hospital.dto.response.MessageCursorResponse;
 import com.hospital.entity.Conversation;
 import com.hospital.entity.ConversationMessage;
 
@@ -19,6 +20,11 @@ public interface ConversationService extends IService<Conversation> {
      */
     IPage<Conversation> listConversations(Map<String, Object> params);
 
+    /**
+     * 查询用户所有可见会话的未读消息总数
+     */
+    long countUnread(Long userId);
+
     /**
      * 创建会话
      * @param request 创建会话请求
@@ -33,6 +39,12 @@ public interface ConversationService extends IService<Conversation> {
      */
     IPage<ConversationMessage> listMessages(Long conversationId, Map<String, Object> params);
 
+    /**
+     * 按消息游标查询消息
+     * beforeId、afterId 均为空时返回最新一页；指定 beforeId 时返回其之前的更早消息，指定 afterId 时返回其之后的新消息
+     */
+    MessageCursorResponse listMessagesByCursor(Long conversationId, Long beforeId, Long afterId, Integer limit);
+
     /**
      * 追加消息
      */
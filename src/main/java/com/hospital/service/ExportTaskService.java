@@ -0,0 +1,70 @@
+package com.hospital.service;
+
+import com.hospital.dto.response.ExportTaskResponse;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * 异步导出任务服务
+ * 在后台线程中生成导出文件，任务状态及进度保存在Redis中，完成后按任务ID下载。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface ExportTaskService {
+
+    /**
+     * 导出作业：向输出流写出文件内容，并通过回调汇报累计已导出行数
+     */
+    @FunctionalInterface
+    interface ExportJob {
+        void run(OutputStream outputStream, LongConsumer progress) throws Exception;
+    }
+
+    /**
+     * 提交异步导出任务
+     *
+     * @param ownerId 创建人ID
+     * @param fileName 下载文件名
+     * @param total 预计总行数
+     * @param job 导出作业
+     * @return 任务状态
+     */
+    ExportTaskResponse submit(Long ownerId, String fileName, long total, ExportJob job);
+
+    /**
+     * 查询任务状态
+     *
+     * @param taskId 任务ID
+     * @return 任务状态，不存在或已过期时返回 null
+     */
+    ExportTaskResponse getTask(String taskId);
+
+    /**
+     * 查询当前用户创建的任务状态
+     *
+     * @param taskId 任务ID
+     * @param ownerId 当前用户ID
+     * @return 任务状态
+     * @throws com.hospital.common.exception.BusinessException 任务不存在、已过期或不属于当前用户时
+     */
+    ExportTaskResponse getOwnedTask(String taskId, Long ownerId);
+
+    /**
+     * 获取已完成任务的导出文件
+     *
+     * @param taskId 任务ID
+     * @param ownerId 当前用户ID
+     * @return 导出文件
+     */
+    File getResultFile(String taskId, Long ownerId);
+
+    /**
+     * 清理过期的导出文件
+     *
+     * @return 删除的文件数
+     */
+    int cleanExpiredFiles();
+}
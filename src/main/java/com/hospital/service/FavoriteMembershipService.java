@@ -0,0 +1,47 @@
+package com.hospital.service;
+
+import com.hospital.common.constant.FavoriteTarget;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * 用户收藏关系查询
+ * 每个用户的收藏ID以Redis集合保存，首次查询时从数据库加载，收藏、取消收藏在事务提交后原地更新；
+ * 列表页一次调用即可判断整页内容的收藏状态，不再逐条查询收藏表。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface FavoriteMembershipService {
+
+    /**
+     * 判断给定内容中哪些已被用户收藏
+     *
+     * @param target 收藏类型
+     * @param userId 用户ID
+     * @param ids 内容ID
+     * @return 已收藏的内容ID；用户未登录或未给出ID时返回空集合
+     */
+    Set<Long> findFavorited(FavoriteTarget target, Long userId, Collection<Long> ids);
+
+    /**
+     * 判断单个内容是否已被用户收藏
+     *
+     * @param target 收藏类型
+     * @param userId 用户ID
+     * @param id 内容ID
+     * @return 是否已收藏
+     */
+    boolean isFavorited(FavoriteTarget target, Long userId, Long id);
+
+    /**
+     * 用户收藏或取消收藏后调用：事务提交后更新该用户的收藏集合（集合尚未加载时忽略）
+     *
+     * @param target 收藏类型
+     * @param userId 用户ID
+     * @param id 内容ID
+     * @param favorited true 为收藏，false 为取消收藏
+     */
+    void onFavoriteChanged(FavoriteTarget target, Long userId, Long id, boolean favorited);
+}
@@ -0,0 +1,60 @@
+package com.hospital.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 排队号分配服务
+ * 以 医生+日期+时段 为维度维护原子序列（Redis INCR，数据库序列表兜底），
+ * 首次使用时按预约表现有排队号惰性初始化，可选回收取消预约的空号。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface QueueNumberService {
+
+    /**
+     * 分配排队号
+     *
+     * @param doctorId 医生ID
+     * @param date 预约日期
+     * @param timeSlot 时段
+     * @return 排队号
+     */
+    Integer allocate(Long doctorId, LocalDate date, String timeSlot);
+
+    /**
+     * 回收排队号（仅在开启空号回收时生效）
+     *
+     * @param doctorId 医生ID
+     * @param date 预约日期
+     * @param timeSlot 时段
+     * @param queueNumber 排队号
+     */
+    void recycle(Long doctorId, LocalDate date, String timeSlot, Integer queueNumber);
+
+    /**
+     * 确保Redis中的序列已初始化（供号源预扣脚本在同一步分配排队号前调用）
+     *
+     * @param doctorId 医生ID
+     * @param date 预约日期
+     * @param timeSlot 时段
+     */
+    void ensureSeeded(Long doctorId, LocalDate date, String timeSlot);
+
+    /**
+     * 获取序列相关的Redis键：[序列键, 空号集合键, 兜底下限键]
+     * 兜底下限键记录数据库序列兜底分配过的最大号码，分配脚本在 INCR 前把序列抬升到不低于该值
+     *
+     * @param doctorId 医生ID
+     * @param date 预约日期
+     * @param timeSlot 时段
+     * @return 键列表
+     */
+    List<String> redisKeys(Long doctorId, LocalDate date, String timeSlot);
+
+    /**
+     * 是否开启空号回收
+     */
+    boolean isReclaimEnabled();
+}
@@ -1,12 +1,16 @@
 package com.hospital.service;
 
+import com.hospital.annotation.RateLimit;
+
+import java.util.Map;
+
 /**
  * 限流服务
  */
 public interface RateLimitService {
 
     /**
-     * 尝试获取访问令牌
+     * 尝试获取访问令牌（滑动窗口，不预取）
      *
      * @param key           限流键
      * @param limit         时间窗口内允许的最大次数
@@ -14,6 +18,25 @@ public interface RateLimitService {
      * @return true 表示允许访问，false 表示被限流
      */
     boolean tryAcquire(String key, int limit, long windowSeconds);
-}
 
+    /**
+     * 按指定算法尝试获取访问令牌，优先消费本地预取的许可
+     *
+     * @param rule          限流规则名（用于统计，如注解的 key 或请求路径）
+     * @param key           限流键
+     * @param limit         时间窗口内允许的最大次数
+     * @param windowSeconds 时间窗口（秒）
+     * @param algorithm     限流算法
+     * @param leaseSize     每次预取的许可数，0 表示自动计算
+     * @return true 表示允许访问，false 表示被限流
+     */
+    boolean tryAcquire(String rule, String key, int limit, long windowSeconds,
+                       RateLimit.Algorithm algorithm, int leaseSize);
 
+    /**
+     * 各限流规则的放行/拒绝次数
+     *
+     * @return 规则名 -> {allowed, rejected}
+     */
+    Map<String, Map<String, Long>> getStats();
+}
@@ -0,0 +1,30 @@
+package com.hospital.service;
+
+import java.util.List;
+
+/**
+ * 上架药膳名称的内存词典
+ * 每个节点从数据库加载全部上架药膳名称构建 Aho-Corasick 自动机，定期比对药膳名称指纹（上架数量与ID、名称校验和），
+ * 有变化时重建。用于在大模型输出等文本中一次扫描找出提到的药膳，无需逐行查库。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface RecipeDictionaryService {
+
+    /**
+     * 药膳数据有变化（或尚未构建）时重建词典
+     */
+    void refresh();
+
+    /**
+     * 按行匹配文本中提到的药膳
+     * 每行先找完整出现的药膳名称（互不重叠、同起点取最长）；一个都没有时，
+     * 把整行当作名称片段，取名称包含该片段的第一个药膳（ID 最小）。
+     *
+     * @param lines 文本行
+     * @param limit 最多返回数量
+     * @return 药膳ID，按出现顺序去重；未启用或词典尚未构建完成时返回 null
+     */
+    List<Long> matchRecipeIds(List<String> lines, int limit);
+}
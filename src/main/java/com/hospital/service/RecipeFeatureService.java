@@ -0,0 +1,25 @@
+package com.hospital.service;
+
+import com.hospital.util.RecipeFeatureStore;
+
+/**
+ * 药膳内容特征库
+ * 每个节点把全部上架药膳编码为数值特征常驻内存，定期比对药膳内容特征指纹，有变化时重新编码；收藏数、浏览数按 popularityRefreshMs 定期刷新。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface RecipeFeatureService {
+
+    /**
+     * 药膳数据有变化（或尚未构建）时重新编码
+     */
+    void refresh();
+
+    /**
+     * 当前特征库快照
+     *
+     * @return 特征库；未启用或尚未构建完成时返回 null
+     */
+    RecipeFeatureStore getStore();
+}
@@ -0,0 +1,45 @@
+package com.hospital.service;
+
+import java.util.List;
+
+/**
+ * 药膳物品协同过滤模型
+ * 每个节点启动时扫描收藏表构建药膳共现矩阵与每个药膳的相似药膳列表，之后定期全量重建；
+ * 用户收藏、取消收藏在事务提交后增量更新本节点模型并广播给其他节点。
+ * 推荐时只需合并用户已收藏药膳的相似列表，不再逐请求加载全部收藏计算用户相似度。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface RecipeSimilarityService {
+
+    /**
+     * 全量重建模型
+     */
+    void rebuild();
+
+    /**
+     * 根据用户已收藏的药膳推荐相似药膳
+     *
+     * @param favoriteRecipeIds 用户已收藏的药膳ID
+     * @param limit 数量
+     * @return 推荐的药膳ID（按相似度得分降序，不含已收藏药膳）；未启用或模型尚未构建完成时返回 null
+     */
+    List<Long> recommend(List<Long> favoriteRecipeIds, int limit);
+
+    /**
+     * 用户收藏或取消收藏药膳后调用：事务提交后更新模型、失效该用户的推荐缓存并广播给其他节点
+     *
+     * @param userId 用户ID
+     * @param recipeId 药膳ID
+     * @param favorited true 为收藏，false 为取消收藏
+     */
+    void onFavoriteChanged(Long userId, Long recipeId, boolean favorited);
+
+    /**
+     * 处理其他节点发来的增量更新广播
+     *
+     * @param message 广播消息
+     */
+    void handleMessage(String message);
+}
@@ -0,0 +1,52 @@
+package com.hospital.service;
+
+import com.hospital.entity.Schedule;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * 医生排班视图缓存
+ * 每位医生一个Redis哈希，按排班ID保存排班数据及剩余/已约号源，按月登记已加载的排班ID；
+ * 预约、取消时通过 HINCRBY 原地修改对应排班的号源字段，不再整月失效重建。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface ScheduleCacheService {
+
+    /**
+     * 查询医生某月的排班，未缓存时从数据库加载
+     *
+     * @param doctorId 医生ID
+     * @param month 月份
+     * @return 按日期、时段排序的排班
+     */
+    List<Schedule> getMonth(Long doctorId, YearMonth month);
+
+    /**
+     * 查询医生某天的排班（取自所在月份的缓存）
+     *
+     * @param doctorId 医生ID
+     * @param date 日期
+     * @return 排班
+     */
+    List<Schedule> getDate(Long doctorId, LocalDate date);
+
+    /**
+     * 原地调整缓存中某个排班的号源：剩余号源加 delta，已约数减 delta；排班未缓存时忽略
+     *
+     * @param doctorId 医生ID
+     * @param scheduleId 排班ID
+     * @param delta 剩余号源变化量（预约为 -1，取消为 1）
+     */
+    void adjustQuota(Long doctorId, Long scheduleId, int delta);
+
+    /**
+     * 失效医生的全部排班缓存（排班增删改时调用）
+     *
+     * @param doctorId 医生ID
+     */
+    void evictDoctor(Long doctorId);
+}
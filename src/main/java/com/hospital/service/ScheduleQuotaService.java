@@ -0,0 +1,75 @@
+package com.hospital.service;
+
+import com.hospital.entity.Schedule;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 号源预扣服务
+ * 将排班剩余号源预加载到Redis，通过Lua脚本原子扣减并同步分配排队号，
+ * 数据库中的排班号源由后台任务异步回写并定期对账。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface ScheduleQuotaService {
+
+    /**
+     * 是否启用Redis号源预扣
+     */
+    boolean isEnabled();
+
+    /**
+     * 预扣一个号源并分配排队号
+     *
+     * @param schedule 排班
+     * @return 排队号；号源已满时返回 null
+     */
+    Integer reserve(Schedule schedule);
+
+    /**
+     * 释放一个号源（取消预约或预约落库失败时）
+     *
+     * @param scheduleId 排班ID
+     * @return 是否实际回补了号源（已约数为0时忽略并返回 false）
+     */
+    boolean release(Long scheduleId);
+
+    /**
+     * 用Redis中的实时号源覆盖排班的剩余/已约数（未加载到Redis的排班保持数据库值）
+     *
+     * @param schedules 排班
+     */
+    void applyLiveQuota(List<Schedule> schedules);
+
+    /**
+     * 移除Redis中的号源，下次预扣时按已提交的排班重新加载（排班修改或删除的事务提交后调用）
+     *
+     * @param scheduleId 排班ID
+     */
+    void evict(Long scheduleId);
+
+    /**
+     * 预热日期范围内的排班号源
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 新加载的排班数
+     */
+    int preload(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 将Redis中变更过的号源批量回写数据库
+     *
+     * @return 回写的排班数
+     */
+    int flushDirty();
+
+    /**
+     * 以预约表为准对账Redis号源，修正因进程崩溃等原因产生的偏差
+     *
+     * @return 修正的排班数
+     */
+    int reconcile();
+}
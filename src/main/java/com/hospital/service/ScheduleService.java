@@ -48,14 +48,14 @@ public interface ScheduleService extends IService<Schedule> {
     boolean checkQuotaAvailable(Long scheduleId);
 
     /**
-     * 扣减号源
+     * 扣减号源（doctorId 用于原地调整排班缓存，为空时按排班查询）
      */
-    Result<Void> decreaseQuota(Long scheduleId);
+    Result<Void> decreaseQuota(Long scheduleId, Long doctorId);
 
     /**
-     * 增加号源（取消预约）
+     * 增加号源（取消预约，doctorId 用于原地调整排班缓存，为空时按排班查询）
      */
-    Result<Void> increaseQuota(Long scheduleId);
+    Result<Void> increaseQuota(Long scheduleId, Long doctorId);
 
     /**
      * 批量创建排班（支持多医生、多日期、多时段）
@@ -0,0 +1,72 @@
+package com.hospital.service;
+
+import com.hospital.common.constant.SearchDocumentType;
+import com.hospital.dto.response.SearchHitResponse;
+import com.hospital.dto.response.UnifiedSearchResponse;
+import com.hospital.util.SearchIndex;
+
+import java.util.List;
+
+/**
+ * 文章、食谱、穴位的内存全文索引
+ * 每个节点启动时从数据库全量构建，文章发布、修改、下架后在事务提交时增量更新并广播给其他节点，
+ * 另有定时全量重建兜底直接改库等未经应用的变更。索引未就绪或未启用时调用方回退到数据库模糊查询。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface SearchIndexService {
+
+    /**
+     * 全量重建所有类型的索引
+     */
+    void rebuildAll();
+
+    /**
+     * 检索某类文档
+     *
+     * @param type 文档类型
+     * @param query 检索条件
+     * @return 检索结果；未启用或索引尚未构建完成时返回 null
+     */
+    SearchIndex.Result search(SearchDocumentType type, SearchIndex.Query query);
+
+    /**
+     * 跨类型统一搜索
+     *
+     * @param keyword 关键词
+     * @param types 文档类型，为空时搜索全部类型
+     * @param category 分类（可选）
+     * @param constitutionType 体质类型（可选，"适用全部体质"的文档同样命中）
+     * @param tag 文章标签（可选，指定后只有文章能命中）
+     * @param pageNum 页码
+     * @param pageSize 每页数量
+     * @return 搜索结果；未启用或索引尚未构建完成时返回 null
+     */
+    UnifiedSearchResponse search(String keyword, List<SearchDocumentType> types, String category,
+                                 String constitutionType, String tag, int pageNum, int pageSize);
+
+    /**
+     * 按标题前缀给出搜索提示（穴位同时匹配拼音）
+     *
+     * @param prefix 前缀
+     * @param limit 最大条数
+     * @return 提示列表，按热度降序
+     */
+    List<SearchHitResponse> suggest(String prefix, int limit);
+
+    /**
+     * 当前事务提交后按数据库最新状态更新某个文档的索引，并通知其他节点
+     *
+     * @param type 文档类型
+     * @param id 文档ID
+     */
+    void refreshAfterCommit(SearchDocumentType type, Long id);
+
+    /**
+     * 处理其他节点广播的索引更新消息
+     *
+     * @param message 消息体：节点ID|文档类型|文档ID
+     */
+    void handleMessage(String message);
+}
@@ -0,0 +1,27 @@
+package com.hospital.service;
+
+/**
+ * 预约统计汇总服务
+ * 按 预约日期+医生+分类+状态 维护预约数量汇总表，统计看板从汇总表读取，不再扫描预约表。
+ * 增量刷新以数据库时间为水位，查找 updated_at 晚于水位的预约涉及的日期并逐日重建；
+ * 每日重建近期日期兜底物理删除等不更新 updated_at 的变更。多节点部署时通过Redis租约保证同一时刻只有一个节点执行。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public interface StatisticsRollupService {
+
+    /**
+     * 增量刷新自上次水位以来有预约变更的日期；首次运行（汇总表为空）时回填全部历史
+     *
+     * @return 重建的日期数；未取得租约时返回 -1
+     */
+    int refresh();
+
+    /**
+     * 重建近期（compactionPastDays 天前到 compactionFutureDays 天后）的汇总
+     *
+     * @return 重建的日期数；未取得租约时返回 -1
+     */
+    int compact();
+}
@@ -6,8 +6,10 @@ import com.hospital.entity.Dictionary;
 import com.hospital.entity.OperationLog;
 import com.hospital.entity.SystemConfig;
 import com.hospital.entity.User;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.function.LongConsumer;
 
 /**
  * 系统管理服务接口
@@ -30,11 +32,25 @@ public interface SystemService {
     void recordOperationLog(OperationLog operationLog);
 
     /**
-     * 导出操作日志
+     * 批量记录操作日志（多行插入，日志需预先分配ID）
+     * @param operationLogs 操作日志
+     */
+    void recordOperationLogs(List<OperationLog> operationLogs);
+
+    /**
+     * 导出操作日志（分批读取，直接写入输出流）
+     * @param params 查询参数
+     * @param outputStream Excel 输出流
+     * @param progress 进度回调（累计已导出行数），可为 null
+     */
+    void exportOperationLogs(Map<String, Object> params, OutputStream outputStream, LongConsumer progress);
+
+    /**
+     * 统计符合导出条件的操作日志数
      * @param params 查询参数
-     * @return Excel文件字节数组
+     * @return 记录数
      */
-    byte[] exportOperationLogs(Map<String, Object> params);
+    long countOperationLogs(Map<String, Object> params);
 
     // ==================== 系统配置管理 ====================
     
@@ -2,6 +2,7 @@ package com.hospital.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hospital.common.constant.SearchDocumentType;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
 import com.hospital.entity.Acupoint;
@@ -11,12 +12,19 @@ import com.hospital.mapper.AcupointCombinationMapper;
 import com.hospital.mapper.AcupointMapper;
 import com.hospital.mapper.UserConstitutionTestMapper;
 import com.hospital.service.AcupointService;
+import com.hospital.service.SearchIndexService;
+import com.hospital.util.CacheTtlPolicy;
+import com.hospital.util.ReadThroughCache;
+import com.hospital.util.SearchIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * 穴位服务实现类
@@ -28,6 +36,9 @@ import java.util.Map;
 @Service
 public class AcupointServiceImpl implements AcupointService {
 
+    /** 穴位相关缓存秒数（30分钟） */
+    private static final long ACUPOINT_CACHE_TTL_SECONDS = 30 * 60;
+
     @Autowired
     private AcupointMapper acupointMapper;
 
@@ -40,6 +51,12 @@ public class AcupointServiceImpl implements AcupointService {
     @Autowired
     private com.hospital.util.RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
     /**
      * 分页查询穴位列表
      */
@@ -56,24 +73,11 @@ public class AcupointServiceImpl implements AcupointService {
             }
             String cacheKey = redisUtil.buildCacheKey("hospital:common:acupoint:list", pageNum, pageSize, filterParams);
 
-            if (pageNum <= 3) {
-                Object cached = redisUtil.get(cacheKey);
-                if (cached instanceof IPage) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        IPage<Acupoint> cachedPage = (IPage<Acupoint>) cached;
-                        return Result.success(cachedPage);
-                    } catch (ClassCastException ignored) {}
-                }
-            }
-
-            Page<Acupoint> page = new Page<>(pageNum, pageSize);
-            IPage<Acupoint> result = acupointMapper.selectAcupointPage(page, meridian, constitutionType);
-
+            Supplier<IPage<Acupoint>> query = () -> acupointMapper.selectAcupointPage(new Page<>(pageNum, pageSize), meridian, constitutionType);
             // 缓存前3页（30分钟）
-            if (pageNum <= 3) {
-                redisUtil.set(cacheKey, result, 30, java.util.concurrent.TimeUnit.MINUTES);
-            }
+            IPage<Acupoint> result = pageNum <= 3
+                    ? readThroughCache.get(cacheKey, ACUPOINT_CACHE_TTL_SECONDS, query)
+                    : query.get();
 
             return Result.success(result);
 
@@ -91,18 +95,11 @@ public class AcupointServiceImpl implements AcupointService {
         try {
             String cacheKey = "hospital:common:acupoint:detail:id:" + id;
 
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            Acupoint acupoint = null;
-            if (cached instanceof Acupoint) {
-                acupoint = (Acupoint) cached;
-            } else {
-                acupoint = acupointMapper.selectById(id);
-                if (acupoint == null) {
-                    return Result.error(ResultCode.DATA_NOT_FOUND.getCode(), "穴位不存在");
-                }
-                // 存入缓存（30分钟）
-                redisUtil.set(cacheKey, acupoint, 30, java.util.concurrent.TimeUnit.MINUTES);
+            // 穴位详情缓存（30分钟），穴位不存在时不缓存
+            Acupoint acupoint = readThroughCache.get(cacheKey, ACUPOINT_CACHE_TTL_SECONDS,
+                    () -> acupointMapper.selectById(id));
+            if (acupoint == null) {
+                return Result.error(ResultCode.DATA_NOT_FOUND.getCode(), "穴位不存在");
             }
 
             // 增加浏览次数（无论是否从缓存获取）
@@ -123,6 +120,15 @@ public class AcupointServiceImpl implements AcupointService {
     @Override
     public Result<IPage<Acupoint>> searchAcupoints(String keyword, Integer pageNum, Integer pageSize) {
         try {
+            // 有关键词时优先走内存索引按相关度排序，索引未就绪时回退到数据库模糊查询
+            if (keyword != null && !keyword.trim().isEmpty()) {
+                IPage<Acupoint> indexed = searchFromIndex(keyword, pageNum, pageSize);
+                if (indexed != null) {
+                    log.info("搜索穴位（索引）：关键词={}，共{}条", keyword, indexed.getTotal());
+                    return Result.success(indexed);
+                }
+            }
+
             // 只缓存前3页，关键词作为特殊参数处理（保留可读性）
             Map<String, Object> filterParams = new java.util.HashMap<>();
             if (keyword != null && !keyword.isEmpty()) {
@@ -130,24 +136,11 @@ public class AcupointServiceImpl implements AcupointService {
             }
             String cacheKey = redisUtil.buildCacheKey("hospital:common:acupoint:search", pageNum, pageSize, filterParams);
 
-            if (pageNum <= 3) {
-                Object cached = redisUtil.get(cacheKey);
-                if (cached instanceof IPage) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        IPage<Acupoint> cachedPage = (IPage<Acupoint>) cached;
-                        return Result.success(cachedPage);
-                    } catch (ClassCastException ignored) {}
-                }
-            }
-
-            Page<Acupoint> page = new Page<>(pageNum, pageSize);
-            IPage<Acupoint> result = acupointMapper.searchAcupoints(page, keyword);
-
+            Supplier<IPage<Acupoint>> query = () -> acupointMapper.searchAcupoints(new Page<>(pageNum, pageSize), keyword);
             // 缓存前3页（30分钟）
-            if (pageNum <= 3) {
-                redisUtil.set(cacheKey, result, 30, java.util.concurrent.TimeUnit.MINUTES);
-            }
+            IPage<Acupoint> result = pageNum <= 3
+                    ? readThroughCache.get(cacheKey, ACUPOINT_CACHE_TTL_SECONDS, query)
+                    : query.get();
 
             log.info("搜索穴位：关键词={}，共{}条", keyword, result.getTotal());
             return Result.success(result);
@@ -158,6 +151,25 @@ public class AcupointServiceImpl implements AcupointService {
         }
     }
 
+    /**
+     * 通过内存索引搜索穴位，索引未就绪时返回 null
+     */
+    private IPage<Acupoint> searchFromIndex(String keyword, Integer pageNum, Integer pageSize) {
+        SearchIndex.Result result = searchIndexService.search(SearchDocumentType.ACUPOINT, SearchIndex.Query.builder()
+                .keyword(keyword)
+                .offset((pageNum - 1) * pageSize)
+                .limit(pageSize)
+                .build());
+        if (result == null) {
+            return null;
+        }
+        List<Long> ids = result.getHits().stream().map(SearchIndex.Hit::getId).collect(Collectors.toList());
+        Page<Acupoint> page = new Page<>(pageNum, pageSize, result.getTotal());
+        page.setRecords(ids.isEmpty() ? new ArrayList<>()
+                : SearchIndex.orderByIds(ids, acupointMapper.selectByIds(ids), Acupoint::getId));
+        return page;
+    }
+
     /**
      * 根据经络查询穴位
      */
@@ -166,20 +178,9 @@ public class AcupointServiceImpl implements AcupointService {
         try {
             String cacheKey = "hospital:common:acupoint:list:meridian:" + meridian;
 
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Acupoint> list = (List<Acupoint>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Acupoint> acupoints = acupointMapper.selectByMeridian(meridian);
-
-            // 存入缓存（30分钟）
-            redisUtil.set(cacheKey, acupoints, 30, java.util.concurrent.TimeUnit.MINUTES);
+            // 缓存（30分钟）
+            List<Acupoint> acupoints = readThroughCache.get(cacheKey, ACUPOINT_CACHE_TTL_SECONDS,
+                    () -> acupointMapper.selectByMeridian(meridian));
 
             return Result.success(acupoints);
 
@@ -197,20 +198,9 @@ public class AcupointServiceImpl implements AcupointService {
         try {
             String cacheKey = "acupoint:meridians:all";
 
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<String> list = (List<String>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<String> meridians = acupointMapper.selectAllMeridians();
-
-            // 存入缓存（永久）
-            redisUtil.set(cacheKey, meridians);
+            // 缓存（永久）
+            List<String> meridians = readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> acupointMapper.selectAllMeridians());
 
             return Result.success(meridians);
 
@@ -228,20 +218,9 @@ public class AcupointServiceImpl implements AcupointService {
         try {
             String cacheKey = "acupoint:popular:limit:" + limit;
 
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Acupoint> list = (List<Acupoint>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Acupoint> acupoints = acupointMapper.selectPopularAcupoints(limit);
-
-            // 存入缓存（30分钟）
-            redisUtil.set(cacheKey, acupoints, 30, java.util.concurrent.TimeUnit.MINUTES);
+            // 缓存（30分钟）
+            List<Acupoint> acupoints = readThroughCache.get(cacheKey, ACUPOINT_CACHE_TTL_SECONDS,
+                    () -> acupointMapper.selectPopularAcupoints(limit));
 
             return Result.success(acupoints);
 
@@ -267,24 +246,11 @@ public class AcupointServiceImpl implements AcupointService {
             }
             String cacheKey = redisUtil.buildCacheKey("hospital:common:acupoint:combo:list", pageNum, pageSize, filterParams);
 
-            if (pageNum <= 3) {
-                Object cached = redisUtil.get(cacheKey);
-                if (cached instanceof IPage) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        IPage<AcupointCombination> cachedPage = (IPage<AcupointCombination>) cached;
-                        return Result.success(cachedPage);
-                    } catch (ClassCastException ignored) {}
-                }
-            }
-
-            Page<AcupointCombination> page = new Page<>(pageNum, pageSize);
-            IPage<AcupointCombination> result = acupointCombinationMapper.selectCombinationPage(page, constitutionType, symptom);
-
+            Supplier<IPage<AcupointCombination>> query = () -> acupointCombinationMapper.selectCombinationPage(new Page<>(pageNum, pageSize), constitutionType, symptom);
             // 缓存前3页（30分钟）
-            if (pageNum <= 3) {
-                redisUtil.set(cacheKey, result, 30, java.util.concurrent.TimeUnit.MINUTES);
-            }
+            IPage<AcupointCombination> result = pageNum <= 3
+                    ? readThroughCache.get(cacheKey, ACUPOINT_CACHE_TTL_SECONDS, query)
+                    : query.get();
 
             return Result.success(result);
 
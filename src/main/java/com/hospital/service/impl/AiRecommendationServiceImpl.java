@@ -1,41 +1,34 @@
 package com.hospital.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.CacheTags;
+import com.hospital.common.constant.FavoriteTarget;
 import com.hospital.config.DeepSeekConfig;
+import com.hospital.config.LlmGatewayProperties;
 import com.hospital.entity.HerbalRecipe;
 import com.hospital.entity.UserConstitutionTest;
-import com.hospital.entity.UserRecipeFavorite;
 import com.hospital.mapper.HerbalRecipeMapper;
 import com.hospital.mapper.UserConstitutionTestMapper;
 import com.hospital.mapper.UserRecipeFavoriteMapper;
 import com.hospital.service.AiRecommendationService;
+import com.hospital.service.FavoriteMembershipService;
+import com.hospital.service.RecipeDictionaryService;
+import com.hospital.service.RecipeFeatureService;
+import com.hospital.service.RecipeSimilarityService;
 import com.hospital.util.CacheKeyBuilder;
 import com.hospital.util.CacheTtlPolicy;
+import com.hospital.util.LlmGateway;
+import com.hospital.util.RecipeFeatureStore;
 import com.hospital.util.RedisUtil;
-import com.theokanning.openai.client.OpenAiApi;
-import com.theokanning.openai.completion.chat.ChatCompletionRequest;
-import com.theokanning.openai.completion.chat.ChatMessage;
-import com.theokanning.openai.completion.chat.ChatMessageRole;
-import com.theokanning.openai.service.OpenAiService;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.Interceptor;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import retrofit2.Retrofit;
-import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
-import retrofit2.converter.jackson.JacksonConverterFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -65,151 +58,64 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
     @Autowired
     private UserConstitutionTestMapper userConstitutionTestMapper;
 
-    private OpenAiService openAiService;
+    @Autowired
+    private RecipeSimilarityService recipeSimilarityService;
+
+    @Autowired
+    private LlmGateway llmGateway;
+
+    @Autowired
+    private LlmGatewayProperties llmGatewayProperties;
+
+    @Autowired
+    private RecipeDictionaryService recipeDictionaryService;
+
+    @Autowired
+    private RecipeFeatureService recipeFeatureService;
+
+    @Autowired
+    private FavoriteMembershipService favoriteMembershipService;
 
     private static final int DEFAULT_RECOMMENDATION_LIMIT = 6;
     private static final int CONTENT_CANDIDATE_LIMIT = 200;
+    private static final int MAX_CONVERSATION_RECOMMENDATIONS = 5;
 
-    @PostConstruct
-    public void init() {
-        if (StringUtils.hasText(deepSeekConfig.getApiKey())) {
-            try {
-                // 创建拦截器，添加 Authorization 头
-                Interceptor authInterceptor = new Interceptor() {
-                    @Override
-                    public Response intercept(Chain chain) throws IOException {
-                        Request original = chain.request();
-                        Request request = original.newBuilder()
-                                .header("Authorization", "Bearer " + deepSeekConfig.getApiKey())
-                                .header("Content-Type", "application/json")
-                                .build();
-                        return chain.proceed(request);
-                    }
-                };
-
-                // 创建 OkHttpClient，添加认证拦截器
-                OkHttpClient client = new OkHttpClient.Builder()
-                        .connectTimeout(java.time.Duration.ofSeconds(10))
-                        .readTimeout(java.time.Duration.ofSeconds(30))
-                        .writeTimeout(java.time.Duration.ofSeconds(30))
-                        .addInterceptor(authInterceptor)
-                        .build();
-
-                // 创建自定义 ObjectMapper，配置忽略未知属性（DeepSeek API 可能返回 SDK 不支持的字段）
-                ObjectMapper retrofitObjectMapper = new ObjectMapper();
-                retrofitObjectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-                retrofitObjectMapper.configure(DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES, false);
-
-                // 创建 Retrofit 实例，使用 DeepSeek 的 API 地址
-                Retrofit retrofit = new Retrofit.Builder()
-                        .baseUrl(deepSeekConfig.getApiUrl() + "/")
-                        .client(client)
-                        .addConverterFactory(JacksonConverterFactory.create(retrofitObjectMapper))
-                        .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                        .build();
-
-                // 创建 OpenAiApi 实例
-                OpenAiApi api = retrofit.create(OpenAiApi.class);
-
-                // 创建 OpenAiService 实例
-                openAiService = new OpenAiService(api);
-
-                log.info("DeepSeek API服务初始化成功，API地址: {}", deepSeekConfig.getApiUrl());
-            } catch (Exception e) {
-                log.error("初始化DeepSeek API服务失败", e);
-            }
-        } else {
-            log.warn("DeepSeek API Key未配置，AI推荐功能将不可用");
-        }
-    }
+    private static final String SYSTEM_PROMPT =
+            "你是一位专业的中医健康顾问，擅长根据用户体质和症状推荐合适的药膳和养生建议。请始终使用中文回答，不要使用英文或其他语言。";
 
-    @PreDestroy
-    public void destroy() {
-        if (openAiService != null) {
-            try {
-                // 使用反射检查executorService字段是否存在且不为null
-                java.lang.reflect.Field executorField = null;
-                try {
-                    executorField = openAiService.getClass().getDeclaredField("executorService");
-                    executorField.setAccessible(true);
-                    java.util.concurrent.ExecutorService executorService = 
-                        (java.util.concurrent.ExecutorService) executorField.get(openAiService);
-                    
-                    if (executorService != null && !executorService.isShutdown()) {
-                        openAiService.shutdownExecutor();
-                        log.info("OpenAI服务已关闭");
-                    } else {
-                        log.debug("OpenAI服务executorService已关闭或为null，跳过关闭操作");
-                    }
-                } catch (NoSuchFieldException | IllegalAccessException e) {
-                    // 如果字段不存在或无法访问，尝试直接关闭（可能会抛出异常，但会被捕获）
-                    try {
-                        openAiService.shutdownExecutor();
-                        log.info("OpenAI服务已关闭");
-                    } catch (NullPointerException npe) {
-                        // executorService为null时的正常情况，忽略
-                        log.debug("OpenAI服务executorService为null，无需关闭");
-                    } catch (Exception ex) {
-                        log.warn("关闭OpenAI服务时出错: {}", ex.getMessage());
-                    }
-                } finally {
-                    if (executorField != null) {
-                        executorField.setAccessible(false);
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("关闭OpenAI服务时出错: {}", e.getMessage());
-            }
-        }
-    }
+    private static final String QUESTION_EMPTY_ANSWER = "您的问题不能为空，请重新提问。";
+    private static final String QUESTION_FALLBACK_ANSWER = "抱歉，我现在无法回答您的问题，请稍后再试或咨询专业医生。";
 
     @Override
     public String generateRecommendationReason(HerbalRecipe recipe, UserConstitutionTest constitution) {
+        return generateRecommendationReasonAsync(recipe, constitution).join();
+    }
+
+    @Override
+    public CompletableFuture<String> generateRecommendationReasonAsync(HerbalRecipe recipe,
+                                                                      UserConstitutionTest constitution) {
         if (recipe == null || constitution == null) {
             log.warn("生成推荐理由失败：参数为空");
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
-        if (openAiService == null) {
+        if (!llmGateway.isAvailable()) {
             log.warn("DeepSeek API服务未初始化，返回默认推荐理由");
-            return buildDefaultRecommendationReason(recipe, constitution);
-        }
-
-        // 生成缓存键
-        Map<String, Object> params = new java.util.HashMap<>();
-        params.put("recipeId", recipe.getId());
-        params.put("constitution", constitution.getPrimaryConstitution());
-        String cacheKey = CacheKeyBuilder.of(CacheConstants.AI_RECOMMENDATION_REASON_CACHE_PREFIX)
-                .appendParamsHash(params)
-                .build();
-
-        // 尝试从缓存获取
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof String) {
-            return (String) cached;
+            return CompletableFuture.completedFuture(buildDefaultRecommendationReason(recipe, constitution));
         }
 
-        try {
-            // 构建Prompt
-            String prompt = buildRecommendationReasonPrompt(recipe, constitution);
-
-            // 调用DeepSeek API
-            String response = callDeepSeekApi(prompt);
-
-            if (StringUtils.hasText(response)) {
-                // 缓存结果
-                redisUtil.set(cacheKey, response,
-                        deepSeekConfig.getCacheTtlHours(), TimeUnit.HOURS);
+        // 同一药膳与体质的提示词相同，由网关按提示词缓存并合并并发请求，各用户共用
+        String prompt = buildRecommendationReasonPrompt(recipe, constitution);
+        return callDeepSeekApi(null, prompt).handle((response, error) -> {
+            if (error == null && StringUtils.hasText(response)) {
                 log.info("生成推荐理由成功：recipeId={}", recipe.getId());
                 return response;
             }
-
-        } catch (Exception e) {
-            log.error("生成推荐理由失败：recipeId={}", recipe.getId(), e);
-        }
-
-        // 降级：返回默认推荐理由
-        return buildDefaultRecommendationReason(recipe, constitution);
+            if (error != null) {
+                log.warn("生成推荐理由失败，使用默认理由：recipeId={}, error={}", recipe.getId(), error.getMessage());
+            }
+            return buildDefaultRecommendationReason(recipe, constitution);
+        });
     }
 
     @Override
@@ -219,7 +125,7 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
             return Collections.emptyList();
         }
 
-        if (openAiService == null) {
+        if (!llmGateway.isAvailable()) {
             log.warn("DeepSeek API服务未初始化，返回空列表");
             return Collections.emptyList();
         }
@@ -246,8 +152,10 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
             // 构建Prompt
             String prompt = buildConversationRecommendationPrompt(conversationContent);
 
-            // 调用DeepSeek API
-            String response = callDeepSeekApi(prompt);
+            // 调用DeepSeek API：请求线程最多等待 pageWaitMs，超时按降级处理；上游回答写入网关缓存，重试时直接命中
+            String response = callDeepSeekApi(userId, prompt)
+                    .completeOnTimeout(null, llmGatewayProperties.getPageWaitMs(), TimeUnit.MILLISECONDS)
+                    .join();
 
             if (StringUtils.hasText(response)) {
                 // 解析推荐结果
@@ -263,7 +171,7 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
             }
 
         } catch (Exception e) {
-            log.error("对话推荐失败：userId={}", userId, e);
+            log.error("对话推荐失败：userId={}, error={}", userId, e.getMessage());
         }
 
         // 降级：返回空列表
@@ -272,50 +180,37 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
 
     @Override
     public String answerQuestion(String question, Long userId) {
+        return answerQuestionAsync(question, userId).join();
+    }
+
+    @Override
+    public CompletableFuture<String> answerQuestionAsync(String question, Long userId) {
         if (!StringUtils.hasText(question)) {
-            return "您的问题不能为空，请重新提问。";
+            return CompletableFuture.completedFuture(QUESTION_EMPTY_ANSWER);
         }
 
-        if (openAiService == null) {
+        if (!llmGateway.isAvailable()) {
             log.warn("DeepSeek API服务未初始化，返回默认回答");
-            return "抱歉，AI服务暂时不可用，请稍后再试或咨询专业医生。";
-        }
-
-        // 生成缓存键
-        Map<String, Object> params = new java.util.HashMap<>();
-        params.put("question", question);
-        params.put("userId", userId != null ? userId.toString() : "anonymous");
-        String cacheKey = CacheKeyBuilder.of(CacheConstants.AI_QUESTION_CACHE_PREFIX)
-                .appendParamsHash(params)
-                .build();
-
-        // 尝试从缓存获取
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof String) {
-            return (String) cached;
+            return CompletableFuture.completedFuture("抱歉，AI服务暂时不可用，请稍后再试或咨询专业医生。");
         }
 
-        try {
-            // 构建Prompt
-            String prompt = buildQuestionAnswerPrompt(question);
-
-            // 调用DeepSeek API
-            String response = callDeepSeekApi(prompt);
-
-            if (StringUtils.hasText(response)) {
-                // 缓存结果
-                redisUtil.set(cacheKey, response,
-                        deepSeekConfig.getCacheTtlHours(), TimeUnit.HOURS);
+        // 回答按规范化后的提示词在网关缓存，不同用户的相同问题共用
+        String prompt = buildQuestionAnswerPrompt(question);
+        return callDeepSeekApi(userId, prompt).handle((response, error) -> {
+            if (error == null && StringUtils.hasText(response)) {
                 log.info("智能问答成功：userId={}", userId);
                 return response;
             }
+            if (error != null) {
+                log.warn("智能问答失败：userId={}, error={}", userId, error.getMessage());
+            }
+            return QUESTION_FALLBACK_ANSWER;
+        });
+    }
 
-        } catch (Exception e) {
-            log.error("智能问答失败：userId={}", userId, e);
-        }
-
-        // 降级：返回默认回答
-        return "抱歉，我现在无法回答您的问题，请稍后再试或咨询专业医生。";
+    @Override
+    public SseEmitter streamAnswer(String question, Long userId) {
+        return llmGateway.stream(userId, SYSTEM_PROMPT, buildQuestionAnswerPrompt(question));
     }
 
     @Override
@@ -336,55 +231,39 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
             } catch (ClassCastException ignored) {}
         }
 
-        List<UserRecipeFavorite> allFavorites = userRecipeFavoriteMapper.selectList(null);
-        Map<Long, Set<Long>> userFavoriteMap = buildUserFavoriteMap(allFavorites);
-        Set<Long> targetFavorites = userFavoriteMap.getOrDefault(userId, Collections.emptySet());
-
-        if (targetFavorites.isEmpty()) {
+        List<Long> favoriteIds = userRecipeFavoriteMapper.selectRecipeIdsByUserId(userId);
+        if (favoriteIds == null || favoriteIds.isEmpty()) {
             log.info("用户{}无收藏记录，协同过滤降级为热门推荐", userId);
             List<HerbalRecipe> fallback = herbalRecipeMapper.selectPopularRecipes(limit);
             applyFavoriteFlag(fallback, userId);
-            redisUtil.set(cacheKey, fallback, CacheTtlPolicy.AI_RECOMMENDATION.getSeconds(), TimeUnit.SECONDS);
+            redisUtil.setWithTags(cacheKey, fallback, CacheTtlPolicy.AI_RECOMMENDATION.getSeconds(), TimeUnit.SECONDS,
+                    CacheTags.userRecommendations(userId));
             return fallback;
         }
 
-        Map<Long, Double> scoreMap = new HashMap<>();
-
-        userFavoriteMap.forEach((otherUserId, otherFavorites) -> {
-            if (otherUserId.equals(userId) || otherFavorites.isEmpty()) {
-                return;
-            }
-            double similarity = computeSimilarity(targetFavorites, otherFavorites);
-            if (similarity <= 0) {
-                return;
-            }
-            for (Long recipeId : otherFavorites) {
-                if (targetFavorites.contains(recipeId)) {
-                    continue;
-                }
-                scoreMap.merge(recipeId, similarity, Double::sum);
-            }
-        });
+        List<Long> recommendIds = recipeSimilarityService.recommend(favoriteIds, limit);
+        if (recommendIds == null) {
+            // 模型尚未构建完成，降级结果不缓存，避免模型就绪后仍返回热门数据
+            log.info("协同过滤模型未就绪，降级为热门推荐");
+            List<HerbalRecipe> fallback = herbalRecipeMapper.selectPopularRecipes(limit);
+            applyFavoriteFlag(fallback, userId);
+            return fallback;
+        }
 
-        if (scoreMap.isEmpty()) {
+        if (recommendIds.isEmpty()) {
             log.info("协同过滤得分为空，降级为热门推荐");
             List<HerbalRecipe> fallback = herbalRecipeMapper.selectPopularRecipes(limit);
             applyFavoriteFlag(fallback, userId);
-            redisUtil.set(cacheKey, fallback, CacheTtlPolicy.AI_RECOMMENDATION.getSeconds(), TimeUnit.SECONDS);
+            redisUtil.setWithTags(cacheKey, fallback, CacheTtlPolicy.AI_RECOMMENDATION.getSeconds(), TimeUnit.SECONDS,
+                    CacheTags.userRecommendations(userId));
             return fallback;
         }
 
-        List<Long> recommendIds = scoreMap.entrySet()
-                .stream()
-                .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
-                .map(Map.Entry::getKey)
-                .limit(limit)
-                .collect(Collectors.toList());
-
         List<HerbalRecipe> recipes = fetchActiveRecipesByIds(recommendIds);
-        setCollaborativeReason(recipes, userFavoriteMap, userId);
+        setCollaborativeReason(recipes);
         applyFavoriteFlag(recipes, userId);
-        redisUtil.set(cacheKey, recipes, CacheConstants.AI_RECOMMENDATION_TTL_SECONDS, TimeUnit.SECONDS);
+        redisUtil.setWithTags(cacheKey, recipes, CacheConstants.AI_RECOMMENDATION_TTL_SECONDS, TimeUnit.SECONDS,
+                CacheTags.userRecommendations(userId));
         return recipes;
     }
 
@@ -406,44 +285,45 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
             } catch (ClassCastException ignored) {}
         }
 
-        UserPreferenceProfile profile = buildUserPreferenceProfile(userId);
-        List<HerbalRecipe> candidates = herbalRecipeMapper.selectActiveRecipesForRecommendation(CONTENT_CANDIDATE_LIMIT);
-
-        if (candidates.isEmpty()) {
-            return Collections.emptyList();
-        }
-
+        UserConstitutionTest latestTest = userConstitutionTestMapper.selectLatestByUserId(userId);
+        String primaryConstitution = latestTest != null ? latestTest.getPrimaryConstitution() : null;
+        String secondaryConstitution = latestTest != null ? latestTest.getSecondaryConstitution() : null;
+        List<Long> favoriteIds = userRecipeFavoriteMapper.selectRecipeIdsByUserId(userId);
         String currentSeason = resolveCurrentSeason();
-        Map<Long, Double> scored = new HashMap<>();
-        for (HerbalRecipe recipe : candidates) {
-            if (profile.favoriteRecipeIds.contains(recipe.getId())) {
-                continue;
+
+        // 优先在内存特征库中为全部上架药膳打分，特征库未就绪时退回逐个候选按字符串打分
+        RecipeFeatureStore featureStore = recipeFeatureService.getStore();
+        List<Long> recommendIds;
+        if (featureStore != null) {
+            if (featureStore.size() == 0) {
+                return Collections.emptyList();
             }
-            double score = computeContentScore(recipe, profile, currentSeason);
-            if (score > 0) {
-                scored.put(recipe.getId(), score);
+            RecipeFeatureStore.Profile profile = featureStore.encodeProfile(
+                    primaryConstitution, secondaryConstitution, favoriteIds, currentSeason);
+            recommendIds = featureStore.recommend(profile, limit);
+        } else {
+            UserPreferenceProfile profile = buildUserPreferenceProfile(primaryConstitution, secondaryConstitution, favoriteIds);
+            List<HerbalRecipe> candidates = herbalRecipeMapper.selectActiveRecipesForRecommendation(CONTENT_CANDIDATE_LIMIT);
+            if (candidates.isEmpty()) {
+                return Collections.emptyList();
             }
+            recommendIds = scoreCandidates(candidates, profile, currentSeason, limit);
         }
 
-        if (scored.isEmpty()) {
+        if (recommendIds.isEmpty()) {
             log.info("内容推荐得分为空，返回热门数据");
             List<HerbalRecipe> fallback = herbalRecipeMapper.selectPopularRecipes(limit);
             applyFavoriteFlag(fallback, userId);
-            redisUtil.set(cacheKey, fallback, CacheTtlPolicy.AI_RECOMMENDATION.getSeconds(), TimeUnit.SECONDS);
+            redisUtil.setWithTags(cacheKey, fallback, CacheTtlPolicy.AI_RECOMMENDATION.getSeconds(), TimeUnit.SECONDS,
+                    CacheTags.userRecommendations(userId));
             return fallback;
         }
 
-        List<Long> recommendIds = scored.entrySet()
-                .stream()
-                .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
-                .map(Map.Entry::getKey)
-                .limit(limit)
-                .collect(Collectors.toList());
-
         List<HerbalRecipe> recipes = fetchActiveRecipesByIds(recommendIds);
-        setContentReason(recipes, profile, currentSeason);
+        setContentReason(recipes, primaryConstitution, currentSeason);
         applyFavoriteFlag(recipes, userId);
-        redisUtil.set(cacheKey, recipes, CacheConstants.AI_RECOMMENDATION_TTL_SECONDS, TimeUnit.SECONDS);
+        redisUtil.setWithTags(cacheKey, recipes, CacheConstants.AI_RECOMMENDATION_TTL_SECONDS, TimeUnit.SECONDS,
+                CacheTags.userRecommendations(userId));
         return recipes;
     }
 
@@ -485,47 +365,17 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
                 .limit(limit)
                 .collect(Collectors.toList());
 
-        redisUtil.set(cacheKey, result, CacheConstants.AI_RECOMMENDATION_TTL_SECONDS, TimeUnit.SECONDS);
+        redisUtil.setWithTags(cacheKey, result, CacheConstants.AI_RECOMMENDATION_TTL_SECONDS, TimeUnit.SECONDS,
+                CacheTags.userRecommendations(userId));
         return result;
     }
 
     /**
-     * 调用DeepSeek API（使用OpenAI SDK）
+     * 通过网关异步调用DeepSeek API，并清理响应，确保只返回中文内容
      */
-    private String callDeepSeekApi(String prompt) {
-        try {
-            // 构建消息列表
-            List<ChatMessage> messages = new ArrayList<>();
-            messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(),
-                    "你是一位专业的中医健康顾问，擅长根据用户体质和症状推荐合适的药膳和养生建议。请始终使用中文回答，不要使用英文或其他语言。"));
-            messages.add(new ChatMessage(ChatMessageRole.USER.value(), prompt));
-
-            // 构建请求
-            ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(deepSeekConfig.getModel())
-                    .messages(messages)
-                    .maxTokens(deepSeekConfig.getMaxTokens())
-                    .temperature(deepSeekConfig.getTemperature())
-                    .build();
-
-            // 调用API
-            String response = openAiService.createChatCompletion(request)
-                    .getChoices()
-                    .get(0)
-                    .getMessage()
-                    .getContent();
-
-            // 清理响应，确保只返回中文内容
-            if (response != null) {
-                response = cleanChineseResponse(response.trim());
-            }
-
-            return response;
-
-        } catch (Exception e) {
-            log.error("调用DeepSeek API失败", e);
-            throw new RuntimeException("API调用失败: " + e.getMessage(), e);
-        }
+    private CompletableFuture<String> callDeepSeekApi(Long userId, String prompt) {
+        return llmGateway.complete(userId, SYSTEM_PROMPT, prompt)
+                .thenApply(response -> response != null ? cleanChineseResponse(response.trim()) : null);
     }
 
     /**
@@ -572,7 +422,7 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
     }
 
     /**
-     * 解析推荐响应（简化实现）
+     * 解析推荐响应：在内存词典中匹配药膳名称，词典未就绪时逐行到数据库模糊查询
      */
     private List<HerbalRecipe> parseRecommendationResponse(String response) {
         List<HerbalRecipe> recipes = new ArrayList<>();
@@ -581,8 +431,8 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
         }
 
         // 按行分割，提取药膳名称
-        String[] lines = response.split("\n");
-        for (String line : lines) {
+        List<String> names = new ArrayList<>();
+        for (String line : response.split("\n")) {
             line = line.trim();
             if (line.isEmpty() || line.startsWith("#") || line.startsWith("【")) {
                 continue;
@@ -590,11 +440,21 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
 
             // 移除序号和特殊字符
             line = line.replaceAll("^\\d+[.、]\\s*", "").trim();
+            if (!line.isEmpty()) {
+                names.add(line);
+            }
+        }
+
+        List<Long> matchedIds = recipeDictionaryService.matchRecipeIds(names, MAX_CONVERSATION_RECOMMENDATIONS);
+        if (matchedIds != null) {
+            return fetchActiveRecipesByIds(matchedIds);
+        }
 
+        for (String name : names) {
             // 搜索匹配的药膳
             List<HerbalRecipe> found = herbalRecipeMapper.selectList(
                     new QueryWrapper<HerbalRecipe>()
-                            .like("recipe_name", line)
+                            .like("recipe_name", name)
                             .eq("status", 1)
                             .last("LIMIT 1")
             );
@@ -604,7 +464,7 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
             }
 
             // 限制最多返回5个
-            if (recipes.size() >= 5) {
+            if (recipes.size() >= MAX_CONVERSATION_RECOMMENDATIONS) {
                 break;
             }
         }
@@ -633,35 +493,6 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
         return Math.min(limit, 20);
     }
 
-    private Map<Long, Set<Long>> buildUserFavoriteMap(List<UserRecipeFavorite> favorites) {
-        Map<Long, Set<Long>> map = new HashMap<>();
-        for (UserRecipeFavorite favorite : favorites) {
-            if (favorite.getUserId() == null || favorite.getRecipeId() == null) {
-                continue;
-            }
-            map.computeIfAbsent(favorite.getUserId(), k -> new HashSet<>())
-                    .add(favorite.getRecipeId());
-        }
-        return map;
-    }
-
-    private double computeSimilarity(Set<Long> target, Set<Long> other) {
-        if (target.isEmpty() || other.isEmpty()) {
-            return 0;
-        }
-        int intersection = 0;
-        for (Long id : target) {
-            if (other.contains(id)) {
-                intersection++;
-            }
-        }
-        if (intersection == 0) {
-            return 0;
-        }
-        int union = target.size() + other.size() - intersection;
-        return union == 0 ? 0 : (double) intersection / union;
-    }
-
     private List<HerbalRecipe> fetchActiveRecipesByIds(List<Long> ids) {
         if (ids == null || ids.isEmpty()) {
             return Collections.emptyList();
@@ -681,7 +512,7 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
         return ordered;
     }
 
-    private void setCollaborativeReason(List<HerbalRecipe> recipes, Map<Long, Set<Long>> userFavoriteMap, Long userId) {
+    private void setCollaborativeReason(List<HerbalRecipe> recipes) {
         if (recipes == null || recipes.isEmpty()) {
             return;
         }
@@ -690,19 +521,11 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
         }
     }
 
-    private UserPreferenceProfile buildUserPreferenceProfile(Long userId) {
+    private UserPreferenceProfile buildUserPreferenceProfile(String primaryConstitution, String secondaryConstitution,
+                                                             List<Long> favoriteIds) {
         UserPreferenceProfile profile = new UserPreferenceProfile();
-        if (userId == null) {
-            return profile;
-        }
-
-        UserConstitutionTest latestTest = userConstitutionTestMapper.selectLatestByUserId(userId);
-        if (latestTest != null) {
-            profile.primaryConstitution = latestTest.getPrimaryConstitution();
-            profile.secondaryConstitution = latestTest.getSecondaryConstitution();
-        }
-
-        List<Long> favoriteIds = userRecipeFavoriteMapper.selectRecipeIdsByUserId(userId);
+        profile.primaryConstitution = primaryConstitution;
+        profile.secondaryConstitution = secondaryConstitution;
         if (favoriteIds != null) {
             profile.favoriteRecipeIds.addAll(favoriteIds);
         }
@@ -719,6 +542,29 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
         return profile;
     }
 
+    /**
+     * 逐个候选按字符串打分，返回得分最高的药膳ID（特征库未就绪时使用）
+     */
+    private List<Long> scoreCandidates(List<HerbalRecipe> candidates, UserPreferenceProfile profile,
+                                       String currentSeason, int limit) {
+        Map<Long, Double> scored = new HashMap<>();
+        for (HerbalRecipe recipe : candidates) {
+            if (profile.favoriteRecipeIds.contains(recipe.getId())) {
+                continue;
+            }
+            double score = computeContentScore(recipe, profile, currentSeason);
+            if (score > 0) {
+                scored.put(recipe.getId(), score);
+            }
+        }
+        return scored.entrySet()
+                .stream()
+                .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
+                .map(Map.Entry::getKey)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     private void accumulatePreference(Map<String, Integer> counter, String source) {
         if (!StringUtils.hasText(source)) {
             return;
@@ -830,22 +676,22 @@ public class AiRecommendationServiceImpl implements AiRecommendationService {
         if (recipes == null || recipes.isEmpty() || userId == null) {
             return;
         }
-        List<Long> favoriteIds = userRecipeFavoriteMapper.selectRecipeIdsByUserId(userId);
-        Set<Long> favoriteSet = favoriteIds == null ? Collections.emptySet() : new HashSet<>(favoriteIds);
+        Set<Long> favoriteSet = favoriteMembershipService.findFavorited(FavoriteTarget.RECIPE, userId,
+                recipes.stream().map(HerbalRecipe::getId).collect(Collectors.toList()));
         for (HerbalRecipe recipe : recipes) {
             recipe.setIsFavorited(favoriteSet.contains(recipe.getId()));
         }
     }
 
-    private void setContentReason(List<HerbalRecipe> recipes, UserPreferenceProfile profile, String currentSeason) {
+    private void setContentReason(List<HerbalRecipe> recipes, String primaryConstitution, String currentSeason) {
         if (recipes == null) {
             return;
         }
         for (HerbalRecipe recipe : recipes) {
             StringBuilder reason = new StringBuilder("结合您的体质与历史偏好推荐：");
-            if (StringUtils.hasText(profile.primaryConstitution) &&
-                    containsIgnoreCase(recipe.getConstitutionType(), profile.primaryConstitution)) {
-                reason.append("适合").append(profile.primaryConstitution).append("体质，");
+            if (StringUtils.hasText(primaryConstitution) &&
+                    containsIgnoreCase(recipe.getConstitutionType(), primaryConstitution)) {
+                reason.append("适合").append(primaryConstitution).append("体质，");
             }
             if (StringUtils.hasText(recipe.getSeason()) &&
                     recipe.getSeason().toUpperCase().contains(currentSeason)) {
@@ -0,0 +1,253 @@
+package com.hospital.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hospital.common.constant.AppointmentEventType;
+import com.hospital.common.constant.AppointmentStatus;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.config.NoShowProperties;
+import com.hospital.dto.AppointmentEventMessageDTO;
+import com.hospital.entity.Appointment;
+import com.hospital.mapper.AppointmentMapper;
+import com.hospital.messaging.AppointmentEventPublisher;
+import com.hospital.service.AppointmentNoShowService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 基于Redis有序集合的爽约检测实现
+ *
+ * 成员为预约ID，分数为预约时段结束时间（毫秒）。预约创建提交后登记，取消后移除；
+ * 检测时按分数取出已到期的预约，每个分段在一个事务内以集合UPDATE标记为爽约，
+ * UPDATE 只命中仍为 CONFIRMED / IN_PROGRESS 的预约，因此登记残留（如已接诊完成）不会被误标。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class AppointmentNoShowServiceImpl implements AppointmentNoShowService {
+
+    /** 当前节点ID，作为租约的持有者标识 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private AppointmentMapper appointmentMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private NoShowProperties properties;
+
+    @Autowired
+    private AppointmentEventPublisher appointmentEventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 预约创建提交后登记，取消后移除
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAppointmentEvent(AppointmentEventMessageDTO event) {
+        try {
+            if (event.getEventType() == AppointmentEventType.CREATED) {
+                Long dueAt = dueAt(event.getAppointmentDate(), event.getTimeSlot());
+                if (event.getAppointmentId() != null && dueAt != null) {
+                    redisUtil.zAddAsString(CacheConstants.APPOINTMENT_NO_SHOW_DUE_KEY,
+                            Collections.singletonMap(String.valueOf(event.getAppointmentId()), dueAt.doubleValue()));
+                }
+            } else if (event.getEventType() == AppointmentEventType.CANCELLED && event.getAppointmentId() != null) {
+                redisUtil.zRemoveAsString(CacheConstants.APPOINTMENT_NO_SHOW_DUE_KEY,
+                        Collections.singletonList(String.valueOf(event.getAppointmentId())));
+            }
+        } catch (Exception e) {
+            // 登记失败由定期补录兜底
+            log.warn("登记爽约检测失败: appointmentId={}, error={}", event.getAppointmentId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void track(Appointment appointment) {
+        Long dueAt = dueAt(appointment.getAppointmentDate(), appointment.getTimeSlot());
+        if (appointment.getId() == null || dueAt == null) {
+            return;
+        }
+        redisUtil.zAddAsString(CacheConstants.APPOINTMENT_NO_SHOW_DUE_KEY,
+                Collections.singletonMap(String.valueOf(appointment.getId()), dueAt.doubleValue()));
+    }
+
+    @Override
+    public int seed() {
+        if (!acquireLease()) {
+            return -1;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            int pageSize = Math.max(properties.getSeedPageSize(), 1);
+            long lastId = 0L;
+            int seeded = 0;
+            while (true) {
+                QueryWrapper<Appointment> wrapper = new QueryWrapper<>();
+                wrapper.select("id", "appointment_date", "time_slot");
+                wrapper.in("status", AppointmentStatus.CONFIRMED.getCode(), AppointmentStatus.IN_PROGRESS.getCode());
+                wrapper.le("appointment_date", today);
+                wrapper.gt("id", lastId);
+                wrapper.orderByAsc("id");
+                wrapper.last("LIMIT " + pageSize);
+                List<Appointment> page = appointmentMapper.selectList(wrapper);
+                if (page == null || page.isEmpty()) {
+                    break;
+                }
+                Map<String, Double> members = new HashMap<>(page.size() * 2);
+                for (Appointment appointment : page) {
+                    Long dueAt = dueAt(appointment.getAppointmentDate(), appointment.getTimeSlot());
+                    if (dueAt != null) {
+                        members.put(String.valueOf(appointment.getId()), dueAt.doubleValue());
+                    }
+                }
+                redisUtil.zAddAsString(CacheConstants.APPOINTMENT_NO_SHOW_DUE_KEY, members);
+                seeded += members.size();
+                lastId = page.get(page.size() - 1).getId();
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+            return seeded;
+        } finally {
+            releaseLease();
+        }
+    }
+
+    @Override
+    public int sweep() {
+        if (!acquireLease()) {
+            return -1;
+        }
+        try {
+            int chunkSize = Math.max(properties.getChunkSize(), 1);
+            int marked = 0;
+            for (int i = 0; i < properties.getMaxChunksPerSweep(); i++) {
+                List<String> due = redisUtil.zRangeByScoreAsString(CacheConstants.APPOINTMENT_NO_SHOW_DUE_KEY,
+                        0, System.currentTimeMillis(), chunkSize);
+                if (due.isEmpty()) {
+                    break;
+                }
+                List<Appointment> rescheduled = new ArrayList<>();
+                Integer count = transactionTemplate.execute(tx -> markChunk(due, rescheduled));
+                marked += count != null ? count : 0;
+                // 提交后再移除，事务失败时保留登记，下一轮重试
+                redisUtil.zRemoveAsString(CacheConstants.APPOINTMENT_NO_SHOW_DUE_KEY, due);
+                rescheduled.forEach(this::track);
+                if (due.size() < chunkSize) {
+                    break;
+                }
+            }
+            return marked;
+        } finally {
+            releaseLease();
+        }
+    }
+
+    /**
+     * 在当前事务内标记一个分段，返回标记数；整个分段的爽约事件在提交后合并发送
+     *
+     * @param rescheduled 输出参数：尚未到期（日期或时段已变更）需要重新登记的预约
+     */
+    private int markChunk(List<String> due, List<Appointment> rescheduled) {
+        List<Long> ids = due.stream().map(Long::valueOf).collect(Collectors.toList());
+        // 使用 Lambda 列选择，user_id 等列才能映射到实体属性
+        LambdaQueryWrapper<Appointment> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Appointment::getId, Appointment::getPatientId, Appointment::getDoctorId,
+                Appointment::getAppointmentDate, Appointment::getTimeSlot, Appointment::getQueueNumber);
+        wrapper.in(Appointment::getId, ids);
+        wrapper.in(Appointment::getStatus, AppointmentStatus.CONFIRMED.getCode(), AppointmentStatus.IN_PROGRESS.getCode());
+        wrapper.last("FOR UPDATE");
+        List<Appointment> candidates = appointmentMapper.selectList(wrapper);
+        if (candidates == null || candidates.isEmpty()) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Appointment> expired = new ArrayList<>(candidates.size());
+        for (Appointment appointment : candidates) {
+            Long dueAt = dueAt(appointment.getAppointmentDate(), appointment.getTimeSlot());
+            if (dueAt != null && dueAt <= now) {
+                expired.add(appointment);
+            } else {
+                // 预约日期或时段已变更，按新的结束时间重新登记
+                rescheduled.add(appointment);
+            }
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        int affected = appointmentMapper.markNoShow(expired.stream().map(Appointment::getId).collect(Collectors.toList()));
+        // 整个分段合并为一条事件，缓存失效按分段执行一次，而不是每条预约各扫描一遍键空间
+        appointmentEventPublisher.publish(AppointmentEventMessageDTO.batchOf(AppointmentEventType.NO_SHOW, expired));
+        log.info("预约已批量标记为爽约: count={}", affected);
+        return affected;
+    }
+
+    /**
+     * 计算预约时段结束时间（毫秒）
+     */
+    private Long dueAt(LocalDate appointmentDate, String timeSlot) {
+        if (appointmentDate == null || timeSlot == null) {
+            return null;
+        }
+        LocalTime endTime;
+        switch (timeSlot.toUpperCase()) {
+            case "MORNING":
+                endTime = LocalTime.of(12, 0);
+                break;
+            case "AFTERNOON":
+                endTime = LocalTime.of(18, 0);
+                break;
+            default:
+                // 晚间及未知时段使用晚间结束时间
+                endTime = LocalTime.of(22, 0);
+                break;
+        }
+        LocalDateTime dueAt = appointmentDate.atTime(endTime);
+        return dueAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private boolean acquireLease() {
+        try {
+            return Boolean.TRUE.equals(redisUtil.tryLock(CacheConstants.APPOINTMENT_NO_SHOW_LEASE_KEY, nodeId,
+                    properties.getLeaseSeconds(), TimeUnit.SECONDS));
+        } catch (Exception e) {
+            log.warn("获取爽约检测租约失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            redisUtil.unlock(CacheConstants.APPOINTMENT_NO_SHOW_LEASE_KEY, nodeId);
+        } catch (Exception e) {
+            // 租约会在 leaseSeconds 后自动过期
+            log.warn("释放爽约检测租约失败: {}", e.getMessage());
+        }
+    }
+}
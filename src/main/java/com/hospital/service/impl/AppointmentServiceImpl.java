@@ -1,9 +1,9 @@
 package com.hospital.service.impl;
 
-import com.alibaba.excel.EasyExcel;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hospital.common.constant.AppointmentEventType;
 import com.hospital.common.constant.AppointmentStatus;
 import com.hospital.common.constant.SystemConstants;
 import com.hospital.common.constant.SystemSettingKeys;
@@ -11,6 +11,7 @@ import com.hospital.common.exception.BusinessException;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
 import com.hospital.config.SystemSettingManager;
+import com.hospital.dto.AppointmentEventMessageDTO;
 import com.hospital.dto.AppointmentExportDTO;
 import com.hospital.entity.Appointment;
 import com.hospital.entity.Department;
@@ -20,23 +21,38 @@ import com.hospital.mapper.AppointmentMapper;
 import com.hospital.mapper.DepartmentMapper;
 import com.hospital.mapper.DoctorMapper;
 import com.hospital.mapper.UserMapper;
+import com.hospital.messaging.AppointmentEventPublisher;
 import com.hospital.service.AppointmentService;
+import com.hospital.service.QueueNumberService;
+import com.hospital.service.ScheduleCacheService;
+import com.hospital.service.ScheduleQuotaService;
 import com.hospital.service.ScheduleService;
-import com.hospital.util.RedisUtil;
+import com.hospital.util.BatchLoader;
+import com.hospital.util.ExcelStreamExporter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 @Slf4j
 @Service
@@ -61,13 +77,41 @@ public class AppointmentServiceImpl extends ServiceImpl<AppointmentMapper, Appoi
     private UserMapper userMapper;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private SystemSettingManager systemSettingManager;
 
     @Autowired
-    private com.hospital.service.NotificationService notificationService;
+    private ScheduleQuotaService scheduleQuotaService;
 
     @Autowired
-    private SystemSettingManager systemSettingManager;
+    private ScheduleCacheService scheduleCacheService;
+
+    @Autowired
+    private QueueNumberService queueNumberService;
+
+    @Autowired
+    private AppointmentEventPublisher appointmentEventPublisher;
+
+    @Autowired
+    @Qualifier("batchQueryExecutor")
+    private Executor batchQueryExecutor;
+
+    /**
+     * 批量关联查询时单次 IN 的ID数量
+     */
+    @Value("${hospital.appointment.enrich.chunk-size:500}")
+    private int enrichChunkSize;
+
+    /**
+     * 列表条数达到该阈值时并行加载关联数据
+     */
+    @Value("${hospital.appointment.enrich.parallel-threshold:1000}")
+    private int enrichParallelThreshold;
+
+    /**
+     * 导出时每批读取的行数
+     */
+    @Value("${hospital.export.batch-size:1000}")
+    private int exportBatchSize;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -157,8 +201,9 @@ public class AppointmentServiceImpl extends ServiceImpl<AppointmentMapper, Appoi
                     return Result.error(ResultCode.SCHEDULE_NOT_FOUND.getCode(), "该医生在所选日期/时段无排班");
                 }
             }
-            // 检查号源是否充足
-            if (schedule.getRemainingQuota() == null || schedule.getRemainingQuota() <= 0) {
+            // 检查号源是否充足（启用Redis预扣时以Redis为准，数据库号源为异步回写的快照）
+            if (!scheduleQuotaService.isEnabled()
+                    && (schedule.getRemainingQuota() == null || schedule.getRemainingQuota() <= 0)) {
                 return Result.error(ResultCode.SCHEDULE_FULL);
             }
             // 确保 scheduleId 已设置
@@ -193,124 +238,111 @@ public class AppointmentServiceImpl extends ServiceImpl<AppointmentMapper, Appoi
                 return Result.error(ResultCode.SYSTEM_ERROR.getCode(), "查询医生信息失败");
             }
 
-            // 生成排队号（根据当天同医生同时段的预约数量）
-            Integer queueNumber = generateQueueNumber(
-                appointment.getDoctorId(),
-                appointment.getAppointmentDate(),
-                appointment.getTimeSlot()
-            );
+            Integer queueNumber;
+            if (scheduleQuotaService.isEnabled()) {
+                // Redis原子预扣号源并分配排队号，不再锁定数据库排班行
+                queueNumber = scheduleQuotaService.reserve(schedule);
+                if (queueNumber == null) {
+                    return Result.error(ResultCode.SCHEDULE_FULL);
+                }
+                // Redis号源即时生效，排班缓存同步调整；回滚时在 releaseQuotaOnRollback 中补回
+                scheduleCacheService.adjustQuota(schedule.getDoctorId(), schedule.getId(), -1);
+                releaseQuotaOnRollback(schedule, queueNumber);
+            } else {
+                // 生成排队号（根据当天同医生同时段的预约数量）
+                queueNumber = generateQueueNumber(
+                    appointment.getDoctorId(),
+                    appointment.getAppointmentDate(),
+                    appointment.getTimeSlot()
+                );
+                // 扣减号源（事务内）
+                Result<Void> decreaseResult = scheduleService.decreaseQuota(schedule.getId(), schedule.getDoctorId());
+                if (!ResultCode.SUCCESS.getCode().equals(decreaseResult.getCode())) {
+                    return Result.error(ResultCode.SCHEDULE_FULL);
+                }
+            }
             appointment.setQueueNumber(queueNumber);
 
             // 3. 设置初始状态（已确认）
             appointment.setStatus(AppointmentStatus.CONFIRMED.getCode());
 
-            // 4. 扣减号源（事务内）并保存预约
-            scheduleService.decreaseQuota(schedule.getId());
+            // 4. 保存预约
             appointmentMapper.insert(appointment);
 
-            // 4.5. 如果用户roleType为0（普通用户），预约成功后将其更新为1（患者）
-            if (patient.getRoleType() != null && patient.getRoleType() == 0) {
-                patient.setRoleType(1);
-                userMapper.updateById(patient);
-                log.info("用户roleType已更新: userId={}, roleType: 0 -> 1", patient.getId());
-            }
-
             log.info("创建预约成功: appointmentId={}, patientName={}, queueNumber={}",
                     appointment.getId(), appointment.getPatientName(), queueNumber);
 
-            // 5. 发送预约确认通知给患者
-            try {
-                Doctor doctor = doctorMapper.selectById(appointment.getDoctorId());
-                String doctorName = doctor != null ? doctor.getDoctorName() : "医生";
-                String title = "预约确认";
-                String content = String.format("您已成功预约%s的%s时段，排队号：%d，请按时就诊。",
-                        doctorName, appointment.getTimeSlot(), queueNumber);
-                notificationService.createAndSendNotification(
-                        appointment.getPatientId(),
-                        title,
-                        content,
-                        "APPOINTMENT_CONFIRMED"
-                );
-            } catch (Exception e) {
-                log.warn("发送预约确认通知失败: appointmentId={}, error={}", appointment.getId(), e.getMessage());
-            }
-
-            // 6. 发送通知给医生：预约成功
-            try {
-                com.hospital.entity.Doctor doctor = doctorMapper.selectById(appointment.getDoctorId());
-                if (doctor != null && doctor.getUserId() != null) {
-                    String patientName = appointment.getPatientName() != null ? appointment.getPatientName() : "患者";
-                    String appointmentDateStr = appointment.getAppointmentDate() != null ?
-                            appointment.getAppointmentDate().toString() : "";
-                    String timeSlotStr = appointment.getTimeSlot() != null ?
-                            (appointment.getTimeSlot().equals("MORNING") ? "上午" :
-                             appointment.getTimeSlot().equals("AFTERNOON") ? "下午" :
-                             appointment.getTimeSlot().equals("EVENING") ? "晚间" : appointment.getTimeSlot()) : "";
-                    String content = String.format("患者%s已成功预约您的%s%s时段，排队号：%d号",
-                            patientName, appointmentDateStr, timeSlotStr, queueNumber);
-                    notificationService.createAndSendNotification(
-                            doctor.getUserId(),
-                            "新预约通知",
-                            content,
-                            "APPOINTMENT_CREATED"
-                    );
-                }
-            } catch (Exception e) {
-                log.warn("发送预约成功通知失败: appointmentId={}, error={}", appointment.getId(), e.getMessage());
-            }
-
-            // 7. 失效相关缓存（创建预约后需即时刷新）
-            try {
-                Long doctorId = appointment.getDoctorId();
-
-                if (doctorId != null && appointmentDate != null) {
-                    // 失效排班缓存（日期和月份）
-                    String dateKey = "hospital:common:schedule:doctor:" + doctorId + ":date:" + appointmentDate;
-                    redisUtil.delete(dateKey);
-
-                    // 失效该月的排班缓存
-                    String month = appointmentDate.getYear() + "-" + String.format("%02d", appointmentDate.getMonthValue());
-                    String monthKey = "hospital:common:schedule:doctor:" + doctorId + ":month:" + month;
-                    redisUtil.delete(monthKey);
-
-                    // 仅当预约日期为今日时，失效医生当日患者列表与今日统计缓存
-                    if (appointmentDate.equals(LocalDate.now())) {
-                        redisUtil.delete("hospital:doctor:patient:list:pending:doctor:" + doctorId);
-                        redisUtil.delete("hospital:doctor:patient:list:today:doctor:" + doctorId);
-                        redisUtil.delete("hospital:doctor:patient:list:completed:doctor:" + doctorId);
-                        String todayKey = "hospital:doctor:stats:today:doctor:" + doctorId + ":date:" + LocalDate.now();
-                        redisUtil.delete(todayKey);
-                    }
-                }
-                // 失效患者最近预约缓存（无论预约日期是否为今日，都应刷新）
-                if (appointment.getPatientId() != null) {
-                    redisUtil.delete("hospital:patient:stats:appointments:recent:patient:" + appointment.getPatientId());
-                }
-            } catch (Exception e1) {
-                log.warn("创建预约后失效缓存失败: appointmentId={}, error={}", appointment.getId(), e1.getMessage());
-            }
+            // 5. 通知患者与医生、升级用户角色、失效缓存等副作用在事务提交后异步处理
+            appointmentEventPublisher.publish(AppointmentEventMessageDTO.of(AppointmentEventType.CREATED, appointment));
             return Result.success(appointment);
 
         } catch (org.springframework.dao.DuplicateKeyException e) {
             // 处理唯一约束冲突（数据库层面的双重保障）
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             log.warn("创建预约失败：唯一约束冲突，患者可能已有未完成预约。patientId={}, doctorId={}",
                     appointment.getPatientId(), appointment.getDoctorId(), e);
             return Result.error(ResultCode.PATIENT_HAS_UNFINISHED_APPOINTMENTS.getCode(),
                     "该医生已预约过了");
         } catch (Exception e) {
+            // 异常被转换为错误结果返回，需显式回滚以撤销已扣减的号源
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             log.error("创建预约失败", e);
             return Result.error(ResultCode.DB_INSERT_ERROR.getCode(), "创建预约失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 事务提交后回收预约的排队号；无事务时立即回收
+     */
+    private void recycleQueueNumberAfterCommit(Appointment appointment) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queueNumberService.recycle(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                    appointment.getTimeSlot(), appointment.getQueueNumber());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queueNumberService.recycle(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                        appointment.getTimeSlot(), appointment.getQueueNumber());
+            }
+        });
+    }
+
+    /**
+     * 事务未提交时归还Redis中预扣的号源及排队号
+     */
+    private void releaseQuotaOnRollback(com.hospital.entity.Schedule schedule, Integer queueNumber) {
+        Long scheduleId = schedule.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    if (scheduleQuotaService.release(scheduleId)) {
+                        scheduleCacheService.adjustQuota(schedule.getDoctorId(), scheduleId, 1);
+                    }
+                    queueNumberService.recycle(schedule.getDoctorId(), schedule.getScheduleDate(),
+                            schedule.getTimeSlot(), queueNumber);
+                } catch (Exception e) {
+                    // 释放失败由号源对账任务兜底修正
+                    log.error("归还预扣号源失败: scheduleId={}, error={}", scheduleId, e.getMessage());
+                }
+            }
+        });
+    }
+
     /**
      * 生成排队号
-     * 根据当天同一医生同一时段的预约数量生成
+     * 按 医生+日期+时段 的原子序列分配，避免并发预约重号
      */
     private Integer generateQueueNumber(Long doctorId, LocalDate appointmentDate, String timeSlot) {
-        // 查询当天同医生同时段的预约数量
-        Integer count = appointmentMapper.countByDoctorDateTimeSlot(doctorId, appointmentDate, timeSlot);
-        return count + 1;
+        return queueNumberService.allocate(doctorId, appointmentDate, timeSlot);
     }
 
     /**
@@ -362,48 +394,17 @@ public class AppointmentServiceImpl extends ServiceImpl<AppointmentMapper, Appoi
         }
 
         // 增加号源
-        scheduleService.increaseQuota(appointment.getScheduleId());
+        scheduleService.increaseQuota(appointment.getScheduleId(), appointment.getDoctorId());
 
         // 更新状态
         appointment.setStatus(AppointmentStatus.CANCELLED.getCode());
         appointmentMapper.updateById(appointment);
 
-        // 发送预约取消通知给患者
-        try {
-            Doctor doctor = doctorMapper.selectById(appointment.getDoctorId());
-            String doctorName = doctor != null ? doctor.getDoctorName() : "医生";
-            String title = "预约已取消";
-            String content = String.format("您已取消%s的%s时段预约，如有需要请重新预约。",
-                    doctorName, appointment.getTimeSlot());
-            notificationService.createAndSendNotification(
-                    appointment.getPatientId(),
-                    title,
-                    content,
-                    "APPOINTMENT_CANCELLED"
-            );
-        } catch (Exception e) {
-            log.warn("发送预约取消通知失败: appointmentId={}, error={}", appointmentId, e.getMessage());
-        }
+        // 事务提交后回收排队号（仅在开启空号回收时生效），回滚的取消不会放出号码
+        recycleQueueNumberAfterCommit(appointment);
 
-        // 仅当预约日期为今日时，失效医生当日患者列表与今日统计缓存（取消预约后需即时刷新）
-        try {
-            if (appointment.getAppointmentDate() != null && appointment.getAppointmentDate().equals(LocalDate.now())) {
-                Long doctorId = appointment.getDoctorId();
-                if (doctorId != null) {
-                    redisUtil.delete("hospital:doctor:patient:list:pending:doctor:" + doctorId);
-                    redisUtil.delete("hospital:doctor:patient:list:today:doctor:" + doctorId);
-                    redisUtil.delete("hospital:doctor:patient:list:completed:doctor:" + doctorId);
-                    String todayKey = "hospital:doctor:stats:today:doctor:" + doctorId + ":date:" + LocalDate.now();
-                    redisUtil.delete(todayKey);
-                }
-            }
-            // 失效患者最近预约缓存（取消也需要刷新）
-            if (appointment.getPatientId() != null) {
-                redisUtil.delete("hospital:patient:stats:appointments:recent:patient:" + appointment.getPatientId());
-            }
-        } catch (Exception e1) {
-            log.warn("取消预约后失效缓存失败: appointmentId={}, error={}", appointmentId, e1.getMessage());
-        }
+        // 通知与缓存失效在事务提交后异步处理
+        appointmentEventPublisher.publish(AppointmentEventMessageDTO.of(AppointmentEventType.CANCELLED, appointment));
 
         return Result.success("取消成功");
     }
@@ -432,75 +433,91 @@ public class AppointmentServiceImpl extends ServiceImpl<AppointmentMapper, Appoi
     }
 
     @Override
-    public byte[] exportPatientAppointments(Long patientId, Map<String, Object> params) {
+    public void exportPatientAppointments(Long patientId, Map<String, Object> params, OutputStream outputStream) {
         log.info("导出患者预约记录，patientId={}，params={}", patientId, params);
-        QueryWrapper<Appointment> wrapper = new QueryWrapper<>();
-        wrapper.eq("user_id", patientId);
 
         String status = params != null && params.get("status") != null ? params.get("status").toString() : null;
-        if (StringUtils.hasText(status)) {
-            wrapper.eq("status", status.trim());
-        }
-
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        LocalDate begin = null;
+        LocalDate finish = null;
         if (params != null) {
             String startDate = params.get("startDate") != null ? params.get("startDate").toString() : null;
             String endDate = params.get("endDate") != null ? params.get("endDate").toString() : null;
             if (StringUtils.hasText(startDate)) {
                 try {
-                    LocalDate begin = LocalDate.parse(startDate.trim(), dateFormatter);
-                    wrapper.ge("appointment_date", begin);
+                    begin = LocalDate.parse(startDate.trim(), dateFormatter);
                 } catch (DateTimeParseException e) {
                     log.warn("导出预约记录-开始日期解析失败：{}", startDate);
                 }
             }
             if (StringUtils.hasText(endDate)) {
                 try {
-                    LocalDate finish = LocalDate.parse(endDate.trim(), dateFormatter);
-                    wrapper.le("appointment_date", finish);
+                    finish = LocalDate.parse(endDate.trim(), dateFormatter);
                 } catch (DateTimeParseException e) {
                     log.warn("导出预约记录-结束日期解析失败：{}", endDate);
                 }
             }
         }
-        wrapper.orderByDesc("appointment_date");
-
-        List<Appointment> appointments = list(wrapper);
-        enrichAppointmentList(appointments);
+        LocalDate beginDate = begin;
+        LocalDate finishDate = finish;
+
+        // 按 (appointment_date, id) 键集分页逐批读取，避免一次性加载全部记录
+        Function<Appointment, List<Appointment>> pageFetcher = last -> {
+            QueryWrapper<Appointment> wrapper = new QueryWrapper<>();
+            wrapper.eq("user_id", patientId);
+            if (StringUtils.hasText(status)) {
+                wrapper.eq("status", status.trim());
+            }
+            if (beginDate != null) {
+                wrapper.ge("appointment_date", beginDate);
+            }
+            if (finishDate != null) {
+                wrapper.le("appointment_date", finishDate);
+            }
+            if (last != null) {
+                wrapper.and(w -> w.lt("appointment_date", last.getAppointmentDate())
+                        .or(o -> o.eq("appointment_date", last.getAppointmentDate()).lt("id", last.getId())));
+            }
+            wrapper.orderByDesc("appointment_date", "id");
+            wrapper.last("LIMIT " + exportBatchSize);
+            return list(wrapper);
+        };
 
         DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        List<AppointmentExportDTO> exportData = appointments.stream()
-                .map(appointment -> {
-                    AppointmentExportDTO dto = new AppointmentExportDTO();
-                    dto.setAppointmentNo(appointment.getId() != null ? appointment.getId().toString() : "-");
-                    dto.setDepartmentName(StringUtils.hasText(appointment.getDeptName())
-                            ? appointment.getDeptName()
-                            : (StringUtils.hasText(appointment.getCategoryName()) ? appointment.getCategoryName() : ""));
-                    dto.setDoctorName(StringUtils.hasText(appointment.getDoctorName()) ? appointment.getDoctorName() : "");
-                    dto.setAppointmentDate(appointment.getAppointmentDate() != null
-                            ? appointment.getAppointmentDate().format(dateFormatter)
-                            : "");
-                    dto.setTimeSlot(resolveTimeSlotText(appointment.getTimeSlot()));
-                    dto.setQueueNumber(appointment.getQueueNumber() != null ? appointment.getQueueNumber().toString() : "");
-                    dto.setStatus(resolveStatusText(appointment.getStatus()));
-                    dto.setConsultationFee(appointment.getConsultationFee() != null
-                            ? appointment.getConsultationFee().stripTrailingZeros().toPlainString()
-                            : "");
-                    dto.setCreatedAt(appointment.getCreateTime() != null
-                            ? appointment.getCreateTime().format(dateTimeFormatter)
-                            : "");
-                    dto.setUpdatedAt(appointment.getUpdateTime() != null
-                            ? appointment.getUpdateTime().format(dateTimeFormatter)
-                            : "");
-                    return dto;
-                })
-                .collect(Collectors.toList());
-
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            EasyExcel.write(outputStream, AppointmentExportDTO.class)
-                    .sheet("预约记录")
-                    .doWrite(exportData);
-            return outputStream.toByteArray();
+        Function<List<Appointment>, List<AppointmentExportDTO>> converter = appointments -> {
+            enrichAppointmentList(appointments);
+            return appointments.stream()
+                    .map(appointment -> {
+                        AppointmentExportDTO dto = new AppointmentExportDTO();
+                        dto.setAppointmentNo(appointment.getId() != null ? appointment.getId().toString() : "-");
+                        dto.setDepartmentName(StringUtils.hasText(appointment.getDeptName())
+                                ? appointment.getDeptName()
+                                : (StringUtils.hasText(appointment.getCategoryName()) ? appointment.getCategoryName() : ""));
+                        dto.setDoctorName(StringUtils.hasText(appointment.getDoctorName()) ? appointment.getDoctorName() : "");
+                        dto.setAppointmentDate(appointment.getAppointmentDate() != null
+                                ? appointment.getAppointmentDate().format(dateFormatter)
+                                : "");
+                        dto.setTimeSlot(resolveTimeSlotText(appointment.getTimeSlot()));
+                        dto.setQueueNumber(appointment.getQueueNumber() != null ? appointment.getQueueNumber().toString() : "");
+                        dto.setStatus(resolveStatusText(appointment.getStatus()));
+                        dto.setConsultationFee(appointment.getConsultationFee() != null
+                                ? appointment.getConsultationFee().stripTrailingZeros().toPlainString()
+                                : "");
+                        dto.setCreatedAt(appointment.getCreateTime() != null
+                                ? appointment.getCreateTime().format(dateTimeFormatter)
+                                : "");
+                        dto.setUpdatedAt(appointment.getUpdateTime() != null
+                                ? appointment.getUpdateTime().format(dateTimeFormatter)
+                                : "");
+                        return dto;
+                    })
+                    .collect(Collectors.toList());
+        };
+
+        try {
+            long total = ExcelStreamExporter.export(outputStream, AppointmentExportDTO.class, "预约记录",
+                    exportBatchSize, pageFetcher, converter, null);
+            log.info("导出患者预约记录完成，patientId={}，记录数={}", patientId, total);
         } catch (Exception e) {
             log.error("导出患者预约记录失败，patientId={}", patientId, e);
             throw new BusinessException(ResultCode.SYSTEM_ERROR.getCode(), "导出预约记录失败：" + e.getMessage());
@@ -563,6 +580,8 @@ public class AppointmentServiceImpl extends ServiceImpl<AppointmentMapper, Appoi
 
     /**
      * 丰富预约列表信息（批量处理）
+     * 先收集去重后的医生、分类、患者ID，各用一次 selectBatchIds（按块）加载后在内存中关联，
+     * 列表较大时三类关联数据并行加载。
      *
      * @param appointments 预约列表
      */
@@ -570,8 +589,75 @@ public class AppointmentServiceImpl extends ServiceImpl<AppointmentMapper, Appoi
         if (appointments == null || appointments.isEmpty()) {
             return;
         }
+        Collection<Long> doctorIds = BatchLoader.collectIds(appointments, Appointment::getDoctorId);
+        Collection<Long> categoryIds = BatchLoader.collectIds(appointments, Appointment::getCategoryId);
+        Collection<Long> patientIds = BatchLoader.collectIds(appointments, Appointment::getPatientId);
+
+        Map<Long, Doctor> doctors;
+        Map<Long, Department> departments;
+        Map<Long, User> patients;
+        if (appointments.size() >= enrichParallelThreshold) {
+            CompletableFuture<Map<Long, Doctor>> doctorFuture = CompletableFuture.supplyAsync(
+                    () -> loadDoctors(doctorIds), batchQueryExecutor);
+            CompletableFuture<Map<Long, Department>> departmentFuture = CompletableFuture.supplyAsync(
+                    () -> loadDepartments(categoryIds), batchQueryExecutor);
+            CompletableFuture<Map<Long, User>> patientFuture = CompletableFuture.supplyAsync(
+                    () -> loadPatients(patientIds), batchQueryExecutor);
+            doctors = doctorFuture.join();
+            departments = departmentFuture.join();
+            patients = patientFuture.join();
+        } else {
+            doctors = loadDoctors(doctorIds);
+            departments = loadDepartments(categoryIds);
+            patients = loadPatients(patientIds);
+        }
+
         for (Appointment appointment : appointments) {
-            enrichAppointmentInfo(appointment);
+            Doctor doctor = appointment.getDoctorId() != null ? doctors.get(appointment.getDoctorId()) : null;
+            if (doctor != null) {
+                appointment.setDoctorName(doctor.getDoctorName());
+                appointment.setDoctorTitle(doctor.getTitle());
+                // 如果预约金额为空，才使用医生的咨询费（用于展示）
+                if (appointment.getConsultationFee() == null || appointment.getConsultationFee().compareTo(java.math.BigDecimal.ZERO) <= 0) {
+                    appointment.setConsultationFee(doctor.getConsultationFee());
+                }
+            }
+            Department department = appointment.getCategoryId() != null ? departments.get(appointment.getCategoryId()) : null;
+            if (department != null) {
+                appointment.setDeptName(department.getCategoryName());
+            }
+            User user = appointment.getPatientId() != null ? patients.get(appointment.getPatientId()) : null;
+            if (user != null) {
+                appointment.setPatientName(user.getRealName());
+                appointment.setPatientPhone(user.getPhone());
+            }
+        }
+    }
+
+    private Map<Long, Doctor> loadDoctors(Collection<Long> doctorIds) {
+        try {
+            return BatchLoader.loadByIds(doctorIds, enrichChunkSize, doctorMapper::selectBatchIds, Doctor::getId);
+        } catch (Exception e) {
+            log.warn("批量获取医生信息失败: size={}", doctorIds.size(), e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<Long, Department> loadDepartments(Collection<Long> categoryIds) {
+        try {
+            return BatchLoader.loadByIds(categoryIds, enrichChunkSize, departmentMapper::selectBatchIds, Department::getId);
+        } catch (Exception e) {
+            log.warn("批量获取科室信息失败: size={}", categoryIds.size(), e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<Long, User> loadPatients(Collection<Long> patientIds) {
+        try {
+            return BatchLoader.loadByIds(patientIds, enrichChunkSize, userMapper::selectBatchIds, User::getId);
+        } catch (Exception e) {
+            log.warn("批量获取患者信息失败: size={}", patientIds.size(), e);
+            return Collections.emptyMap();
         }
     }
 
@@ -10,7 +10,7 @@ import com.hospital.config.AreaConfig;
 import com.hospital.dto.response.AreaInfoDTO;
 import com.hospital.dto.response.AreaResponse;
 import com.hospital.service.AreaService;
-import com.hospital.util.RedisUtil;
+import com.hospital.util.ReadThroughCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -18,7 +18,7 @@ import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -35,7 +35,7 @@ public class AreaServiceImpl implements AreaService {
     private AreaConfig areaConfig;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private ReadThroughCache readThroughCache;
 
     /**
      * 获取省份列表
@@ -43,25 +43,9 @@ public class AreaServiceImpl implements AreaService {
     @Override
     public Result<List<AreaInfoDTO>> getProvinceList() {
         try {
-            // 1. 尝试从缓存获取
             String cacheKey = CacheConstants.AREA_CACHE_PREFIX + "province:list";
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<AreaInfoDTO> cachedList = (List<AreaInfoDTO>) cached;
-                    return Result.success(cachedList);
-                } catch (ClassCastException ignored) {}
-            }
-
-            // 2. 调用阿里云API获取省份列表（不传参数获取省份）
-            List<AreaInfoDTO> provinceList = callAreaApi(null, null, null);
-
-            // 3. 缓存数据
-            if (provinceList != null && !provinceList.isEmpty()) {
-                redisUtil.set(cacheKey, provinceList, areaConfig.getCacheTtlSeconds(), TimeUnit.SECONDS);
-            }
-
+            // 缓存未命中时调用阿里云API获取省份列表（不传参数获取省份），空结果不缓存
+            List<AreaInfoDTO> provinceList = loadAreaList(cacheKey, () -> callAreaApi(null, null, null));
             return Result.success(provinceList);
         } catch (Exception e) {
             log.error("获取省份列表失败", e);
@@ -79,25 +63,9 @@ public class AreaServiceImpl implements AreaService {
         }
 
         try {
-            // 1. 尝试从缓存获取
             String cacheKey = CacheConstants.AREA_CACHE_PREFIX + "city:list:province:" + provinceId;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<AreaInfoDTO> cachedList = (List<AreaInfoDTO>) cached;
-                    return Result.success(cachedList);
-                } catch (ClassCastException ignored) {}
-            }
-
-            // 2. 调用阿里云API获取城市列表
-            List<AreaInfoDTO> cityList = callAreaApi(provinceId, null, null);
-
-            // 3. 缓存数据
-            if (cityList != null && !cityList.isEmpty()) {
-                redisUtil.set(cacheKey, cityList, areaConfig.getCacheTtlSeconds(), TimeUnit.SECONDS);
-            }
-
+            // 缓存未命中时调用阿里云API获取城市列表，空结果不缓存
+            List<AreaInfoDTO> cityList = loadAreaList(cacheKey, () -> callAreaApi(provinceId, null, null));
             return Result.success(cityList);
         } catch (Exception e) {
             log.error("获取城市列表失败: provinceId={}", provinceId, e);
@@ -115,25 +83,9 @@ public class AreaServiceImpl implements AreaService {
         }
 
         try {
-            // 1. 尝试从缓存获取
             String cacheKey = CacheConstants.AREA_CACHE_PREFIX + "county:list:city:" + cityId;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<AreaInfoDTO> cachedList = (List<AreaInfoDTO>) cached;
-                    return Result.success(cachedList);
-                } catch (ClassCastException ignored) {}
-            }
-
-            // 2. 调用阿里云API获取区县列表
-            List<AreaInfoDTO> countyList = callAreaApi(null, cityId, null);
-
-            // 3. 缓存数据
-            if (countyList != null && !countyList.isEmpty()) {
-                redisUtil.set(cacheKey, countyList, areaConfig.getCacheTtlSeconds(), TimeUnit.SECONDS);
-            }
-
+            // 缓存未命中时调用阿里云API获取区县列表，空结果不缓存
+            List<AreaInfoDTO> countyList = loadAreaList(cacheKey, () -> callAreaApi(null, cityId, null));
             return Result.success(countyList);
         } catch (Exception e) {
             log.error("获取区县列表失败: cityId={}", cityId, e);
@@ -142,6 +94,17 @@ public class AreaServiceImpl implements AreaService {
     }
 
 
+    /**
+     * 读取区域列表缓存，未命中时调用API；API返回空列表时不缓存，下次请求重试
+     */
+    private List<AreaInfoDTO> loadAreaList(String cacheKey, Supplier<List<AreaInfoDTO>> apiCall) {
+        List<AreaInfoDTO> areas = readThroughCache.getWithLocal(cacheKey, areaConfig.getCacheTtlSeconds(), () -> {
+            List<AreaInfoDTO> loaded = apiCall.get();
+            return loaded != null && !loaded.isEmpty() ? loaded : null;
+        });
+        return areas != null ? areas : new ArrayList<>();
+    }
+
     /**
      * 调用阿里云区域API
      * 只支持省市区三级数据
@@ -2,6 +2,8 @@ package com.hospital.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hospital.common.constant.ContentCounterMetric;
+import com.hospital.common.constant.ContentCounterTarget;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
 import com.hospital.entity.ArticleComment;
@@ -10,6 +12,7 @@ import com.hospital.mapper.ArticleCommentMapper;
 import com.hospital.mapper.HealthArticleMapper;
 import com.hospital.mapper.UserLikeMapper;
 import com.hospital.service.ArticleCommentService;
+import com.hospital.service.ContentCounterService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -34,6 +37,9 @@ public class ArticleCommentServiceImpl implements ArticleCommentService {
     @Autowired
     private UserLikeMapper userLikeMapper;
 
+    @Autowired
+    private ContentCounterService contentCounterService;
+
     /**
      * 分页查询文章评论
      */
@@ -130,7 +136,7 @@ public class ArticleCommentServiceImpl implements ArticleCommentService {
             userLikeMapper.insert(userLike);
 
             // 增加评论点赞数
-            commentMapper.incrementLikeCount(commentId);
+            contentCounterService.increment(ContentCounterTarget.COMMENT, commentId, ContentCounterMetric.LIKE, 1);
 
             log.info("点赞评论成功：评论ID={}，用户ID={}", commentId, userId);
             return Result.success();
@@ -158,7 +164,7 @@ public class ArticleCommentServiceImpl implements ArticleCommentService {
             userLikeMapper.deleteByUserAndTarget(userId, commentId, "COMMENT");
 
             // 减少评论点赞数
-            commentMapper.decrementLikeCount(commentId);
+            contentCounterService.increment(ContentCounterTarget.COMMENT, commentId, ContentCounterMetric.LIKE, -1);
 
             log.info("取消点赞评论成功：评论ID={}，用户ID={}", commentId, userId);
             return Result.success();
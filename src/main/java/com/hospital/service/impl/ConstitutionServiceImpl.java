@@ -8,7 +8,8 @@ import com.hospital.dto.response.ConstitutionTypeResponse;
 import com.hospital.entity.ConstitutionType;
 import com.hospital.mapper.ConstitutionTypeMapper;
 import com.hospital.service.ConstitutionService;
-import com.hospital.util.RedisUtil;
+import com.hospital.util.CacheTtlPolicy;
+import com.hospital.util.ReadThroughCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -30,7 +31,7 @@ public class ConstitutionServiceImpl implements ConstitutionService {
     private ConstitutionTypeMapper constitutionTypeMapper;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private ReadThroughCache readThroughCache;
 
     /**
      * 获取所有体质类型列表
@@ -38,25 +39,12 @@ public class ConstitutionServiceImpl implements ConstitutionService {
     @Override
     public Result<List<ConstitutionTypeResponse>> getConstitutionTypes() {
         try {
-            // 1. 尝试从缓存获取
-            Object cached = redisUtil.get(CacheConstants.CONSTITUTION_TYPES_CACHE_KEY);
-            if (cached != null) {
-                @SuppressWarnings("unchecked")
-                List<ConstitutionTypeResponse> cachedList = (List<ConstitutionTypeResponse>) cached;
-                return Result.success(cachedList);
-            }
-
-            // 2. 从数据库查询
-            List<ConstitutionType> constitutionTypes = constitutionTypeMapper.selectAllOrdered();
-
-            // 3. 转换为DTO
-            List<ConstitutionTypeResponse> responseList = constitutionTypes.stream()
-                    .map(type -> BeanUtil.copyProperties(type, ConstitutionTypeResponse.class))
-                    .collect(Collectors.toList());
-
-            // 4. 存入缓存（永久）
-            redisUtil.set(CacheConstants.CONSTITUTION_TYPES_CACHE_KEY, responseList);
-
+            // 体质类型列表缓存（永久）
+            List<ConstitutionTypeResponse> responseList = readThroughCache.get(
+                    CacheConstants.CONSTITUTION_TYPES_CACHE_KEY, CacheTtlPolicy.PERMANENT,
+                    () -> constitutionTypeMapper.selectAllOrdered().stream()
+                            .map(type -> BeanUtil.copyProperties(type, ConstitutionTypeResponse.class))
+                            .collect(Collectors.toList()));
             return Result.success(responseList);
 
         } catch (Exception e) {
@@ -71,26 +59,19 @@ public class ConstitutionServiceImpl implements ConstitutionService {
     @Override
     public Result<ConstitutionTypeResponse> getConstitutionDetail(String typeCode) {
         try {
-            // 1. 尝试从缓存获取
+            // 体质详情缓存（永久），体质类型不存在时不缓存
             String cacheKey = CacheConstants.CONSTITUTION_TYPE_CACHE_PREFIX + typeCode;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached != null) {
-                return Result.success((ConstitutionTypeResponse) cached);
-            }
-
-            // 2. 从数据库查询
-            ConstitutionType constitutionType = constitutionTypeMapper.selectByTypeCode(typeCode);
-            if (constitutionType == null) {
+            ConstitutionTypeResponse response = readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT, () -> {
+                ConstitutionType constitutionType = constitutionTypeMapper.selectByTypeCode(typeCode);
+                return constitutionType != null
+                        ? BeanUtil.copyProperties(constitutionType, ConstitutionTypeResponse.class)
+                        : null;
+            });
+            if (response == null) {
                 log.warn("体质类型不存在: {}", typeCode);
                 return Result.error(ResultCode.DATA_NOT_FOUND);
             }
 
-            // 3. 转换为DTO
-            ConstitutionTypeResponse response = BeanUtil.copyProperties(constitutionType, ConstitutionTypeResponse.class);
-
-            // 4. 存入缓存（永久）
-            redisUtil.set(cacheKey, response);
-
             return Result.success(response);
 
         } catch (Exception e) {
@@ -3,6 +3,7 @@ package com.hospital.service.impl;
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.lang.TypeReference;
 import cn.hutool.json.JSONUtil;
+import com.hospital.common.constant.CacheConstants;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
 import com.hospital.dto.request.SubmitTestRequest;
@@ -18,6 +19,8 @@ import com.hospital.mapper.ConstitutionTypeMapper;
 import com.hospital.mapper.QuestionnaireOptionMapper;
 import com.hospital.mapper.UserConstitutionTestMapper;
 import com.hospital.service.ConstitutionTestService;
+import com.hospital.util.CacheTtlPolicy;
+import com.hospital.util.ReadThroughCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -50,7 +53,7 @@ public class ConstitutionTestServiceImpl implements ConstitutionTestService {
     private ConstitutionTypeMapper constitutionTypeMapper;
 
     @Autowired
-    private com.hospital.util.RedisUtil redisUtil;
+    private ReadThroughCache readThroughCache;
 
     @Autowired
     private com.hospital.mapper.AppointmentMapper appointmentMapper;
@@ -70,46 +73,13 @@ public class ConstitutionTestServiceImpl implements ConstitutionTestService {
     @Override
     public Result<List<QuestionnaireResponse>> getQuestionnaire() {
         try {
-            // 1. 尝试从缓存获取
-            String cacheKey = "hospital:common:constitution:questionnaire";
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<QuestionnaireResponse> list = (List<QuestionnaireResponse>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            // 2. 查询所有启用的问卷题目
-            List<ConstitutionQuestionnaire> questions = questionnaireMapper.selectAllEnabled();
-            if (questions.isEmpty()) {
+            // 问卷缓存（永久），题目为空时不缓存
+            List<QuestionnaireResponse> responseList = readThroughCache.getWithLocal(
+                    CacheConstants.CONSTITUTION_QUESTIONNAIRE_CACHE_KEY, CacheTtlPolicy.PERMANENT, this::loadQuestionnaire);
+            if (responseList == null) {
                 log.warn("问卷题目为空");
                 return Result.error(ResultCode.DATA_NOT_FOUND);
             }
-
-            // 3. 查询所有题目的选项
-            List<Long> questionIds = questions.stream()
-                    .map(ConstitutionQuestionnaire::getId)
-                    .collect(Collectors.toList());
-            List<QuestionnaireOption> allOptions = optionMapper.selectByQuestionIds(questionIds);
-
-            // 4. 按问题ID分组选项
-            Map<Long, List<QuestionnaireOption>> optionsMap = allOptions.stream()
-                    .collect(Collectors.groupingBy(QuestionnaireOption::getQuestionId));
-
-            // 5. 组装响应数据
-            List<QuestionnaireResponse> responseList = questions.stream()
-                    .map(question -> {
-                        QuestionnaireResponse response = BeanUtil.copyProperties(question, QuestionnaireResponse.class);
-                        response.setOptions(optionsMap.getOrDefault(question.getId(), new ArrayList<>()));
-                        return response;
-                    })
-                    .collect(Collectors.toList());
-
-            // 6. 存入缓存（永久）
-            redisUtil.set(cacheKey, responseList);
-
             return Result.success(responseList);
 
         } catch (Exception e) {
@@ -118,6 +88,36 @@ public class ConstitutionTestServiceImpl implements ConstitutionTestService {
         }
     }
 
+    /**
+     * 查询启用的问卷题目并组装选项，题目为空时返回 null
+     */
+    private List<QuestionnaireResponse> loadQuestionnaire() {
+        // 1. 查询所有启用的问卷题目
+        List<ConstitutionQuestionnaire> questions = questionnaireMapper.selectAllEnabled();
+        if (questions.isEmpty()) {
+            return null;
+        }
+
+        // 2. 查询所有题目的选项
+        List<Long> questionIds = questions.stream()
+                .map(ConstitutionQuestionnaire::getId)
+                .collect(Collectors.toList());
+        List<QuestionnaireOption> allOptions = optionMapper.selectByQuestionIds(questionIds);
+
+        // 3. 按问题ID分组选项
+        Map<Long, List<QuestionnaireOption>> optionsMap = allOptions.stream()
+                .collect(Collectors.groupingBy(QuestionnaireOption::getQuestionId));
+
+        // 4. 组装响应数据
+        return questions.stream()
+                .map(question -> {
+                    QuestionnaireResponse response = BeanUtil.copyProperties(question, QuestionnaireResponse.class);
+                    response.setOptions(optionsMap.getOrDefault(question.getId(), new ArrayList<>()));
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
     /**
      * 提交测试答案并计算结果
      */
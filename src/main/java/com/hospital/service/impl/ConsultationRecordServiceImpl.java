@@ -1,11 +1,11 @@
 package com.hospital.service.impl;
 
-import com.alibaba.excel.EasyExcel;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hospital.common.constant.AppointmentStatus;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.common.constant.SystemConstants;
 import com.hospital.dto.ConsultationRecordExportDTO;
 import com.hospital.dto.ConsultationReminderMessageDTO;
@@ -19,20 +19,26 @@ import com.hospital.mapper.DepartmentMapper;
 import com.hospital.mapper.DoctorMapper;
 import com.hospital.messaging.ConsultationReminderPublisher;
 import com.hospital.service.ConsultationRecordService;
+import com.hospital.util.ExcelStreamExporter;
+import com.hospital.util.ReadThroughCache;
 import com.hospital.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +49,9 @@ import java.util.stream.Collectors;
 public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecordMapper, ConsultationRecord>
         implements ConsultationRecordService {
 
+    /** 接诊记录热门分页缓存秒数 */
+    private static final long CONSULTATION_PAGE_TTL_SECONDS = 5 * 60;
+
     @Autowired
     private ConsultationRecordMapper consultationRecordMapper;
 
@@ -61,9 +70,18 @@ public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecor
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
     @Autowired
     private com.hospital.service.NotificationService notificationService;
 
+    /**
+     * 导出时每批读取的行数
+     */
+    @Value("${hospital.export.batch-size:1000}")
+    private int exportBatchSize;
+
     @Override
     public IPage<ConsultationRecord> getDoctorRecords(Map<String, Object> params) {
         log.info("分页查询医生接诊记录，参数：{}", params);
@@ -95,26 +113,15 @@ public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecor
         filterParams.remove("doctorId"); // doctorId已经在前缀中
         String cacheKey = redisUtil.buildCacheKey("hospital:doctor:consultation:list", page, pageSize, filterParams);
 
-        if (page <= 2) {
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof IPage) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    IPage<ConsultationRecord> cachedPage = (IPage<ConsultationRecord>) cached;
-                    return cachedPage;
-                } catch (ClassCastException ignored) {}
-            }
-        }
-
-        Page<ConsultationRecord> pageObject = new Page<>(page, pageSize);
-        IPage<ConsultationRecord> result = consultationRecordMapper.selectDoctorRecords(pageObject, params);
-
+        long current = page;
+        long size = pageSize;
+        Map<String, Object> queryParams = new HashMap<>(params);
+        Supplier<IPage<ConsultationRecord>> query =
+                () -> consultationRecordMapper.selectDoctorRecords(new Page<>(current, size), queryParams);
         // 缓存前2页（5分钟）
-        if (page <= 2) {
-            redisUtil.set(cacheKey, result, 5, java.util.concurrent.TimeUnit.MINUTES);
-        }
-
-        return result;
+        return page <= 2
+                ? readThroughCache.get(cacheKey, CONSULTATION_PAGE_TTL_SECONDS, query, CacheTags.DOCTOR_CONSULTATION_LIST)
+                : query.get();
     }
 
     @Override
@@ -211,7 +218,7 @@ public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecor
                     String todayKey = "hospital:doctor:stats:today:doctor:" + doctorId + ":date:" + java.time.LocalDate.now();
                     redisUtil.delete(todayKey);
                     // 失效医生接诊记录列表缓存
-                    redisUtil.deleteByPattern("hospital:doctor:consultation:list:*");
+                    redisUtil.invalidateTag(CacheTags.DOCTOR_CONSULTATION_LIST);
                     log.info("已失效医生接诊记录列表缓存，doctorId={}", doctorId);
                 }
             } catch (Exception e) {
@@ -269,7 +276,7 @@ public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecor
                 String todayKey = "hospital:doctor:stats:today:doctor:" + doctorId + ":date:" + LocalDate.now();
                 redisUtil.delete(todayKey);
                 // 失效医生接诊记录列表缓存
-                redisUtil.deleteByPattern("hospital:doctor:consultation:list:*");
+                redisUtil.invalidateTag(CacheTags.DOCTOR_CONSULTATION_LIST);
                 log.info("已失效医生接诊记录列表缓存，doctorId={}", doctorId);
             }
         } catch (Exception e) {
@@ -394,14 +401,14 @@ public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecor
                 String todayKey = "hospital:doctor:stats:today:doctor:" + doctorId + ":date:" + java.time.LocalDate.now();
                 redisUtil.delete(todayKey);
                 // 失效医生接诊记录列表缓存
-                redisUtil.deleteByPattern("hospital:doctor:consultation:list:*");
+                redisUtil.invalidateTag(CacheTags.DOCTOR_CONSULTATION_LIST);
                 log.info("已失效医生接诊记录列表缓存，doctorId={}", doctorId);
             }
             // 失效患者最近预约缓存（无论预约日期是否为今日，都应刷新）
             if (patientId != null) {
                 redisUtil.delete("hospital:patient:stats:appointments:recent:patient:" + patientId);
                 // 失效患者接诊记录列表缓存
-                redisUtil.deleteByPattern("hospital:patient:consultation:list:*");
+                redisUtil.invalidateTag(CacheTags.PATIENT_CONSULTATION_LIST);
                 log.info("已失效患者接诊记录列表缓存，patientId={}", patientId);
             }
         } catch (Exception e) {
@@ -454,29 +461,25 @@ public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecor
     }
 
     @Override
-    public byte[] exportConsultationRecords(Long doctorId, Map<String, Object> params) {
+    public void exportConsultationRecords(Long doctorId, Map<String, Object> params, OutputStream outputStream) {
         log.info("导出接诊记录，医生ID：{}，参数：{}", doctorId, params);
 
-        try {
-            // 查询所有符合条件的接诊记录（不分页，限制最多10000条）
-            params.put("doctorId", doctorId);
-            Page<ConsultationRecord> page = new Page<>(1, 10000);
-            IPage<ConsultationRecord> result = consultationRecordMapper.selectDoctorRecords(page, params);
-            List<ConsultationRecord> records = result.getRecords();
-
-            if (records.isEmpty()) {
-                log.warn("没有找到需要导出的接诊记录，医生ID：{}", doctorId);
-                // 返回一个空的Excel文件
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                EasyExcel.write(outputStream, ConsultationRecordExportDTO.class)
-                    .sheet("接诊记录")
-                    .doWrite(List.of());
-                return outputStream.toByteArray();
+        Map<String, Object> queryParams = params != null ? new HashMap<>(params) : new HashMap<>();
+        queryParams.put("doctorId", doctorId);
+
+        // 按 (consultation_date, created_at, id) 键集分页逐批读取，不统计总数
+        Function<ConsultationRecord, List<ConsultationRecord>> pageFetcher = last -> {
+            if (last != null) {
+                queryParams.put("cursorDate", last.getConsultationDate());
+                queryParams.put("cursorCreatedAt", last.getCreatedAt());
+                queryParams.put("cursorId", last.getId());
             }
+            Page<ConsultationRecord> page = new Page<>(1, exportBatchSize, false);
+            return consultationRecordMapper.selectDoctorRecords(page, queryParams).getRecords();
+        };
 
-            // 转换为导出DTO
-            DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            List<ConsultationRecordExportDTO> exportData = records.stream()
+        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        Function<List<ConsultationRecord>, List<ConsultationRecordExportDTO>> converter = records -> records.stream()
                 .map(record -> {
                     ConsultationRecordExportDTO dto = new ConsultationRecordExportDTO();
 
@@ -552,15 +555,10 @@ public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecor
                 })
                 .collect(Collectors.toList());
 
-            // 使用EasyExcel导出
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            EasyExcel.write(outputStream, ConsultationRecordExportDTO.class)
-                .sheet("接诊记录")
-                .doWrite(exportData);
-
-            log.info("导出接诊记录成功，医生ID：{}，记录数：{}", doctorId, exportData.size());
-            return outputStream.toByteArray();
-
+        try {
+            long total = ExcelStreamExporter.export(outputStream, ConsultationRecordExportDTO.class, "接诊记录",
+                exportBatchSize, pageFetcher, converter, null);
+            log.info("导出接诊记录成功，医生ID：{}，记录数：{}", doctorId, total);
         } catch (Exception e) {
             log.error("导出接诊记录失败，医生ID：{}", doctorId, e);
             throw new RuntimeException("导出接诊记录失败: " + e.getMessage());
@@ -637,25 +635,14 @@ public class ConsultationRecordServiceImpl extends ServiceImpl<ConsultationRecor
         filterParams.remove("patientId"); // patientId已经在前缀中
         String cacheKey = redisUtil.buildCacheKey("hospital:patient:consultation:list", page, pageSize, filterParams);
 
-        if (page <= 2) {
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof IPage) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    IPage<ConsultationRecord> cachedPage = (IPage<ConsultationRecord>) cached;
-                    return cachedPage;
-                } catch (ClassCastException ignored) {}
-            }
-        }
-
-        Page<ConsultationRecord> pageObject = new Page<>(page, pageSize);
-        IPage<ConsultationRecord> result = consultationRecordMapper.selectPatientRecords(pageObject, params);
-
+        long current = page;
+        long size = pageSize;
+        Map<String, Object> queryParams = new HashMap<>(params);
+        Supplier<IPage<ConsultationRecord>> query =
+                () -> consultationRecordMapper.selectPatientRecords(new Page<>(current, size), queryParams);
         // 缓存前2页（5分钟）
-        if (page <= 2) {
-            redisUtil.set(cacheKey, result, 5, java.util.concurrent.TimeUnit.MINUTES);
-        }
-
-        return result;
+        return page <= 2
+                ? readThroughCache.get(cacheKey, CONSULTATION_PAGE_TTL_SECONDS, query, CacheTags.PATIENT_CONSULTATION_LIST)
+                : query.get();
     }
 }
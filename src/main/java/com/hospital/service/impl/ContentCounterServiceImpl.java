@@ -0,0 +1,331 @@
+package com.hospital.service.impl;
+
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.ContentCounterMetric;
+import com.hospital.common.constant.ContentCounterTarget;
+import com.hospital.config.ContentCounterProperties;
+import com.hospital.mapper.ContentCounterMapper;
+import com.hospital.service.ContentCounterService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 内容计数服务实现
+ *
+ * 增量哈希：{@link CacheConstants#COUNTER_DELTA_PREFIX}{目标类型}:{分片}，字段 {ID}:{指标} = 待落库增量。
+ * 落库时用脚本一次取出并删除整个分片，之后的计数写入新的哈希，多个节点同时落库也不会重复计入；
+ * 写库失败的增量加回哈希等待下一轮。
+ * 热度排行只在已建立时随计数增量更新，缺失时由落库任务从数据库重建，每日再整体重建一次校正偏差。
+ * 排行外的记录进入排行时只有计数增量作为分值，因此排行保留 popularCandidateSize 条候选，只对外提供前 popularSize 条。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class ContentCounterServiceImpl implements ContentCounterService {
+
+    private static final String FIELD_SEPARATOR = ":";
+
+    /**
+     * 累加计数，排行已建立时同时累加热度
+     * KEYS[1]=增量哈希 KEYS[2]=热度排行 ARGV[1]=字段 ARGV[2]=增量 ARGV[3]=排行成员 ARGV[4]=热度增量
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "if tonumber(ARGV[4]) ~= 0 and redis.call('EXISTS', KEYS[2]) == 1 then\n" +
+            "  redis.call('ZINCRBY', KEYS[2], ARGV[4], ARGV[3])\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    /**
+     * 取出并删除一个分片的全部增量：返回 [field, delta, ...]
+     * KEYS[1]=增量哈希
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>(
+            "local entries = redis.call('HGETALL', KEYS[1])\n" +
+            "if #entries > 0 then redis.call('DEL', KEYS[1]) end\n" +
+            "return entries", List.class);
+
+    /**
+     * 整体替换热度排行
+     * KEYS[1]=热度排行 ARGV[1..]=依次为 score, member
+     */
+    private static final RedisScript<Long> REPLACE_POPULAR_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1])\n" +
+            "for i = 1, #ARGV, 2 do\n" +
+            "  redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+            "end\n" +
+            "return #ARGV / 2", Long.class);
+
+    /**
+     * 只保留热度最高的若干条候选
+     * KEYS[1]=热度排行 ARGV[1]=保留数量
+     */
+    private static final RedisScript<Long> TRIM_POPULAR_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -tonumber(ARGV[1]) - 1)", Long.class);
+
+    @Autowired
+    private ContentCounterProperties properties;
+
+    @Autowired
+    private ContentCounterMapper contentCounterMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Override
+    public void increment(ContentCounterTarget target, Long id, ContentCounterMetric metric, int delta) {
+        if (id == null || delta == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(target, id, metric, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(target, id, metric, delta);
+            }
+        });
+    }
+
+    @Override
+    public List<Long> getPopularIds(ContentCounterTarget target, int limit) {
+        if (!properties.isEnabled() || !target.isRanked() || limit <= 0) {
+            return null;
+        }
+        try {
+            int size = Math.min(limit, Math.max(properties.getPopularSize(), 1));
+            List<String> members = redisUtil.zReverseRangeAsString(popularKey(target), 0, size - 1);
+            if (members.isEmpty()) {
+                return null;
+            }
+            return members.stream().map(Long::valueOf).collect(Collectors.toList());
+        } catch (Exception e) {
+            log.warn("读取热度排行失败，回源数据库: target={}, error={}", target, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void removePopular(ContentCounterTarget target, Long id) {
+        if (!properties.isEnabled() || !target.isRanked() || id == null) {
+            return;
+        }
+        try {
+            redisUtil.zRemoveAsString(popularKey(target), Collections.singletonList(String.valueOf(id)));
+        } catch (Exception e) {
+            // 排行读取方会过滤已下架的记录，下次重建时也会移除
+            log.warn("移除热度排行记录失败: target={}, id={}, error={}", target, id, e.getMessage());
+        }
+    }
+
+    @Override
+    public int flush() {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        int updated = 0;
+        for (ContentCounterTarget target : ContentCounterTarget.values()) {
+            for (int shard = 0; shard < shardCount(); shard++) {
+                try {
+                    updated += flushShard(target, deltaKey(target, shard));
+                } catch (Exception e) {
+                    log.warn("计数增量落库失败: target={}, shard={}, error={}", target, shard, e.getMessage());
+                }
+            }
+            if (target.isRanked()) {
+                try {
+                    maintainPopular(target);
+                } catch (Exception e) {
+                    log.warn("维护热度排行失败: target={}, error={}", target, e.getMessage());
+                }
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public void rebuildPopular() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (ContentCounterTarget target : ContentCounterTarget.values()) {
+            if (!target.isRanked()) {
+                continue;
+            }
+            try {
+                int size = loadPopular(target);
+                log.info("热度排行重建完成: target={}, size={}", target, size);
+            } catch (Exception e) {
+                log.warn("重建热度排行失败: target={}, error={}", target, e.getMessage());
+            }
+        }
+    }
+
+    private void apply(ContentCounterTarget target, Long id, ContentCounterMetric metric, int delta) {
+        if (properties.isEnabled()) {
+            try {
+                redisUtil.executeScript(INCREMENT_SCRIPT,
+                        Arrays.asList(deltaKey(target, shardOf(id)), popularKey(target)),
+                        id + FIELD_SEPARATOR + metric.name(), delta, id, weight(metric) * delta);
+                return;
+            } catch (Exception e) {
+                log.warn("Redis计数失败，直接更新数据库: target={}, id={}, metric={}, error={}",
+                        target, id, metric, e.getMessage());
+            }
+        }
+        try {
+            contentCounterMapper.addDeltas(target.getTable(), metric.getColumn(),
+                    Collections.singletonMap(id, (long) delta));
+        } catch (Exception e) {
+            log.warn("更新计数失败: target={}, id={}, metric={}, error={}", target, id, metric, e.getMessage());
+        }
+    }
+
+    /**
+     * 取出一个分片的增量，按指标合并为批量UPDATE
+     */
+    @SuppressWarnings("unchecked")
+    private int flushShard(ContentCounterTarget target, String key) {
+        List<String> entries = (List<String>) redisUtil.executeScript(DRAIN_SCRIPT, Collections.singletonList(key));
+        if (entries == null || entries.isEmpty()) {
+            return 0;
+        }
+        Map<ContentCounterMetric, Map<Long, Long>> deltas = new EnumMap<>(ContentCounterMetric.class);
+        for (int i = 0; i + 1 < entries.size(); i += 2) {
+            String field = entries.get(i);
+            int separator = field.indexOf(FIELD_SEPARATOR);
+            try {
+                long delta = Long.parseLong(entries.get(i + 1));
+                if (separator <= 0 || delta == 0) {
+                    continue;
+                }
+                ContentCounterMetric metric = ContentCounterMetric.valueOf(field.substring(separator + 1));
+                deltas.computeIfAbsent(metric, m -> new LinkedHashMap<>())
+                        .put(Long.valueOf(field.substring(0, separator)), delta);
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略无法解析的计数增量: key={}, field={}", key, field);
+            }
+        }
+
+        int updated = 0;
+        for (Map.Entry<ContentCounterMetric, Map<Long, Long>> entry : deltas.entrySet()) {
+            ContentCounterMetric metric = entry.getKey();
+            List<Map.Entry<Long, Long>> pending = new ArrayList<>(entry.getValue().entrySet());
+            for (int from = 0; from < pending.size(); from += properties.getFlushBatchSize()) {
+                Map<Long, Long> batch = new LinkedHashMap<>();
+                pending.subList(from, Math.min(from + properties.getFlushBatchSize(), pending.size()))
+                        .forEach(e -> batch.put(e.getKey(), e.getValue()));
+                try {
+                    updated += contentCounterMapper.addDeltas(target.getTable(), metric.getColumn(), batch);
+                } catch (Exception e) {
+                    log.warn("计数批量更新失败，增量放回Redis: target={}, metric={}, size={}, error={}",
+                            target, metric, batch.size(), e.getMessage());
+                    restore(target, key, metric, batch);
+                }
+            }
+        }
+        return updated;
+    }
+
+    private void restore(ContentCounterTarget target, String key, ContentCounterMetric metric, Map<Long, Long> batch) {
+        batch.forEach((id, delta) -> {
+            try {
+                redisUtil.executeScript(INCREMENT_SCRIPT, Arrays.asList(key, popularKey(target)),
+                        id + FIELD_SEPARATOR + metric.name(), delta, id, 0);
+            } catch (Exception e) {
+                log.error("计数增量放回Redis失败，增量丢失: target={}, id={}, metric={}, delta={}",
+                        target, id, metric, delta);
+            }
+        });
+    }
+
+    /**
+     * 排行缺失时从数据库建立，否则淘汰超出候选数量的记录
+     */
+    private void maintainPopular(ContentCounterTarget target) {
+        String key = popularKey(target);
+        if (Boolean.TRUE.equals(redisUtil.hasKey(key))) {
+            redisUtil.executeScript(TRIM_POPULAR_SCRIPT, Collections.singletonList(key), candidateSize());
+        } else {
+            loadPopular(target);
+        }
+    }
+
+    /**
+     * 按数据库中的计数计算热度并替换排行（尚未落库的增量不计入，偏差在后续计数中补齐）
+     */
+    private int loadPopular(ContentCounterTarget target) {
+        List<Map<String, Object>> rows = contentCounterMapper.selectTopScores(target.getTable(),
+                scoreExpression(target), target.getPopularCondition(), candidateSize());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(rows.size() * 2);
+        for (Map<String, Object> row : rows) {
+            Object score = row.get("score");
+            args.add(score != null ? score : 0);
+            args.add(row.get("id"));
+        }
+        redisUtil.executeScript(REPLACE_POPULAR_SCRIPT, Collections.singletonList(popularKey(target)), args.toArray());
+        return rows.size();
+    }
+
+    private int candidateSize() {
+        return Math.max(properties.getPopularCandidateSize(), properties.getPopularSize());
+    }
+
+    private String scoreExpression(ContentCounterTarget target) {
+        return target.getMetrics().stream()
+                .map(metric -> "COALESCE(" + metric.getColumn() + ", 0) * " + weight(metric))
+                .collect(Collectors.joining(" + "));
+    }
+
+    private double weight(ContentCounterMetric metric) {
+        switch (metric) {
+            case VIEW:
+                return properties.getViewWeight();
+            case LIKE:
+                return properties.getLikeWeight();
+            case FAVORITE:
+                return properties.getFavoriteWeight();
+            default:
+                return 0;
+        }
+    }
+
+    private int shardOf(Long id) {
+        return Math.floorMod(Long.hashCode(id), shardCount());
+    }
+
+    private int shardCount() {
+        return Math.max(properties.getShards(), 1);
+    }
+
+    private String deltaKey(ContentCounterTarget target, int shard) {
+        return CacheConstants.COUNTER_DELTA_PREFIX + target.name() + FIELD_SEPARATOR + shard;
+    }
+
+    private String popularKey(ContentCounterTarget target) {
+        return CacheConstants.COUNTER_POPULAR_PREFIX + target.name();
+    }
+}
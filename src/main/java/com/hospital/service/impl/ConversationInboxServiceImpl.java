@@ -0,0 +1,301 @@
+package com.hospital.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.entity.Conversation;
+import com.hospital.mapper.ConversationMapper;
+import com.hospital.service.ConversationInboxService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 基于Redis有序集合的用户会话收件箱
+ *
+ * 只收录状态为 ACTIVE 的会话，与数据库分页查询的过滤条件一致；会话状态变更后同步时会从收件箱移除。
+ * 有序集合成员为会话ID，分值为会话更新时间（毫秒）；状态哈希字段：
+ * {conversationId} = 该用户在会话中的未读数，total = 未读总数，ready = 已从数据库加载，epoch = 变更计数。
+ * 同步时直接写入数据库中的最新值而不是累加，重复同步不会产生偏差；
+ * 每次同步都会递增 epoch，加载前后 epoch 不一致时放弃写入，避免覆盖加载期间发生的变更。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class ConversationInboxServiceImpl implements ConversationInboxService {
+
+    /**
+     * 读取收件箱：未加载时返回 ['0', epoch]，否则返回 ['1', 会话数, 未读总数, 会话ID...]
+     * KEYS[1]=有序集合 KEYS[2]=状态哈希 ARGV[1]=起始下标 ARGV[2]=结束下标 ARGV[3]=是否返回会话ID
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[2], 'ready') == 0 then\n" +
+            "  return {'0', redis.call('HGET', KEYS[2], 'epoch') or ''}\n" +
+            "end\n" +
+            "local result = {'1', tostring(redis.call('ZCARD', KEYS[1])), redis.call('HGET', KEYS[2], 'total') or '0'}\n" +
+            "if ARGV[3] == '1' then\n" +
+            "  local ids = redis.call('ZREVRANGE', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "  for i = 1, #ids do table.insert(result, ids[i]) end\n" +
+            "end\n" +
+            "return result", List.class);
+
+    /**
+     * 写入数据库快照：epoch 与加载前读取的值一致时才写入
+     * KEYS[1]=有序集合 KEYS[2]=状态哈希 ARGV[1]=加载前的epoch ARGV[2]=TTL秒数
+     * ARGV[3..]=每个会话依次为 id, 分值, 未读数
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = redis.call('HGET', KEYS[2], 'epoch')\n" +
+            "if (epoch or '') ~= ARGV[1] then return 0 end\n" +
+            "redis.call('DEL', KEYS[1], KEYS[2])\n" +
+            "local total = 0\n" +
+            "for i = 3, #ARGV, 3 do\n" +
+            "  redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i])\n" +
+            "  redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 2])\n" +
+            "  total = total + tonumber(ARGV[i + 2])\n" +
+            "end\n" +
+            "redis.call('HSET', KEYS[2], 'ready', '1', 'total', total)\n" +
+            "if epoch then redis.call('HSET', KEYS[2], 'epoch', epoch) end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[2])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 同步单个会话：递增 epoch；收件箱已加载时按可见性写入或移除会话，并修正未读总数
+     * KEYS[1]=有序集合 KEYS[2]=状态哈希 ARGV[1]=会话ID ARGV[2]=是否可见 ARGV[3]=分值 ARGV[4]=未读数 ARGV[5]=TTL秒数
+     */
+    private static final RedisScript<Long> SYNC_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HINCRBY', KEYS[2], 'epoch', 1)\n" +
+            "if redis.call('HEXISTS', KEYS[2], 'ready') == 0 then\n" +
+            "  redis.call('EXPIRE', KEYS[2], ARGV[5])\n" +
+            "  return 0\n" +
+            "end\n" +
+            "local old = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')\n" +
+            "if ARGV[2] == '1' then\n" +
+            "  redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1])\n" +
+            "  redis.call('HSET', KEYS[2], ARGV[1], ARGV[4])\n" +
+            "  redis.call('HINCRBY', KEYS[2], 'total', tonumber(ARGV[4]) - old)\n" +
+            "else\n" +
+            "  redis.call('ZREM', KEYS[1], ARGV[1])\n" +
+            "  redis.call('HDEL', KEYS[2], ARGV[1])\n" +
+            "  redis.call('HINCRBY', KEYS[2], 'total', -old)\n" +
+            "end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[5])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[5])\n" +
+            "return 1", Long.class);
+
+    /** 收件箱收录的会话状态 */
+    private static final String ACTIVE = "ACTIVE";
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private ConversationMapper conversationMapper;
+
+    @Override
+    public Page<Long> page(Long userId, long current, long size) {
+        Page<Long> page = new Page<>(current, size);
+        long start = (current - 1) * size;
+        String epoch;
+        try {
+            List<String> cached = read(userId, start, start + size - 1, true);
+            if (isReady(cached)) {
+                page.setTotal(Long.parseLong(cached.get(1)));
+                page.setRecords(cached.subList(3, cached.size()).stream()
+                        .map(Long::valueOf)
+                        .collect(Collectors.toList()));
+                return page;
+            }
+            epoch = cached.size() > 1 ? cached.get(1) : "";
+        } catch (Exception e) {
+            log.warn("读取会话收件箱失败，回源数据库: userId={}, error={}", userId, e.getMessage());
+            epoch = null;
+        }
+        List<InboxEntry> entries = load(userId, epoch);
+        page.setTotal(entries.size());
+        page.setRecords(entries.stream()
+                .skip(start)
+                .limit(size)
+                .map(InboxEntry::getConversationId)
+                .collect(Collectors.toList()));
+        return page;
+    }
+
+    @Override
+    public long countUnread(Long userId) {
+        String epoch;
+        try {
+            List<String> cached = read(userId, 0, 0, false);
+            if (isReady(cached)) {
+                return Math.max(0L, Long.parseLong(cached.get(2)));
+            }
+            epoch = cached.size() > 1 ? cached.get(1) : "";
+        } catch (Exception e) {
+            log.warn("读取会话未读总数失败，回源数据库: userId={}, error={}", userId, e.getMessage());
+            epoch = null;
+        }
+        return load(userId, epoch).stream().mapToLong(InboxEntry::getUnread).sum();
+    }
+
+    @Override
+    public void sync(Long conversationId) {
+        if (conversationId == null) {
+            return;
+        }
+        Conversation conversation = conversationMapper.selectById(conversationId);
+        if (conversation == null) {
+            return;
+        }
+        long score = toScore(conversation.getUpdatedAt());
+        boolean active = ACTIVE.equals(conversation.getStatus());
+        Long participant1 = conversation.getParticipant1UserId();
+        Long participant2 = conversation.getParticipant2UserId();
+        if (participant1 != null) {
+            syncParticipant(participant1, conversationId, active && !isDeleted(conversation.getDeletedByParticipant1()),
+                    score, conversation.getUnreadForParticipant1());
+        }
+        if (participant2 != null && !participant2.equals(participant1)) {
+            syncParticipant(participant2, conversationId, active && !isDeleted(conversation.getDeletedByParticipant2()),
+                    score, conversation.getUnreadForParticipant2());
+        }
+    }
+
+    private void syncParticipant(Long userId, Long conversationId, boolean visible, long score, Integer unread) {
+        try {
+            redisUtil.executeScript(SYNC_SCRIPT, keys(userId), conversationId, visible ? 1 : 0, score,
+                    Objects.requireNonNullElse(unread, 0), CacheConstants.CONVERSATION_INBOX_TTL_SECONDS);
+        } catch (Exception e) {
+            // 同步失败时删除收件箱，下次读取从数据库重建
+            log.warn("同步会话收件箱失败，删除收件箱: userId={}, conversationId={}, error={}",
+                    userId, conversationId, e.getMessage());
+            try {
+                redisUtil.delete(CacheConstants.CONVERSATION_INBOX_PREFIX + userId);
+                redisUtil.delete(CacheConstants.CONVERSATION_INBOX_STATE_PREFIX + userId);
+            } catch (Exception ex) {
+                log.warn("删除会话收件箱失败: userId={}, error={}", userId, ex.getMessage());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> read(Long userId, long start, long stop, boolean withIds) {
+        List<String> result = (List<String>) redisUtil.executeScript(READ_SCRIPT, keys(userId),
+                start, stop, withIds ? 1 : 0);
+        return result != null ? result : Collections.emptyList();
+    }
+
+    private boolean isReady(List<String> cached) {
+        return cached.size() >= 3 && "1".equals(cached.get(0));
+    }
+
+    /**
+     * 从数据库加载用户可见的全部会话并写入收件箱，epoch 为 null 时只返回结果不写入
+     */
+    private List<InboxEntry> load(Long userId, String epoch) {
+        Map<Long, InboxEntry> entries = new LinkedHashMap<>();
+        LambdaQueryWrapper<Conversation> asParticipant1 = new LambdaQueryWrapper<>();
+        asParticipant1.select(Conversation::getId, Conversation::getUpdatedAt, Conversation::getUnreadForParticipant1)
+                .eq(Conversation::getParticipant1UserId, userId)
+                .eq(Conversation::getStatus, ACTIVE)
+                .and(q -> q.isNull(Conversation::getDeletedByParticipant1)
+                        .or().eq(Conversation::getDeletedByParticipant1, 0));
+        for (Conversation conversation : conversationMapper.selectList(asParticipant1)) {
+            entries.putIfAbsent(conversation.getId(), new InboxEntry(conversation.getId(),
+                    toScore(conversation.getUpdatedAt()), conversation.getUnreadForParticipant1()));
+        }
+        LambdaQueryWrapper<Conversation> asParticipant2 = new LambdaQueryWrapper<>();
+        asParticipant2.select(Conversation::getId, Conversation::getUpdatedAt, Conversation::getUnreadForParticipant2)
+                .eq(Conversation::getParticipant2UserId, userId)
+                .eq(Conversation::getStatus, ACTIVE)
+                .and(q -> q.isNull(Conversation::getDeletedByParticipant2)
+                        .or().eq(Conversation::getDeletedByParticipant2, 0));
+        for (Conversation conversation : conversationMapper.selectList(asParticipant2)) {
+            entries.putIfAbsent(conversation.getId(), new InboxEntry(conversation.getId(),
+                    toScore(conversation.getUpdatedAt()), conversation.getUnreadForParticipant2()));
+        }
+
+        List<InboxEntry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong(InboxEntry::getScore)
+                .thenComparing(entry -> String.valueOf(entry.getConversationId()))
+                .reversed());
+        if (epoch == null) {
+            return sorted;
+        }
+        try {
+            List<Object> args = new ArrayList<>(2 + sorted.size() * 3);
+            args.add(epoch);
+            args.add(CacheConstants.CONVERSATION_INBOX_TTL_SECONDS);
+            for (InboxEntry entry : sorted) {
+                args.add(entry.getConversationId());
+                args.add(entry.getScore());
+                args.add(entry.getUnread());
+            }
+            redisUtil.executeScript(LOAD_SCRIPT, keys(userId), args.toArray());
+        } catch (Exception e) {
+            log.warn("写入会话收件箱失败: userId={}, error={}", userId, e.getMessage());
+        }
+        return sorted;
+    }
+
+    private boolean isDeleted(Integer flag) {
+        return flag != null && flag == 1;
+    }
+
+    private long toScore(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
+    private List<String> keys(Long userId) {
+        return Arrays.asList(CacheConstants.CONVERSATION_INBOX_PREFIX + userId,
+                CacheConstants.CONVERSATION_INBOX_STATE_PREFIX + userId);
+    }
+
+    /**
+     * 收件箱中的一个会话
+     */
+    private static class InboxEntry {
+
+        private final Long conversationId;
+
+        private final long score;
+
+        private final long unread;
+
+        InboxEntry(Long conversationId, long score, Integer unread) {
+            this.conversationId = conversationId;
+            this.score = score;
+            this.unread = Objects.requireNonNullElse(unread, 0);
+        }
+
+        Long getConversationId() {
+            return conversationId;
+        }
+
+        long getScore() {
+            return score;
+        }
+
+        long getUnread() {
+            return unread;
+        }
+    }
+}
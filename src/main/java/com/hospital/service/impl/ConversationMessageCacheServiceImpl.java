@@ -0,0 +1,203 @@
+package com.hospital.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.entity.ConversationMessage;
+import com.hospital.mapper.ConversationMessageMapper;
+import com.hospital.service.ConversationMessageCacheService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于Redis列表的会话最新消息缓存
+ *
+ * 列表按发送顺序保存消息JSON，最多保留 {@link CacheConstants#CONVERSATION_MESSAGE_TAIL_SIZE} 条；
+ * 列表只由数据库快照创建，之后只追加并裁剪头部，因此长度不足上限时即为会话全部消息。
+ * 版本键在每次追加或失效时递增，加载前后版本不一致时放弃写入，
+ * 避免把加载期间已过时的数据库快照覆盖到缓存中。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class ConversationMessageCacheServiceImpl implements ConversationMessageCacheService {
+
+    /**
+     * 读取最新消息：返回 [版本, 列表长度, json...]
+     * KEYS[1]=消息列表 KEYS[2]=版本键 ARGV[1]=条数
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = new DefaultRedisScript<>(
+            "local n = redis.call('LLEN', KEYS[1])\n" +
+            "local result = {redis.call('GET', KEYS[2]) or '', tostring(n)}\n" +
+            "if n > 0 then\n" +
+            "  local items = redis.call('LRANGE', KEYS[1], -tonumber(ARGV[1]), -1)\n" +
+            "  for i = 1, #items do table.insert(result, items[i]) end\n" +
+            "end\n" +
+            "return result", List.class);
+
+    /**
+     * 写入数据库快照：版本与加载前读取的值一致时才写入
+     * KEYS[1]=消息列表 KEYS[2]=版本键 ARGV[1]=加载前的版本 ARGV[2]=TTL秒数 ARGV[3..]=按发送顺序的消息JSON
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "for i = 3, #ARGV do redis.call('RPUSH', KEYS[1], ARGV[i]) end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 追加消息：递增版本；列表已缓存时追加并裁剪到固定长度，返回是否追加
+     * KEYS[1]=消息列表 KEYS[2]=版本键 ARGV[1]=消息JSON ARGV[2]=最大条数 ARGV[3]=TTL秒数
+     */
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[3])\n" +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "redis.call('RPUSH', KEYS[1], ARGV[1])\n" +
+            "redis.call('LTRIM', KEYS[1], -tonumber(ARGV[2]), -1)\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 失效：删除列表并递增版本，使进行中的加载放弃写入
+     * KEYS[1]=消息列表 KEYS[2]=版本键 ARGV[1]=TTL秒数
+     */
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "local ver = redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[1])\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "return ver", Long.class);
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private ConversationMessageMapper conversationMessageMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public int capacity() {
+        return CacheConstants.CONVERSATION_MESSAGE_TAIL_SIZE;
+    }
+
+    @Override
+    public List<ConversationMessage> getLatest(Long conversationId, int count) {
+        int size = Math.max(1, Math.min(count, capacity()));
+        String version;
+        try {
+            List<String> cached = read(conversationId, size);
+            if (cached.size() > 2) {
+                return parse(cached.subList(2, cached.size()));
+            }
+            version = cached.isEmpty() ? "" : cached.get(0);
+        } catch (Exception e) {
+            log.warn("读取会话消息缓存失败，回源数据库: conversationId={}, error={}", conversationId, e.getMessage());
+            return selectLatest(conversationId, size);
+        }
+        return load(conversationId, version, size);
+    }
+
+    @Override
+    public void append(ConversationMessage message) {
+        if (message == null || message.getConversationId() == null) {
+            return;
+        }
+        Long conversationId = message.getConversationId();
+        try {
+            redisUtil.executeScript(APPEND_SCRIPT, keys(conversationId),
+                    objectMapper.writeValueAsString(message), capacity(),
+                    CacheConstants.CACHE_CONVERSATION_MESSAGE_TAIL_TTL_SECONDS);
+        } catch (Exception e) {
+            // 追加失败时退化为整体失效，保证不会缺少消息
+            log.warn("追加会话消息缓存失败，失效会话消息缓存: conversationId={}, error={}",
+                    conversationId, e.getMessage());
+            evict(conversationId);
+        }
+    }
+
+    @Override
+    public void evict(Long conversationId) {
+        if (conversationId == null) {
+            return;
+        }
+        try {
+            redisUtil.executeScript(EVICT_SCRIPT, keys(conversationId),
+                    CacheConstants.CACHE_CONVERSATION_MESSAGE_TAIL_TTL_SECONDS);
+        } catch (Exception e) {
+            log.warn("失效会话消息缓存失败: conversationId={}, error={}", conversationId, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> read(Long conversationId, int count) {
+        List<String> result = (List<String>) redisUtil.executeScript(READ_SCRIPT, keys(conversationId), count);
+        return result != null ? result : Collections.emptyList();
+    }
+
+    /**
+     * 从数据库加载最新一批消息并写入缓存，加载期间有新消息或失效时只返回结果不写入
+     */
+    private List<ConversationMessage> load(Long conversationId, String version, int count) {
+        List<ConversationMessage> messages = selectLatest(conversationId, capacity());
+        if (!messages.isEmpty()) {
+            try {
+                List<Object> args = new ArrayList<>(2 + messages.size());
+                args.add(version);
+                args.add(CacheConstants.CACHE_CONVERSATION_MESSAGE_TAIL_TTL_SECONDS);
+                for (ConversationMessage message : messages) {
+                    args.add(objectMapper.writeValueAsString(message));
+                }
+                redisUtil.executeScript(LOAD_SCRIPT, keys(conversationId), args.toArray());
+            } catch (Exception e) {
+                log.warn("写入会话消息缓存失败: conversationId={}, error={}", conversationId, e.getMessage());
+            }
+        }
+        return messages.size() > count ? new ArrayList<>(messages.subList(messages.size() - count, messages.size()))
+                : messages;
+    }
+
+    /**
+     * 查询会话最新的 limit 条消息，按发送时间升序返回
+     */
+    private List<ConversationMessage> selectLatest(Long conversationId, int limit) {
+        LambdaQueryWrapper<ConversationMessage> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ConversationMessage::getConversationId, conversationId)
+                .orderByDesc(ConversationMessage::getSentAt)
+                .orderByDesc(ConversationMessage::getId)
+                .last("LIMIT " + limit);
+        List<ConversationMessage> messages = conversationMessageMapper.selectList(wrapper);
+        if (messages == null) {
+            return new ArrayList<>();
+        }
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    private List<ConversationMessage> parse(List<String> cached) throws Exception {
+        List<ConversationMessage> messages = new ArrayList<>(cached.size());
+        for (String json : cached) {
+            messages.add(objectMapper.readValue(json, ConversationMessage.class));
+        }
+        return messages;
+    }
+
+    private List<String> keys(Long conversationId) {
+        return Arrays.asList(CacheConstants.CACHE_CONVERSATION_MESSAGE_TAIL_PREFIX + conversationId,
+                CacheConstants.CACHE_CONVERSATION_MESSAGE_TAIL_VERSION_PREFIX + conversationId);
+    }
+}
@@ -8,6 +8,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hospital.common.constant.SystemConstants;
 import com.hospital.dto.request.ConversationCreateRequest;
 import com.hospital.dto.request.SendMessageRequest;
+import com.hospital.dto.response.MessageCursorResponse;
 import com.hospital.entity.Conversation;
 import com.hospital.entity.ConversationMessage;
 import com.hospital.entity.Doctor;
@@ -19,20 +20,29 @@ import com.hospital.mapper.UserMapper;
 import com.hospital.messaging.ConversationMessagePublisher;
 import com.hospital.dto.ConversationMessageEventDTO;
 import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.config.AvatarConfig;
+import com.hospital.service.ConversationInboxService;
+import com.hospital.service.ConversationMessageCacheService;
 import com.hospital.service.ConversationService;
+import com.hospital.service.DoctorService;
 import com.hospital.service.NotificationService;
 import com.hospital.service.OssService;
+import com.hospital.util.ReadThroughCache;
 import com.hospital.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * 医患对话服务实现
@@ -41,6 +51,9 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Conversation> implements ConversationService {
 
+    /** 游标分页默认条数（小于最新消息缓存条数，打开会话时可直接命中缓存） */
+    private static final int DEFAULT_MESSAGE_CURSOR_LIMIT = 30;
+
     @Autowired
     private ConversationMessageMapper conversationMessageMapper;
 
@@ -59,12 +72,24 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private DoctorService doctorService;
+
     @Autowired
     private AvatarConfig avatarConfig;
 
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
+    @Autowired
+    private ConversationMessageCacheService conversationMessageCacheService;
+
+    @Autowired
+    private ConversationInboxService conversationInboxService;
+
     @Override
     public IPage<Conversation> listConversations(Map<String, Object> params) {
         Page<Conversation> page = buildPage(params);
@@ -76,6 +101,11 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         String status = params.get("status") != null ? params.get("status").toString() : null;
         String keyword = params.get("keyword") != null ? params.get("keyword").toString() : null;
 
+        // 按用户ID查询且无关键字过滤时直接读取收件箱（会话状态均为ACTIVE）
+        if (userId != null && !StringUtils.hasText(keyword) && (status == null || "ACTIVE".equals(status))) {
+            return listInboxConversations(userId, page);
+        }
+
         // 确定用于缓存的用户ID（优先使用userId）
         Long cacheUserId = userId != null ? userId : (patientId != null ? patientId : doctorId);
 
@@ -84,20 +114,6 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
                               (status == null || "ACTIVE".equals(status)) &&
                               page.getCurrent() == 1 && page.getSize() <= 20;
 
-        if (canUseCache) {
-            String listCacheKey = CacheConstants.CACHE_CONVERSATION_LIST_PREFIX + cacheUserId + ":page:1:size:" + page.getSize();
-            Object cachedList = redisUtil.get(listCacheKey);
-            if (cachedList != null && cachedList instanceof IPage) {
-                @SuppressWarnings("unchecked")
-                IPage<Conversation> cachedPage = (IPage<Conversation>) cachedList;
-                return cachedPage;
-            }
-
-            // 尝试从缓存获取总数
-            String countCacheKey = CacheConstants.CACHE_CONVERSATION_COUNT_PREFIX + cacheUserId;
-            Object cachedCount = redisUtil.get(countCacheKey);
-        }
-
         // 支持通过用户ID查询（新方式，支持三种身份）
         if (userId != null) {
             wrapper.and(q -> q.eq(Conversation::getParticipant1UserId, userId)
@@ -140,26 +156,39 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         }
 
         wrapper.orderByDesc(Conversation::getUpdatedAt);
-        IPage<Conversation> result = baseMapper.selectPage(page, wrapper);
+        Supplier<IPage<Conversation>> query = () -> {
+            IPage<Conversation> result = baseMapper.selectPage(new Page<>(page.getCurrent(), page.getSize()), wrapper);
+
+            // 为会话列表中的头像生成签名URL
+            List<Conversation> records = result.getRecords();
+            for (Conversation conversation : records) {
+                conversation.setPatientAvatar(resolveAvatarUrl(conversation.getPatientAvatar(), conversation.getPatientId(), "patient"));
+                conversation.setDoctorAvatar(resolveAvatarUrl(conversation.getDoctorAvatar(), conversation.getDoctorId(), "doctor"));
+                conversation.setLastSenderAvatar(resolveAvatarUrl(conversation.getLastSenderAvatar(), null, null));
+            }
 
-        // 为会话列表中的头像生成签名URL
-        List<Conversation> records = result.getRecords();
-        for (Conversation conversation : records) {
-            conversation.setPatientAvatar(resolveAvatarUrl(conversation.getPatientAvatar(), conversation.getPatientId(), "patient"));
-            conversation.setDoctorAvatar(resolveAvatarUrl(conversation.getDoctorAvatar(), conversation.getDoctorId(), "doctor"));
-            conversation.setLastSenderAvatar(resolveAvatarUrl(conversation.getLastSenderAvatar(), null, null));
-        }
+            if (canUseCache) {
+                String countCacheKey = CacheConstants.CACHE_CONVERSATION_COUNT_PREFIX + cacheUserId;
+                redisUtil.set(countCacheKey, result.getTotal(), CacheConstants.CACHE_CONVERSATION_COUNT_TTL_SECONDS, TimeUnit.SECONDS);
+            }
+            return result;
+        };
 
         // 缓存会话列表和总数（仅当查询条件简单时）
-        if (canUseCache && cacheUserId != null) {
-            String listCacheKey = CacheConstants.CACHE_CONVERSATION_LIST_PREFIX + cacheUserId + ":page:1:size:" + page.getSize();
-            redisUtil.set(listCacheKey, result, CacheConstants.CACHE_CONVERSATION_LIST_TTL_SECONDS, TimeUnit.SECONDS);
-
-            String countCacheKey = CacheConstants.CACHE_CONVERSATION_COUNT_PREFIX + cacheUserId;
-            redisUtil.set(countCacheKey, result.getTotal(), CacheConstants.CACHE_CONVERSATION_COUNT_TTL_SECONDS, TimeUnit.SECONDS);
+        if (!canUseCache) {
+            return query.get();
         }
+        String listCacheKey = CacheConstants.CACHE_CONVERSATION_LIST_PREFIX + cacheUserId + ":page:1:size:" + page.getSize();
+        return readThroughCache.get(listCacheKey, CacheConstants.CACHE_CONVERSATION_LIST_TTL_SECONDS, query,
+                CacheTags.conversationList(cacheUserId));
+    }
 
-        return result;
+    @Override
+    public long countUnread(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        return conversationInboxService.countUnread(userId);
     }
 
     @Override
@@ -357,48 +386,55 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         wrapper.eq(ConversationMessage::getConversationId, conversationId)
                 .orderByAsc(ConversationMessage::getSentAt);
 
-        boolean canUseCache = page.getCurrent() == 1;
-        String messageCacheKey = null;
-        if (canUseCache) {
-            messageCacheKey = redisUtil.buildCacheKey(
-                    CacheConstants.CACHE_CONVERSATION_MESSAGE_LIST_PREFIX + conversationId,
-                    (int) page.getCurrent(),
-                    (int) page.getSize(),
-                    params);
-            Object cached = redisUtil.get(messageCacheKey);
-            if (cached instanceof IPage) {
-                @SuppressWarnings("unchecked")
-                IPage<ConversationMessage> cachedPage = (IPage<ConversationMessage>) cached;
-                return cachedPage;
-            }
-        }
-
         IPage<ConversationMessage> result = conversationMessageMapper.selectPage(page, wrapper);
-
         // 为每条消息生成可访问的头像URL（避免历史数据中的过期签名导致头像失效）
-        if (result != null && result.getRecords() != null && !result.getRecords().isEmpty()) {
-            for (ConversationMessage message : result.getRecords()) {
-                if (message == null) {
-                    continue;
-                }
-                String entityType = null;
-                String senderRole = message.getSenderRole();
-                if ("PATIENT".equalsIgnoreCase(senderRole)) {
-                    entityType = "patient";
-                } else if ("DOCTOR".equalsIgnoreCase(senderRole)) {
-                    entityType = "doctor";
-                } else if ("ADMIN".equalsIgnoreCase(senderRole)) {
-                    entityType = "admin";
-                }
-                message.setSenderAvatar(resolveAvatarUrl(message.getSenderAvatar(), message.getSenderId(), entityType));
+        if (result != null) {
+            resolveMessageAvatars(result.getRecords());
+        }
+        return result;
+    }
+
+    @Override
+    public MessageCursorResponse listMessagesByCursor(Long conversationId, Long beforeId, Long afterId, Integer limit) {
+        ensureConversationExists(conversationId);
+        int size = limit == null || limit <= 0 ? DEFAULT_MESSAGE_CURSOR_LIMIT
+                : Math.min(limit, SystemConstants.MAX_PAGE_SIZE);
+
+        List<ConversationMessage> records;
+        boolean hasMore;
+        if (afterId != null) {
+            // 向后翻页：多取一条判断是否还有更新的消息
+            records = selectMessagesAfter(conversationId, findMessageCursor(conversationId, afterId), size + 1);
+            hasMore = records.size() > size;
+            if (hasMore) {
+                records = new ArrayList<>(records.subList(0, size));
+            }
+        } else {
+            if (beforeId == null && size < conversationMessageCacheService.capacity()) {
+                // 打开会话：直接取最新消息缓存
+                records = conversationMessageCacheService.getLatest(conversationId, size + 1);
+            } else {
+                ConversationMessage cursor = beforeId != null ? findMessageCursor(conversationId, beforeId) : null;
+                records = selectMessagesBefore(conversationId, cursor, size + 1);
+            }
+            hasMore = records.size() > size;
+            if (hasMore) {
+                records = new ArrayList<>(records.subList(records.size() - size, records.size()));
             }
         }
+        resolveMessageAvatars(records);
 
-        if (canUseCache && messageCacheKey != null) {
-            redisUtil.set(messageCacheKey, result,
-                    CacheConstants.CACHE_CONVERSATION_MESSAGE_LIST_TTL_SECONDS, TimeUnit.SECONDS);
+        MessageCursorResponse response = new MessageCursorResponse();
+        response.setRecords(records);
+        response.setHasMore(hasMore);
+        if (!records.isEmpty()) {
+            response.setPrevCursor(records.get(0).getId());
+            response.setNextCursor(records.get(records.size() - 1).getId());
+        } else {
+            response.setPrevCursor(beforeId);
+            response.setNextCursor(afterId);
         }
-        return result;
+        return response;
     }
 
     @Override
@@ -425,10 +461,14 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         message.setSentAt(LocalDateTime.now());
 
         conversationMessageMapper.insert(message);
-        refreshConversationSnapshot(conversation, message);
+        boolean historyCleared = refreshConversationSnapshot(conversation, message);
         publishConversationEvent(conversation, message);
         sendMessageNotification(conversation, message);
-        evictConversationMessageCache(conversationId);
+        if (historyCleared) {
+            evictMessageCacheAfterCommit(conversationId);
+        } else {
+            appendMessageCacheAfterCommit(message);
+        }
         return message;
     }
 
@@ -458,7 +498,7 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
             if (conversation != null) {
                 evictConversationListCache(conversation);
             }
-            evictConversationMessageCache(conversationId);
+            evictMessageCacheAfterCommit(conversationId);
         }
         return updated;
     }
@@ -709,6 +749,37 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         return new Page<>(page, pageSize);
     }
 
+    /**
+     * 从收件箱取会话ID分页，再逐个读取会话缓存
+     */
+    private IPage<Conversation> listInboxConversations(Long userId, Page<Conversation> page) {
+        Page<Long> ids = conversationInboxService.page(userId, page.getCurrent(), page.getSize());
+        List<String> keys = ids.getRecords().stream()
+                .map(id -> CacheConstants.CACHE_CONVERSATION_PREFIX + id)
+                .collect(Collectors.toList());
+        // 一次 MGET 读取整页会话，未命中的会话合并为一次 selectBatchIds
+        Map<String, Conversation> cached = readThroughCache.getAll(keys, CacheConstants.CACHE_CONVERSATION_TTL_SECONDS,
+                missing -> listByIds(missing.stream()
+                        .map(key -> Long.valueOf(key.substring(CacheConstants.CACHE_CONVERSATION_PREFIX.length())))
+                        .collect(Collectors.toList()))
+                        .stream()
+                        .collect(Collectors.toMap(c -> CacheConstants.CACHE_CONVERSATION_PREFIX + c.getId(), c -> c)));
+        List<Conversation> records = new ArrayList<>(cached.size());
+        for (Conversation conversation : cached.values()) {
+            // 收件箱只收录 ACTIVE 会话，这里再过滤一次，避免状态变更与收件箱同步之间的窗口期返回已关闭会话
+            if (!"ACTIVE".equals(conversation.getStatus())) {
+                continue;
+            }
+            conversation.setPatientAvatar(resolveAvatarUrl(conversation.getPatientAvatar(), conversation.getPatientId(), "patient"));
+            conversation.setDoctorAvatar(resolveAvatarUrl(conversation.getDoctorAvatar(), conversation.getDoctorId(), "doctor"));
+            conversation.setLastSenderAvatar(resolveAvatarUrl(conversation.getLastSenderAvatar(), null, null));
+            records.add(conversation);
+        }
+        page.setRecords(records);
+        page.setTotal(ids.getTotal());
+        return page;
+    }
+
     private Page<ConversationMessage> buildMessagePage(Map<String, Object> params) {
         int page = parseInt(params.get("page"), 1);
         int pageSize = parseInt(params.get("pageSize"), 50);
@@ -717,22 +788,12 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
     }
 
     private Conversation ensureConversationExists(Long conversationId) {
-        // 先尝试从缓存获取
         String cacheKey = CacheConstants.CACHE_CONVERSATION_PREFIX + conversationId;
-        Object cached = redisUtil.get(cacheKey);
-        if (cached != null && cached instanceof Conversation) {
-            return (Conversation) cached;
-        }
-
-        // 缓存未命中，从数据库查询
-        Conversation conversation = getById(conversationId);
+        Conversation conversation = readThroughCache.get(cacheKey, CacheConstants.CACHE_CONVERSATION_TTL_SECONDS,
+                () -> getById(conversationId));
         if (conversation == null) {
             throw new IllegalArgumentException("会话不存在");
         }
-
-        // 存入缓存
-        redisUtil.set(cacheKey, conversation, CacheConstants.CACHE_CONVERSATION_TTL_SECONDS, TimeUnit.SECONDS);
-
         return conversation;
     }
 
@@ -754,7 +815,7 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
             Conversation latest = getById(conversationId);
             if (latest != null) {
                 String cacheKey = CacheConstants.CACHE_CONVERSATION_PREFIX + conversationId;
-                redisUtil.set(cacheKey, latest, CacheConstants.CACHE_CONVERSATION_TTL_SECONDS, TimeUnit.SECONDS);
+                readThroughCache.put(cacheKey, latest, CacheConstants.CACHE_CONVERSATION_TTL_SECONDS);
             }
         } catch (Exception e) {
             log.warn("更新会话缓存失败，降级为清除缓存: conversationId={}, error={}", conversationId, e.getMessage());
@@ -768,34 +829,31 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
      * 当会话信息更新时，清除所有相关用户的会话列表缓存
      */
     private void evictConversationListCache(Conversation conversation) {
+        syncInboxAfterCommit(conversation.getId());
         try {
             // 清除participant1的会话列表缓存
             if (conversation.getParticipant1UserId() != null) {
-                String pattern1 = CacheConstants.CACHE_CONVERSATION_LIST_PREFIX + conversation.getParticipant1UserId() + ":*";
-                redisUtil.deleteByPattern(pattern1);
+                redisUtil.invalidateTag(CacheTags.conversationList(conversation.getParticipant1UserId()));
                 String countKey1 = CacheConstants.CACHE_CONVERSATION_COUNT_PREFIX + conversation.getParticipant1UserId();
                 redisUtil.delete(countKey1);
             }
 
             // 清除participant2的会话列表缓存
             if (conversation.getParticipant2UserId() != null) {
-                String pattern2 = CacheConstants.CACHE_CONVERSATION_LIST_PREFIX + conversation.getParticipant2UserId() + ":*";
-                redisUtil.deleteByPattern(pattern2);
+                redisUtil.invalidateTag(CacheTags.conversationList(conversation.getParticipant2UserId()));
                 String countKey2 = CacheConstants.CACHE_CONVERSATION_COUNT_PREFIX + conversation.getParticipant2UserId();
                 redisUtil.delete(countKey2);
             }
 
             // 向后兼容：清除patientId和doctorId的缓存
             if (conversation.getPatientId() != null) {
-                String pattern3 = CacheConstants.CACHE_CONVERSATION_LIST_PREFIX + conversation.getPatientId() + ":*";
-                redisUtil.deleteByPattern(pattern3);
+                redisUtil.invalidateTag(CacheTags.conversationList(conversation.getPatientId()));
                 String countKey3 = CacheConstants.CACHE_CONVERSATION_COUNT_PREFIX + conversation.getPatientId();
                 redisUtil.delete(countKey3);
             }
 
             if (conversation.getDoctorId() != null) {
-                String pattern4 = CacheConstants.CACHE_CONVERSATION_LIST_PREFIX + conversation.getDoctorId() + ":*";
-                redisUtil.deleteByPattern(pattern4);
+                redisUtil.invalidateTag(CacheTags.conversationList(conversation.getDoctorId()));
                 String countKey4 = CacheConstants.CACHE_CONVERSATION_COUNT_PREFIX + conversation.getDoctorId();
                 redisUtil.delete(countKey4);
             }
@@ -804,16 +862,137 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         }
     }
 
-    private void evictConversationMessageCache(Long conversationId) {
-        try {
-            String pattern = CacheConstants.CACHE_CONVERSATION_MESSAGE_LIST_PREFIX + conversationId + ":*";
-            redisUtil.deleteByPattern(pattern);
-        } catch (Exception e) {
-            log.warn("清除会话消息缓存失败: conversationId={}, error={}", conversationId, e.getMessage());
+    /**
+     * 事务提交后按数据库最新状态同步双方的会话收件箱
+     */
+    private void syncInboxAfterCommit(Long conversationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            conversationInboxService.sync(conversationId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                conversationInboxService.sync(conversationId);
+            }
+        });
+    }
+
+    /**
+     * 事务提交后把新消息追加到最新消息缓存，避免缓存中出现回滚的消息
+     */
+    private void appendMessageCacheAfterCommit(ConversationMessage message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            conversationMessageCacheService.append(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                conversationMessageCacheService.append(message);
+            }
+        });
+    }
+
+    /**
+     * 事务提交后失效最新消息缓存（清空或批量删除消息时调用）
+     */
+    private void evictMessageCacheAfterCommit(Long conversationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            conversationMessageCacheService.evict(conversationId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                conversationMessageCacheService.evict(conversationId);
+            }
+        });
+    }
+
+    /**
+     * 查询游标消息的发送时间，游标不属于该会话时视为无效
+     */
+    private ConversationMessage findMessageCursor(Long conversationId, Long messageId) {
+        LambdaQueryWrapper<ConversationMessage> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(ConversationMessage::getId, ConversationMessage::getSentAt)
+                .eq(ConversationMessage::getId, messageId)
+                .eq(ConversationMessage::getConversationId, conversationId);
+        ConversationMessage cursor = conversationMessageMapper.selectOne(wrapper);
+        if (cursor == null || cursor.getSentAt() == null) {
+            throw new IllegalArgumentException("消息游标无效");
+        }
+        return cursor;
+    }
+
+    /**
+     * 按 (sent_at, id) 查询游标之前的消息，cursor 为空时查询最新消息，按发送时间升序返回
+     */
+    private List<ConversationMessage> selectMessagesBefore(Long conversationId, ConversationMessage cursor, int limit) {
+        LambdaQueryWrapper<ConversationMessage> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ConversationMessage::getConversationId, conversationId);
+        if (cursor != null) {
+            wrapper.and(w -> w.lt(ConversationMessage::getSentAt, cursor.getSentAt())
+                    .or(o -> o.eq(ConversationMessage::getSentAt, cursor.getSentAt())
+                            .lt(ConversationMessage::getId, cursor.getId())));
+        }
+        wrapper.orderByDesc(ConversationMessage::getSentAt)
+                .orderByDesc(ConversationMessage::getId)
+                .last("LIMIT " + limit);
+        List<ConversationMessage> messages = conversationMessageMapper.selectList(wrapper);
+        if (messages == null) {
+            return new ArrayList<>();
+        }
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * 按 (sent_at, id) 查询游标之后的消息，按发送时间升序返回
+     */
+    private List<ConversationMessage> selectMessagesAfter(Long conversationId, ConversationMessage cursor, int limit) {
+        LambdaQueryWrapper<ConversationMessage> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(ConversationMessage::getConversationId, conversationId)
+                .and(w -> w.gt(ConversationMessage::getSentAt, cursor.getSentAt())
+                        .or(o -> o.eq(ConversationMessage::getSentAt, cursor.getSentAt())
+                                .gt(ConversationMessage::getId, cursor.getId())))
+                .orderByAsc(ConversationMessage::getSentAt)
+                .orderByAsc(ConversationMessage::getId)
+                .last("LIMIT " + limit);
+        List<ConversationMessage> messages = conversationMessageMapper.selectList(wrapper);
+        return messages != null ? messages : new ArrayList<>();
+    }
+
+    /**
+     * 为消息生成可访问的头像URL
+     */
+    private void resolveMessageAvatars(List<ConversationMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        for (ConversationMessage message : messages) {
+            if (message == null) {
+                continue;
+            }
+            String entityType = null;
+            String senderRole = message.getSenderRole();
+            if ("PATIENT".equalsIgnoreCase(senderRole)) {
+                entityType = "patient";
+            } else if ("DOCTOR".equalsIgnoreCase(senderRole)) {
+                entityType = "doctor";
+            } else if ("ADMIN".equalsIgnoreCase(senderRole)) {
+                entityType = "admin";
+            }
+            message.setSenderAvatar(resolveAvatarUrl(message.getSenderAvatar(), message.getSenderId(), entityType));
         }
     }
 
-    private void refreshConversationSnapshot(Conversation conversation, ConversationMessage message) {
+    /**
+     * 更新会话最新消息快照及未读数
+     *
+     * @return 是否因恢复被删除的会话而清空了历史消息
+     */
+    private boolean refreshConversationSnapshot(Conversation conversation, ConversationMessage message) {
         Conversation update = new Conversation();
         update.setId(conversation.getId());
         update.setLastMessagePreview(buildPreview(message.getContent()));
@@ -827,6 +1006,7 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         int unreadForPatient = Objects.requireNonNullElse(conversation.getUnreadForPatient(), 0);
         int unreadForParticipant1 = Objects.requireNonNullElse(conversation.getUnreadForParticipant1(), 0);
         int unreadForParticipant2 = Objects.requireNonNullElse(conversation.getUnreadForParticipant2(), 0);
+        boolean historyCleared = false;
 
         // 获取发送者的用户ID
         Long senderUserId = getSenderUserId(message, role);
@@ -862,6 +1042,7 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
                         .eq(ConversationMessage::getDeleted, 0) // 只标记未删除的消息
                         .set(ConversationMessage::getDeleted, 1);
                 conversationMessageMapper.update(null, messageWrapper);
+                historyCleared = true;
                 log.info("患者发送新消息，自动恢复被医生删除的会话并清空历史消息: conversationId={}", conversation.getId());
             }
         } else if ("DOCTOR".equals(role)) {
@@ -877,6 +1058,7 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
                         .eq(ConversationMessage::getDeleted, 0) // 只标记未删除的消息
                         .set(ConversationMessage::getDeleted, 1);
                 conversationMessageMapper.update(null, messageWrapper);
+                historyCleared = true;
                 log.info("医生发送新消息，自动恢复被患者删除的会话并清空历史消息: conversationId={}", conversation.getId());
             }
         } else if ("ADMIN".equals(role)) {
@@ -897,6 +1079,7 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
 
         // 方案2：清除相关用户的会话列表缓存（因为会话列表已更新）
         evictConversationListCache(conversation);
+        return historyCleared;
     }
 
     private void publishConversationEvent(Conversation conversation, ConversationMessage message) {
@@ -1212,21 +1395,8 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         } else if ("DOCTOR".equals(senderRole)) {
             // 医生发送：需要判断senderId是实体ID还是用户ID
             if (message.getSenderId() != null) {
-                // 先尝试从缓存获取医生信息
-                String cacheKey = CacheConstants.CACHE_DOCTOR_PREFIX + message.getSenderId();
-                Object cached = redisUtil.get(cacheKey);
-                Doctor senderDoctor = null;
-
-                if (cached != null && cached instanceof Doctor) {
-                    senderDoctor = (Doctor) cached;
-                } else {
-                    // 缓存未命中，从数据库查询
-                    senderDoctor = doctorMapper.selectById(message.getSenderId());
-                    if (senderDoctor != null) {
-                        // 存入缓存
-                        redisUtil.set(cacheKey, senderDoctor, CacheConstants.CACHE_DOCTOR_TTL_SECONDS, TimeUnit.SECONDS);
-                    }
-                }
+                // 医生详情走医生服务的缓存
+                Doctor senderDoctor = doctorService.getDoctorById(message.getSenderId()).getData();
 
                 if (senderDoctor != null && senderDoctor.getUserId() != null) {
                     // 找到了医生记录，说明senderId是实体ID，返回用户ID
@@ -4,13 +4,13 @@ import com.hospital.common.result.Result;
 import com.hospital.entity.DepartmentCategory;
 import com.hospital.mapper.DepartmentCategoryMapper;
 import com.hospital.service.DepartmentCategoryService;
-import com.hospital.util.RedisUtil;
+import com.hospital.util.CacheTtlPolicy;
+import com.hospital.util.ReadThroughCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -20,24 +20,18 @@ public class DepartmentCategoryServiceImpl implements DepartmentCategoryService
     private DepartmentCategoryMapper categoryMapper;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private ReadThroughCache readThroughCache;
 
     @Override
     public Result<List<DepartmentCategory>> getCategoryList() {
         try {
             String cacheKey = "hospital:common:dept:category:list";
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<DepartmentCategory> list = (List<DepartmentCategory>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-            List<DepartmentCategory> categories = categoryMapper.selectAll();
-            // 设置兼容字段
-            categories.forEach(this::setCompatibilityFields);
-            redisUtil.set(cacheKey, categories);
+            // 分类列表缓存（永久），回源时设置兼容字段
+            List<DepartmentCategory> categories = readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT, () -> {
+                List<DepartmentCategory> loaded = categoryMapper.selectAll();
+                loaded.forEach(this::setCompatibilityFields);
+                return loaded;
+            });
             return Result.success(categories);
         } catch (Exception e) {
             log.error("查询分类列表失败", e);
@@ -49,18 +43,12 @@ public class DepartmentCategoryServiceImpl implements DepartmentCategoryService
     public Result<List<DepartmentCategory>> getEnabledCategoryList() {
         try {
             String cacheKey = "hospital:common:dept:category:list:enabled";
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<DepartmentCategory> list = (List<DepartmentCategory>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-            List<DepartmentCategory> categories = categoryMapper.selectEnabled();
-            // 设置兼容字段
-            categories.forEach(this::setCompatibilityFields);
-            redisUtil.set(cacheKey, categories);
+            // 分类列表缓存（永久），回源时设置兼容字段
+            List<DepartmentCategory> categories = readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT, () -> {
+                List<DepartmentCategory> loaded = categoryMapper.selectEnabled();
+                loaded.forEach(this::setCompatibilityFields);
+                return loaded;
+            });
             return Result.success(categories);
         } catch (Exception e) {
             log.error("查询启用分类失败", e);
@@ -2,6 +2,7 @@ package com.hospital.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.common.exception.BusinessException;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
@@ -11,7 +12,10 @@ import com.hospital.mapper.DepartmentMapper;
 import com.hospital.mapper.DoctorMapper;
 import com.hospital.service.DepartmentService;
 import com.hospital.service.OssService;
+import com.hospital.util.CacheTtlPolicy;
+import com.hospital.util.ReadThroughCache;
 import com.hospital.util.RedisUtil;
+import com.hospital.util.TwoLevelCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -40,6 +44,12 @@ public class DepartmentServiceImpl implements DepartmentService {
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
     @Autowired
     private OssService ossService;
 
@@ -50,25 +60,9 @@ public class DepartmentServiceImpl implements DepartmentService {
     public Result<List<Department>> getDepartmentList() {
         try {
             String cacheKey = CacheConstants.DEPT_LIST_CACHE_KEY;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Department> list = (List<Department>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            // 查询中医分类列表
-            List<Department> departments = departmentMapper.selectAllWithCategory();
-
-            // 设置兼容字段并处理图标URL
-            departments.forEach(dept -> {
-                setCompatibilityFields(dept);
-                resolveIconUrl(dept);
-            });
             // 科室列表缓存（永久）
-            redisUtil.set(cacheKey, departments);
+            List<Department> departments = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> fillDisplayFields(departmentMapper.selectAllWithCategory()));
             return Result.success(departments);
         } catch (Exception e) {
             log.error("查询科室列表失败", e);
@@ -83,23 +77,9 @@ public class DepartmentServiceImpl implements DepartmentService {
     public Result<List<Department>> getEnabledDepartmentList() {
         try {
             String cacheKey = CacheConstants.DEPT_LIST_ENABLED_CACHE_KEY;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Department> list = (List<Department>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Department> departments = departmentMapper.selectEnabledList();
-            // 设置兼容字段并处理图标URL
-            departments.forEach(dept -> {
-                setCompatibilityFields(dept);
-                resolveIconUrl(dept);
-            });
             // 启用科室列表缓存（永久）
-            redisUtil.set(cacheKey, departments);
+            List<Department> departments = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> fillDisplayFields(departmentMapper.selectEnabledList()));
             return Result.success(departments);
         } catch (Exception e) {
             log.error("查询科室列表失败", e);
@@ -114,23 +94,9 @@ public class DepartmentServiceImpl implements DepartmentService {
     public Result<List<Department>> getRecommendedDepartmentList() {
         try {
             String cacheKey = CacheConstants.DEPT_LIST_RECOMMENDED_CACHE_KEY;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Department> list = (List<Department>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Department> departments = departmentMapper.selectRecommendedList();
-            // 设置兼容字段并处理图标URL
-            departments.forEach(dept -> {
-                setCompatibilityFields(dept);
-                resolveIconUrl(dept);
-            });
             // 推荐科室列表缓存（永久）
-            redisUtil.set(cacheKey, departments);
+            List<Department> departments = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> fillDisplayFields(departmentMapper.selectRecommendedList()));
             return Result.success(departments);
         } catch (Exception e) {
             log.error("查询推荐科室列表失败", e);
@@ -145,23 +111,9 @@ public class DepartmentServiceImpl implements DepartmentService {
     public Result<List<Department>> getEnabledDepartmentListByCategory(Integer categoryId) {
         try {
             String cacheKey = CacheConstants.DEPT_LIST_BY_CATEGORY_CACHE_PREFIX + categoryId;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Department> list = (List<Department>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Department> departments = departmentMapper.selectEnabledListByCategoryId(categoryId);
-            // 设置兼容字段并处理图标URL
-            departments.forEach(dept -> {
-                setCompatibilityFields(dept);
-                resolveIconUrl(dept);
-            });
             // 指定分类的启用科室列表缓存（永久）
-            redisUtil.set(cacheKey, departments);
+            List<Department> departments = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> fillDisplayFields(departmentMapper.selectEnabledListByCategoryId(categoryId)), CacheTags.DEPT_LIST_BY_CATEGORY);
             return Result.success(departments);
         } catch (Exception e) {
             log.error("查询分类下科室列表失败: categoryId={}", categoryId, e);
@@ -175,20 +127,19 @@ public class DepartmentServiceImpl implements DepartmentService {
     @Override
     public Result<Department> getDepartmentById(Long id) {
         String cacheKey = CacheConstants.DEPT_DETAIL_CACHE_PREFIX + id;
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof Department) {
-            return Result.success((Department) cached);
-        }
-
-        Department department = departmentMapper.selectById(id);
+        // 科室详情缓存（永久），科室不存在时不缓存
+        Department department = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT, () -> {
+            Department loaded = departmentMapper.selectById(id);
+            if (loaded != null) {
+                // 设置兼容字段并处理图标URL
+                setCompatibilityFields(loaded);
+                resolveIconUrl(loaded);
+            }
+            return loaded;
+        });
         if (department == null) {
             return Result.error(ResultCode.DEPARTMENT_NOT_FOUND);
         }
-        // 设置兼容字段并处理图标URL
-        setCompatibilityFields(department);
-        resolveIconUrl(department);
-        // 科室详情缓存（永久）
-        redisUtil.set(cacheKey, department);
         return Result.success(department);
     }
 
@@ -321,6 +272,17 @@ public class DepartmentServiceImpl implements DepartmentService {
         }
     }
 
+    /**
+     * 设置兼容字段并处理图标URL（列表缓存回源使用）
+     */
+    private List<Department> fillDisplayFields(List<Department> departments) {
+        departments.forEach(dept -> {
+            setCompatibilityFields(dept);
+            resolveIconUrl(dept);
+        });
+        return departments;
+    }
+
     /**
      * 设置兼容字段（从数据库字段到兼容字段）
      */
@@ -366,7 +328,7 @@ public class DepartmentServiceImpl implements DepartmentService {
                 setCompatibilityFields(dept);
                 resolveIconUrl(dept);
             });
-            redisUtil.set(CacheConstants.DEPT_LIST_CACHE_KEY, allDepartments);
+            readThroughCache.putWithLocal(CacheConstants.DEPT_LIST_CACHE_KEY, allDepartments, CacheTtlPolicy.PERMANENT);
             log.info("已刷新缓存: {}, 共{}条记录", CacheConstants.DEPT_LIST_CACHE_KEY, allDepartments.size());
 
             // 2. 刷新启用科室列表缓存
@@ -375,7 +337,7 @@ public class DepartmentServiceImpl implements DepartmentService {
                 setCompatibilityFields(dept);
                 resolveIconUrl(dept);
             });
-            redisUtil.set(CacheConstants.DEPT_LIST_ENABLED_CACHE_KEY, enabledDepartments);
+            readThroughCache.putWithLocal(CacheConstants.DEPT_LIST_ENABLED_CACHE_KEY, enabledDepartments, CacheTtlPolicy.PERMANENT);
             log.info("已刷新缓存: {}, 共{}条记录", CacheConstants.DEPT_LIST_ENABLED_CACHE_KEY, enabledDepartments.size());
 
             // 3. 刷新推荐科室列表缓存
@@ -384,17 +346,17 @@ public class DepartmentServiceImpl implements DepartmentService {
                 setCompatibilityFields(dept);
                 resolveIconUrl(dept);
             });
-            redisUtil.set(CacheConstants.DEPT_LIST_RECOMMENDED_CACHE_KEY, recommendedDepartments);
+            readThroughCache.putWithLocal(CacheConstants.DEPT_LIST_RECOMMENDED_CACHE_KEY, recommendedDepartments, CacheTtlPolicy.PERMANENT);
             log.info("已刷新缓存: {}, 共{}条记录", CacheConstants.DEPT_LIST_RECOMMENDED_CACHE_KEY, recommendedDepartments.size());
 
             // 4. 刷新按分类的启用科室列表缓存
-            redisUtil.deleteByPattern(CacheConstants.DEPT_LIST_BY_CATEGORY_CACHE_PREFIX + "*");
-            log.info("已删除缓存: {}*", CacheConstants.DEPT_LIST_BY_CATEGORY_CACHE_PREFIX);
+            twoLevelCache.evictTag(CacheTags.DEPT_LIST_BY_CATEGORY);
+            log.info("已删除缓存标签: {}", CacheTags.DEPT_LIST_BY_CATEGORY);
 
             // 5. 刷新所有科室详情缓存
             for (Department dept : allDepartments) {
                 resolveIconUrl(dept);
-                redisUtil.set(CacheConstants.DEPT_DETAIL_CACHE_PREFIX + dept.getId(), dept);
+                readThroughCache.putWithLocal(CacheConstants.DEPT_DETAIL_CACHE_PREFIX + dept.getId(), dept, CacheTtlPolicy.PERMANENT);
             }
             log.info("已刷新{}个科室详情缓存", allDepartments.size());
 
@@ -3,6 +3,7 @@ package com.hospital.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.hospital.common.constant.AppointmentStatus;
 import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.common.exception.BusinessException;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
@@ -18,7 +19,9 @@ import com.hospital.mapper.DoctorMapper;
 import com.hospital.mapper.UserMapper;
 import com.hospital.service.DoctorService;
 import com.hospital.service.OssService;
-import com.hospital.util.RedisUtil;
+import com.hospital.util.CacheTtlPolicy;
+import com.hospital.util.ReadThroughCache;
+import com.hospital.util.TwoLevelCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,7 +54,10 @@ public class DoctorServiceImpl implements DoctorService {
     private BCryptPasswordEncoder passwordEncoder;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private ReadThroughCache readThroughCache;
 
     @Autowired
     private OssService ossService;
@@ -69,61 +75,9 @@ public class DoctorServiceImpl implements DoctorService {
     public Result<List<Doctor>> getDoctorList() {
         try {
             String cacheKey = CacheConstants.DOCTOR_LIST_CACHE_KEY;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Doctor> list = (List<Doctor>) cached;
-                    return Result.success(buildDoctorResponseList(list));
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Doctor> doctors = doctorMapper.selectList(null);
-
-            // 手动关联分类名称和用户信息
-            for (Doctor doctor : doctors) {
-                // 关联分类名称
-                if (doctor.getCategoryId() != null) {
-                    try {
-                        com.hospital.entity.Department department = departmentMapper.selectById(doctor.getCategoryId());
-                        if (department != null) {
-                            doctor.setCategoryName(department.getCategoryName());
-                            doctor.setDeptName(department.getCategoryName()); // 兼容旧字段
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取分类名称失败: categoryId={}", doctor.getCategoryId(), e);
-                    }
-                }
-                // 设置兼容字段
-                if (doctor.getCategoryId() != null && doctor.getDeptId() == null) {
-                    doctor.setDeptId(doctor.getCategoryId());
-                }
-
-                // 关联用户信息
-                if (doctor.getUserId() != null) {
-                    try {
-                        User user = userMapper.selectById(doctor.getUserId());
-                        if (user != null) {
-                            doctor.setGender(user.getGender());
-                            doctor.setBirthday(user.getBirthDate());
-                            // 确保头像字段被设置（即使为空也要设置，后续会处理默认头像）
-                            doctor.setAvatar(user.getAvatar());
-                            // 补充缺失的基本信息
-                            if (doctor.getDoctorName() == null || doctor.getDoctorName().isEmpty()) {
-                                doctor.setDoctorName(user.getRealName());
-                            }
-                            if (doctor.getPhone() == null || doctor.getPhone().isEmpty()) {
-                                doctor.setPhone(user.getPhone());
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取用户信息失败: userId={}", doctor.getUserId(), e);
-                    }
-                }
-            }
-
             // 医生列表缓存（永久）
-            redisUtil.set(cacheKey, doctors);
+            List<Doctor> doctors = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> fillCategoryAndUser(doctorMapper.selectList(null)));
             return Result.success(buildDoctorResponseList(doctors));
         } catch (Exception e) {
             log.error("查询医生列表失败", e);
@@ -138,61 +92,9 @@ public class DoctorServiceImpl implements DoctorService {
     public Result<List<Doctor>> getEnabledDoctorList() {
         try {
             String cacheKey = CacheConstants.DOCTOR_LIST_ENABLED_CACHE_KEY;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Doctor> list = (List<Doctor>) cached;
-                    return Result.success(buildDoctorResponseList(list));
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Doctor> doctors = doctorMapper.selectEnabledList();
-
-            // 手动关联分类名称和用户信息
-            for (Doctor doctor : doctors) {
-                // 关联分类名称
-                if (doctor.getCategoryId() != null) {
-                    try {
-                        com.hospital.entity.Department department = departmentMapper.selectById(doctor.getCategoryId());
-                        if (department != null) {
-                            doctor.setCategoryName(department.getCategoryName());
-                            doctor.setDeptName(department.getCategoryName()); // 兼容旧字段
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取分类名称失败: categoryId={}", doctor.getCategoryId(), e);
-                    }
-                }
-                // 设置兼容字段
-                if (doctor.getCategoryId() != null && doctor.getDeptId() == null) {
-                    doctor.setDeptId(doctor.getCategoryId());
-                }
-
-                // 关联用户信息
-                if (doctor.getUserId() != null) {
-                    try {
-                        User user = userMapper.selectById(doctor.getUserId());
-                        if (user != null) {
-                            doctor.setGender(user.getGender());
-                            doctor.setBirthday(user.getBirthDate());
-                            // 确保头像字段被设置（即使为空也要设置，后续会处理默认头像）
-                            doctor.setAvatar(user.getAvatar());
-                            // 补充缺失的基本信息
-                            if (doctor.getDoctorName() == null || doctor.getDoctorName().isEmpty()) {
-                                doctor.setDoctorName(user.getRealName());
-                            }
-                            if (doctor.getPhone() == null || doctor.getPhone().isEmpty()) {
-                                doctor.setPhone(user.getPhone());
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取用户信息失败: userId={}", doctor.getUserId(), e);
-                    }
-                }
-            }
-
             // 在职医生列表缓存（永久）
-            redisUtil.set(cacheKey, doctors);
+            List<Doctor> doctors = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> fillCategoryAndUser(doctorMapper.selectEnabledList()));
             return Result.success(buildDoctorResponseList(doctors));
         } catch (Exception e) {
             log.error("查询医生列表失败", e);
@@ -207,59 +109,9 @@ public class DoctorServiceImpl implements DoctorService {
     public Result<List<Doctor>> getRecommendedDoctorList() {
         try {
             String cacheKey = CacheConstants.DOCTOR_LIST_RECOMMENDED_CACHE_KEY;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Doctor> list = (List<Doctor>) cached;
-                    return Result.success(buildDoctorResponseList(list));
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Doctor> doctors = doctorMapper.selectRecommendedList();
-
-            // 手动关联分类名称和用户信息
-            for (Doctor doctor : doctors) {
-                // 关联分类名称
-                if (doctor.getCategoryId() != null) {
-                    try {
-                        com.hospital.entity.Department department = departmentMapper.selectById(doctor.getCategoryId());
-                        if (department != null) {
-                            doctor.setCategoryName(department.getCategoryName());
-                            doctor.setDeptName(department.getCategoryName()); // 兼容旧字段
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取分类名称失败: categoryId={}", doctor.getCategoryId(), e);
-                    }
-                }
-                // 设置兼容字段
-                if (doctor.getCategoryId() != null && doctor.getDeptId() == null) {
-                    doctor.setDeptId(doctor.getCategoryId());
-                }
-
-                // 关联用户信息
-                if (doctor.getUserId() != null) {
-                    try {
-                        User user = userMapper.selectById(doctor.getUserId());
-                        if (user != null) {
-                            doctor.setGender(user.getGender());
-                            doctor.setBirthday(user.getBirthDate());
-                            doctor.setAvatar(user.getAvatar());
-                            if (doctor.getDoctorName() == null || doctor.getDoctorName().isEmpty()) {
-                                doctor.setDoctorName(user.getRealName());
-                            }
-                            if (doctor.getPhone() == null || doctor.getPhone().isEmpty()) {
-                                doctor.setPhone(user.getPhone());
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取用户信息失败: userId={}", doctor.getUserId(), e);
-                    }
-                }
-            }
-
             // 推荐医生列表缓存（永久）
-            redisUtil.set(cacheKey, doctors);
+            List<Doctor> doctors = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> fillCategoryAndUser(doctorMapper.selectRecommendedList()));
             return Result.success(buildDoctorResponseList(doctors));
         } catch (Exception e) {
             log.error("查询推荐医生列表失败", e);
@@ -274,61 +126,9 @@ public class DoctorServiceImpl implements DoctorService {
     public Result<List<Doctor>> getDoctorListByDeptId(Long deptId) {
         try {
             String cacheKey = CacheConstants.DOCTOR_LIST_BY_DEPT_CACHE_PREFIX + deptId;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Doctor> list = (List<Doctor>) cached;
-                    return Result.success(buildDoctorResponseList(list));
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Doctor> doctors = doctorMapper.selectByDeptId(deptId);
-
-            // 手动关联分类名称和用户信息
-            for (Doctor doctor : doctors) {
-                // 关联分类名称
-                if (doctor.getCategoryId() != null) {
-                    try {
-                        com.hospital.entity.Department department = departmentMapper.selectById(doctor.getCategoryId());
-                        if (department != null) {
-                            doctor.setCategoryName(department.getCategoryName());
-                            doctor.setDeptName(department.getCategoryName()); // 兼容旧字段
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取分类名称失败: categoryId={}", doctor.getCategoryId(), e);
-                    }
-                }
-                // 设置兼容字段
-                if (doctor.getCategoryId() != null && doctor.getDeptId() == null) {
-                    doctor.setDeptId(doctor.getCategoryId());
-                }
-
-                // 关联用户信息
-                if (doctor.getUserId() != null) {
-                    try {
-                        User user = userMapper.selectById(doctor.getUserId());
-                        if (user != null) {
-                            doctor.setGender(user.getGender());
-                            doctor.setBirthday(user.getBirthDate());
-                            // 确保头像字段被设置（即使为空也要设置，后续会处理默认头像）
-                            doctor.setAvatar(user.getAvatar());
-                            // 补充缺失的基本信息
-                            if (doctor.getDoctorName() == null || doctor.getDoctorName().isEmpty()) {
-                                doctor.setDoctorName(user.getRealName());
-                            }
-                            if (doctor.getPhone() == null || doctor.getPhone().isEmpty()) {
-                                doctor.setPhone(user.getPhone());
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取用户信息失败: userId={}", doctor.getUserId(), e);
-                    }
-                }
-            }
-
             // 科室医生列表缓存（永久）
-            redisUtil.set(cacheKey, doctors);
+            List<Doctor> doctors = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT,
+                    () -> fillCategoryAndUser(doctorMapper.selectByDeptId(deptId)), CacheTags.DOCTOR_LIST_BY_DEPT);
             return Result.success(buildDoctorResponseList(doctors));
         } catch (Exception e) {
             log.error("查询科室医生列表失败: deptId={}", deptId, e);
@@ -342,57 +142,17 @@ public class DoctorServiceImpl implements DoctorService {
     @Override
     public Result<Doctor> getDoctorById(Long id) {
         String cacheKey = CacheConstants.CACHE_DOCTOR_PREFIX + id;
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof Doctor) {
-            return Result.success(cloneDoctorWithSignedAvatar((Doctor) cached));
-        }
-
-        Doctor doctor = doctorMapper.selectById(id);
+        // 医生详情缓存（永久），医生不存在时不缓存
+        Doctor doctor = readThroughCache.getWithLocal(cacheKey, CacheTtlPolicy.PERMANENT, () -> {
+            Doctor loaded = doctorMapper.selectById(id);
+            if (loaded != null) {
+                fillCategoryAndUser(loaded);
+            }
+            return loaded;
+        });
         if (doctor == null) {
             return Result.error(ResultCode.DOCTOR_NOT_FOUND);
         }
-
-        // 关联查询分类名称
-        if (doctor.getCategoryId() != null) {
-            try {
-                com.hospital.entity.Department department = departmentMapper.selectById(doctor.getCategoryId());
-                if (department != null) {
-                    doctor.setCategoryName(department.getCategoryName());
-                    doctor.setDeptName(department.getCategoryName()); // 兼容旧字段
-                }
-            } catch (Exception e) {
-                log.warn("获取分类名称失败: categoryId={}", doctor.getCategoryId(), e);
-            }
-        }
-        // 设置兼容字段
-        if (doctor.getCategoryId() != null && doctor.getDeptId() == null) {
-            doctor.setDeptId(doctor.getCategoryId());
-        }
-
-        // 关联查询用户信息（性别、出生日期等）
-        if (doctor.getUserId() != null) {
-            try {
-                User user = userMapper.selectById(doctor.getUserId());
-                if (user != null) {
-                    doctor.setGender(user.getGender());
-                    doctor.setBirthday(user.getBirthDate());
-                    doctor.setAvatar(user.getAvatar());
-                    // 如果医生姓名为空，使用用户的真实姓名
-                    if (doctor.getDoctorName() == null || doctor.getDoctorName().isEmpty()) {
-                        doctor.setDoctorName(user.getRealName());
-                    }
-                    // 如果手机号为空，使用用户的手机号
-                    if (doctor.getPhone() == null || doctor.getPhone().isEmpty()) {
-                        doctor.setPhone(user.getPhone());
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("获取用户信息失败: userId={}", doctor.getUserId(), e);
-            }
-        }
-
-        // 医生详情缓存（永久）
-        redisUtil.set(cacheKey, doctor);
         return Result.success(cloneDoctorWithSignedAvatar(doctor));
     }
 
@@ -607,37 +367,14 @@ public class DoctorServiceImpl implements DoctorService {
         try {
             log.info("根据用户ID获取医生信息: userId={}", userId);
 
-            // 先从缓存获取
+            // 缓存医生信息（永久），医生不存在时不缓存
             String cacheKey = "hospital:doctor:profile:userId:" + userId;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof Doctor) {
-                return Result.success((Doctor) cached);
-            }
-
-            // 从数据库查询
-            QueryWrapper<Doctor> wrapper = new QueryWrapper<>();
-            wrapper.eq("user_id", userId);
-            Doctor doctor = doctorMapper.selectOne(wrapper);
-
+            Doctor doctor = readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT, () -> loadDoctorProfile(userId));
             if (doctor == null) {
                 log.warn("医生信息不存在: userId={}", userId);
                 return Result.error("医生信息不存在");
             }
 
-            // 补充用户与科室信息
-            enrichDoctorInfo(doctor);
-
-            // 查询科室名称
-            if (doctor.getDeptId() != null) {
-                Department dept = departmentMapper.selectById(doctor.getDeptId());
-                if (dept != null) {
-                    doctor.setDeptName(dept.getDeptName());
-                }
-            }
-
-            // 缓存医生信息（永久）
-            redisUtil.set(cacheKey, doctor);
-
             log.info("获取医生信息成功: doctorId={}", doctor.getId());
             return Result.success(doctor);
 
@@ -647,6 +384,30 @@ public class DoctorServiceImpl implements DoctorService {
         }
     }
 
+    /**
+     * 查询医生个人信息并补充用户与科室信息
+     */
+    private Doctor loadDoctorProfile(Long userId) {
+        QueryWrapper<Doctor> wrapper = new QueryWrapper<>();
+        wrapper.eq("user_id", userId);
+        Doctor doctor = doctorMapper.selectOne(wrapper);
+        if (doctor == null) {
+            return null;
+        }
+
+        // 补充用户与科室信息
+        enrichDoctorInfo(doctor);
+
+        // 查询科室名称
+        if (doctor.getDeptId() != null) {
+            Department dept = departmentMapper.selectById(doctor.getDeptId());
+            if (dept != null) {
+                doctor.setDeptName(dept.getDeptName());
+            }
+        }
+        return doctor;
+    }
+
     /**
      * 更新医生个人信息
      */
@@ -760,7 +521,7 @@ public class DoctorServiceImpl implements DoctorService {
             for (Doctor doctor : allDoctors) {
                 enrichDoctorInfo(doctor);
             }
-            redisUtil.set(CacheConstants.DOCTOR_LIST_CACHE_KEY, allDoctors);
+            readThroughCache.putWithLocal(CacheConstants.DOCTOR_LIST_CACHE_KEY, allDoctors, CacheTtlPolicy.PERMANENT);
             log.info("已刷新缓存: hospital:common:doctor:list, 共{}条记录", allDoctors.size());
 
             // 2. 刷新在职医生列表缓存
@@ -768,7 +529,7 @@ public class DoctorServiceImpl implements DoctorService {
             for (Doctor doctor : enabledDoctors) {
                 enrichDoctorInfo(doctor);
             }
-            redisUtil.set(CacheConstants.DOCTOR_LIST_ENABLED_CACHE_KEY, enabledDoctors);
+            readThroughCache.putWithLocal(CacheConstants.DOCTOR_LIST_ENABLED_CACHE_KEY, enabledDoctors, CacheTtlPolicy.PERMANENT);
             log.info("已刷新缓存: hospital:common:doctor:list:enabled, 共{}条记录", enabledDoctors.size());
 
             // 3. 刷新推荐医生列表缓存
@@ -776,18 +537,19 @@ public class DoctorServiceImpl implements DoctorService {
             for (Doctor doctor : recommendedDoctors) {
                 enrichDoctorInfo(doctor);
             }
-            redisUtil.set(CacheConstants.DOCTOR_LIST_RECOMMENDED_CACHE_KEY, recommendedDoctors);
+            readThroughCache.putWithLocal(CacheConstants.DOCTOR_LIST_RECOMMENDED_CACHE_KEY, recommendedDoctors, CacheTtlPolicy.PERMANENT);
             log.info("已刷新缓存: {}, 共{}条记录", CacheConstants.DOCTOR_LIST_RECOMMENDED_CACHE_KEY, recommendedDoctors.size());
 
             // 4. 刷新按科室的医生列表缓存
-            redisUtil.deleteByPattern(CacheConstants.DOCTOR_LIST_BY_DEPT_CACHE_PREFIX + "*");
-            log.info("已删除缓存: hospital:common:doctor:list:dept:*");
+            twoLevelCache.evictTag(CacheTags.DOCTOR_LIST_BY_DEPT);
+            log.info("已删除缓存标签: {}", CacheTags.DOCTOR_LIST_BY_DEPT);
 
             // 5. 刷新所有医生详情缓存
             for (Doctor doctor : allDoctors) {
-                redisUtil.set(CacheConstants.CACHE_DOCTOR_PREFIX + doctor.getId(), doctor);
+                readThroughCache.putWithLocal(CacheConstants.CACHE_DOCTOR_PREFIX + doctor.getId(), doctor, CacheTtlPolicy.PERMANENT);
                 if (doctor.getUserId() != null) {
-                    redisUtil.set("hospital:doctor:profile:userId:" + doctor.getUserId(), doctor);
+                    readThroughCache.put("hospital:doctor:profile:userId:" + doctor.getUserId(), doctor,
+                            CacheTtlPolicy.PERMANENT);
                 }
             }
             log.info("已刷新{}个医生详情缓存", allDoctors.size());
@@ -860,6 +622,60 @@ public class DoctorServiceImpl implements DoctorService {
         return avatarConfig.getDefaultDoctor();
     }
 
+    /**
+     * 批量关联分类名称和用户信息（列表缓存回源使用）
+     */
+    private List<Doctor> fillCategoryAndUser(List<Doctor> doctors) {
+        for (Doctor doctor : doctors) {
+            fillCategoryAndUser(doctor);
+        }
+        return doctors;
+    }
+
+    /**
+     * 关联分类名称和用户信息（性别、出生日期、头像，缺失时补充姓名和手机号）
+     */
+    private void fillCategoryAndUser(Doctor doctor) {
+        // 关联分类名称
+        if (doctor.getCategoryId() != null) {
+            try {
+                com.hospital.entity.Department department = departmentMapper.selectById(doctor.getCategoryId());
+                if (department != null) {
+                    doctor.setCategoryName(department.getCategoryName());
+                    doctor.setDeptName(department.getCategoryName()); // 兼容旧字段
+                }
+            } catch (Exception e) {
+                log.warn("获取分类名称失败: categoryId={}", doctor.getCategoryId(), e);
+            }
+        }
+        // 设置兼容字段
+        if (doctor.getCategoryId() != null && doctor.getDeptId() == null) {
+            doctor.setDeptId(doctor.getCategoryId());
+        }
+
+        // 关联用户信息
+        if (doctor.getUserId() != null) {
+            try {
+                User user = userMapper.selectById(doctor.getUserId());
+                if (user != null) {
+                    doctor.setGender(user.getGender());
+                    doctor.setBirthday(user.getBirthDate());
+                    doctor.setAvatar(user.getAvatar());
+                    // 如果医生姓名为空，使用用户的真实姓名
+                    if (doctor.getDoctorName() == null || doctor.getDoctorName().isEmpty()) {
+                        doctor.setDoctorName(user.getRealName());
+                    }
+                    // 如果手机号为空，使用用户的手机号
+                    if (doctor.getPhone() == null || doctor.getPhone().isEmpty()) {
+                        doctor.setPhone(user.getPhone());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("获取用户信息失败: userId={}", doctor.getUserId(), e);
+            }
+        }
+    }
+
     /**
      * 丰富医生信息（关联科室和用户信息）
      */
@@ -0,0 +1,181 @@
+package com.hospital.service.impl;
+
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.exception.BusinessException;
+import com.hospital.common.result.ResultCode;
+import com.hospital.config.ExportProperties;
+import com.hospital.dto.response.ExportTaskResponse;
+import com.hospital.service.ExportTaskService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 异步导出任务服务实现
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class ExportTaskServiceImpl implements ExportTaskService {
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private ExportProperties properties;
+
+    @Autowired
+    @Qualifier("exportExecutor")
+    private Executor exportExecutor;
+
+    @Override
+    public ExportTaskResponse submit(Long ownerId, String fileName, long total, ExportJob job) {
+        ExportTaskResponse task = new ExportTaskResponse();
+        task.setTaskId(UUID.randomUUID().toString().replace("-", ""));
+        task.setFileName(fileName);
+        task.setStatus(ExportTaskResponse.STATUS_PENDING);
+        task.setTotal(total);
+        task.setProcessed(0L);
+        task.setOwnerId(ownerId);
+        task.setCreatedAt(System.currentTimeMillis());
+        saveTask(task);
+
+        try {
+            exportExecutor.execute(() -> runTask(task, job));
+        } catch (TaskRejectedException e) {
+            redisUtil.delete(CacheConstants.EXPORT_TASK_PREFIX + task.getTaskId());
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE.getCode(), "导出任务过多，请稍后再试");
+        }
+        log.info("提交异步导出任务: taskId={}, fileName={}, total={}", task.getTaskId(), fileName, total);
+        return task;
+    }
+
+    @Override
+    public ExportTaskResponse getTask(String taskId) {
+        if (!StringUtils.hasText(taskId)) {
+            return null;
+        }
+        Object cached = redisUtil.get(CacheConstants.EXPORT_TASK_PREFIX + taskId);
+        return cached instanceof ExportTaskResponse ? (ExportTaskResponse) cached : null;
+    }
+
+    @Override
+    public ExportTaskResponse getOwnedTask(String taskId, Long ownerId) {
+        ExportTaskResponse task = getTask(taskId);
+        if (task == null) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND.getCode(), "导出任务不存在或已过期");
+        }
+        if (task.getOwnerId() != null && !task.getOwnerId().equals(ownerId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN);
+        }
+        return task;
+    }
+
+    @Override
+    public File getResultFile(String taskId, Long ownerId) {
+        ExportTaskResponse task = getOwnedTask(taskId, ownerId);
+        if (!ExportTaskResponse.STATUS_SUCCESS.equals(task.getStatus())) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "导出任务尚未完成");
+        }
+        File file = resolveFile(taskId).toFile();
+        if (!file.isFile()) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND.getCode(), "导出文件不存在或已过期");
+        }
+        return file;
+    }
+
+    @Override
+    public int cleanExpiredFiles() {
+        Path dir = resolveDir();
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        long expireBefore = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(properties.getRetainHours());
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < expireBefore && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("删除过期导出文件失败: {}, error={}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("扫描导出目录失败: {}, error={}", dir, e.getMessage());
+        }
+        return deleted;
+    }
+
+    /**
+     * 后台执行导出：先写临时文件，成功后再改名，避免下载到未写完的文件
+     */
+    private void runTask(ExportTaskResponse task, ExportJob job) {
+        Path target = resolveFile(task.getTaskId());
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        task.setStatus(ExportTaskResponse.STATUS_RUNNING);
+        saveTask(task);
+        try {
+            Files.createDirectories(target.getParent());
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                job.run(outputStream, processed -> {
+                    task.setProcessed(processed);
+                    saveTask(task);
+                });
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            task.setStatus(ExportTaskResponse.STATUS_SUCCESS);
+            log.info("异步导出任务完成: taskId={}, processed={}", task.getTaskId(), task.getProcessed());
+        } catch (Exception e) {
+            log.error("异步导出任务失败: taskId={}", task.getTaskId(), e);
+            task.setStatus(ExportTaskResponse.STATUS_FAILED);
+            task.setErrorMessage(e.getMessage());
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+            }
+        }
+        task.setFinishedAt(System.currentTimeMillis());
+        saveTask(task);
+    }
+
+    private void saveTask(ExportTaskResponse task) {
+        try {
+            redisUtil.set(CacheConstants.EXPORT_TASK_PREFIX + task.getTaskId(), task,
+                    properties.getRetainHours(), TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("保存导出任务状态失败: taskId={}, error={}", task.getTaskId(), e.getMessage());
+        }
+    }
+
+    private Path resolveFile(String taskId) {
+        return resolveDir().resolve(taskId + ".xlsx");
+    }
+
+    private Path resolveDir() {
+        if (StringUtils.hasText(properties.getTempDir())) {
+            return Paths.get(properties.getTempDir());
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "hospital-export");
+    }
+}
@@ -0,0 +1,238 @@
+package com.hospital.service.impl;
+
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.FavoriteTarget;
+import com.hospital.mapper.UserArticleFavoriteMapper;
+import com.hospital.mapper.UserRecipeFavoriteMapper;
+import com.hospital.service.FavoriteMembershipService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户收藏关系查询服务实现类
+ *
+ * 每个收藏集合配一个版本号键，收藏变更无论集合是否存在都会递增版本号。
+ * 懒加载在查询数据库前读取版本号，写入时版本号已变化说明读到的可能是变更提交前的数据，放弃写入，由下次查询重新加载。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class FavoriteMembershipServiceImpl implements FavoriteMembershipService {
+
+    /** 表示集合已加载的占位成员（内容ID均为正数，不会冲突） */
+    private static final String LOADED_MARKER = "0";
+
+    /** 版本号键后缀 */
+    private static final String VERSION_SUFFIX = ":version";
+
+    /**
+     * 批量判断：集合存在时续期并逐个返回 ARGV[2..] 是否为成员（1/0），集合不存在时返回空数组
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CONTAINS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {} end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1])\n" +
+            "local result = {}\n" +
+            "for i = 2, #ARGV do\n" +
+            "  result[i - 1] = redis.call('SISMEMBER', KEYS[1], ARGV[i])\n" +
+            "end\n" +
+            "return result", List.class);
+
+    /**
+     * 读取版本号 KEYS[1]，不存在时为 0
+     */
+    private static final RedisScript<Long> VERSION_SCRIPT = new DefaultRedisScript<>(
+            "return tonumber(redis.call('GET', KEYS[1]) or '0')", Long.class);
+
+    /**
+     * 加载：集合 KEYS[1] 不存在且版本号 KEYS[2] 仍为 ARGV[2] 时写入 ARGV[3..]（含占位成员）并设置过期时间 ARGV[1]；
+     * 已被其他请求加载或加载期间有收藏变更时不写入
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n" +
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[2] then return 0 end\n" +
+            "for i = 3, #ARGV, 1000 do\n" +
+            "  redis.call('SADD', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV)))\n" +
+            "end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 更新：递增版本号 KEYS[2] 并设置过期时间 ARGV[3]；集合 KEYS[1] 存在时按 ARGV[1]（1 收藏 / 0 取消）增删成员 ARGV[2]，
+     * 集合不存在时等下次查询从数据库加载
+     */
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[3])\n" +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "if ARGV[1] == '1' then\n" +
+            "  return redis.call('SADD', KEYS[1], ARGV[2])\n" +
+            "end\n" +
+            "return redis.call('SREM', KEYS[1], ARGV[2])", Long.class);
+
+    /**
+     * 失效：递增版本号 KEYS[2] 并设置过期时间 ARGV[1]，删除集合 KEYS[1]
+     */
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[1])\n" +
+            "return redis.call('DEL', KEYS[1])", Long.class);
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private UserRecipeFavoriteMapper userRecipeFavoriteMapper;
+
+    @Autowired
+    private UserArticleFavoriteMapper userArticleFavoriteMapper;
+
+    @Override
+    public Set<Long> findFavorited(FavoriteTarget target, Long userId, Collection<Long> ids) {
+        if (userId == null || ids == null || ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<Long> candidates = new ArrayList<>(new LinkedHashSet<>(ids));
+        candidates.removeIf(id -> id == null);
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String key = buildKey(target, userId);
+
+        try {
+            Object[] args = new Object[candidates.size() + 1];
+            args[0] = CacheConstants.FAVORITE_MEMBERSHIP_TTL_SECONDS;
+            for (int i = 0; i < candidates.size(); i++) {
+                args[i + 1] = candidates.get(i);
+            }
+            List<?> flags = redisUtil.executeScript(CONTAINS_SCRIPT, Collections.singletonList(key), args);
+            if (flags != null && flags.size() == candidates.size()) {
+                Set<Long> favorited = new HashSet<>();
+                for (int i = 0; i < candidates.size(); i++) {
+                    if (flags.get(i) instanceof Number && ((Number) flags.get(i)).longValue() == 1L) {
+                        favorited.add(candidates.get(i));
+                    }
+                }
+                return favorited;
+            }
+        } catch (Exception e) {
+            log.warn("读取用户收藏集合失败，改为查询数据库: key={}, error={}", key, e.getMessage());
+            return retain(loadFromDatabase(target, userId), candidates);
+        }
+
+        List<String> keys = Arrays.asList(key, key + VERSION_SUFFIX);
+        Long version;
+        try {
+            version = redisUtil.executeScript(VERSION_SCRIPT, Collections.singletonList(keys.get(1)));
+        } catch (Exception e) {
+            log.warn("读取用户收藏集合版本失败，本次不写入集合: key={}, error={}", key, e.getMessage());
+            version = null;
+        }
+        List<Long> favoriteIds = loadFromDatabase(target, userId);
+        if (version == null) {
+            return retain(favoriteIds, candidates);
+        }
+        try {
+            Object[] args = new Object[favoriteIds.size() + 3];
+            args[0] = CacheConstants.FAVORITE_MEMBERSHIP_TTL_SECONDS;
+            args[1] = version;
+            args[2] = LOADED_MARKER;
+            for (int i = 0; i < favoriteIds.size(); i++) {
+                args[i + 3] = favoriteIds.get(i);
+            }
+            redisUtil.executeScript(LOAD_SCRIPT, keys, args);
+        } catch (Exception e) {
+            log.warn("写入用户收藏集合失败: key={}, error={}", key, e.getMessage());
+        }
+        return retain(favoriteIds, candidates);
+    }
+
+    @Override
+    public boolean isFavorited(FavoriteTarget target, Long userId, Long id) {
+        return id != null && findFavorited(target, userId, Collections.singletonList(id)).contains(id);
+    }
+
+    @Override
+    public void onFavoriteChanged(FavoriteTarget target, Long userId, Long id, boolean favorited) {
+        if (userId == null || id == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(target, userId, id, favorited);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(target, userId, id, favorited);
+            }
+        });
+    }
+
+    private void apply(FavoriteTarget target, Long userId, Long id, boolean favorited) {
+        String key = buildKey(target, userId);
+        List<String> keys = Arrays.asList(key, key + VERSION_SUFFIX);
+        try {
+            redisUtil.executeScript(UPDATE_SCRIPT, keys, favorited ? 1 : 0, id,
+                    CacheConstants.FAVORITE_MEMBERSHIP_TTL_SECONDS);
+        } catch (Exception e) {
+            // 原地更新失败时递增版本号并删除集合，下次查询重新从数据库加载；
+            // 版本号变化后，变更提交前已开始的懒加载不会再写入旧数据
+            log.warn("更新用户收藏集合失败，删除集合: key={}, error={}", key, e.getMessage());
+            invalidate(keys);
+        }
+    }
+
+    private void invalidate(List<String> keys) {
+        try {
+            redisUtil.executeScript(INVALIDATE_SCRIPT, keys, CacheConstants.FAVORITE_MEMBERSHIP_TTL_SECONDS);
+            return;
+        } catch (Exception e) {
+            log.warn("失效用户收藏集合失败，逐个操作重试: key={}, error={}", keys.get(0), e.getMessage());
+        }
+        try {
+            redisUtil.increment(keys.get(1), 1);
+            redisUtil.expire(keys.get(1), CacheConstants.FAVORITE_MEMBERSHIP_TTL_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception ignored) {
+        }
+        try {
+            redisUtil.delete(keys.get(0));
+        } catch (Exception ignored) {
+        }
+    }
+
+    private List<Long> loadFromDatabase(FavoriteTarget target, Long userId) {
+        List<Long> ids = target == FavoriteTarget.RECIPE
+                ? userRecipeFavoriteMapper.selectRecipeIdsByUserId(userId)
+                : userArticleFavoriteMapper.selectArticleIdsByUserId(userId);
+        return ids != null ? ids : Collections.emptyList();
+    }
+
+    private static Set<Long> retain(List<Long> favoriteIds, List<Long> candidates) {
+        Set<Long> favorited = new HashSet<>(candidates);
+        favorited.retainAll(new HashSet<>(favoriteIds));
+        return favorited;
+    }
+
+    private static String buildKey(FavoriteTarget target, Long userId) {
+        return CacheConstants.FAVORITE_MEMBERSHIP_PREFIX + target.getKeySegment() + ":user:" + userId;
+    }
+}
@@ -2,8 +2,14 @@ package com.hospital.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hospital.common.constant.CacheTags;
+import com.hospital.common.constant.ContentCounterMetric;
+import com.hospital.common.constant.ContentCounterTarget;
+import com.hospital.common.constant.FavoriteTarget;
+import com.hospital.common.constant.SearchDocumentType;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
+import com.hospital.config.ContentCounterProperties;
 import com.hospital.entity.HealthArticle;
 import com.hospital.entity.User;
 import com.hospital.entity.UserArticleFavorite;
@@ -12,15 +18,24 @@ import com.hospital.mapper.HealthArticleMapper;
 import com.hospital.mapper.UserArticleFavoriteMapper;
 import com.hospital.mapper.UserLikeMapper;
 import com.hospital.mapper.UserMapper;
+import com.hospital.service.ContentCounterService;
+import com.hospital.service.FavoriteMembershipService;
 import com.hospital.service.HealthArticleService;
+import com.hospital.service.SearchIndexService;
+import com.hospital.util.ReadThroughCache;
+import com.hospital.util.SearchIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * 养生文章服务实现类
@@ -32,6 +47,15 @@ import java.util.Map;
 @Service
 public class HealthArticleServiceImpl implements HealthArticleService {
 
+    /** 文章列表、搜索热门页缓存秒数（15分钟） */
+    private static final long ARTICLE_PAGE_TTL_SECONDS = 15 * 60;
+
+    /** 文章详情缓存秒数（30分钟） */
+    private static final long ARTICLE_DETAIL_TTL_SECONDS = 30 * 60;
+
+    /** 标签列表缓存秒数（1小时） */
+    private static final long ARTICLE_TAGS_TTL_SECONDS = 60 * 60;
+
     @Autowired
     private HealthArticleMapper articleMapper;
 
@@ -47,6 +71,21 @@ public class HealthArticleServiceImpl implements HealthArticleService {
     @Autowired
     private com.hospital.util.RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private ContentCounterService contentCounterService;
+
+    @Autowired
+    private FavoriteMembershipService favoriteMembershipService;
+
+    @Autowired
+    private ContentCounterProperties contentCounterProperties;
+
     /**
      * 分页查询文章列表
      */
@@ -69,19 +108,6 @@ public class HealthArticleServiceImpl implements HealthArticleService {
             }
             String cacheKey = redisUtil.buildCacheKey("hospital:common:article:list", pageNum, pageSize, filterParams);
 
-            if (pageNum <= 3) {
-                Object cached = redisUtil.get(cacheKey);
-                if (cached instanceof IPage) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        IPage<HealthArticle> cachedPage = (IPage<HealthArticle>) cached;
-                        return Result.success(cachedPage);
-                    } catch (ClassCastException ignored) {}
-                }
-            }
-
-            Page<HealthArticle> page = new Page<>(pageNum, pageSize);
-
             // 处理标签参数：将逗号分隔的字符串转换为List
             List<String> tagList = null;
             if (tags != null && !tags.trim().isEmpty()) {
@@ -95,12 +121,13 @@ public class HealthArticleServiceImpl implements HealthArticleService {
                 }
             }
 
-            IPage<HealthArticle> result = articleMapper.selectArticlePage(page, category, constitutionType, tagList, isFeatured);
-
+            List<String> tagFilter = tagList;
+            Supplier<IPage<HealthArticle>> query = () -> articleMapper.selectArticlePage(
+                    new Page<>(pageNum, pageSize), category, constitutionType, tagFilter, isFeatured);
             // 缓存前3页（15分钟）
-            if (pageNum <= 3) {
-                redisUtil.set(cacheKey, result, 15, java.util.concurrent.TimeUnit.MINUTES);
-            }
+            IPage<HealthArticle> result = pageNum <= 3
+                    ? readThroughCache.get(cacheKey, ARTICLE_PAGE_TTL_SECONDS, query, CacheTags.ARTICLE_LIST)
+                    : query.get();
 
             return Result.success(result);
 
@@ -118,32 +145,24 @@ public class HealthArticleServiceImpl implements HealthArticleService {
         try {
             String cacheKey = "hospital:common:article:detail:id:" + id;
 
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof HealthArticle article) {
-                // 即使从缓存获取，也要增加浏览次数
-                articleMapper.incrementViewCount(id);
-                return Result.success(article);
-            }
-
-            HealthArticle article = articleMapper.selectById(id);
+            // 文章详情缓存（30分钟），文章不存在时不缓存
+            HealthArticle article = readThroughCache.get(cacheKey, ARTICLE_DETAIL_TTL_SECONDS, () -> {
+                HealthArticle loaded = articleMapper.selectById(id);
+                // 查询作者信息并设置作者姓名
+                if (loaded != null && loaded.getAuthorId() != null) {
+                    User author = userMapper.selectById(loaded.getAuthorId());
+                    if (author != null) {
+                        loaded.setAuthorName(author.getRealName() != null ? author.getRealName() : author.getUsername());
+                    }
+                }
+                return loaded;
+            });
             if (article == null) {
                 return Result.error(ResultCode.DATA_NOT_FOUND.getCode(), "文章不存在");
             }
 
-            // 查询作者信息并设置作者姓名
-            if (article.getAuthorId() != null) {
-                User author = userMapper.selectById(article.getAuthorId());
-                if (author != null) {
-                    article.setAuthorName(author.getRealName() != null ? author.getRealName() : author.getUsername());
-                }
-            }
-
-            // 增加浏览次数
-            articleMapper.incrementViewCount(id);
-
-            // 存入缓存（30分钟）
-            redisUtil.set(cacheKey, article, 30, java.util.concurrent.TimeUnit.MINUTES);
+            // 增加浏览次数（缓存命中时同样计数，先累积在Redis中定期落库）
+            contentCounterService.increment(ContentCounterTarget.ARTICLE, id, ContentCounterMetric.VIEW, 1);
 
             log.info("查询文章详情：id={}，标题={}", id, article.getTitle());
             return Result.success(article);
@@ -160,6 +179,15 @@ public class HealthArticleServiceImpl implements HealthArticleService {
     @Override
     public Result<IPage<HealthArticle>> searchArticles(String keyword, Integer pageNum, Integer pageSize) {
         try {
+            // 有关键词时优先走内存索引按相关度排序，索引未就绪时回退到数据库模糊查询
+            if (keyword != null && !keyword.trim().isEmpty()) {
+                IPage<HealthArticle> indexed = searchFromIndex(keyword, pageNum, pageSize);
+                if (indexed != null) {
+                    log.info("搜索文章（索引）：关键词={}，共{}条", keyword, indexed.getTotal());
+                    return Result.success(indexed);
+                }
+            }
+
             // 只缓存前3页，关键词作为特殊参数处理（保留可读性）
             Map<String, Object> filterParams = new java.util.HashMap<>();
             if (keyword != null && !keyword.isEmpty()) {
@@ -167,24 +195,11 @@ public class HealthArticleServiceImpl implements HealthArticleService {
             }
             String cacheKey = redisUtil.buildCacheKey("hospital:common:article:search", pageNum, pageSize, filterParams);
 
-            if (pageNum <= 3) {
-                Object cached = redisUtil.get(cacheKey);
-                if (cached instanceof IPage) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        IPage<HealthArticle> cachedPage = (IPage<HealthArticle>) cached;
-                        return Result.success(cachedPage);
-                    } catch (ClassCastException ignored) {}
-                }
-            }
-
-            Page<HealthArticle> page = new Page<>(pageNum, pageSize);
-            IPage<HealthArticle> result = articleMapper.searchArticles(page, keyword);
-
+            Supplier<IPage<HealthArticle>> query = () -> articleMapper.searchArticles(new Page<>(pageNum, pageSize), keyword);
             // 缓存前3页（15分钟）
-            if (pageNum <= 3) {
-                redisUtil.set(cacheKey, result, 15, java.util.concurrent.TimeUnit.MINUTES);
-            }
+            IPage<HealthArticle> result = pageNum <= 3
+                    ? readThroughCache.get(cacheKey, ARTICLE_PAGE_TTL_SECONDS, query, CacheTags.ARTICLE_LIST)
+                    : query.get();
 
             log.info("搜索文章：关键词={}，共{}条", keyword, result.getTotal());
             return Result.success(result);
@@ -195,6 +210,25 @@ public class HealthArticleServiceImpl implements HealthArticleService {
         }
     }
 
+    /**
+     * 通过内存索引搜索文章，索引未就绪时返回 null
+     */
+    private IPage<HealthArticle> searchFromIndex(String keyword, Integer pageNum, Integer pageSize) {
+        SearchIndex.Result result = searchIndexService.search(SearchDocumentType.ARTICLE, SearchIndex.Query.builder()
+                .keyword(keyword)
+                .offset((pageNum - 1) * pageSize)
+                .limit(pageSize)
+                .build());
+        if (result == null) {
+            return null;
+        }
+        List<Long> ids = result.getHits().stream().map(SearchIndex.Hit::getId).collect(Collectors.toList());
+        Page<HealthArticle> page = new Page<>(pageNum, pageSize, result.getTotal());
+        page.setRecords(ids.isEmpty() ? new ArrayList<>()
+                : SearchIndex.orderByIds(ids, articleMapper.selectPublishedByIds(ids), HealthArticle::getId));
+        return page;
+    }
+
     /**
      * 发布文章
      */
@@ -221,8 +255,8 @@ public class HealthArticleServiceImpl implements HealthArticleService {
             }
 
             // 失效文章列表缓存
-            redisUtil.deleteByPattern("hospital:common:article:list:*");
-            redisUtil.deleteByPattern("hospital:common:article:search:*");
+            redisUtil.invalidateTag(CacheTags.ARTICLE_LIST);
+            searchIndexService.refreshAfterCommit(SearchDocumentType.ARTICLE, article.getId());
 
             log.info("发布文章成功：id={}，标题={}", article.getId(), article.getTitle());
             return Result.success(article);
@@ -254,8 +288,8 @@ public class HealthArticleServiceImpl implements HealthArticleService {
 
             // 失效相关缓存
             redisUtil.delete("hospital:common:article:detail:id:" + article.getId());
-            redisUtil.deleteByPattern("hospital:common:article:list:*");
-            redisUtil.deleteByPattern("hospital:common:article:search:*");
+            redisUtil.invalidateTag(CacheTags.ARTICLE_LIST);
+            searchIndexService.refreshAfterCommit(SearchDocumentType.ARTICLE, article.getId());
 
             log.info("更新文章成功：id={}，标题={}", article.getId(), article.getTitle());
             return Result.success(article);
@@ -289,8 +323,9 @@ public class HealthArticleServiceImpl implements HealthArticleService {
 
             // 失效相关缓存
             redisUtil.delete("hospital:common:article:detail:id:" + id);
-            redisUtil.deleteByPattern("hospital:common:article:list:*");
-            redisUtil.deleteByPattern("hospital:common:article:search:*");
+            redisUtil.invalidateTag(CacheTags.ARTICLE_LIST);
+            searchIndexService.refreshAfterCommit(SearchDocumentType.ARTICLE, id);
+            contentCounterService.removePopular(ContentCounterTarget.ARTICLE, id);
 
             log.info("删除文章成功：id={}，标题={}", id, article.getTitle());
             return Result.success();
@@ -322,7 +357,7 @@ public class HealthArticleServiceImpl implements HealthArticleService {
             userLikeMapper.insert(userLike);
 
             // 增加文章点赞数
-            articleMapper.incrementLikeCount(articleId);
+            contentCounterService.increment(ContentCounterTarget.ARTICLE, articleId, ContentCounterMetric.LIKE, 1);
 
             log.info("点赞文章成功：文章ID={}，用户ID={}", articleId, userId);
             return Result.success();
@@ -350,7 +385,7 @@ public class HealthArticleServiceImpl implements HealthArticleService {
             userLikeMapper.deleteByUserAndTarget(userId, articleId, "ARTICLE");
 
             // 减少文章点赞数
-            articleMapper.decrementLikeCount(articleId);
+            contentCounterService.increment(ContentCounterTarget.ARTICLE, articleId, ContentCounterMetric.LIKE, -1);
 
             log.info("取消点赞文章成功：文章ID={}，用户ID={}", articleId, userId);
             return Result.success();
@@ -381,8 +416,9 @@ public class HealthArticleServiceImpl implements HealthArticleService {
             favorite.setRemark(remark);
             userArticleFavoriteMapper.insert(favorite);
 
-            // 增加文章收藏数
-            articleMapper.incrementFavoriteCount(articleId);
+            // 增加文章收藏数，同步用户收藏集合
+            contentCounterService.increment(ContentCounterTarget.ARTICLE, articleId, ContentCounterMetric.FAVORITE, 1);
+            favoriteMembershipService.onFavoriteChanged(FavoriteTarget.ARTICLE, userId, articleId, true);
 
             log.info("收藏文章成功：文章ID={}，用户ID={}", articleId, userId);
             return Result.success();
@@ -409,8 +445,9 @@ public class HealthArticleServiceImpl implements HealthArticleService {
             // 删除收藏记录
             userArticleFavoriteMapper.deleteByUserAndArticle(userId, articleId);
 
-            // 减少文章收藏数
-            articleMapper.decrementFavoriteCount(articleId);
+            // 减少文章收藏数，同步用户收藏集合
+            contentCounterService.increment(ContentCounterTarget.ARTICLE, articleId, ContentCounterMetric.FAVORITE, -1);
+            favoriteMembershipService.onFavoriteChanged(FavoriteTarget.ARTICLE, userId, articleId, false);
 
             log.info("取消收藏文章成功：文章ID={}，用户ID={}", articleId, userId);
             return Result.success();
@@ -464,7 +501,10 @@ public class HealthArticleServiceImpl implements HealthArticleService {
     @Override
     public Result<List<HealthArticle>> getRecommendedArticles(Integer limit) {
         try {
-            List<HealthArticle> articles = articleMapper.selectRecommendedArticles(limit);
+            List<HealthArticle> articles = selectRecommendedFromRanking(limit);
+            if (articles == null) {
+                articles = articleMapper.selectRecommendedArticles(limit);
+            }
             return Result.success(articles);
 
         } catch (Exception e) {
@@ -479,7 +519,10 @@ public class HealthArticleServiceImpl implements HealthArticleService {
     @Override
     public Result<List<HealthArticle>> getPopularArticles(Integer limit) {
         try {
-            List<HealthArticle> articles = articleMapper.selectPopularArticles(limit);
+            List<HealthArticle> articles = selectPopularFromRanking(limit);
+            if (articles == null) {
+                articles = articleMapper.selectPopularArticles(limit);
+            }
             return Result.success(articles);
 
         } catch (Exception e) {
@@ -488,6 +531,42 @@ public class HealthArticleServiceImpl implements HealthArticleService {
         }
     }
 
+    /**
+     * 按热度排行读取热门文章，排行尚未建立时返回 null
+     */
+    private List<HealthArticle> selectPopularFromRanking(Integer limit) {
+        // 多取一倍，抵消排行中尚未移除的下架文章
+        List<Long> ids = contentCounterService.getPopularIds(ContentCounterTarget.ARTICLE, limit * 2);
+        if (ids == null) {
+            return null;
+        }
+        List<HealthArticle> articles = SearchIndex.orderByIds(ids, articleMapper.selectPublishedByIds(ids),
+                HealthArticle::getId);
+        if (articles.size() < limit && ids.size() >= limit * 2) {
+            return null;
+        }
+        return articles.size() > limit ? new ArrayList<>(articles.subList(0, limit)) : articles;
+    }
+
+    /**
+     * 从热度排行前列中挑选精选文章（置顶优先，其余按热度），数量不足时返回 null
+     */
+    private List<HealthArticle> selectRecommendedFromRanking(Integer limit) {
+        List<Long> ids = contentCounterService.getPopularIds(ContentCounterTarget.ARTICLE,
+                contentCounterProperties.getRecommendScanSize());
+        if (ids == null) {
+            return null;
+        }
+        List<HealthArticle> featured = SearchIndex.orderByIds(ids, articleMapper.selectPublishedByIds(ids),
+                        HealthArticle::getId).stream()
+                .filter(article -> Integer.valueOf(1).equals(article.getIsFeatured()))
+                .sorted(Comparator.comparing((HealthArticle article) -> Integer.valueOf(1).equals(article.getIsTop()))
+                        .reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+        return featured.size() < limit ? null : featured;
+    }
+
     /**
      * 检查用户是否已点赞文章
      */
@@ -511,8 +590,7 @@ public class HealthArticleServiceImpl implements HealthArticleService {
     @Override
     public Result<Boolean> checkFavoriteStatus(Long articleId, Long userId) {
         try {
-            UserArticleFavorite existingFavorite = userArticleFavoriteMapper.selectByUserAndArticle(userId, articleId);
-            boolean isFavorited = existingFavorite != null;
+            boolean isFavorited = favoriteMembershipService.isFavorited(FavoriteTarget.ARTICLE, userId, articleId);
             log.info("检查收藏状态：文章ID={}，用户ID={}，已收藏={}", articleId, userId, isFavorited);
             return Result.success(isFavorited);
 
@@ -530,45 +608,8 @@ public class HealthArticleServiceImpl implements HealthArticleService {
         try {
             String cacheKey = "hospital:common:article:tags:all";
 
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<String> tags = (List<String>) cached;
-                    return Result.success(tags);
-                } catch (ClassCastException ignored) {}
-            }
-
-            // 从数据库查询所有不重复的标签
-            List<HealthArticle> articles = articleMapper.selectList(
-                    new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<HealthArticle>()
-                            .select(HealthArticle::getTags)
-                            .eq(HealthArticle::getStatus, 1)
-                            .isNotNull(HealthArticle::getTags)
-                            .ne(HealthArticle::getTags, "")
-            );
-
-            // 提取所有标签并去重
-            java.util.Set<String> tagSet = new java.util.HashSet<>();
-            for (HealthArticle article : articles) {
-                if (article.getTags() != null && !article.getTags().trim().isEmpty()) {
-                    String[] tags = article.getTags().split(",");
-                    for (String tag : tags) {
-                        String trimmedTag = tag.trim();
-                        if (!trimmedTag.isEmpty()) {
-                            tagSet.add(trimmedTag);
-                        }
-                    }
-                }
-            }
-
-            List<String> tagList = new java.util.ArrayList<>(tagSet);
-            java.util.Collections.sort(tagList);
-
-            // 存入缓存（1小时）
-            redisUtil.set(cacheKey, tagList, 1, java.util.concurrent.TimeUnit.HOURS);
-
+            // 标签列表缓存（1小时）
+            List<String> tagList = readThroughCache.get(cacheKey, ARTICLE_TAGS_TTL_SECONDS, this::loadAllTags);
             return Result.success(tagList);
 
         } catch (Exception e) {
@@ -576,5 +617,35 @@ public class HealthArticleServiceImpl implements HealthArticleService {
             return Result.error(ResultCode.SYSTEM_ERROR);
         }
     }
-}
 
+    /**
+     * 从已发布文章中提取所有不重复的标签（按字典序）
+     */
+    private List<String> loadAllTags() {
+        List<HealthArticle> articles = articleMapper.selectList(
+                new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<HealthArticle>()
+                        .select(HealthArticle::getTags)
+                        .eq(HealthArticle::getStatus, 1)
+                        .isNotNull(HealthArticle::getTags)
+                        .ne(HealthArticle::getTags, "")
+        );
+
+        // 提取所有标签并去重
+        java.util.Set<String> tagSet = new java.util.HashSet<>();
+        for (HealthArticle article : articles) {
+            if (article.getTags() != null && !article.getTags().trim().isEmpty()) {
+                String[] tags = article.getTags().split(",");
+                for (String tag : tags) {
+                    String trimmedTag = tag.trim();
+                    if (!trimmedTag.isEmpty()) {
+                        tagSet.add(trimmedTag);
+                    }
+                }
+            }
+        }
+
+        List<String> tagList = new java.util.ArrayList<>(tagSet);
+        java.util.Collections.sort(tagList);
+        return tagList;
+    }
+}
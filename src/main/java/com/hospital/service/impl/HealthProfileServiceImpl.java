@@ -48,85 +48,18 @@ public class HealthProfileServiceImpl implements HealthProfileService {
     @Autowired
     private com.hospital.util.RedisUtil redisUtil;
 
+    @Autowired
+    private com.hospital.util.ReadThroughCache readThroughCache;
+
     /**
      * 获取用户健康档案
      */
     @Override
     public Result<Map<String, Object>> getHealthProfile(Long userId) {
         try {
-            // 1. 尝试从缓存获取
+            // 健康档案缓存 30 分钟
             String cacheKey = "hospital:patient:health:profile:user:" + userId;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof Map) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> cachedProfile = (Map<String, Object>) cached;
-                    return Result.success(cachedProfile);
-                } catch (ClassCastException ignored) {}
-            }
-
-            // 2. 查询健康档案
-            UserHealthProfile profile = healthProfileMapper.selectByUserId(userId);
-            if (profile == null) {
-                // 如果不存在，创建默认档案
-                profile = new UserHealthProfile();
-                profile.setUserId(userId);
-                healthProfileMapper.insert(profile);
-            }
-
-            // 3. 查询用户基本信息
-            User user = userMapper.selectById(userId);
-
-            // 3. 查询最新体质测试结果
-            UserConstitutionTest latestTest = constitutionTestMapper.selectLatestByUserId(userId);
-
-            // 4. 组装返回数据
-            Map<String, Object> result = new HashMap<>();
-            result.put("id", profile.getId()); // 健康档案ID
-            result.put("userId", userId);
-            result.put("userName", user != null ? user.getRealName() : null);
-            result.put("gender", user != null ? user.getGender() : null);
-            result.put("birthday", user != null ? user.getBirthDate() : null);
-
-            // 计算年龄
-            if (user != null && user.getBirthDate() != null) {
-                int age = LocalDate.now().getYear() - user.getBirthDate().getYear();
-                result.put("age", age);
-            } else {
-                result.put("age", null);
-            }
-
-            // 健康档案信息
-            result.put("height", profile.getHeight());
-            result.put("weight", profile.getWeight());
-            result.put("bmi", profile.getBmi());
-            result.put("bloodType", profile.getBloodType());
-            result.put("allergyHistory", profile.getAllergies());
-            result.put("medicalHistory", profile.getMedicalHistory());
-            result.put("familyHistory", profile.getFamilyHistory());
-            result.put("currentMedications", profile.getCurrentMedications());
-            result.put("lifestyle", profile.getLifestyle());
-            result.put("dietPreference", profile.getDietPreference());
-            result.put("exerciseHabit", profile.getExerciseHabit());
-            result.put("sleepQuality", profile.getSleepQuality());
-            result.put("stressLevel", profile.getStressLevel());
-            result.put("lastCheckupDate", profile.getLastCheckupDate());
-            result.put("checkupReport", profile.getCheckupReport());
-            result.put("healthGoals", profile.getHealthGoals());
-            result.put("remark", profile.getRemark());
-            result.put("updatedAt", profile.getUpdatedAt());
-
-            // 体质类型
-            if (latestTest != null) {
-                result.put("constitutionType", latestTest.getPrimaryConstitution());
-                result.put("secondaryConstitutionType", latestTest.getSecondaryConstitution());
-            } else {
-                result.put("constitutionType", null);
-                result.put("secondaryConstitutionType", null);
-            }
-
-            // 存入缓存（30分钟）
-            redisUtil.set(cacheKey, result, 30, java.util.concurrent.TimeUnit.MINUTES);
+            Map<String, Object> result = readThroughCache.get(cacheKey, 30 * 60, () -> loadHealthProfile(userId));
 
             log.info("查询用户健康档案：用户ID={}", userId);
             return Result.success(result);
@@ -137,6 +70,73 @@ public class HealthProfileServiceImpl implements HealthProfileService {
         }
     }
 
+    /**
+     * 组装健康档案数据，档案不存在时创建默认档案
+     */
+    private Map<String, Object> loadHealthProfile(Long userId) {
+        // 1. 查询健康档案
+        UserHealthProfile profile = healthProfileMapper.selectByUserId(userId);
+        if (profile == null) {
+            // 如果不存在，创建默认档案
+            profile = new UserHealthProfile();
+            profile.setUserId(userId);
+            healthProfileMapper.insert(profile);
+        }
+
+        // 2. 查询用户基本信息
+        User user = userMapper.selectById(userId);
+
+        // 3. 查询最新体质测试结果
+        UserConstitutionTest latestTest = constitutionTestMapper.selectLatestByUserId(userId);
+
+        // 4. 组装返回数据
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", profile.getId()); // 健康档案ID
+        result.put("userId", userId);
+        result.put("userName", user != null ? user.getRealName() : null);
+        result.put("gender", user != null ? user.getGender() : null);
+        result.put("birthday", user != null ? user.getBirthDate() : null);
+
+        // 计算年龄
+        if (user != null && user.getBirthDate() != null) {
+            int age = LocalDate.now().getYear() - user.getBirthDate().getYear();
+            result.put("age", age);
+        } else {
+            result.put("age", null);
+        }
+
+        // 健康档案信息
+        result.put("height", profile.getHeight());
+        result.put("weight", profile.getWeight());
+        result.put("bmi", profile.getBmi());
+        result.put("bloodType", profile.getBloodType());
+        result.put("allergyHistory", profile.getAllergies());
+        result.put("medicalHistory", profile.getMedicalHistory());
+        result.put("familyHistory", profile.getFamilyHistory());
+        result.put("currentMedications", profile.getCurrentMedications());
+        result.put("lifestyle", profile.getLifestyle());
+        result.put("dietPreference", profile.getDietPreference());
+        result.put("exerciseHabit", profile.getExerciseHabit());
+        result.put("sleepQuality", profile.getSleepQuality());
+        result.put("stressLevel", profile.getStressLevel());
+        result.put("lastCheckupDate", profile.getLastCheckupDate());
+        result.put("checkupReport", profile.getCheckupReport());
+        result.put("healthGoals", profile.getHealthGoals());
+        result.put("remark", profile.getRemark());
+        result.put("updatedAt", profile.getUpdatedAt());
+
+        // 体质类型
+        if (latestTest != null) {
+            result.put("constitutionType", latestTest.getPrimaryConstitution());
+            result.put("secondaryConstitutionType", latestTest.getSecondaryConstitution());
+        } else {
+            result.put("constitutionType", null);
+            result.put("secondaryConstitutionType", null);
+        }
+
+        return result;
+    }
+
     /**
      * 更新用户健康档案
      */
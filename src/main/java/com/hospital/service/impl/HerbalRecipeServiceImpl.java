@@ -5,8 +5,13 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.common.constant.ContentCounterMetric;
+import com.hospital.common.constant.ContentCounterTarget;
+import com.hospital.common.constant.FavoriteTarget;
+import com.hospital.common.constant.SearchDocumentType;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
+import com.hospital.config.LlmGatewayProperties;
 import com.hospital.entity.HerbalRecipe;
 import com.hospital.entity.Ingredient;
 import com.hospital.entity.UserConstitutionTest;
@@ -16,16 +21,28 @@ import com.hospital.mapper.IngredientMapper;
 import com.hospital.mapper.UserConstitutionTestMapper;
 import com.hospital.mapper.UserRecipeFavoriteMapper;
 import com.hospital.service.AiRecommendationService;
+import com.hospital.service.ContentCounterService;
+import com.hospital.service.FavoriteMembershipService;
 import com.hospital.service.HerbalRecipeService;
+import com.hospital.service.RecipeSimilarityService;
+import com.hospital.service.SearchIndexService;
+import com.hospital.util.ReadThroughCache;
+import com.hospital.util.SearchIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * 药膳食谱服务实现类
@@ -37,6 +54,12 @@ import java.util.Map;
 @Service
 public class HerbalRecipeServiceImpl implements HerbalRecipeService {
 
+    /** 药膳分页热门页缓存秒数（15分钟） */
+    private static final long RECIPE_PAGE_TTL_SECONDS = 15 * 60;
+
+    /** 药膳详情、热门与时令列表缓存秒数（30分钟） */
+    private static final long RECIPE_DETAIL_TTL_SECONDS = 30 * 60;
+
     @Autowired
     private HerbalRecipeMapper herbalRecipeMapper;
 
@@ -52,9 +75,27 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
     @Autowired
     private com.hospital.util.RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private ContentCounterService contentCounterService;
+
+    @Autowired
+    private RecipeSimilarityService recipeSimilarityService;
+
+    @Autowired
+    private FavoriteMembershipService favoriteMembershipService;
+
     @Autowired(required = false)
     private AiRecommendationService aiRecommendationService;
 
+    @Autowired
+    private LlmGatewayProperties llmGatewayProperties;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -80,65 +121,29 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
             }
             String cacheKey = redisUtil.buildCacheKey("hospital:common:recipe:recommend", pageNum, pageSize, filterParams);
 
-            if (pageNum <= 3) {
-                Object cached = redisUtil.get(cacheKey);
-                if (cached instanceof IPage) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        IPage<HerbalRecipe> cachedPage = (IPage<HerbalRecipe>) cached;
-                        // 设置用户特定的收藏状态和AI推荐理由
-                        // 性能优化：只对前3个药膳生成AI推荐理由
-                        int aiRecommendationLimit = 3;
-                        int index = 0;
-
-                        for (HerbalRecipe recipe : cachedPage.getRecords()) {
-                            UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipe.getId());
-                            recipe.setIsFavorited(favorite != null);
-
-                            // AI增强：只对前几个药膳生成个性化推荐理由
-                            if (aiRecommendationService != null && index < aiRecommendationLimit) {
-                                try {
-                                    String recommendationReason = aiRecommendationService.generateRecommendationReason(recipe, latestTest);
-                                    recipe.setRecommendationReason(recommendationReason);
-                                } catch (Exception e) {
-                                    log.warn("生成推荐理由失败，使用降级方案：recipeId={}", recipe.getId(), e);
-                                    // 降级：使用默认推荐理由
-                                    recipe.setRecommendationReason(buildDefaultRecommendationReason(recipe, latestTest));
-                                }
-                            } else {
-                                // 其他药膳使用默认推荐理由
-                                recipe.setRecommendationReason(buildDefaultRecommendationReason(recipe, latestTest));
-                            }
-                            index++;
-                        }
-                        return Result.success(cachedPage);
-                    } catch (ClassCastException ignored) {}
-                }
-            }
-
-            // 3. 分页查询推荐药膳
-            Page<HerbalRecipe> page = new Page<>(pageNum, pageSize);
-            IPage<HerbalRecipe> result = herbalRecipeMapper.selectRecommendedRecipes(page, constitutionType, season);
+            // 3. 分页查询推荐药膳，缓存前3页（15分钟）
+            Supplier<IPage<HerbalRecipe>> query = () -> herbalRecipeMapper.selectRecommendedRecipes(
+                    new Page<>(pageNum, pageSize), constitutionType, season);
+            IPage<HerbalRecipe> result = pageNum <= 3
+                    ? readThroughCache.get(cacheKey, RECIPE_PAGE_TTL_SECONDS, query)
+                    : query.get();
 
             // 4. 设置每个药膳的收藏状态和AI推荐理由
-            // 性能优化：只对前3个药膳生成AI推荐理由，其他使用默认理由，避免响应时间过长
+            // 性能优化：只对前3个药膳生成AI推荐理由，其他使用默认理由；AI理由并发生成，
+            // 最多等待 pageWaitMs，未返回的先用默认理由，上游回答写入缓存后供后续请求使用
             int aiRecommendationLimit = 3;
             int index = 0;
+            List<HerbalRecipe> aiRecipes = new ArrayList<>();
+            List<CompletableFuture<String>> aiReasons = new ArrayList<>();
 
+            applyFavoriteFlag(result.getRecords(), userId);
             for (HerbalRecipe recipe : result.getRecords()) {
-                UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipe.getId());
-                recipe.setIsFavorited(favorite != null);
-
                 // AI增强：只对前几个药膳生成个性化推荐理由
                 if (aiRecommendationService != null && index < aiRecommendationLimit) {
-                    try {
-                        String recommendationReason = aiRecommendationService.generateRecommendationReason(recipe, latestTest);
-                        recipe.setRecommendationReason(recommendationReason);
-                    } catch (Exception e) {
-                        log.warn("生成推荐理由失败，使用降级方案：recipeId={}", recipe.getId(), e);
-                        // 降级：使用默认推荐理由
-                        recipe.setRecommendationReason(buildDefaultRecommendationReason(recipe, latestTest));
-                    }
+                    aiRecipes.add(recipe);
+                    aiReasons.add(aiRecommendationService.generateRecommendationReasonAsync(recipe, latestTest)
+                            .completeOnTimeout(buildDefaultRecommendationReason(recipe, latestTest),
+                                    llmGatewayProperties.getPageWaitMs(), TimeUnit.MILLISECONDS));
                 } else {
                     // 其他药膳使用默认推荐理由
                     recipe.setRecommendationReason(buildDefaultRecommendationReason(recipe, latestTest));
@@ -146,9 +151,15 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
                 index++;
             }
 
-            // 5. 缓存前3页（15分钟）
-            if (pageNum <= 3) {
-                redisUtil.set(cacheKey, result, 15, java.util.concurrent.TimeUnit.MINUTES);
+            for (int i = 0; i < aiRecipes.size(); i++) {
+                HerbalRecipe recipe = aiRecipes.get(i);
+                try {
+                    recipe.setRecommendationReason(aiReasons.get(i).join());
+                } catch (Exception e) {
+                    log.warn("生成推荐理由失败，使用降级方案：recipeId={}", recipe.getId(), e);
+                    // 降级：使用默认推荐理由
+                    recipe.setRecommendationReason(buildDefaultRecommendationReason(recipe, latestTest));
+                }
             }
 
             log.info("为用户{}推荐药膳，体质：{}，季节：{}，共{}条", userId, constitutionType, season, result.getTotal());
@@ -170,39 +181,13 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
             Map<String, Object> filterParams = new HashMap<>();
             String cacheKey = redisUtil.buildCacheKey("hospital:common:recipe:list", pageNum, pageSize, filterParams);
 
-            if (pageNum <= 3) {
-                Object cached = redisUtil.get(cacheKey);
-                if (cached instanceof IPage) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        IPage<HerbalRecipe> cachedPage = (IPage<HerbalRecipe>) cached;
-                        // 设置用户特定的收藏状态
-                        if (userId != null) {
-                            for (HerbalRecipe recipe : cachedPage.getRecords()) {
-                                UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipe.getId());
-                                recipe.setIsFavorited(favorite != null);
-                            }
-                        }
-                        return Result.success(cachedPage);
-                    } catch (ClassCastException ignored) {}
-                }
-            }
-
-            Page<HerbalRecipe> page = new Page<>(pageNum, pageSize);
-            IPage<HerbalRecipe> result = herbalRecipeMapper.selectAllRecipes(page);
+            Supplier<IPage<HerbalRecipe>> query = () -> herbalRecipeMapper.selectAllRecipes(new Page<>(pageNum, pageSize));
+            IPage<HerbalRecipe> result = pageNum <= 3
+                    ? readThroughCache.get(cacheKey, RECIPE_PAGE_TTL_SECONDS, query)
+                    : query.get();
 
             // 如果用户已登录，设置每个药膳的收藏状态
-            if (userId != null) {
-                for (HerbalRecipe recipe : result.getRecords()) {
-                    UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipe.getId());
-                    recipe.setIsFavorited(favorite != null);
-                }
-            }
-
-            // 缓存前3页（15分钟）
-            if (pageNum <= 3) {
-                redisUtil.set(cacheKey, result, 15, java.util.concurrent.TimeUnit.MINUTES);
-            }
+            applyFavoriteFlag(result.getRecords(), userId);
 
             return Result.success(result);
         } catch (Exception e) {
@@ -223,61 +208,41 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
                                                      Integer pageSize,
                                                      Long userId) {
         try {
-            // 只缓存前3页，关键词作为特殊参数处理（保留可读性）
-            Map<String, Object> filterParams = new java.util.HashMap<>();
-            if (StringUtils.hasText(keyword)) {
-                filterParams.put("keyword", keyword);
-            }
-            if (StringUtils.hasText(season)) {
-                filterParams.put("season", season);
-            }
-            if (StringUtils.hasText(constitutionType)) {
-                filterParams.put("constitutionType", constitutionType);
-            }
-            if (StringUtils.hasText(effect)) {
-                filterParams.put("effect", effect);
-            }
-            String cacheKey = redisUtil.buildCacheKey("hospital:common:recipe:search", pageNum, pageSize, filterParams);
-
-            if (pageNum <= 3) {
-                Object cached = redisUtil.get(cacheKey);
-                if (cached instanceof IPage) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        IPage<HerbalRecipe> cachedPage = (IPage<HerbalRecipe>) cached;
-                        // 设置用户特定的收藏状态
-                        if (userId != null) {
-                            for (HerbalRecipe recipe : cachedPage.getRecords()) {
-                                UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipe.getId());
-                                recipe.setIsFavorited(favorite != null);
-                            }
-                        }
-                        return Result.success(cachedPage);
-                    } catch (ClassCastException ignored) {}
+            // 有关键词时优先走内存索引按相关度排序，索引未就绪时回退到数据库模糊查询
+            IPage<HerbalRecipe> result = StringUtils.hasText(keyword)
+                    ? searchFromIndex(keyword, season, constitutionType, effect, pageNum, pageSize)
+                    : null;
+            if (result == null) {
+                // 只缓存前3页，关键词作为特殊参数处理（保留可读性）
+                Map<String, Object> filterParams = new java.util.HashMap<>();
+                if (StringUtils.hasText(keyword)) {
+                    filterParams.put("keyword", keyword);
                 }
-            }
-
-            Page<HerbalRecipe> page = new Page<>(pageNum, pageSize);
-            IPage<HerbalRecipe> result = herbalRecipeMapper.searchRecipes(
-                    page,
-                    keyword,
-                    season,
-                    constitutionType,
-                    effect
-            );
-
-            // 如果用户已登录，设置每个药膳的收藏状态
-            if (userId != null) {
-                for (HerbalRecipe recipe : result.getRecords()) {
-                    UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipe.getId());
-                    recipe.setIsFavorited(favorite != null);
+                if (StringUtils.hasText(season)) {
+                    filterParams.put("season", season);
+                }
+                if (StringUtils.hasText(constitutionType)) {
+                    filterParams.put("constitutionType", constitutionType);
+                }
+                if (StringUtils.hasText(effect)) {
+                    filterParams.put("effect", effect);
                 }
+                String cacheKey = redisUtil.buildCacheKey("hospital:common:recipe:search", pageNum, pageSize, filterParams);
+
+                Supplier<IPage<HerbalRecipe>> query = () -> herbalRecipeMapper.searchRecipes(
+                        new Page<>(pageNum, pageSize),
+                        keyword,
+                        season,
+                        constitutionType,
+                        effect
+                );
+                result = pageNum <= 3
+                        ? readThroughCache.get(cacheKey, RECIPE_PAGE_TTL_SECONDS, query)
+                        : query.get();
             }
 
-            // 缓存前3页（15分钟）
-            if (pageNum <= 3) {
-                redisUtil.set(cacheKey, result, 15, java.util.concurrent.TimeUnit.MINUTES);
-            }
+            // 如果用户已登录，设置每个药膳的收藏状态
+            applyFavoriteFlag(result.getRecords(), userId);
 
             log.info("搜索药膳：keyword={}, season={}, constitutionType={}, effect={}, total={}",
                     keyword, season, constitutionType, effect, result.getTotal());
@@ -289,6 +254,40 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
         }
     }
 
+    /**
+     * 通过内存索引搜索药膳：季节、体质为"ALL"的药膳同样命中，功效只在功效字段中匹配；索引未就绪时返回 null
+     */
+    private IPage<HerbalRecipe> searchFromIndex(String keyword, String season, String constitutionType,
+                                                String effect, Integer pageNum, Integer pageSize) {
+        Map<String, String> filters = new HashMap<>();
+        if (StringUtils.hasText(season)) {
+            filters.put(SearchIndexServiceImpl.FACET_SEASON, season.trim());
+        }
+        if (StringUtils.hasText(constitutionType)) {
+            filters.put(SearchIndexServiceImpl.FACET_CONSTITUTION, constitutionType.trim());
+        }
+        Map<String, String> fieldQueries = new HashMap<>();
+        if (StringUtils.hasText(effect)) {
+            fieldQueries.put(SearchIndexServiceImpl.FIELD_EFFICACY, effect);
+        }
+        SearchIndex.Result result = searchIndexService.search(SearchDocumentType.RECIPE, SearchIndex.Query.builder()
+                .keyword(keyword)
+                .fieldQueries(fieldQueries)
+                .filters(filters)
+                .wildcardValue(SearchIndexServiceImpl.WILDCARD_VALUE)
+                .offset((pageNum - 1) * pageSize)
+                .limit(pageSize)
+                .build());
+        if (result == null) {
+            return null;
+        }
+        List<Long> ids = result.getHits().stream().map(SearchIndex.Hit::getId).collect(Collectors.toList());
+        Page<HerbalRecipe> page = new Page<>(pageNum, pageSize, result.getTotal());
+        page.setRecords(ids.isEmpty() ? new ArrayList<>()
+                : SearchIndex.orderByIds(ids, herbalRecipeMapper.selectActiveRecipesByIds(ids), HerbalRecipe::getId));
+        return page;
+    }
+
     /**
      * 获取药膳详情
      */
@@ -298,28 +297,20 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
         try {
             String cacheKey = "hospital:common:recipe:detail:id:" + recipeId;
 
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            HerbalRecipe recipe = null;
-            if (cached instanceof HerbalRecipe) {
-                recipe = (HerbalRecipe) cached;
-            } else {
-                recipe = herbalRecipeMapper.selectById(recipeId);
-                if (recipe == null) {
-                    log.warn("药膳不存在: {}", recipeId);
-                    return Result.error(ResultCode.DATA_NOT_FOUND);
-                }
-                // 存入缓存（30分钟）
-                redisUtil.set(cacheKey, recipe, 30, java.util.concurrent.TimeUnit.MINUTES);
+            // 药膳详情缓存（30分钟），药膳不存在时不缓存
+            HerbalRecipe recipe = readThroughCache.get(cacheKey, RECIPE_DETAIL_TTL_SECONDS,
+                    () -> herbalRecipeMapper.selectById(recipeId));
+            if (recipe == null) {
+                log.warn("药膳不存在: {}", recipeId);
+                return Result.error(ResultCode.DATA_NOT_FOUND);
             }
 
             // 增加浏览次数（无论是否从缓存获取）
-            herbalRecipeMapper.incrementViewCount(recipeId);
+            contentCounterService.increment(ContentCounterTarget.RECIPE, recipeId, ContentCounterMetric.VIEW, 1);
 
             // 如果用户已登录，设置收藏状态
             if (userId != null) {
-                UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipeId);
-                recipe.setIsFavorited(favorite != null);
+                recipe.setIsFavorited(favoriteMembershipService.isFavorited(FavoriteTarget.RECIPE, userId, recipeId));
             }
 
             // 补全食材备注信息
@@ -339,32 +330,16 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
     @Override
     public Result<List<HerbalRecipe>> getPopularRecipes(Integer limit, Long userId) {
         try {
-            String cacheKey = "recipe:popular:limit:" + limit;
-
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            List<HerbalRecipe> recipes = null;
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<HerbalRecipe> list = (List<HerbalRecipe>) cached;
-                    recipes = list;
-                } catch (ClassCastException ignored) {}
-            }
-
+            // 优先读取实时热度排行，排行尚未建立时查库并缓存30分钟（不包含用户特定的收藏状态）
+            List<HerbalRecipe> recipes = selectPopularFromRanking(limit);
             if (recipes == null) {
-                recipes = herbalRecipeMapper.selectPopularRecipes(limit);
-                // 存入缓存（30分钟）
-                redisUtil.set(cacheKey, recipes, 30, java.util.concurrent.TimeUnit.MINUTES);
+                String cacheKey = "recipe:popular:limit:" + limit;
+                recipes = readThroughCache.get(cacheKey, RECIPE_DETAIL_TTL_SECONDS,
+                        () -> herbalRecipeMapper.selectPopularRecipes(limit));
             }
 
             // 如果用户已登录，设置每个药膳的收藏状态
-            if (userId != null) {
-                for (HerbalRecipe recipe : recipes) {
-                    UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipe.getId());
-                    recipe.setIsFavorited(favorite != null);
-                }
-            }
+            applyFavoriteFlag(recipes, userId);
 
             return Result.success(recipes);
 
@@ -374,6 +349,23 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
         }
     }
 
+    /**
+     * 按热度排行读取热门药膳，排行尚未建立时返回 null
+     */
+    private List<HerbalRecipe> selectPopularFromRanking(Integer limit) {
+        // 多取一倍，抵消排行中已下架的药膳
+        List<Long> ids = contentCounterService.getPopularIds(ContentCounterTarget.RECIPE, limit * 2);
+        if (ids == null) {
+            return null;
+        }
+        List<HerbalRecipe> recipes = SearchIndex.orderByIds(ids, herbalRecipeMapper.selectActiveRecipesByIds(ids),
+                HerbalRecipe::getId);
+        if (recipes.size() < limit && ids.size() >= limit * 2) {
+            return null;
+        }
+        return recipes.size() > limit ? new ArrayList<>(recipes.subList(0, limit)) : recipes;
+    }
+
     /**
      * 获取时令药膳
      */
@@ -382,30 +374,12 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
         try {
             String cacheKey = "recipe:seasonal:season:" + season + ":limit:" + limit;
 
-            // 尝试从缓存获取
-            Object cached = redisUtil.get(cacheKey);
-            List<HerbalRecipe> recipes = null;
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<HerbalRecipe> list = (List<HerbalRecipe>) cached;
-                    recipes = list;
-                } catch (ClassCastException ignored) {}
-            }
-
-            if (recipes == null) {
-                recipes = herbalRecipeMapper.selectSeasonalRecipes(season, limit);
-                // 存入缓存（30分钟）
-                redisUtil.set(cacheKey, recipes, 30, java.util.concurrent.TimeUnit.MINUTES);
-            }
+            // 缓存30分钟（不包含用户特定的收藏状态）
+            List<HerbalRecipe> recipes = readThroughCache.get(cacheKey, RECIPE_DETAIL_TTL_SECONDS,
+                    () -> herbalRecipeMapper.selectSeasonalRecipes(season, limit));
 
             // 如果用户已登录，设置每个药膳的收藏状态
-            if (userId != null) {
-                for (HerbalRecipe recipe : recipes) {
-                    UserRecipeFavorite favorite = userRecipeFavoriteMapper.selectByUserIdAndRecipeId(userId, recipe.getId());
-                    recipe.setIsFavorited(favorite != null);
-                }
-            }
+            applyFavoriteFlag(recipes, userId);
 
             return Result.success(recipes);
 
@@ -444,7 +418,11 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
             userRecipeFavoriteMapper.insert(favorite);
 
             // 4. 增加收藏次数
-            herbalRecipeMapper.incrementFavoriteCount(recipeId);
+            contentCounterService.increment(ContentCounterTarget.RECIPE, recipeId, ContentCounterMetric.FAVORITE, 1);
+
+            // 5. 更新协同过滤模型并失效该用户的推荐缓存，同步用户收藏集合
+            recipeSimilarityService.onFavoriteChanged(userId, recipeId, true);
+            favoriteMembershipService.onFavoriteChanged(FavoriteTarget.RECIPE, userId, recipeId, true);
 
             log.info("用户{}收藏药膳{}", userId, recipeId);
             return Result.success();
@@ -473,7 +451,11 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
             userRecipeFavoriteMapper.deleteById(favorite.getId());
 
             // 3. 减少收藏次数
-            herbalRecipeMapper.decrementFavoriteCount(recipeId);
+            contentCounterService.increment(ContentCounterTarget.RECIPE, recipeId, ContentCounterMetric.FAVORITE, -1);
+
+            // 4. 更新协同过滤模型并失效该用户的推荐缓存，同步用户收藏集合
+            recipeSimilarityService.onFavoriteChanged(userId, recipeId, false);
+            favoriteMembershipService.onFavoriteChanged(FavoriteTarget.RECIPE, userId, recipeId, false);
 
             log.info("用户{}取消收藏药膳{}", userId, recipeId);
             return Result.success();
@@ -522,6 +504,20 @@ public class HerbalRecipeServiceImpl implements HerbalRecipeService {
         }
     }
 
+    /**
+     * 一次查询设置整页药膳的收藏状态，用户未登录时不设置
+     */
+    private void applyFavoriteFlag(List<HerbalRecipe> recipes, Long userId) {
+        if (userId == null || recipes == null || recipes.isEmpty()) {
+            return;
+        }
+        Set<Long> favorited = favoriteMembershipService.findFavorited(FavoriteTarget.RECIPE, userId,
+                recipes.stream().map(HerbalRecipe::getId).collect(Collectors.toList()));
+        for (HerbalRecipe recipe : recipes) {
+            recipe.setIsFavorited(favorited.contains(recipe.getId()));
+        }
+    }
+
     /**
      * 生成默认推荐理由（降级方案）
      */
@@ -7,12 +7,12 @@ import com.hospital.common.constant.SystemSettingKeys;
 import com.hospital.config.SystemSettingManager;
 import com.hospital.entity.UserNotification;
 import com.hospital.mapper.UserNotificationMapper;
+import com.hospital.messaging.UserMessageSender;
 import com.hospital.dto.NotificationMessageDTO;
 import com.hospital.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,7 +31,7 @@ public class NotificationServiceImpl implements NotificationService {
     private final UserNotificationMapper userNotificationMapper;
 
     @Autowired
-    private final SimpMessagingTemplate messagingTemplate;
+    private final UserMessageSender userMessageSender;
 
     @Autowired
     private final SystemSettingManager systemSettingManager;
@@ -88,7 +88,7 @@ public class NotificationServiceImpl implements NotificationService {
                     .updatedAt(notification.getUpdatedAt())
                     .build();
 
-            messagingTemplate.convertAndSendToUser(
+            userMessageSender.sendToUser(
                     String.valueOf(userId),
                     "/queue/notifications",
                     payload
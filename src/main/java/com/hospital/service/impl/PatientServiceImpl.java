@@ -11,6 +11,7 @@ import com.hospital.entity.User;
 import com.hospital.mapper.AppointmentMapper;
 import com.hospital.mapper.PatientMapper;
 import com.hospital.service.PatientService;
+import com.hospital.util.ReadThroughCache;
 import com.hospital.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,7 +19,6 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 患者管理服务实现类
@@ -27,6 +27,9 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class PatientServiceImpl extends ServiceImpl<PatientMapper, User> implements PatientService {
 
+    /** 今日患者相关列表缓存秒数 */
+    private static final long TODAY_PATIENT_TTL_SECONDS = 2 * 60;
+
     @Autowired
     private PatientMapper patientMapper;
 
@@ -36,34 +39,16 @@ public class PatientServiceImpl extends ServiceImpl<PatientMapper, User> impleme
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
     @Override
     public List<Map<String, Object>> getTodayPatients(Long doctorId) {
         log.info("获取今日患者列表，医生ID：{}", doctorId);
         String cacheKey = "hospital:doctor:patient:list:today:doctor:" + doctorId;
-        Object cached = redisUtil.get(cacheKey);
-        List<Map<String, Object>> data;
-
-        // 尝试从缓存读取，如果失败则清除缓存并重新查询
-        if (cached != null) {
-            try {
-                if (cached instanceof List) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> list = (List<Map<String, Object>>) cached;
-                    data = list;
-                } else {
-                    // 缓存数据格式不正确，清除缓存
-                    redisUtil.delete(cacheKey);
-                    data = patientMapper.selectTodayPatients(doctorId);
-                }
-            } catch (Exception e) {
-                // 反序列化失败，清除缓存并重新查询
-                log.warn("从Redis缓存读取今日患者列表失败，清除缓存并重新查询: doctorId={}, error={}", doctorId, e.getMessage());
-                redisUtil.delete(cacheKey);
-                data = patientMapper.selectTodayPatients(doctorId);
-            }
-        } else {
-            data = patientMapper.selectTodayPatients(doctorId);
-        }
+        // 今日患者列表缓存 2 分钟，叫号状态变化频繁，不随列表缓存
+        List<Map<String, Object>> data = readThroughCache.get(cacheKey, TODAY_PATIENT_TTL_SECONDS,
+                () -> patientMapper.selectTodayPatients(doctorId));
 
         // 为每个预约添加叫号状态
         for (Map<String, Object> patient : data) {
@@ -78,12 +63,6 @@ public class PatientServiceImpl extends ServiceImpl<PatientMapper, User> impleme
             }
         }
 
-        // 今日患者列表缓存 2 分钟
-        try {
-            redisUtil.set(cacheKey, data, 2, TimeUnit.MINUTES);
-        } catch (Exception e) {
-            log.warn("缓存今日患者列表失败，继续返回数据: doctorId={}, error={}", doctorId, e.getMessage());
-        }
         return data;
     }
 
@@ -104,36 +83,16 @@ public class PatientServiceImpl extends ServiceImpl<PatientMapper, User> impleme
     public List<Map<String, Object>> getTodayPendingPatients(Long doctorId) {
         log.info("获取待接诊患者列表，医生ID：{}", doctorId);
         String cacheKey = "hospital:doctor:patient:list:pending:doctor:" + doctorId;
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> list = (List<Map<String, Object>>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-        List<Map<String, Object>> data = patientMapper.selectTodayPendingPatients(doctorId);
-        // 待接诊患者列表缓存 2 分钟
-        redisUtil.set(cacheKey, data, 2, TimeUnit.MINUTES);
-        return data;
+        return readThroughCache.get(cacheKey, TODAY_PATIENT_TTL_SECONDS,
+                () -> patientMapper.selectTodayPendingPatients(doctorId));
     }
 
     @Override
     public List<Map<String, Object>> getTodayCompletedPatients(Long doctorId) {
         log.info("获取已接诊患者列表，医生ID：{}", doctorId);
         String cacheKey = "hospital:doctor:patient:list:completed:doctor:" + doctorId;
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> list = (List<Map<String, Object>>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-        List<Map<String, Object>> data = patientMapper.selectTodayCompletedPatients(doctorId);
-        // 已接诊患者列表缓存 2 分钟
-        redisUtil.set(cacheKey, data, 2, TimeUnit.MINUTES);
-        return data;
+        return readThroughCache.get(cacheKey, TODAY_PATIENT_TTL_SECONDS,
+                () -> patientMapper.selectTodayCompletedPatients(doctorId));
     }
 
     @Override
@@ -0,0 +1,246 @@
+package com.hospital.service.impl;
+
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.exception.BusinessException;
+import com.hospital.common.result.ResultCode;
+import com.hospital.config.QueueNumberProperties;
+import com.hospital.mapper.AppointmentMapper;
+import com.hospital.mapper.QueueSequenceMapper;
+import com.hospital.service.QueueNumberService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 排队号分配实现
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class QueueNumberServiceImpl implements QueueNumberService {
+
+    /** 序列未初始化 */
+    private static final long NOT_SEEDED = -3L;
+
+    /**
+     * 分配：开启回收时优先取最小空号，否则 INCR；序列值低于兜底下限时先抬升，
+     * 避免Redis恢复后重发故障期间由数据库序列分配过的号码（空号均为已取消的号码，数据库序列不会分配）
+     * KEYS[1]=序列键 KEYS[2]=空号集合 KEYS[3]=兜底下限 ARGV[1]=是否回收(1/0)
+     */
+    private static final RedisScript<Long> ALLOCATE_SCRIPT = new DefaultRedisScript<>(
+            "if ARGV[1] == '1' then\n" +
+            "  local free = redis.call('ZRANGE', KEYS[2], 0, 0)\n" +
+            "  if #free > 0 then\n" +
+            "    redis.call('ZREM', KEYS[2], free[1])\n" +
+            "    return tonumber(free[1])\n" +
+            "  end\n" +
+            "end\n" +
+            "local current = redis.call('GET', KEYS[1])\n" +
+            "if not current then return -3 end\n" +
+            "local floor = tonumber(redis.call('GET', KEYS[3]) or '0')\n" +
+            "if tonumber(current) < floor then\n" +
+            "  local ttl = redis.call('PTTL', KEYS[1])\n" +
+            "  if ttl > 0 then\n" +
+            "    redis.call('SET', KEYS[1], floor, 'PX', ttl)\n" +
+            "  else\n" +
+            "    redis.call('SET', KEYS[1], floor)\n" +
+            "  end\n" +
+            "end\n" +
+            "return redis.call('INCR', KEYS[1])", Long.class);
+
+    /**
+     * 初始化：序列不存在时写入种子值
+     * KEYS[1]=序列键 ARGV[1]=种子 ARGV[2]=过期秒数
+     */
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n" +
+            "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 记录兜底下限：只增不减
+     * KEYS[1]=兜底下限 ARGV[1]=数据库序列分配的号码 ARGV[2]=过期秒数
+     */
+    private static final RedisScript<Long> FLOOR_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '0')\n" +
+            "if tonumber(ARGV[1]) <= current then return 0 end\n" +
+            "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 回收：仅回收不大于当前序列值的号码
+     * KEYS[1]=序列键 KEYS[2]=空号集合 ARGV[1]=排队号 ARGV[2]=过期秒数
+     */
+    private static final RedisScript<Long> RECYCLE_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '0')\n" +
+            "local number = tonumber(ARGV[1])\n" +
+            "if number <= 0 or number > current then return 0 end\n" +
+            "redis.call('ZADD', KEYS[2], number, ARGV[1])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[2])\n" +
+            "return 1", Long.class);
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private AppointmentMapper appointmentMapper;
+
+    @Autowired
+    private QueueSequenceMapper queueSequenceMapper;
+
+    @Autowired
+    private QueueNumberProperties properties;
+
+    /**
+     * 兜底分配后未能写入Redis的下限（Redis不可用时），下次分配前补写：兜底下限键 -> 号码与日期
+     */
+    private final Map<String, PendingFloor> pendingFloors = new ConcurrentHashMap<>();
+
+    @Override
+    public Integer allocate(Long doctorId, LocalDate date, String timeSlot) {
+        try {
+            flushPendingFloors();
+            List<String> keys = redisKeys(doctorId, date, timeSlot);
+            Long number = redisUtil.executeScript(ALLOCATE_SCRIPT, keys, reclaimFlag());
+            if (number != null && number == NOT_SEEDED) {
+                ensureSeeded(doctorId, date, timeSlot);
+                number = redisUtil.executeScript(ALLOCATE_SCRIPT, keys, reclaimFlag());
+            }
+            if (number != null && number > 0) {
+                return number.intValue();
+            }
+            log.warn("Redis排队号分配结果异常，改用数据库序列: doctorId={}, date={}, timeSlot={}, result={}",
+                    doctorId, date, timeSlot, number);
+        } catch (Exception e) {
+            log.warn("Redis排队号分配失败，改用数据库序列: doctorId={}, date={}, timeSlot={}, error={}",
+                    doctorId, date, timeSlot, e.getMessage());
+        }
+        Integer number = allocateFromDatabase(doctorId, date, timeSlot);
+        recordFloor(doctorId, date, timeSlot, number);
+        return number;
+    }
+
+    @Override
+    public void recycle(Long doctorId, LocalDate date, String timeSlot, Integer queueNumber) {
+        if (!properties.isReclaimCancelled() || queueNumber == null || queueNumber <= 0) {
+            return;
+        }
+        try {
+            redisUtil.executeScript(RECYCLE_SCRIPT, redisKeys(doctorId, date, timeSlot),
+                    queueNumber, ttlSeconds(date));
+        } catch (Exception e) {
+            log.warn("回收排队号失败: doctorId={}, date={}, timeSlot={}, queueNumber={}, error={}",
+                    doctorId, date, timeSlot, queueNumber, e.getMessage());
+        }
+    }
+
+    @Override
+    public void ensureSeeded(Long doctorId, LocalDate date, String timeSlot) {
+        String seqKey = redisKeys(doctorId, date, timeSlot).get(0);
+        if (Boolean.TRUE.equals(redisUtil.hasKey(seqKey))) {
+            return;
+        }
+        int seed = resolveSeed(doctorId, date, timeSlot);
+        Integer sequenceValue = queueSequenceMapper.selectCurrentValue(doctorId, date, timeSlot);
+        if (sequenceValue != null && sequenceValue > seed) {
+            // 数据库序列曾作为兜底分配过更大的号码，以其为准避免重号
+            seed = sequenceValue;
+        }
+        redisUtil.executeScript(SEED_SCRIPT, List.of(seqKey), seed, ttlSeconds(date));
+    }
+
+    @Override
+    public List<String> redisKeys(Long doctorId, LocalDate date, String timeSlot) {
+        String suffix = doctorId + ":" + date + ":" + timeSlot;
+        return Arrays.asList(
+                CacheConstants.APPOINTMENT_QUEUE_SEQ_PREFIX + suffix,
+                CacheConstants.APPOINTMENT_QUEUE_FREE_PREFIX + suffix,
+                CacheConstants.APPOINTMENT_QUEUE_FLOOR_PREFIX + suffix);
+    }
+
+    @Override
+    public boolean isReclaimEnabled() {
+        return properties.isReclaimCancelled();
+    }
+
+    /**
+     * 数据库序列兜底分配（需在事务内调用，保证两条语句使用同一连接）
+     */
+    private Integer allocateFromDatabase(Long doctorId, LocalDate date, String timeSlot) {
+        int seed = resolveSeed(doctorId, date, timeSlot);
+        queueSequenceMapper.increment(doctorId, date, timeSlot, seed);
+        Long number = queueSequenceMapper.selectLastInsertId();
+        if (number == null || number <= 0) {
+            throw new BusinessException(ResultCode.SYSTEM_ERROR.getCode(), "排队号分配失败");
+        }
+        return number.intValue();
+    }
+
+    /**
+     * 兜底分配后在Redis中记录下限，Redis恢复后的分配从其之后继续；写入失败时暂存，下次分配前补写
+     */
+    private void recordFloor(Long doctorId, LocalDate date, String timeSlot, int number) {
+        String floorKey = redisKeys(doctorId, date, timeSlot).get(2);
+        pendingFloors.merge(floorKey, new PendingFloor(number, date),
+                (previous, current) -> previous.number >= current.number ? previous : current);
+        try {
+            flushPendingFloors();
+        } catch (Exception e) {
+            log.warn("记录排队号兜底下限失败，下次分配时重试: key={}, error={}", floorKey, e.getMessage());
+        }
+    }
+
+    private void flushPendingFloors() {
+        for (Map.Entry<String, PendingFloor> entry : pendingFloors.entrySet()) {
+            PendingFloor floor = entry.getValue();
+            redisUtil.executeScript(FLOOR_SCRIPT, List.of(entry.getKey()), floor.number, ttlSeconds(floor.date));
+            pendingFloors.remove(entry.getKey(), floor);
+        }
+    }
+
+    /**
+     * 预约表中已分配的最大排队号
+     */
+    private int resolveSeed(Long doctorId, LocalDate date, String timeSlot) {
+        Integer max = appointmentMapper.selectMaxQueueNumber(doctorId, date, timeSlot);
+        return max != null ? max : 0;
+    }
+
+    private String reclaimFlag() {
+        return properties.isReclaimCancelled() ? "1" : "0";
+    }
+
+    private long ttlSeconds(LocalDate date) {
+        if (date == null) {
+            return Duration.ofDays(1).getSeconds();
+        }
+        LocalDateTime expireAt = date.plusDays(properties.getKeyRetainDays()).atStartOfDay();
+        return Math.max(Duration.between(LocalDateTime.now(), expireAt).getSeconds(), 60L);
+    }
+
+    /**
+     * 待补写的兜底下限
+     */
+    private static final class PendingFloor {
+        private final int number;
+        private final LocalDate date;
+
+        private PendingFloor(int number, LocalDate date) {
+            this.number = number;
+            this.date = date;
+        }
+    }
+}
@@ -1,42 +1,225 @@
 package com.hospital.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.annotation.RateLimit;
+import com.hospital.config.RateLimitProperties;
 import com.hospital.service.RateLimitService;
 import com.hospital.util.RedisUtil;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 基于Redis的限流实现
+ *
+ * 每种算法对应一个 Lua 脚本，在一次往返内完成"检查 + 扣减"，并支持一次预取多个许可：
+ * 脚本返回实际授予的许可数，多出的许可放在本地短时间内消费，热点键无需每个请求都访问Redis。
+ * 预取的许可在Redis中已经计数，因此本地消费不会超出全局限额，只可能因许可过期作废而略少放行。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RateLimitServiceImpl implements RateLimitService {
 
     private static final String RATE_LIMIT_PREFIX = "hospital:ratelimit:";
 
-    private final RedisUtil redisUtil;
+    /**
+     * 固定窗口：返回授予的许可数
+     * KEYS[1]=计数键 ARGV[1]=限额 ARGV[2]=窗口毫秒 ARGV[3]=申请数
+     */
+    private static final RedisScript<Long> FIXED_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local count = tonumber(redis.call('GET', KEYS[1]) or '0')\n" +
+            "local grant = math.min(tonumber(ARGV[3]), tonumber(ARGV[1]) - count)\n" +
+            "if grant <= 0 then return 0 end\n" +
+            "if redis.call('INCRBY', KEYS[1], grant) == grant then\n" +
+            "  redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "end\n" +
+            "return grant", Long.class);
+
+    /**
+     * 滑动日志：有序集合按请求时间记录每次放行，清除窗口外的记录后按剩余额度授予许可
+     * KEYS[1]=日志键 ARGV[1]=限额 ARGV[2]=窗口毫秒 ARGV[3]=申请数 ARGV[4]=当前毫秒 ARGV[5]=成员前缀
+     */
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[4])\n" +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - tonumber(ARGV[2]))\n" +
+            "local grant = math.min(tonumber(ARGV[3]), tonumber(ARGV[1]) - redis.call('ZCARD', KEYS[1]))\n" +
+            "if grant <= 0 then return 0 end\n" +
+            "for i = 1, grant do\n" +
+            "  redis.call('ZADD', KEYS[1], now, ARGV[5] .. ':' .. i)\n" +
+            "end\n" +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "return grant", Long.class);
+
+    /**
+     * 令牌桶：按 限额/窗口 的速率补充令牌，桶容量为限额
+     * KEYS[1]=桶哈希 ARGV[1]=容量 ARGV[2]=填满整桶的毫秒数 ARGV[3]=申请数 ARGV[4]=当前毫秒
+     */
+    private static final RedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1])\n" +
+            "local now = tonumber(ARGV[4])\n" +
+            "local data = redis.call('HMGET', KEYS[1], 'tokens', 'ts')\n" +
+            "local tokens = tonumber(data[1]) or capacity\n" +
+            "local ts = tonumber(data[2]) or now\n" +
+            "if now > ts then\n" +
+            "  tokens = math.min(capacity, tokens + (now - ts) * capacity / tonumber(ARGV[2]))\n" +
+            "  ts = now\n" +
+            "end\n" +
+            "local grant = math.min(tonumber(ARGV[3]), math.floor(tokens))\n" +
+            "if grant > 0 then tokens = tokens - grant end\n" +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts))\n" +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "if grant > 0 then return grant end\n" +
+            "return 0", Long.class);
+
+    /** 当前节点ID，作为滑动日志成员前缀，保证不同节点写入的成员不重复 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** 各规则的放行/拒绝计数 */
+    private final ConcurrentMap<String, RuleStats> stats = new ConcurrentHashMap<>();
+
+    /** 本地预取的许可：限流键 -> 剩余许可 */
+    private Cache<String, AtomicInteger> leases;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @PostConstruct
+    public void init() {
+        leases = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxKeys())
+                .expireAfterWrite(properties.getLeaseTtlMs(), TimeUnit.MILLISECONDS)
+                .build();
+    }
 
     @Override
     public boolean tryAcquire(String key, int limit, long windowSeconds) {
+        return tryAcquire(key, key, limit, windowSeconds, RateLimit.Algorithm.SLIDING_WINDOW, 1);
+    }
+
+    @Override
+    public boolean tryAcquire(String rule, String key, int limit, long windowSeconds,
+                              RateLimit.Algorithm algorithm, int leaseSize) {
         if (limit <= 0 || windowSeconds <= 0) {
             return true;
         }
+        boolean allowed = acquire(key, limit, windowSeconds, algorithm, resolveLeaseSize(limit, leaseSize));
+        RuleStats ruleStats = stats.computeIfAbsent(rule, r -> new RuleStats());
+        if (allowed) {
+            ruleStats.allowed.increment();
+        } else {
+            ruleStats.rejected.increment();
+            log.warn("RateLimit triggered: key={}, algorithm={}, limit={}, window={}s", key, algorithm, limit, windowSeconds);
+        }
+        return allowed;
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        stats.forEach((rule, ruleStats) -> {
+            Map<String, Long> item = new LinkedHashMap<>();
+            item.put("allowed", ruleStats.allowed.sum());
+            item.put("rejected", ruleStats.rejected.sum());
+            result.put(rule, item);
+        });
+        return result;
+    }
+
+    private boolean acquire(String key, int limit, long windowSeconds, RateLimit.Algorithm algorithm, int leaseSize) {
+        String redisKey = RATE_LIMIT_PREFIX + algorithm.name().toLowerCase() + ":" + key;
+        if (leaseSize > 1) {
+            AtomicInteger lease = leases.getIfPresent(redisKey);
+            if (lease != null && takeOne(lease)) {
+                return true;
+            }
+        }
+        long granted;
+        try {
+            granted = requestPermits(redisKey, limit, windowSeconds * 1000L, algorithm, leaseSize);
+        } catch (Exception e) {
+            log.warn("限流服务不可用，{}请求: key={}, error={}",
+                    properties.isFailOpen() ? "放行" : "拒绝", key, e.getMessage());
+            return properties.isFailOpen();
+        }
+        if (granted <= 0) {
+            return false;
+        }
+        if (granted > 1) {
+            // 并发预取时后写入的许可覆盖先写入的，被覆盖的许可作废，只会少放行
+            leases.put(redisKey, new AtomicInteger((int) granted - 1));
+        }
+        return true;
+    }
 
-        String redisKey = RATE_LIMIT_PREFIX + key;
-        Long count = redisUtil.increment(redisKey, 1);
-        if (count != null && count == 1) {
-            redisUtil.expire(redisKey, windowSeconds, TimeUnit.SECONDS);
+    private long requestPermits(String redisKey, int limit, long windowMs, RateLimit.Algorithm algorithm, int count) {
+        Long granted;
+        switch (algorithm) {
+            case FIXED_WINDOW:
+                granted = redisUtil.executeScript(FIXED_WINDOW_SCRIPT, Collections.singletonList(redisKey),
+                        limit, windowMs, count);
+                break;
+            case TOKEN_BUCKET:
+                granted = redisUtil.executeScript(TOKEN_BUCKET_SCRIPT, Collections.singletonList(redisKey),
+                        limit, windowMs, count, System.currentTimeMillis());
+                break;
+            case SLIDING_WINDOW:
+            default:
+                granted = redisUtil.executeScript(SLIDING_WINDOW_SCRIPT, Collections.singletonList(redisKey),
+                        limit, windowMs, count, System.currentTimeMillis(), nodeId + ":" + sequence.incrementAndGet());
+                break;
         }
-        boolean allowed = count != null && count <= limit;
-        if (!allowed) {
-            log.warn("RateLimit triggered: key={}, count={}, limit={}, window={}s", key, count, limit, windowSeconds);
+        return granted != null ? granted : 0L;
+    }
+
+    /**
+     * 每次预取的许可数：显式指定时不超过限额，未指定时取 限额/leaseDivisor 并受 maxLeaseSize 约束；
+     * 限额较小的规则（如登录、注册）结果为1，即不预取，保证严格计数
+     */
+    private int resolveLeaseSize(int limit, int leaseSize) {
+        if (leaseSize > 0) {
+            return Math.min(leaseSize, limit);
         }
-        return allowed;
+        int divisor = Math.max(1, properties.getLeaseDivisor());
+        return Math.max(1, Math.min(properties.getMaxLeaseSize(), limit / divisor));
     }
-}
 
+    private boolean takeOne(AtomicInteger lease) {
+        int remaining;
+        do {
+            remaining = lease.get();
+            if (remaining <= 0) {
+                return false;
+            }
+        } while (!lease.compareAndSet(remaining, remaining - 1));
+        return true;
+    }
 
+    private static class RuleStats {
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+    }
+}
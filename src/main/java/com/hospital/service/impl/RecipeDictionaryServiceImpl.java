@@ -0,0 +1,151 @@
+package com.hospital.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hospital.config.RecipeDictionaryProperties;
+import com.hospital.entity.HerbalRecipe;
+import com.hospital.mapper.HerbalRecipeMapper;
+import com.hospital.service.RecipeDictionaryService;
+import com.hospital.util.AhoCorasickMatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 药膳名称内存词典实现
+ *
+ * 名称与待匹配文本都先做 NFKC 规范化（全角转半角）并去掉空白。同名药膳取 ID 最小的一个。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class RecipeDictionaryServiceImpl implements RecipeDictionaryService {
+
+    private volatile Dictionary dictionary;
+
+    @Autowired
+    private RecipeDictionaryProperties properties;
+
+    @Autowired
+    private HerbalRecipeMapper herbalRecipeMapper;
+
+    @Override
+    public synchronized void refresh() {
+        if (!properties.isEnabled()) {
+            dictionary = null;
+            return;
+        }
+        String fingerprint = herbalRecipeMapper.selectNameFingerprint();
+        Dictionary current = dictionary;
+        if (current != null && Objects.equals(current.fingerprint, fingerprint)) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<HerbalRecipe> recipes = herbalRecipeMapper.selectList(new LambdaQueryWrapper<HerbalRecipe>()
+                .select(HerbalRecipe::getId, HerbalRecipe::getRecipeName)
+                .eq(HerbalRecipe::getStatus, 1)
+                .orderByAsc(HerbalRecipe::getId));
+        Map<String, Long> keywords = new HashMap<>();
+        List<String> names = new ArrayList<>(recipes.size());
+        long[] ids = new long[recipes.size()];
+        for (HerbalRecipe recipe : recipes) {
+            String name = normalize(recipe.getRecipeName());
+            if (name.isEmpty()) {
+                continue;
+            }
+            keywords.putIfAbsent(name, recipe.getId());
+            ids[names.size()] = recipe.getId();
+            names.add(name);
+        }
+        dictionary = new Dictionary(AhoCorasickMatcher.build(keywords), names.toArray(new String[0]),
+                Arrays.copyOf(ids, names.size()), fingerprint);
+        log.info("药膳名称词典重建完成: recipes={}, cost={}ms", keywords.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<Long> matchRecipeIds(List<String> lines, int limit) {
+        Dictionary current = dictionary;
+        if (!properties.isEnabled() || current == null) {
+            return null;
+        }
+        Set<Long> matched = new LinkedHashSet<>();
+        for (String line : lines) {
+            String text = normalize(line);
+            if (text.isEmpty()) {
+                continue;
+            }
+            List<AhoCorasickMatcher.Match<Long>> mentions = current.matcher.findLongest(text);
+            if (mentions.isEmpty()) {
+                Long containing = current.findContaining(text);
+                if (containing != null) {
+                    matched.add(containing);
+                }
+            } else {
+                for (AhoCorasickMatcher.Match<Long> mention : mentions) {
+                    matched.add(mention.getValue());
+                    if (matched.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+            if (matched.size() >= limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(matched);
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        StringBuilder builder = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 某一时刻的词典快照
+     */
+    private static final class Dictionary {
+        private final AhoCorasickMatcher<Long> matcher;
+        /** 规范化后的名称，按药膳ID升序，与 ids 一一对应 */
+        private final String[] names;
+        private final long[] ids;
+        private final String fingerprint;
+
+        private Dictionary(AhoCorasickMatcher<Long> matcher, String[] names, long[] ids, String fingerprint) {
+            this.matcher = matcher;
+            this.names = names;
+            this.ids = ids;
+            this.fingerprint = fingerprint;
+        }
+
+        private Long findContaining(String fragment) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].contains(fragment)) {
+                    return ids[i];
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.hospital.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hospital.config.RecipeFeatureProperties;
+import com.hospital.entity.HerbalRecipe;
+import com.hospital.mapper.HerbalRecipeMapper;
+import com.hospital.service.RecipeFeatureService;
+import com.hospital.util.RecipeFeatureStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 药膳内容特征库服务实现
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class RecipeFeatureServiceImpl implements RecipeFeatureService {
+
+    private volatile RecipeFeatureStore store;
+
+    private volatile String fingerprint;
+
+    /** 上次重建时间，热度（收藏数、浏览数）不计入指纹，按 popularityRefreshMs 定期重建 */
+    private volatile long builtAt;
+
+    @Autowired
+    private RecipeFeatureProperties properties;
+
+    @Autowired
+    private HerbalRecipeMapper herbalRecipeMapper;
+
+    @Override
+    public synchronized void refresh() {
+        if (!properties.isEnabled()) {
+            store = null;
+            fingerprint = null;
+            return;
+        }
+        String current = herbalRecipeMapper.selectFeatureFingerprint();
+        long start = System.currentTimeMillis();
+        if (store != null && Objects.equals(fingerprint, current)
+                && start - builtAt < properties.getPopularityRefreshMs()) {
+            return;
+        }
+
+        List<HerbalRecipe> recipes = herbalRecipeMapper.selectList(new LambdaQueryWrapper<HerbalRecipe>()
+                .select(HerbalRecipe::getId, HerbalRecipe::getConstitutionType, HerbalRecipe::getSeason,
+                        HerbalRecipe::getCategory, HerbalRecipe::getEfficacy, HerbalRecipe::getFavoriteCount,
+                        HerbalRecipe::getViewCount)
+                .eq(HerbalRecipe::getStatus, 1));
+        store = RecipeFeatureStore.build(recipes);
+        fingerprint = current;
+        builtAt = start;
+        log.info("药膳特征库重建完成: recipes={}, cost={}ms", store.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public RecipeFeatureStore getStore() {
+        return properties.isEnabled() ? store : null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.hospital.service.impl;
+
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.CacheTags;
+import com.hospital.config.ItemCfProperties;
+import com.hospital.entity.UserRecipeFavorite;
+import com.hospital.mapper.UserRecipeFavoriteMapper;
+import com.hospital.service.RecipeSimilarityService;
+import com.hospital.util.ItemCooccurrenceModel;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 药膳物品协同过滤模型服务实现
+ *
+ * 全量重建按用户顺序流式读取收藏表，只在基本类型数组中累积 (用户, 药膳) 对，构建完成后整体替换模型引用。
+ * 重建期间发生的增量更新可能未被新模型包含，由下一次重建修正。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class RecipeSimilarityServiceImpl implements RecipeSimilarityService {
+
+    private static final String SEPARATOR = "|";
+
+    private static final String ID_SEPARATOR = ",";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile ItemCooccurrenceModel model;
+
+    @Autowired
+    private ItemCfProperties properties;
+
+    @Autowired
+    private UserRecipeFavoriteMapper userRecipeFavoriteMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Override
+    public synchronized void rebuild() {
+        if (!properties.isEnabled()) {
+            model = null;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        FavoritePairs pairs = new FavoritePairs();
+        userRecipeFavoriteMapper.scanFavoritePairs(context -> pairs.add(context.getResultObject()));
+        ItemCooccurrenceModel rebuilt = ItemCooccurrenceModel.build(pairs.userIds, pairs.recipeIds, pairs.size,
+                properties.getNeighbors(), properties.getMaxItemsPerUser());
+        model = rebuilt;
+        log.info("药膳协同过滤模型重建完成: favorites={}, recipes={}, pairs={}, cost={}ms",
+                pairs.size, rebuilt.itemCount(), rebuilt.pairCount(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<Long> recommend(List<Long> favoriteRecipeIds, int limit) {
+        ItemCooccurrenceModel current = model;
+        if (!properties.isEnabled() || current == null) {
+            return null;
+        }
+        long[] recipeIds = favoriteRecipeIds.stream()
+                .filter(id -> id != null)
+                .mapToLong(Long::longValue)
+                .toArray();
+        long[] recommended = current.recommend(recipeIds, limit);
+        List<Long> result = new ArrayList<>(recommended.length);
+        for (long id : recommended) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    @Override
+    public void onFavoriteChanged(Long userId, Long recipeId, boolean favorited) {
+        if (userId == null || recipeId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyAndPublish(userId, recipeId, favorited);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyAndPublish(userId, recipeId, favorited);
+            }
+        });
+    }
+
+    @Override
+    public void handleMessage(String message) {
+        if (message == null || !properties.isEnabled()) {
+            return;
+        }
+        String[] parts = message.split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            long[] others = StringUtils.hasText(parts[3])
+                    ? Arrays.stream(parts[3].split(ID_SEPARATOR)).mapToLong(Long::parseLong).toArray()
+                    : new long[0];
+            apply(Long.parseLong(parts[1]), others, Integer.parseInt(parts[2]));
+        } catch (Exception e) {
+            log.warn("处理协同过滤模型更新消息失败: message={}, error={}", message, e.getMessage());
+        }
+    }
+
+    private void applyAndPublish(Long userId, Long recipeId, boolean favorited) {
+        try {
+            redisUtil.invalidateTag(CacheTags.userRecommendations(userId));
+        } catch (Exception e) {
+            log.warn("失效用户推荐缓存失败: userId={}, error={}", userId, e.getMessage());
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int sign = favorited ? 1 : -1;
+        long[] others;
+        try {
+            others = userRecipeFavoriteMapper.selectRecipeIdsByUserId(userId).stream()
+                    .filter(id -> id != null && !id.equals(recipeId))
+                    .mapToLong(Long::longValue)
+                    .toArray();
+            apply(recipeId, others, sign);
+        } catch (Exception e) {
+            // 本地更新失败时由下一次全量重建修正
+            log.warn("更新协同过滤模型失败: userId={}, recipeId={}, error={}", userId, recipeId, e.getMessage());
+            return;
+        }
+        try {
+            StringBuilder message = new StringBuilder()
+                    .append(nodeId).append(SEPARATOR).append(recipeId).append(SEPARATOR).append(sign).append(SEPARATOR);
+            for (int i = 0; i < others.length; i++) {
+                if (i > 0) {
+                    message.append(ID_SEPARATOR);
+                }
+                message.append(others[i]);
+            }
+            redisUtil.publish(CacheConstants.ITEM_CF_CHANNEL, message.toString());
+        } catch (Exception e) {
+            log.warn("发送协同过滤模型更新广播失败: recipeId={}, error={}", recipeId, e.getMessage());
+        }
+    }
+
+    private void apply(long recipeId, long[] otherRecipeIds, int sign) {
+        ItemCooccurrenceModel current = model;
+        if (current == null || otherRecipeIds.length > properties.getMaxItemsPerUser()) {
+            return;
+        }
+        current.update(recipeId, otherRecipeIds, sign);
+    }
+
+    /**
+     * 全量扫描时累积的 (用户, 药膳) 对
+     */
+    private static final class FavoritePairs {
+        private long[] userIds = new long[1024];
+        private long[] recipeIds = new long[1024];
+        private int size;
+
+        private void add(UserRecipeFavorite favorite) {
+            if (favorite == null || favorite.getUserId() == null || favorite.getRecipeId() == null) {
+                return;
+            }
+            if (size == userIds.length) {
+                userIds = Arrays.copyOf(userIds, size * 2);
+                recipeIds = Arrays.copyOf(recipeIds, size * 2);
+            }
+            userIds[size] = favorite.getUserId();
+            recipeIds[size++] = favorite.getRecipeId();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.common.constant.SystemConstants;
 import com.hospital.config.AvatarConfig;
 import com.hospital.entity.Appointment;
@@ -15,6 +16,7 @@ import com.hospital.mapper.ConsultationRecordMapper;
 import com.hospital.mapper.ReviewMapper;
 import com.hospital.service.OssService;
 import com.hospital.service.ReviewService;
+import com.hospital.util.ReadThroughCache;
 import com.hospital.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +27,7 @@ import org.springframework.util.StringUtils;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 评价管理服务实现类
@@ -45,6 +48,9 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
     @Autowired
     private OssService ossService;
 
@@ -75,7 +81,6 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
             log.warn("无效的页面大小参数：{}", params.get("pageSize"));
         }
 
-        Page<Review> pageObject = new Page<>(page, pageSize);
         params.put("doctorId", doctorId);
 
         // 热门区间：仅缓存前3页，使用参数哈希简化层级
@@ -91,46 +96,22 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
         }
         String cacheKey = redisUtil.buildCacheKey("hospital:common:review:v2:list:doctor:" + doctorId, page, pageSize, filterParams);
 
-        if (page <= 3) {
-            Object cached = redisUtil.get(cacheKey);
-            if (cached != null) {
-                @SuppressWarnings("unchecked")
-                IPage<Review> cachedPage = (IPage<Review>) cached;
-                return cachedPage;
-            }
-        }
-
-        IPage<Review> result = reviewMapper.selectDoctorReviews(pageObject, params);
-
-        // 处理患者头像URL
-        if (result != null && result.getRecords() != null) {
-            for (Review review : result.getRecords()) {
-                if (review != null && review.getPatientId() != null) {
-                    review.setPatientAvatar(resolveAvatarUrl(review.getPatientAvatar(), review.getPatientId(), "patient"));
-                }
-            }
-        }
-
-        if (page <= 3) {
-            redisUtil.set(cacheKey, result, CacheConstants.DOCTOR_REVIEWS_HOT_TTL_SECONDS, TimeUnit.SECONDS);
-        }
-        return result;
+        long current = page;
+        long size = pageSize;
+        Map<String, Object> queryParams = new java.util.HashMap<>(params);
+        Supplier<IPage<Review>> query = () -> fillPatientAvatars(
+                reviewMapper.selectDoctorReviews(new Page<>(current, size), queryParams));
+        return page <= 3
+                ? readThroughCache.get(cacheKey, CacheConstants.DOCTOR_REVIEWS_HOT_TTL_SECONDS, query,
+                        CacheTags.doctorReviews(doctorId))
+                : query.get();
     }
 
     @Override
     public Review getReviewById(Long id) {
         log.info("获取评价详情，评价ID：{}", id);
         String cacheKey = String.format("hospital:common:review:v2:detail:id:%d", id);
-        Object cached = redisUtil.get(cacheKey);
-        if (cached != null) {
-            return (Review) cached;
-        }
-
-        Review review = getById(id);
-        if (review != null) {
-            redisUtil.set(cacheKey, review, CacheConstants.REVIEW_DETAIL_TTL_SECONDS, TimeUnit.SECONDS);
-        }
-        return review;
+        return readThroughCache.get(cacheKey, CacheConstants.REVIEW_DETAIL_TTL_SECONDS, () -> getById(id));
     }
 
     @Override
@@ -198,8 +179,8 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
             reviewMapper.updateDoctorRating(review.getDoctorId());
 
             // 失效医生评价热门分页缓存（该医生）与管理员端列表缓存
-            redisUtil.deleteByPattern(String.format("hospital:common:review:v2:list:doctor:%d:*", review.getDoctorId()));
-            redisUtil.deleteByPattern("hospital:admin:review:list:*");
+            redisUtil.invalidateTag(CacheTags.doctorReviews(review.getDoctorId()));
+            redisUtil.invalidateTag(CacheTags.ADMIN_REVIEW_LIST);
         }
 
         return result;
@@ -226,9 +207,9 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
 
             // 失效医生评价热门分页缓存（该医生）与管理员端列表缓存
             if (existed != null && existed.getDoctorId() != null) {
-                redisUtil.deleteByPattern(String.format("hospital:common:review:v2:list:doctor:%d:*", existed.getDoctorId()));
+                redisUtil.invalidateTag(CacheTags.doctorReviews(existed.getDoctorId()));
             }
-            redisUtil.deleteByPattern("hospital:admin:review:list:*");
+            redisUtil.invalidateTag(CacheTags.ADMIN_REVIEW_LIST);
         }
 
         return updated;
@@ -250,8 +231,8 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
             redisUtil.delete(String.format("hospital:common:review:v2:detail:id:%d", id));
 
             // 失效医生评价热门分页缓存（该医生）与管理员端列表缓存
-            redisUtil.deleteByPattern(String.format("hospital:common:review:v2:list:doctor:%d:*", review.getDoctorId()));
-            redisUtil.deleteByPattern("hospital:admin:review:list:*");
+            redisUtil.invalidateTag(CacheTags.doctorReviews(review.getDoctorId()));
+            redisUtil.invalidateTag(CacheTags.ADMIN_REVIEW_LIST);
         }
 
         return result;
@@ -267,8 +248,6 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
         int p = page != null ? page : 1;
         int ps = pageSize != null ? pageSize : SystemConstants.DEFAULT_PAGE_SIZE;
 
-        Page<Review> pageObject = new Page<>(p, ps);
-
         // 管理员端列表：仅缓存前2页，使用参数哈希简化层级
         Map<String, Object> filterParams = new java.util.HashMap<>();
         if (params.containsKey("status") && !"ALL".equals(String.valueOf(params.get("status")))) {
@@ -279,50 +258,41 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
         }
         String cacheKey = redisUtil.buildCacheKey("hospital:admin:review:list", p, ps, filterParams);
 
-        if (p <= 2) {
-            Object cached = redisUtil.get(cacheKey);
-            if (cached != null) {
-                @SuppressWarnings("unchecked")
-                IPage<Review> cachedPage = (IPage<Review>) cached;
-                return cachedPage;
-            }
-        }
-
-        IPage<Review> result = reviewMapper.selectAllReviews(pageObject, params);
-
-        // 处理患者头像URL
-        if (result != null && result.getRecords() != null) {
-            for (Review review : result.getRecords()) {
-                if (review != null && review.getPatientId() != null) {
-                    review.setPatientAvatar(resolveAvatarUrl(review.getPatientAvatar(), review.getPatientId(), "patient"));
-                }
-            }
-        }
-
-        if (p <= 2) {
-            redisUtil.set(cacheKey, result, CacheConstants.ADMIN_REVIEWS_TTL_SECONDS, TimeUnit.SECONDS);
-        }
-        return result;
+        Map<String, Object> queryParams = new java.util.HashMap<>(params);
+        Supplier<IPage<Review>> query = () -> fillPatientAvatars(
+                reviewMapper.selectAllReviews(new Page<>(p, ps), queryParams));
+        return p <= 2
+                ? readThroughCache.get(cacheKey, CacheConstants.ADMIN_REVIEWS_TTL_SECONDS, query,
+                        CacheTags.ADMIN_REVIEW_LIST)
+                : query.get();
     }
 
     @Override
     public Review getReviewByAppointmentId(Long appointmentId) {
         log.info("根据预约ID获取评价，预约ID：{}", appointmentId);
         String cacheKey = String.format("hospital:common:review:v2:detail:appointment:%d", appointmentId);
-        Object cached = redisUtil.get(cacheKey);
-        if (cached != null) {
-            return (Review) cached;
-        }
-
-        Review review = reviewMapper.selectByAppointmentId(appointmentId);
-        if (review != null) {
+        return readThroughCache.get(cacheKey, CacheConstants.REVIEW_DETAIL_TTL_SECONDS, () -> {
+            Review review = reviewMapper.selectByAppointmentId(appointmentId);
             // 处理患者头像URL
-            if (review.getPatientId() != null) {
+            if (review != null && review.getPatientId() != null) {
                 review.setPatientAvatar(resolveAvatarUrl(review.getPatientAvatar(), review.getPatientId(), "patient"));
             }
-            redisUtil.set(cacheKey, review, CacheConstants.REVIEW_DETAIL_TTL_SECONDS, TimeUnit.SECONDS);
+            return review;
+        });
+    }
+
+    /**
+     * 处理分页中患者头像URL
+     */
+    private IPage<Review> fillPatientAvatars(IPage<Review> result) {
+        if (result != null && result.getRecords() != null) {
+            for (Review review : result.getRecords()) {
+                if (review != null && review.getPatientId() != null) {
+                    review.setPatientAvatar(resolveAvatarUrl(review.getPatientAvatar(), review.getPatientId(), "patient"));
+                }
+            }
         }
-        return review;
+        return result;
     }
 
     /**
@@ -0,0 +1,239 @@
+package com.hospital.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.entity.Schedule;
+import com.hospital.mapper.ScheduleMapper;
+import com.hospital.service.ScheduleCacheService;
+import com.hospital.service.ScheduleQuotaService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 基于Redis哈希的医生排班视图缓存
+ *
+ * 哈希字段：
+ * {scheduleId} = 排班JSON，{scheduleId}:remaining / {scheduleId}:booked = 号源计数，
+ * month:{yyyy-MM} = 该月已加载的排班ID（逗号分隔），epoch = 失效计数。
+ * 失效时递增 epoch，加载前后 epoch 不一致时放弃写入，避免把失效前的数据库快照写回缓存。
+ * 号源调整只原地修改已缓存排班的计数，不递增 epoch，预约高峰期间冷月份的加载不会因此反复失败；
+ * 加载期间对尚未缓存排班的调整可能被较早的快照覆盖，启用号源预扣时快照已叠加Redis实时号源，
+ * 其余偏差由排班视图TTL兜底。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class ScheduleCacheServiceImpl implements ScheduleCacheService {
+
+    private static final String EPOCH_FIELD = "epoch";
+
+    private static final String MONTH_FIELD_PREFIX = "month:";
+
+    /**
+     * 读取某月排班：返回 [json, remaining, booked, ...]，该月未加载时返回 nil
+     * KEYS[1]=视图哈希 ARGV[1]=月份字段
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('HGET', KEYS[1], ARGV[1])\n" +
+            "if not ids then return false end\n" +
+            "local result = {}\n" +
+            "for id in string.gmatch(ids, '[^,]+') do\n" +
+            "  local data = redis.call('HMGET', KEYS[1], id, id .. ':remaining', id .. ':booked')\n" +
+            "  if data[1] then\n" +
+            "    table.insert(result, data[1])\n" +
+            "    table.insert(result, data[2] or '')\n" +
+            "    table.insert(result, data[3] or '')\n" +
+            "  end\n" +
+            "end\n" +
+            "return result", List.class);
+
+    /**
+     * 写入某月排班：epoch 与加载前读取的值一致时才写入
+     * KEYS[1]=视图哈希 ARGV[1]=加载前的epoch ARGV[2]=月份字段 ARGV[3]=排班ID列表 ARGV[4]=TTL秒数
+     * ARGV[5..]=每个排班依次为 id, json, remaining, booked
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('HGET', KEYS[1], 'epoch') or '') ~= ARGV[1] then return 0 end\n" +
+            "for i = 5, #ARGV, 4 do\n" +
+            "  redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1],\n" +
+            "      ARGV[i] .. ':remaining', ARGV[i + 2], ARGV[i] .. ':booked', ARGV[i + 3])\n" +
+            "end\n" +
+            "redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[4])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 调整号源：排班已缓存时原地修改剩余/已约数，返回是否修改；不递增 epoch
+     * KEYS[1]=视图哈希 ARGV[1]=排班ID ARGV[2]=剩余号源变化量
+     */
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1] .. ':remaining') == 0 then return 0 end\n" +
+            "redis.call('HINCRBY', KEYS[1], ARGV[1] .. ':remaining', ARGV[2])\n" +
+            "redis.call('HINCRBY', KEYS[1], ARGV[1] .. ':booked', -tonumber(ARGV[2]))\n" +
+            "return 1", Long.class);
+
+    /**
+     * 失效：清空哈希但保留递增后的 epoch，使进行中的加载放弃写入
+     * KEYS[1]=视图哈希 ARGV[1]=TTL秒数
+     */
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = redis.call('HINCRBY', KEYS[1], 'epoch', 1)\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "redis.call('HSET', KEYS[1], 'epoch', epoch)\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1])\n" +
+            "return epoch", Long.class);
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private ScheduleMapper scheduleMapper;
+
+    @Autowired
+    private ScheduleQuotaService scheduleQuotaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public List<Schedule> getMonth(Long doctorId, YearMonth month) {
+        String key = viewKey(doctorId);
+        String monthField = MONTH_FIELD_PREFIX + month;
+        try {
+            List<String> cached = readMonth(key, monthField);
+            if (cached != null) {
+                return parse(cached);
+            }
+        } catch (Exception e) {
+            log.warn("读取排班缓存失败，回源数据库: doctorId={}, month={}, error={}", doctorId, month, e.getMessage());
+            return selectMonth(doctorId, month);
+        }
+        return loadMonth(key, doctorId, month, monthField);
+    }
+
+    @Override
+    public List<Schedule> getDate(Long doctorId, LocalDate date) {
+        return getMonth(doctorId, YearMonth.from(date)).stream()
+                .filter(schedule -> date.equals(schedule.getScheduleDate()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void adjustQuota(Long doctorId, Long scheduleId, int delta) {
+        if (doctorId == null || scheduleId == null) {
+            return;
+        }
+        try {
+            redisUtil.executeScript(ADJUST_SCRIPT, Collections.singletonList(viewKey(doctorId)),
+                    scheduleId, delta);
+        } catch (Exception e) {
+            // 调整失败时退化为整体失效，保证不会长期展示错误的号源
+            log.warn("调整排班缓存号源失败，失效医生排班缓存: doctorId={}, scheduleId={}, error={}",
+                    doctorId, scheduleId, e.getMessage());
+            evictDoctor(doctorId);
+        }
+    }
+
+    @Override
+    public void evictDoctor(Long doctorId) {
+        if (doctorId == null) {
+            return;
+        }
+        try {
+            redisUtil.executeScript(EVICT_SCRIPT, Collections.singletonList(viewKey(doctorId)),
+                    CacheConstants.SCHEDULE_VIEW_TTL_SECONDS);
+        } catch (Exception e) {
+            log.warn("失效医生排班缓存失败: doctorId={}, error={}", doctorId, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> readMonth(String key, String monthField) {
+        return (List<String>) redisUtil.executeScript(READ_SCRIPT, Collections.singletonList(key), monthField);
+    }
+
+    /**
+     * 从数据库加载某月排班并写入缓存，加载期间缓存发生变更时只返回结果不写入
+     */
+    private List<Schedule> loadMonth(String key, Long doctorId, YearMonth month, String monthField) {
+        String epoch;
+        try {
+            epoch = redisUtil.hGetAsString(key, EPOCH_FIELD);
+        } catch (Exception e) {
+            log.warn("读取排班缓存版本失败，跳过写入: doctorId={}, error={}", doctorId, e.getMessage());
+            return selectMonth(doctorId, month);
+        }
+        List<Schedule> schedules = selectMonth(doctorId, month);
+        try {
+            List<Object> args = new ArrayList<>(4 + schedules.size() * 4);
+            args.add(epoch != null ? epoch : "");
+            args.add(monthField);
+            args.add(schedules.stream().map(s -> String.valueOf(s.getId())).collect(Collectors.joining(",")));
+            args.add(CacheConstants.SCHEDULE_VIEW_TTL_SECONDS);
+            for (Schedule schedule : schedules) {
+                args.add(schedule.getId());
+                args.add(objectMapper.writeValueAsString(schedule));
+                args.add(schedule.getRemainingQuota() != null ? schedule.getRemainingQuota() : 0);
+                args.add(schedule.getBookedQuota() != null ? schedule.getBookedQuota() : 0);
+            }
+            redisUtil.executeScript(LOAD_SCRIPT, Collections.singletonList(key), args.toArray());
+        } catch (Exception e) {
+            log.warn("写入排班缓存失败: doctorId={}, month={}, error={}", doctorId, month, e.getMessage());
+        }
+        return schedules;
+    }
+
+    /**
+     * 查询数据库中某月排班；启用号源预扣时以Redis中的实时号源为准
+     */
+    private List<Schedule> selectMonth(Long doctorId, YearMonth month) {
+        List<Schedule> schedules = scheduleMapper.selectByDoctorIdAndDateRange(doctorId, month.atDay(1), month.atEndOfMonth());
+        if (schedules == null) {
+            return new ArrayList<>();
+        }
+        if (scheduleQuotaService.isEnabled()) {
+            scheduleQuotaService.applyLiveQuota(schedules);
+        }
+        return schedules;
+    }
+
+    private List<Schedule> parse(List<String> cached) throws Exception {
+        List<Schedule> schedules = new ArrayList<>(cached.size() / 3);
+        for (int i = 0; i + 2 < cached.size(); i += 3) {
+            Schedule schedule = objectMapper.readValue(cached.get(i), Schedule.class);
+            schedule.setRemainingQuota(parseInt(cached.get(i + 1), schedule.getRemainingQuota()));
+            schedule.setBookedQuota(parseInt(cached.get(i + 2), schedule.getBookedQuota()));
+            schedules.add(schedule);
+        }
+        return schedules;
+    }
+
+    private Integer parseInt(String value, Integer fallback) {
+        if (value == null || value.isEmpty()) {
+            return fallback;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private String viewKey(Long doctorId) {
+        return CacheConstants.SCHEDULE_VIEW_PREFIX + doctorId;
+    }
+}
@@ -0,0 +1,488 @@
+package com.hospital.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.config.ScheduleQuotaProperties;
+import com.hospital.entity.Schedule;
+import com.hospital.mapper.AppointmentMapper;
+import com.hospital.mapper.ScheduleMapper;
+import com.hospital.service.QueueNumberService;
+import com.hospital.service.ScheduleQuotaService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于Redis的号源预扣实现
+ *
+ * 每个排班对应一个哈希：total / remaining / booked，
+ * 扣减、释放均在Lua脚本中原子完成，并把排班ID写入脏集合等待回写数据库；
+ * 预扣时在同一脚本内通过 {@link QueueNumberService} 的序列键分配排队号。
+ * 号源键不存在时按已提交的排班行加载：剩余号源 = 总号源 - 有效预约数，不使用异步回写的数据库快照；
+ * 排班修改或删除提交后递增版本号并删除号源键，加载期间版本号变化则放弃写入。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class ScheduleQuotaServiceImpl implements ScheduleQuotaService {
+
+    /** 号源未加载到Redis */
+    private static final long NOT_LOADED = -2L;
+
+    /** 号源不足 / 无可释放号源 */
+    private static final long EXHAUSTED = -1L;
+
+    /** 排队号序列未初始化 */
+    private static final long QUEUE_NOT_SEEDED = -3L;
+
+    /**
+     * 预扣：剩余号源减一、已约加一，并分配排队号（开启回收时优先取最小空号），返回排队号；
+     * 序列值低于兜底下限时先抬升，避免重发故障期间由数据库分配过的号码
+     * KEYS[1]=号源哈希 KEYS[2]=脏集合 KEYS[3]=排队号序列 KEYS[4]=空号集合 KEYS[5]=兜底下限
+     * ARGV[1]=排班ID ARGV[2]=是否回收空号(1/0)
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end\n" +
+            "if redis.call('EXISTS', KEYS[3]) == 0 then return -3 end\n" +
+            "local remaining = tonumber(redis.call('HGET', KEYS[1], 'remaining') or '0')\n" +
+            "if remaining <= 0 then return -1 end\n" +
+            "redis.call('HINCRBY', KEYS[1], 'remaining', -1)\n" +
+            "redis.call('HINCRBY', KEYS[1], 'booked', 1)\n" +
+            "redis.call('SADD', KEYS[2], ARGV[1])\n" +
+            "if ARGV[2] == '1' then\n" +
+            "  local free = redis.call('ZRANGE', KEYS[4], 0, 0)\n" +
+            "  if #free > 0 then\n" +
+            "    redis.call('ZREM', KEYS[4], free[1])\n" +
+            "    return tonumber(free[1])\n" +
+            "  end\n" +
+            "end\n" +
+            "local current = tonumber(redis.call('GET', KEYS[3]))\n" +
+            "local floor = tonumber(redis.call('GET', KEYS[5]) or '0')\n" +
+            "if current < floor then\n" +
+            "  local ttl = redis.call('PTTL', KEYS[3])\n" +
+            "  if ttl > 0 then\n" +
+            "    redis.call('SET', KEYS[3], floor, 'PX', ttl)\n" +
+            "  else\n" +
+            "    redis.call('SET', KEYS[3], floor)\n" +
+            "  end\n" +
+            "end\n" +
+            "return redis.call('INCR', KEYS[3])", Long.class);
+
+    /**
+     * 释放：剩余号源加一、已约减一，返回释放后的剩余号源
+     * KEYS[1]=号源哈希 KEYS[2]=脏集合 ARGV[1]=排班ID
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end\n" +
+            "local booked = tonumber(redis.call('HGET', KEYS[1], 'booked') or '0')\n" +
+            "if booked <= 0 then return -1 end\n" +
+            "redis.call('HINCRBY', KEYS[1], 'booked', -1)\n" +
+            "local remaining = redis.call('HINCRBY', KEYS[1], 'remaining', 1)\n" +
+            "redis.call('SADD', KEYS[2], ARGV[1])\n" +
+            "return remaining", Long.class);
+
+    /**
+     * 加载：键不存在且版本号仍为读取时的值才写入，避免覆盖并发加载或已有的预扣结果，也避免写入排班修改前读到的号源；
+     * 写入后加入脏集合，由回写任务把数据库中的号源与状态同步为加载值
+     * KEYS[1]=号源哈希 KEYS[2]=版本号 KEYS[3]=脏集合 ARGV=total, remaining, booked, ttlSeconds, 读取时的版本号, 排班ID
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n" +
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[5] then return 0 end\n" +
+            "redis.call('HSET', KEYS[1], 'total', ARGV[1], 'remaining', ARGV[2], 'booked', ARGV[3])\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[4])\n" +
+            "redis.call('SADD', KEYS[3], ARGV[6])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 移除：版本号加一并删除号源哈希，进行中的加载因版本号变化放弃写入
+     * KEYS[1]=号源哈希 KEYS[2]=版本号 ARGV[1]=版本号过期秒数
+     */
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[1])\n" +
+            "return redis.call('DEL', KEYS[1])", Long.class);
+
+    /**
+     * 批量读取版本号：按 KEYS 顺序返回，不存在时为 0
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> VERSIONS_SCRIPT = new DefaultRedisScript<>(
+            "local result = {}\n" +
+            "for i = 1, #KEYS do\n" +
+            "  result[i] = redis.call('GET', KEYS[i]) or '0'\n" +
+            "end\n" +
+            "return result", List.class);
+
+    /** 版本号键保留时长，远大于一次加载的耗时 */
+    private static final long VERSION_TTL_SECONDS = 86400L;
+
+    /** 加载因版本号变化被放弃时的最多尝试次数 */
+    private static final int LOAD_ATTEMPTS = 2;
+
+    /** 预热时每批读取的排班数 */
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    /**
+     * 对账修正：仅当已约数仍等于观察值时才改写，避免覆盖对账期间的新预扣
+     * KEYS[1]=号源哈希 KEYS[2]=脏集合 ARGV[1]=观察到的已约数 ARGV[2]=修正后的已约数 ARGV[3]=排班ID
+     */
+    private static final RedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "if redis.call('HGET', KEYS[1], 'booked') ~= ARGV[1] then return 0 end\n" +
+            "local total = tonumber(redis.call('HGET', KEYS[1], 'total') or '0')\n" +
+            "local booked = tonumber(ARGV[2])\n" +
+            "local remaining = total - booked\n" +
+            "if remaining < 0 then remaining = 0 end\n" +
+            "redis.call('HSET', KEYS[1], 'booked', booked, 'remaining', remaining)\n" +
+            "redis.call('SADD', KEYS[2], ARGV[3])\n" +
+            "return 1", Long.class);
+
+    /**
+     * 批量读取号源快照：按 KEYS 顺序返回 [remaining, booked, ...]，未加载的排班返回空串
+     * KEYS=号源哈希
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SNAPSHOT_SCRIPT = new DefaultRedisScript<>(
+            "local result = {}\n" +
+            "for i = 1, #KEYS do\n" +
+            "  local data = redis.call('HMGET', KEYS[i], 'remaining', 'booked')\n" +
+            "  table.insert(result, data[1] or '')\n" +
+            "  table.insert(result, data[2] or '')\n" +
+            "end\n" +
+            "return result", List.class);
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private ScheduleMapper scheduleMapper;
+
+    @Autowired
+    private AppointmentMapper appointmentMapper;
+
+    @Autowired
+    private ScheduleQuotaProperties properties;
+
+    @Autowired
+    private QueueNumberService queueNumberService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 加载时在独立事务中读取排班与预约数：预约事务内的一致性快照可能早于排班修改的提交
+     */
+    private TransactionTemplate freshRead;
+
+    /**
+     * 上一轮对账发现的偏差：scheduleId -> [Redis已约数, 数据库有效预约数]
+     * 连续两轮观察到相同偏差才修正，避免误伤“已预扣、未提交”的在途预约
+     */
+    private final Map<Long, long[]> pendingDrifts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        freshRead = new TransactionTemplate(transactionManager);
+        freshRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        freshRead.setReadOnly(true);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public Integer reserve(Schedule schedule) {
+        Long scheduleId = schedule.getId();
+        Long result = executeReserve(schedule);
+        for (int attempt = 0; attempt < LOAD_ATTEMPTS && result != null && result == NOT_LOADED; attempt++) {
+            load(Collections.singletonList(scheduleId));
+            result = executeReserve(schedule);
+        }
+        if (result != null && result == QUEUE_NOT_SEEDED) {
+            queueNumberService.ensureSeeded(schedule.getDoctorId(), schedule.getScheduleDate(), schedule.getTimeSlot());
+            result = executeReserve(schedule);
+        }
+        if (result == null || result == NOT_LOADED || result == QUEUE_NOT_SEEDED) {
+            throw new IllegalStateException("号源加载失败: scheduleId=" + scheduleId);
+        }
+        if (result == EXHAUSTED) {
+            return null;
+        }
+        return result.intValue();
+    }
+
+    @Override
+    public boolean release(Long scheduleId) {
+        if (scheduleId == null) {
+            return false;
+        }
+        Long result = redisUtil.executeScript(RELEASE_SCRIPT,
+                Arrays.asList(quotaKey(scheduleId), CacheConstants.SCHEDULE_QUOTA_DIRTY_KEY), scheduleId);
+        if (result != null && result == NOT_LOADED) {
+            // Redis中没有该排班，数据库即为准，直接回补
+            return scheduleMapper.increaseQuota(scheduleId) > 0;
+        }
+        if (result != null && result == EXHAUSTED) {
+            log.warn("释放号源时已约数为0，忽略: scheduleId={}", scheduleId);
+            return false;
+        }
+        return result != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void applyLiveQuota(List<Schedule> schedules) {
+        if (schedules == null || schedules.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(schedules.size());
+        for (Schedule schedule : schedules) {
+            keys.add(quotaKey(schedule.getId()));
+        }
+        List<Object> values = redisUtil.executeScript(SNAPSHOT_SCRIPT, keys);
+        if (values == null) {
+            return;
+        }
+        for (int i = 0; i < schedules.size() && i * 2 + 1 < values.size(); i++) {
+            Object remaining = values.get(i * 2);
+            Object booked = values.get(i * 2 + 1);
+            if (remaining instanceof String && !((String) remaining).isEmpty()) {
+                schedules.get(i).setRemainingQuota((int) parseLong((String) remaining));
+                schedules.get(i).setBookedQuota((int) parseLong((String) booked));
+            }
+        }
+    }
+
+    @Override
+    public void evict(Long scheduleId) {
+        if (scheduleId == null) {
+            return;
+        }
+        // 不回写：重新加载时按有效预约数计算，Redis中基于旧排班的快照不应覆盖管理员的修改
+        redisUtil.executeScript(EVICT_SCRIPT, Arrays.asList(quotaKey(scheduleId), versionKey(scheduleId)),
+                VERSION_TTL_SECONDS);
+    }
+
+    @Override
+    public int preload(LocalDate startDate, LocalDate endDate) {
+        List<Schedule> schedules = selectSchedules(startDate, endDate);
+        int loaded = 0;
+        for (int from = 0; from < schedules.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> ids = new ArrayList<>();
+            for (Schedule schedule : schedules.subList(from, Math.min(from + LOAD_BATCH_SIZE, schedules.size()))) {
+                ids.add(schedule.getId());
+            }
+            try {
+                loaded += load(ids);
+            } catch (Exception e) {
+                log.warn("预热号源失败: scheduleIds={}..., error={}", ids.get(0), e.getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public int flushDirty() {
+        List<String> ids = redisUtil.sPop(CacheConstants.SCHEDULE_QUOTA_DIRTY_KEY, properties.getFlushBatchSize());
+        int flushed = 0;
+        for (String id : ids) {
+            Long scheduleId = Long.valueOf(id);
+            try {
+                if (flushOne(scheduleId)) {
+                    flushed++;
+                }
+            } catch (Exception e) {
+                // 回写失败放回脏集合，下一轮重试
+                redisUtil.sAdd(CacheConstants.SCHEDULE_QUOTA_DIRTY_KEY, id);
+                log.warn("号源回写失败: scheduleId={}, error={}", scheduleId, e.getMessage());
+            }
+        }
+        return flushed;
+    }
+
+    @Override
+    public int reconcile() {
+        LocalDate today = LocalDate.now();
+        List<Schedule> schedules = selectSchedules(today, today.plusDays(Math.max(properties.getPreloadDays() - 1, 0)));
+        if (schedules.isEmpty()) {
+            pendingDrifts.clear();
+            return 0;
+        }
+        Map<Long, Long> activeCounts = countActive(schedules);
+        Map<Long, long[]> observed = new HashMap<>();
+        int corrected = 0;
+        for (Schedule schedule : schedules) {
+            Long scheduleId = schedule.getId();
+            Map<String, String> snapshot = redisUtil.hGetAllAsString(quotaKey(scheduleId));
+            if (snapshot.isEmpty()) {
+                continue;
+            }
+            long booked = parseLong(snapshot.get("booked"));
+            long actual = activeCounts.getOrDefault(scheduleId, 0L);
+            if (booked == actual) {
+                continue;
+            }
+            long[] previous = pendingDrifts.get(scheduleId);
+            if (previous != null && previous[0] == booked && previous[1] == actual) {
+                Long result = redisUtil.executeScript(RECONCILE_SCRIPT,
+                        Arrays.asList(quotaKey(scheduleId), CacheConstants.SCHEDULE_QUOTA_DIRTY_KEY),
+                        booked, actual, scheduleId);
+                if (result != null && result == 1L) {
+                    corrected++;
+                    log.warn("号源对账修正: scheduleId={}, redisBooked={}, dbActive={}", scheduleId, booked, actual);
+                }
+            } else {
+                observed.put(scheduleId, new long[]{booked, actual});
+            }
+        }
+        pendingDrifts.clear();
+        pendingDrifts.putAll(observed);
+        return corrected;
+    }
+
+    private Long executeReserve(Schedule schedule) {
+        List<String> keys = new ArrayList<>(5);
+        keys.add(quotaKey(schedule.getId()));
+        keys.add(CacheConstants.SCHEDULE_QUOTA_DIRTY_KEY);
+        keys.addAll(queueNumberService.redisKeys(schedule.getDoctorId(), schedule.getScheduleDate(), schedule.getTimeSlot()));
+        return redisUtil.executeScript(RESERVE_SCRIPT, keys,
+                schedule.getId(), queueNumberService.isReclaimEnabled() ? "1" : "0");
+    }
+
+    /**
+     * 按已提交的排班行加载号源到Redis（已存在、已删除或加载期间被修改的排班跳过）
+     * 已约数取有效预约数，不使用数据库中异步回写的号源快照，避免重放未回写的预扣
+     *
+     * @param scheduleIds 排班ID
+     * @return 新加载的排班数
+     */
+    @SuppressWarnings("unchecked")
+    private int load(List<Long> scheduleIds) {
+        List<String> versionKeys = new ArrayList<>(scheduleIds.size());
+        for (Long scheduleId : scheduleIds) {
+            versionKeys.add(versionKey(scheduleId));
+        }
+        // 先读版本号再读数据库，之后提交的修改都会使版本号变化
+        List<Object> versions = redisUtil.executeScript(VERSIONS_SCRIPT, versionKeys);
+        Map<Long, Long> activeCounts = new HashMap<>();
+        List<Schedule> schedules = freshRead.execute(status -> {
+            List<Schedule> rows = scheduleMapper.selectBatchIds(scheduleIds);
+            if (rows != null && !rows.isEmpty()) {
+                activeCounts.putAll(countActive(rows));
+            }
+            return rows;
+        });
+        if (schedules == null || versions == null || versions.size() != scheduleIds.size()) {
+            return 0;
+        }
+        int loaded = 0;
+        for (Schedule schedule : schedules) {
+            Long scheduleId = schedule.getId();
+            int total = schedule.getTotalQuota() != null ? schedule.getTotalQuota() : 0;
+            long booked = activeCounts.getOrDefault(scheduleId, 0L);
+            long remaining = Math.max(total - booked, 0L);
+            Long result = redisUtil.executeScript(LOAD_SCRIPT,
+                    Arrays.asList(quotaKey(scheduleId), versionKey(scheduleId), CacheConstants.SCHEDULE_QUOTA_DIRTY_KEY),
+                    total, remaining, booked, ttlSeconds(schedule.getScheduleDate()),
+                    versions.get(scheduleIds.indexOf(scheduleId)), scheduleId);
+            if (result != null && result == 1L) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 回写单个排班的号源快照
+     *
+     * @return Redis中存在该排班并已回写时返回 true
+     */
+    private boolean flushOne(Long scheduleId) {
+        Map<String, String> snapshot = redisUtil.hGetAllAsString(quotaKey(scheduleId));
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+        scheduleMapper.syncQuota(scheduleId,
+                (int) parseLong(snapshot.get("remaining")),
+                (int) parseLong(snapshot.get("booked")));
+        return true;
+    }
+
+    private List<Schedule> selectSchedules(LocalDate startDate, LocalDate endDate) {
+        QueryWrapper<Schedule> wrapper = new QueryWrapper<>();
+        wrapper.ge("schedule_date", startDate);
+        wrapper.le("schedule_date", endDate);
+        List<Schedule> schedules = scheduleMapper.selectList(wrapper);
+        return schedules != null ? schedules : new ArrayList<>();
+    }
+
+    private Map<Long, Long> countActive(List<Schedule> schedules) {
+        Map<Long, Long> counts = new HashMap<>();
+        int chunkSize = 500;
+        for (int from = 0; from < schedules.size(); from += chunkSize) {
+            List<Long> ids = new ArrayList<>();
+            for (Schedule schedule : schedules.subList(from, Math.min(from + chunkSize, schedules.size()))) {
+                ids.add(schedule.getId());
+            }
+            for (Map<String, Object> row : appointmentMapper.countActiveGroupBySchedule(ids)) {
+                Object scheduleId = row.get("schedule_id");
+                Object cnt = row.get("cnt");
+                if (scheduleId != null && cnt != null) {
+                    counts.put(((Number) scheduleId).longValue(), ((Number) cnt).longValue());
+                }
+            }
+        }
+        return counts;
+    }
+
+    private long ttlSeconds(LocalDate scheduleDate) {
+        if (scheduleDate == null) {
+            return Duration.ofDays(1).getSeconds();
+        }
+        LocalDateTime expireAt = scheduleDate.plusDays(properties.getKeyRetainDays()).atStartOfDay();
+        return Math.max(Duration.between(LocalDateTime.now(), expireAt).getSeconds(), 60L);
+    }
+
+    private long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private String quotaKey(Long scheduleId) {
+        return CacheConstants.SCHEDULE_QUOTA_PREFIX + scheduleId;
+    }
+
+    private String versionKey(Long scheduleId) {
+        return CacheConstants.SCHEDULE_QUOTA_VERSION_PREFIX + scheduleId;
+    }
+}
@@ -1,72 +1,73 @@
 package com.hospital.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hospital.common.result.Result;
 import com.hospital.common.result.ResultCode;
+import com.hospital.config.ScheduleBatchProperties;
 import com.hospital.dto.request.BatchCreateScheduleRequest;
 import com.hospital.entity.Schedule;
 import com.hospital.mapper.ScheduleMapper;
+import com.hospital.service.ScheduleCacheService;
+import com.hospital.service.ScheduleQuotaService;
 import com.hospital.service.ScheduleService;
-import com.hospital.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> implements ScheduleService {
 
+    /**
+     * 时段对应的开始/结束时间
+     */
+    private static final Map<String, LocalTime> SLOT_START_TIMES = Map.of(
+            "MORNING", LocalTime.of(8, 0),
+            "AFTERNOON", LocalTime.of(14, 0),
+            "EVENING", LocalTime.of(19, 0));
+    private static final Map<String, LocalTime> SLOT_END_TIMES = Map.of(
+            "MORNING", LocalTime.of(12, 0),
+            "AFTERNOON", LocalTime.of(18, 0),
+            "EVENING", LocalTime.of(22, 0));
+
     @Autowired
     private ScheduleMapper scheduleMapper;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private ScheduleCacheService scheduleCacheService;
+
+    @Autowired
+    private ScheduleBatchProperties scheduleBatchProperties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ScheduleQuotaService scheduleQuotaService;
 
     @Override
     public Result<List<Schedule>> getDoctorScheduleByDate(Long doctorId, LocalDate scheduleDate) {
-        String cacheKey = "hospital:common:schedule:doctor:" + doctorId + ":date:" + scheduleDate;
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<Schedule> list = (List<Schedule>) cached;
-                return Result.success(list);
-            } catch (ClassCastException ignored) {}
-        }
-
-        List<Schedule> schedules = scheduleMapper.selectByDoctorIdAndDate(doctorId, scheduleDate);
-        // 医生某日排班缓存（永不过期）
-        redisUtil.set(cacheKey, schedules);
-        return Result.success(schedules);
+        // 取自医生排班视图缓存中所在月份的数据
+        return Result.success(scheduleCacheService.getDate(doctorId, scheduleDate));
     }
 
     @Override
     public Result<List<Schedule>> getDoctorScheduleByMonth(Long doctorId, String month) {
         try {
             YearMonth yearMonth = YearMonth.parse(month);
-            LocalDate startDate = yearMonth.atDay(1);
-            LocalDate endDate = yearMonth.atEndOfMonth();
-
-            String cacheKey = "hospital:common:schedule:doctor:" + doctorId + ":month:" + month;
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof List) {
-                try {
-                    @SuppressWarnings("unchecked")
-                    List<Schedule> list = (List<Schedule>) cached;
-                    return Result.success(list);
-                } catch (ClassCastException ignored) {}
-            }
-
-            List<Schedule> schedules = scheduleMapper.selectByDoctorIdAndDateRange(doctorId, startDate, endDate);
-            // 医生某月排班缓存（永不过期）
-            redisUtil.set(cacheKey, schedules);
-            return Result.success(schedules);
+            return Result.success(scheduleCacheService.getMonth(doctorId, yearMonth));
         } catch (Exception e) {
             log.error("查询医生某月排班失败: doctorId={}, month={}", doctorId, month, e);
             return Result.error("查询排班失败: " + e.getMessage());
@@ -90,9 +91,7 @@ public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> i
         scheduleMapper.insert(schedule);
         // 失效该医生的排班缓存
         if (schedule.getDoctorId() != null) {
-            String prefix = "hospital:common:schedule:doctor:" + schedule.getDoctorId() + ":";
-            redisUtil.deleteByPattern(prefix + "date:*");
-            redisUtil.deleteByPattern(prefix + "month:*");
+            evictDoctorScheduleCache(schedule.getDoctorId());
         }
         return Result.success("添加成功");
     }
@@ -101,11 +100,11 @@ public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> i
     @Transactional(rollbackFor = Exception.class)
     public Result<Void> updateSchedule(Schedule schedule) {
         scheduleMapper.updateById(schedule);
+        // 提交后移除Redis号源，下次预扣按新的号源重新加载
+        evictQuotaAfterCommit(schedule.getId());
         // 失效该医生的排班缓存
         if (schedule.getDoctorId() != null) {
-            String prefix = "hospital:common:schedule:doctor:" + schedule.getDoctorId() + ":";
-            redisUtil.deleteByPattern(prefix + "date:*");
-            redisUtil.deleteByPattern(prefix + "month:*");
+            evictDoctorScheduleCache(schedule.getDoctorId());
         }
         return Result.success("更新成功");
     }
@@ -116,10 +115,9 @@ public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> i
         // 删除前查出医生ID以便失效缓存
         Schedule exist = scheduleMapper.selectById(id);
         scheduleMapper.deleteById(id);
+        evictQuotaAfterCommit(id);
         if (exist != null && exist.getDoctorId() != null) {
-            String prefix = "schedule:doctor:" + exist.getDoctorId() + ":";
-            redisUtil.deleteByPattern(prefix + "date:*");
-            redisUtil.deleteByPattern(prefix + "month:*");
+            evictDoctorScheduleCache(exist.getDoctorId());
         }
         return Result.success("删除成功");
     }
@@ -132,16 +130,11 @@ public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> i
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public Result<Void> decreaseQuota(Long scheduleId) {
+    public Result<Void> decreaseQuota(Long scheduleId, Long doctorId) {
         int result = scheduleMapper.decreaseQuota(scheduleId);
         if (result > 0) {
-            // 失效该排班所属医生的缓存
-            Schedule exist = scheduleMapper.selectById(scheduleId);
-            if (exist != null && exist.getDoctorId() != null) {
-                String prefix = "schedule:doctor:" + exist.getDoctorId() + ":";
-                redisUtil.deleteByPattern(prefix + "date:*");
-                redisUtil.deleteByPattern(prefix + "month:*");
-            }
+            // 提交后原地调整排班缓存中的号源
+            adjustScheduleCacheAfterCommit(scheduleId, doctorId, -1);
             return Result.success();
         }
         return Result.error(ResultCode.SCHEDULE_FULL);
@@ -149,20 +142,24 @@ public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> i
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public Result<Void> increaseQuota(Long scheduleId) {
-        scheduleMapper.increaseQuota(scheduleId);
-        // 失效该排班所属医生的缓存
-        Schedule exist = scheduleMapper.selectById(scheduleId);
-        if (exist != null && exist.getDoctorId() != null) {
-            String prefix = "schedule:doctor:" + exist.getDoctorId() + ":";
-            redisUtil.deleteByPattern(prefix + "date:*");
-            redisUtil.deleteByPattern(prefix + "month:*");
+    public Result<Void> increaseQuota(Long scheduleId, Long doctorId) {
+        if (scheduleQuotaService.isEnabled()) {
+            // 号源由Redis预扣管理，释放后由后台任务回写数据库；事务提交后才释放，回滚的取消不会放出号源
+            releaseQuotaAfterCommit(scheduleId, resolveDoctorId(scheduleId, doctorId));
+            return Result.success();
+        }
+        if (scheduleMapper.increaseQuota(scheduleId) > 0) {
+            adjustScheduleCacheAfterCommit(scheduleId, doctorId, 1);
         }
         return Result.success();
     }
 
+    /**
+     * 批量生成排班：一次预查范围内已有的 医生+日期+时段，在内存中判断冲突，
+     * 再以多行 INSERT 分批写入，每 commitChunkSize 条提交一次事务。
+     * 分段提交意味着中途失败时已提交的部分会保留，重新提交同一请求会跳过已生成的排班。
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Result<Map<String, Object>> batchCreateSchedules(BatchCreateScheduleRequest request) {
         // 校验
         if (request.getDoctorIds() == null || request.getDoctorIds().isEmpty()) {
@@ -180,32 +177,27 @@ public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> i
         if (request.getTotalQuota() == null || request.getTotalQuota() <= 0) {
             return Result.error("号源数量必须大于0");
         }
+        for (String slot : request.getTimeSlots()) {
+            if (!SLOT_START_TIMES.containsKey(slot)) {
+                return Result.error("不支持的时段: " + slot);
+            }
+        }
+
+        long startMillis = System.currentTimeMillis();
+        Set<Long> doctorIds = new LinkedHashSet<>(request.getDoctorIds());
+        Set<String> existing = loadExistingSlots(doctorIds, request.getStartDate(), request.getEndDate());
+        String status = (request.getStatus() == null || request.getStatus().isEmpty()) ? "AVAILABLE" : request.getStatus();
 
-        int created = 0;
         int skipped = 0;
         List<Map<String, Object>> conflicts = new ArrayList<>();
+        List<Schedule> pending = new ArrayList<>();
 
-        // 时段映射为开始/结束时间
-        Map<String, LocalTime> startTimeMap = new HashMap<>();
-        Map<String, LocalTime> endTimeMap = new HashMap<>();
-        startTimeMap.put("MORNING", LocalTime.of(8, 0));
-        endTimeMap.put("MORNING", LocalTime.of(12, 0));
-        startTimeMap.put("AFTERNOON", LocalTime.of(14, 0));
-        endTimeMap.put("AFTERNOON", LocalTime.of(18, 0));
-        startTimeMap.put("EVENING", LocalTime.of(19, 0));
-        endTimeMap.put("EVENING", LocalTime.of(22, 0));
-
-        // 遍历日期范围
+        // 遍历日期范围，在内存中判断冲突
         LocalDate current = request.getStartDate();
         while (!current.isAfter(request.getEndDate())) {
-            for (String slot : request.getTimeSlots()) {
-                LocalTime startTime = startTimeMap.getOrDefault(slot, LocalTime.of(8, 0));
-                LocalTime endTime = endTimeMap.getOrDefault(slot, LocalTime.of(12, 0));
-
-                for (Long doctorId : request.getDoctorIds()) {
-                    // 冲突检查
-                    Schedule exist = scheduleMapper.selectByDoctorDateSlot(doctorId, current, slot);
-                    if (exist != null) {
+            for (String slot : new LinkedHashSet<>(request.getTimeSlots())) {
+                for (Long doctorId : doctorIds) {
+                    if (existing.contains(slotKey(doctorId, current, slot))) {
                         skipped++;
                         Map<String, Object> conflict = new HashMap<>();
                         conflict.put("doctorId", doctorId);
@@ -216,30 +208,49 @@ public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> i
                     }
 
                     Schedule s = new Schedule();
+                    s.setId(IdWorker.getId());
                     s.setDoctorId(doctorId);
                     s.setScheduleDate(current);
                     s.setTimeSlot(slot);
-                    s.setStartTime(startTime);
-                    s.setEndTime(endTime);
+                    s.setStartTime(SLOT_START_TIMES.get(slot));
+                    s.setEndTime(SLOT_END_TIMES.get(slot));
                     s.setTotalQuota(request.getTotalQuota());
                     s.setRemainingQuota(request.getTotalQuota());
                     s.setBookedQuota(0);
-                    s.setStatus((request.getStatus() == null || request.getStatus().isEmpty()) ? "AVAILABLE" : request.getStatus());
+                    s.setStatus(status);
                     s.setNote(request.getNote());
-
-                    scheduleMapper.insert(s);
-                    created++;
+                    pending.add(s);
                 }
             }
             current = current.plusDays(1);
         }
 
-        // 失效相关医生缓存
-        for (Long doctorId : new HashSet<>(request.getDoctorIds())) {
-            String prefix = "hospital:common:schedule:doctor:" + doctorId + ":";
-            redisUtil.deleteByPattern(prefix + "date:*");
-            redisUtil.deleteByPattern(prefix + "month:*");
+        int created = 0;
+        int processed = 0;
+        int chunkSize = Math.max(scheduleBatchProperties.getCommitChunkSize(), 1);
+        try {
+            for (int from = 0; from < pending.size(); from += chunkSize) {
+                List<Schedule> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+                Integer inserted = transactionTemplate.execute(tx -> insertInBatches(chunk));
+                created += inserted != null ? inserted : 0;
+                processed += chunk.size();
+                log.info("批量生成排班进度: {}/{}，已创建{}", processed, pending.size(), created);
+            }
+        } catch (Exception e) {
+            log.error("批量生成排班中断: created={}, total={}", created, pending.size(), e);
+            return Result.error("批量创建排班中断，已创建" + created + "条，重新提交将跳过已创建的排班: " + e.getMessage());
+        } finally {
+            // 已提交的分段即可见，无论成功与否都失效相关医生缓存
+            if (created > 0) {
+                for (Long doctorId : doctorIds) {
+                    evictDoctorScheduleCache(doctorId);
+                }
+            }
         }
+        // 预查之后被并发生成的排班在插入时按唯一键忽略，同样计入跳过
+        skipped += pending.size() - created;
+        log.info("批量生成排班完成: created={}, skipped={}, elapsedMs={}",
+                created, skipped, System.currentTimeMillis() - startMillis);
 
         Map<String, Object> data = new HashMap<>();
         data.put("created", created);
@@ -247,5 +258,127 @@ public class ScheduleServiceImpl extends ServiceImpl<ScheduleMapper, Schedule> i
         data.put("conflicts", conflicts);
         return Result.success(data);
     }
-}
 
+    /**
+     * 按医生分批预查日期范围内已有的排班，返回 医生:日期:时段 集合
+     */
+    private Set<String> loadExistingSlots(Set<Long> doctorIds, LocalDate startDate, LocalDate endDate) {
+        Set<String> existing = new HashSet<>();
+        List<Long> ids = new ArrayList<>(doctorIds);
+        int batchSize = Math.max(scheduleBatchProperties.getDoctorQueryBatchSize(), 1);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Schedule> schedules = scheduleMapper.selectExistingSlots(
+                    ids.subList(from, Math.min(from + batchSize, ids.size())), startDate, endDate);
+            for (Schedule schedule : schedules) {
+                existing.add(slotKey(schedule.getDoctorId(), schedule.getScheduleDate(), schedule.getTimeSlot()));
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * 分批插入排班，返回实际新建的行数
+     */
+    private int insertInBatches(List<Schedule> schedules) {
+        int batchSize = Math.max(scheduleBatchProperties.getInsertBatchSize(), 1);
+        int inserted = 0;
+        for (int from = 0; from < schedules.size(); from += batchSize) {
+            List<Schedule> batch = schedules.subList(from, Math.min(from + batchSize, schedules.size()));
+            int affected = scheduleMapper.insertBatch(batch);
+            if (affected == 0) {
+                continue;
+            }
+            // ON DUPLICATE KEY 的影响行数为：插入1、更新2、未改动0，但驱动未开启 useAffectedRows 时未改动也计为1，
+            // 无法与插入区分；ID为预先分配，按ID回查本事务写入的行数即为实际新建数
+            List<Long> ids = batch.stream().map(Schedule::getId).collect(Collectors.toList());
+            inserted += scheduleMapper.selectCount(new LambdaQueryWrapper<Schedule>().in(Schedule::getId, ids)).intValue();
+        }
+        return inserted;
+    }
+
+    private String slotKey(Long doctorId, LocalDate date, String timeSlot) {
+        return doctorId + ":" + date + ":" + timeSlot;
+    }
+
+    /**
+     * 失效医生的排班缓存（排班增删改时调用）
+     */
+    private void evictDoctorScheduleCache(Long doctorId) {
+        scheduleCacheService.evictDoctor(doctorId);
+    }
+
+    /**
+     * 事务提交后原地调整排班缓存中的号源，避免未提交的扣减被读到；无事务时立即调整
+     */
+    private void adjustScheduleCacheAfterCommit(Long scheduleId, Long doctorId, int delta) {
+        Long ownerId = resolveDoctorId(scheduleId, doctorId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            scheduleCacheService.adjustQuota(ownerId, scheduleId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                scheduleCacheService.adjustQuota(ownerId, scheduleId, delta);
+            }
+        });
+    }
+
+    /**
+     * 事务提交后释放Redis预扣号源并同步调整排班缓存；无事务时立即释放
+     */
+    private void releaseQuotaAfterCommit(Long scheduleId, Long doctorId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseQuota(scheduleId, doctorId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseQuota(scheduleId, doctorId);
+            }
+        });
+    }
+
+    /**
+     * 事务提交后移除Redis号源：提交前移除时，并发预扣可能按修改前的排班重新加载；无事务时立即移除
+     */
+    private void evictQuotaAfterCommit(Long scheduleId) {
+        if (!scheduleQuotaService.isEnabled() || scheduleId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            scheduleQuotaService.evict(scheduleId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    scheduleQuotaService.evict(scheduleId);
+                } catch (Exception e) {
+                    log.error("移除Redis号源失败: scheduleId={}, error={}", scheduleId, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void releaseQuota(Long scheduleId, Long doctorId) {
+        try {
+            if (scheduleQuotaService.release(scheduleId)) {
+                scheduleCacheService.adjustQuota(doctorId, scheduleId, 1);
+            }
+        } catch (Exception e) {
+            // 释放失败由号源对账任务兜底修正
+            log.error("释放预扣号源失败: scheduleId={}, error={}", scheduleId, e.getMessage());
+        }
+    }
+
+    private Long resolveDoctorId(Long scheduleId, Long doctorId) {
+        if (doctorId != null) {
+            return doctorId;
+        }
+        Schedule exist = scheduleMapper.selectById(scheduleId);
+        return exist != null ? exist.getDoctorId() : null;
+    }
+}
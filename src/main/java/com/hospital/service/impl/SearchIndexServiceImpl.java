@@ -0,0 +1,431 @@
+package com.hospital.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.SearchDocumentType;
+import com.hospital.config.SearchIndexProperties;
+import com.hospital.dto.response.SearchHitResponse;
+import com.hospital.dto.response.UnifiedSearchResponse;
+import com.hospital.entity.Acupoint;
+import com.hospital.entity.HealthArticle;
+import com.hospital.entity.HerbalRecipe;
+import com.hospital.mapper.AcupointMapper;
+import com.hospital.mapper.HealthArticleMapper;
+import com.hospital.mapper.HerbalRecipeMapper;
+import com.hospital.service.SearchIndexService;
+import com.hospital.util.RedisUtil;
+import com.hospital.util.SearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 内存全文索引服务实现
+ *
+ * 三类文档共用 title 字段（文章标题、食谱名称、穴位名称）和 category、constitutionType 分面，
+ * 其余字段按类型区分：文章为标签、摘要，食谱为功效、适用症状，穴位为拼音、主治。
+ * 全量重建期间发生的增量更新会在新索引切换后重新应用，避免被重建前读取的旧快照覆盖。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class SearchIndexServiceImpl implements SearchIndexService {
+
+    public static final String FIELD_TITLE = "title";
+    public static final String FIELD_TAGS = "tags";
+    public static final String FIELD_SUMMARY = "summary";
+    public static final String FIELD_EFFICACY = "efficacy";
+    public static final String FIELD_SYMPTOMS = "symptoms";
+    public static final String FIELD_PINYIN = "pinyin";
+    public static final String FIELD_INDICATIONS = "indications";
+
+    public static final String FACET_CATEGORY = "category";
+    public static final String FACET_CONSTITUTION = "constitutionType";
+    public static final String FACET_TAGS = "tags";
+    public static final String FACET_SEASON = "season";
+    public static final String FACET_MERIDIAN = "meridian";
+
+    /** 分面中表示适用全部的取值（食谱的季节、体质） */
+    public static final String WILDCARD_VALUE = "ALL";
+
+    private static final String SEPARATOR = "|";
+
+    /** 统一搜索时每种类型最多参与合并的命中数 */
+    private static final int MAX_MERGE_WINDOW = 1000;
+
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile("[,，、]");
+
+    private static final List<String> UNIFIED_FACETS = Arrays.asList(FACET_CATEGORY, FACET_CONSTITUTION, FACET_TAGS);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<SearchDocumentType, SearchIndex> indexes = new EnumMap<>(SearchDocumentType.class);
+
+    private final Set<SearchDocumentType> readyTypes = ConcurrentHashMap.newKeySet();
+
+    /** 正在全量重建的类型 -> 重建期间增量更新过的文档ID */
+    private final Map<SearchDocumentType, Set<Long>> rebuildingTypes = new ConcurrentHashMap<>();
+
+    @Autowired
+    private SearchIndexProperties properties;
+
+    @Autowired
+    private HealthArticleMapper articleMapper;
+
+    @Autowired
+    private HerbalRecipeMapper herbalRecipeMapper;
+
+    @Autowired
+    private AcupointMapper acupointMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @PostConstruct
+    public void init() {
+        LinkedHashMap<String, Float> articleFields = new LinkedHashMap<>();
+        articleFields.put(FIELD_TITLE, properties.getTitleBoost());
+        articleFields.put(FIELD_TAGS, properties.getKeywordBoost());
+        articleFields.put(FIELD_SUMMARY, properties.getBodyBoost());
+        indexes.put(SearchDocumentType.ARTICLE, new SearchIndex(articleFields, properties.getK1(), properties.getB()));
+
+        LinkedHashMap<String, Float> recipeFields = new LinkedHashMap<>();
+        recipeFields.put(FIELD_TITLE, properties.getTitleBoost());
+        recipeFields.put(FIELD_EFFICACY, properties.getBodyBoost());
+        recipeFields.put(FIELD_SYMPTOMS, properties.getBodyBoost());
+        indexes.put(SearchDocumentType.RECIPE, new SearchIndex(recipeFields, properties.getK1(), properties.getB()));
+
+        LinkedHashMap<String, Float> acupointFields = new LinkedHashMap<>();
+        acupointFields.put(FIELD_TITLE, properties.getTitleBoost());
+        acupointFields.put(FIELD_PINYIN, properties.getKeywordBoost());
+        acupointFields.put(FIELD_INDICATIONS, properties.getBodyBoost());
+        indexes.put(SearchDocumentType.ACUPOINT, new SearchIndex(acupointFields, properties.getK1(), properties.getB()));
+    }
+
+    @Override
+    public void rebuildAll() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (SearchDocumentType type : SearchDocumentType.values()) {
+            try {
+                rebuild(type);
+            } catch (Exception e) {
+                log.warn("重建搜索索引失败: type={}, error={}", type, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public SearchIndex.Result search(SearchDocumentType type, SearchIndex.Query query) {
+        if (!properties.isEnabled() || !readyTypes.contains(type)) {
+            return null;
+        }
+        return indexes.get(type).search(query);
+    }
+
+    @Override
+    public UnifiedSearchResponse search(String keyword, List<SearchDocumentType> types, String category,
+                                        String constitutionType, String tag, int pageNum, int pageSize) {
+        Collection<SearchDocumentType> targets = types == null || types.isEmpty()
+                ? Arrays.asList(SearchDocumentType.values()) : types;
+        Map<String, String> filters = new HashMap<>();
+        if (StringUtils.hasText(category)) {
+            filters.put(FACET_CATEGORY, category.trim());
+        }
+        if (StringUtils.hasText(constitutionType)) {
+            filters.put(FACET_CONSTITUTION, constitutionType.trim());
+        }
+        if (StringUtils.hasText(tag)) {
+            filters.put(FACET_TAGS, tag.trim());
+        }
+        int window = Math.min(pageNum * pageSize, MAX_MERGE_WINDOW);
+        SearchIndex.Query query = SearchIndex.Query.builder()
+                .keyword(keyword)
+                .filters(filters)
+                .wildcardValue(WILDCARD_VALUE)
+                .facets(UNIFIED_FACETS)
+                .offset(0)
+                .limit(window)
+                .build();
+
+        List<SearchHitResponse> merged = new ArrayList<>();
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        long total = 0;
+        for (SearchDocumentType type : targets) {
+            SearchIndex.Result result = search(type, query);
+            if (result == null) {
+                return null;
+            }
+            total += result.getTotal();
+            for (SearchIndex.Hit hit : result.getHits()) {
+                merged.add(toResponse(type, hit));
+            }
+            result.getFacets().forEach((name, counts) -> {
+                Map<String, Integer> target = facets.computeIfAbsent(name, n -> new LinkedHashMap<>());
+                counts.forEach((value, count) -> target.merge(value, count, Integer::sum));
+            });
+        }
+        merged.sort(Comparator.comparingDouble(SearchHitResponse::getScore).reversed());
+
+        int from = Math.min((pageNum - 1) * pageSize, merged.size());
+        int to = Math.min(from + pageSize, merged.size());
+        UnifiedSearchResponse response = new UnifiedSearchResponse();
+        response.setRecords(new ArrayList<>(merged.subList(from, to)));
+        response.setTotal(total);
+        response.setFacets(facets);
+        return response;
+    }
+
+    @Override
+    public List<SearchHitResponse> suggest(String prefix, int limit) {
+        if (!properties.isEnabled() || !StringUtils.hasText(prefix)) {
+            return Collections.emptyList();
+        }
+        int size = Math.min(Math.max(limit, 1), properties.getMaxSuggestions());
+        List<Map.Entry<SearchDocumentType, SearchIndex.Hit>> candidates = new ArrayList<>();
+        for (SearchDocumentType type : SearchDocumentType.values()) {
+            if (!readyTypes.contains(type)) {
+                continue;
+            }
+            for (SearchIndex.Hit hit : indexes.get(type).suggest(prefix, size)) {
+                candidates.add(new AbstractMap.SimpleImmutableEntry<>(type, hit));
+            }
+        }
+        return candidates.stream()
+                .sorted(Comparator.comparingDouble(
+                        (Map.Entry<SearchDocumentType, SearchIndex.Hit> e) -> e.getValue().getPopularity()).reversed())
+                .limit(size)
+                .map(e -> toResponse(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void refreshAfterCommit(SearchDocumentType type, Long id) {
+        if (!properties.isEnabled() || type == null || id == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshAndPublish(type, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshAndPublish(type, id);
+            }
+        });
+    }
+
+    @Override
+    public void handleMessage(String message) {
+        if (message == null || !properties.isEnabled()) {
+            return;
+        }
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            refresh(SearchDocumentType.valueOf(parts[1]), Long.valueOf(parts[2]));
+        } catch (Exception e) {
+            log.warn("处理搜索索引更新消息失败: message={}, error={}", message, e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库全量加载某类文档并整体替换索引
+     */
+    private synchronized void rebuild(SearchDocumentType type) {
+        rebuildingTypes.put(type, ConcurrentHashMap.newKeySet());
+        try {
+            long start = System.currentTimeMillis();
+            List<SearchIndex.Document> documents = loadAll(type);
+            SearchIndex index = indexes.get(type);
+            index.replaceAll(documents);
+            readyTypes.add(type);
+            log.info("搜索索引重建完成: type={}, documents={}, cost={}ms",
+                    type, documents.size(), System.currentTimeMillis() - start);
+        } finally {
+            Set<Long> touched = rebuildingTypes.remove(type);
+            if (touched != null) {
+                touched.forEach(id -> refresh(type, id));
+            }
+        }
+    }
+
+    private void refreshAndPublish(SearchDocumentType type, Long id) {
+        try {
+            refresh(type, id);
+        } catch (Exception e) {
+            // 本地更新失败时由下一次全量重建修正
+            log.warn("更新搜索索引失败: type={}, id={}, error={}", type, id, e.getMessage());
+        }
+        try {
+            redisUtil.publish(CacheConstants.SEARCH_INDEX_CHANNEL, nodeId + SEPARATOR + type.name() + SEPARATOR + id);
+        } catch (Exception e) {
+            log.warn("发送搜索索引更新广播失败: type={}, id={}, error={}", type, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 按数据库最新状态更新单个文档：已下架或不存在时从索引删除
+     */
+    private void refresh(SearchDocumentType type, Long id) {
+        Set<Long> touched = rebuildingTypes.get(type);
+        if (touched != null) {
+            touched.add(id);
+        }
+        SearchIndex.Document document = loadOne(type, id);
+        if (document == null) {
+            indexes.get(type).remove(id);
+        } else {
+            indexes.get(type).upsert(document);
+        }
+    }
+
+    private List<SearchIndex.Document> loadAll(SearchDocumentType type) {
+        switch (type) {
+            case ARTICLE:
+                return articleMapper.selectList(new LambdaQueryWrapper<HealthArticle>()
+                                .select(HealthArticle::getId, HealthArticle::getTitle, HealthArticle::getSummary,
+                                        HealthArticle::getTags, HealthArticle::getCategory,
+                                        HealthArticle::getConstitutionType, HealthArticle::getViewCount,
+                                        HealthArticle::getStatus)
+                                .eq(HealthArticle::getStatus, 1))
+                        .stream().map(this::toDocument).collect(Collectors.toList());
+            case RECIPE:
+                return herbalRecipeMapper.selectList(new LambdaQueryWrapper<HerbalRecipe>()
+                                .select(HerbalRecipe::getId, HerbalRecipe::getRecipeName, HerbalRecipe::getEfficacy,
+                                        HerbalRecipe::getSuitableSymptoms, HerbalRecipe::getCategory,
+                                        HerbalRecipe::getConstitutionType, HerbalRecipe::getSeason,
+                                        HerbalRecipe::getViewCount, HerbalRecipe::getStatus)
+                                .eq(HerbalRecipe::getStatus, 1))
+                        .stream().map(this::toDocument).collect(Collectors.toList());
+            case ACUPOINT:
+                return acupointMapper.selectList(new LambdaQueryWrapper<Acupoint>()
+                                .select(Acupoint::getId, Acupoint::getAcupointName, Acupoint::getPinyin,
+                                        Acupoint::getIndications, Acupoint::getCategory,
+                                        Acupoint::getConstitutionType, Acupoint::getMeridian,
+                                        Acupoint::getViewCount))
+                        .stream().map(this::toDocument).collect(Collectors.toList());
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    private SearchIndex.Document loadOne(SearchDocumentType type, Long id) {
+        switch (type) {
+            case ARTICLE:
+                HealthArticle article = articleMapper.selectById(id);
+                return article != null && Integer.valueOf(1).equals(article.getStatus()) ? toDocument(article) : null;
+            case RECIPE:
+                HerbalRecipe recipe = herbalRecipeMapper.selectById(id);
+                return recipe != null && Integer.valueOf(1).equals(recipe.getStatus()) ? toDocument(recipe) : null;
+            case ACUPOINT:
+                Acupoint acupoint = acupointMapper.selectById(id);
+                return acupoint != null ? toDocument(acupoint) : null;
+            default:
+                return null;
+        }
+    }
+
+    private SearchIndex.Document toDocument(HealthArticle article) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_TITLE, article.getTitle());
+        fields.put(FIELD_TAGS, article.getTags());
+        fields.put(FIELD_SUMMARY, article.getSummary());
+        Map<String, Collection<String>> facets = new HashMap<>();
+        facets.put(FACET_CATEGORY, splitValues(article.getCategory()));
+        facets.put(FACET_CONSTITUTION, splitValues(article.getConstitutionType()));
+        facets.put(FACET_TAGS, splitValues(article.getTags()));
+        return SearchIndex.Document.builder()
+                .id(article.getId())
+                .title(article.getTitle())
+                .summary(article.getSummary())
+                .popularity(article.getViewCount() != null ? article.getViewCount() : 0)
+                .fields(fields)
+                .facets(facets)
+                .build();
+    }
+
+    private SearchIndex.Document toDocument(HerbalRecipe recipe) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_TITLE, recipe.getRecipeName());
+        fields.put(FIELD_EFFICACY, recipe.getEfficacy());
+        fields.put(FIELD_SYMPTOMS, recipe.getSuitableSymptoms());
+        Map<String, Collection<String>> facets = new HashMap<>();
+        facets.put(FACET_CATEGORY, splitValues(recipe.getCategory()));
+        facets.put(FACET_CONSTITUTION, splitValues(recipe.getConstitutionType()));
+        facets.put(FACET_SEASON, splitValues(recipe.getSeason()));
+        return SearchIndex.Document.builder()
+                .id(recipe.getId())
+                .title(recipe.getRecipeName())
+                .summary(recipe.getEfficacy())
+                .popularity(recipe.getViewCount() != null ? recipe.getViewCount() : 0)
+                .fields(fields)
+                .facets(facets)
+                .build();
+    }
+
+    private SearchIndex.Document toDocument(Acupoint acupoint) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_TITLE, acupoint.getAcupointName());
+        fields.put(FIELD_PINYIN, acupoint.getPinyin());
+        fields.put(FIELD_INDICATIONS, acupoint.getIndications());
+        Map<String, Collection<String>> facets = new HashMap<>();
+        facets.put(FACET_CATEGORY, splitValues(acupoint.getCategory()));
+        facets.put(FACET_CONSTITUTION, splitValues(acupoint.getConstitutionType()));
+        facets.put(FACET_MERIDIAN, splitValues(acupoint.getMeridian()));
+        return SearchIndex.Document.builder()
+                .id(acupoint.getId())
+                .title(acupoint.getAcupointName())
+                .summary(acupoint.getIndications())
+                .popularity(acupoint.getViewCount() != null ? acupoint.getViewCount() : 0)
+                .fields(fields)
+                .facets(facets)
+                .suggestKeys(acupoint.getPinyin() != null
+                        ? Collections.singletonList(acupoint.getPinyin()) : null)
+                .build();
+    }
+
+    private List<String> splitValues(String value) {
+        if (!StringUtils.hasText(value)) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(VALUE_SEPARATOR.split(value));
+    }
+
+    private SearchHitResponse toResponse(SearchDocumentType type, SearchIndex.Hit hit) {
+        SearchHitResponse response = new SearchHitResponse();
+        response.setType(type);
+        response.setId(hit.getId());
+        response.setTitle(hit.getTitle());
+        response.setSummary(hit.getSummary());
+        response.setScore(hit.getScore());
+        return response;
+    }
+}
@@ -0,0 +1,245 @@
+package com.hospital.service.impl;
+
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.config.StatisticsRollupProperties;
+import com.hospital.entity.AppointmentDailyStats;
+import com.hospital.mapper.AppointmentDailyStatsMapper;
+import com.hospital.service.StatisticsRollupService;
+import com.hospital.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 预约统计汇总实现
+ *
+ * 每个日期区间的重建在一个事务内先删除后写入；聚合在事务外以普通查询完成，不对预约表加锁。
+ * 水位在本轮重建完成后才推进，失败时下一轮从旧水位重新查找。
+ * 变更日期超过 maxDatesPerRefresh 时分多轮处理，期间水位保持不变，只记录已处理到的日期。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class StatisticsRollupServiceImpl implements StatisticsRollupService {
+
+    private static final DateTimeFormatter WATERMARK_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    /** 回填时每个事务覆盖的天数 */
+    private static final int REBUILD_CHUNK_DAYS = 31;
+
+    /** 每条 INSERT 语句写入的最大行数 */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    /** 每日重建等待租约时的重试间隔 */
+    private static final long COMPACT_RETRY_INTERVAL_MS = 1000L;
+
+    /** 当前节点ID，作为租约的持有者标识 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private AppointmentDailyStatsMapper appointmentDailyStatsMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private StatisticsRollupProperties properties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public int refresh() {
+        if (!acquireLease()) {
+            return -1;
+        }
+        try {
+            LocalDateTime now = appointmentDailyStatsMapper.selectNow();
+            LocalDateTime watermark = readWatermark();
+            int rebuilt;
+            if (watermark == null) {
+                // 水位丢失：汇总表为空时回填全部历史，否则重建近期日期
+                rebuilt = appointmentDailyStatsMapper.countAny() == 0 ? backfill() : rebuildRecent();
+            } else {
+                RefreshCursor cursor = readCursor();
+                List<LocalDate> dates = appointmentDailyStatsMapper.selectChangedDates(
+                        watermark.minusSeconds(properties.getOverlapSeconds()));
+                if (cursor != null) {
+                    dates = dates.stream().filter(d -> d.isAfter(cursor.lastDate)).collect(Collectors.toList());
+                }
+                int limit = Math.max(1, properties.getMaxDatesPerRefresh());
+                if (dates.size() > limit) {
+                    // 超出单轮上限：只处理前 limit 个日期，水位不推进，记录进度供下一轮继续
+                    List<LocalDate> batch = dates.subList(0, limit);
+                    for (LocalDate date : batch) {
+                        rebuild(date, date);
+                    }
+                    writeCursor(new RefreshCursor(batch.get(limit - 1), cursor == null ? now : cursor.startedAt));
+                    return limit;
+                }
+                for (LocalDate date : dates) {
+                    rebuild(date, date);
+                }
+                rebuilt = dates.size();
+                if (cursor != null) {
+                    // 分批处理结束：水位只推进到首批开始时间，分批期间已处理日期上的新变更由下一轮补上
+                    now = cursor.startedAt;
+                }
+            }
+            redisUtil.delete(CacheConstants.STATISTICS_ROLLUP_CURSOR_KEY);
+            writeWatermark(now);
+            return rebuilt;
+        } finally {
+            releaseLease();
+        }
+    }
+
+    @Override
+    public int compact() {
+        // 与增量刷新共用租约：两次重建并发写同一日期时，先聚合后写入的一方会覆盖较新的结果
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(properties.getCompactionWaitSeconds());
+        while (!acquireLease()) {
+            if (System.currentTimeMillis() >= deadline) {
+                return -1;
+            }
+            try {
+                Thread.sleep(COMPACT_RETRY_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+        try {
+            return rebuildRecent();
+        } finally {
+            releaseLease();
+        }
+    }
+
+    private int rebuildRecent() {
+        LocalDate today = LocalDate.now();
+        return rebuildInChunks(today.minusDays(properties.getCompactionPastDays()),
+                today.plusDays(properties.getCompactionFutureDays()));
+    }
+
+    private int backfill() {
+        LocalDate start = appointmentDailyStatsMapper.selectMinAppointmentDate();
+        LocalDate end = appointmentDailyStatsMapper.selectMaxAppointmentDate();
+        if (start == null || end == null) {
+            return 0;
+        }
+        int days = rebuildInChunks(start, end);
+        log.info("预约统计汇总回填完成: {} ~ {}", start, end);
+        return days;
+    }
+
+    /**
+     * 按 REBUILD_CHUNK_DAYS 分段重建，返回覆盖的天数
+     */
+    private int rebuildInChunks(LocalDate start, LocalDate end) {
+        LocalDate chunkStart = start;
+        while (!chunkStart.isAfter(end)) {
+            LocalDate chunkEnd = chunkStart.plusDays(REBUILD_CHUNK_DAYS - 1L);
+            if (chunkEnd.isAfter(end)) {
+                chunkEnd = end;
+            }
+            rebuild(chunkStart, chunkEnd);
+            chunkStart = chunkEnd.plusDays(1);
+        }
+        return (int) ChronoUnit.DAYS.between(start, end) + 1;
+    }
+
+    /**
+     * 重建日期区间内的汇总：事务外聚合，事务内删除并写入
+     */
+    private void rebuild(LocalDate start, LocalDate end) {
+        List<AppointmentDailyStats> rows = appointmentDailyStatsMapper.aggregateRange(start, end);
+        transactionTemplate.executeWithoutResult(tx -> {
+            appointmentDailyStatsMapper.deleteRange(start, end);
+            for (int i = 0; i < rows.size(); i += INSERT_BATCH_SIZE) {
+                appointmentDailyStatsMapper.insertBatch(rows.subList(i, Math.min(i + INSERT_BATCH_SIZE, rows.size())));
+            }
+        });
+    }
+
+    private LocalDateTime readWatermark() {
+        Object raw = redisUtil.get(CacheConstants.STATISTICS_ROLLUP_WATERMARK_KEY);
+        if (raw == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(String.valueOf(raw), WATERMARK_FORMATTER);
+        } catch (Exception e) {
+            log.warn("预约统计汇总水位无法解析，按水位丢失处理: {}", raw);
+            return null;
+        }
+    }
+
+    private void writeWatermark(LocalDateTime watermark) {
+        redisUtil.set(CacheConstants.STATISTICS_ROLLUP_WATERMARK_KEY, watermark.format(WATERMARK_FORMATTER));
+    }
+
+    private RefreshCursor readCursor() {
+        Object raw = redisUtil.get(CacheConstants.STATISTICS_ROLLUP_CURSOR_KEY);
+        if (raw == null) {
+            return null;
+        }
+        try {
+            String[] parts = String.valueOf(raw).split("\\|", 2);
+            return new RefreshCursor(LocalDate.parse(parts[0]), LocalDateTime.parse(parts[1], WATERMARK_FORMATTER));
+        } catch (Exception e) {
+            // 进度丢失时从水位重新处理全部变更日期，只会多重建，不会漏
+            log.warn("预约统计汇总刷新进度无法解析，忽略: {}", raw);
+            return null;
+        }
+    }
+
+    private void writeCursor(RefreshCursor cursor) {
+        redisUtil.set(CacheConstants.STATISTICS_ROLLUP_CURSOR_KEY,
+                cursor.lastDate + "|" + cursor.startedAt.format(WATERMARK_FORMATTER));
+    }
+
+    private boolean acquireLease() {
+        try {
+            return Boolean.TRUE.equals(redisUtil.tryLock(CacheConstants.STATISTICS_ROLLUP_LEASE_KEY, nodeId,
+                    properties.getLeaseSeconds(), TimeUnit.SECONDS));
+        } catch (Exception e) {
+            log.warn("获取预约统计汇总租约失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            redisUtil.unlock(CacheConstants.STATISTICS_ROLLUP_LEASE_KEY, nodeId);
+        } catch (Exception e) {
+            // 租约会在 leaseSeconds 后自动过期
+            log.warn("释放预约统计汇总租约失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 分批增量刷新的进度：已处理到的最后一个日期，以及首批开始时的数据库时间
+     */
+    private static final class RefreshCursor {
+        private final LocalDate lastDate;
+        private final LocalDateTime startedAt;
+
+        private RefreshCursor(LocalDate lastDate, LocalDateTime startedAt) {
+            this.lastDate = lastDate;
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.hospital.service.impl;
 
+import com.hospital.common.constant.CacheTags;
 import com.hospital.dto.StatisticsDTO;
 import com.hospital.mapper.StatisticsMapper;
 import com.hospital.service.StatisticsService;
 import com.hospital.util.CacheKeyBuilder;
 import com.hospital.util.CacheTtlPolicy;
-import com.hospital.util.RedisUtil;
+import com.hospital.util.ReadThroughCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,9 +14,9 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 统计数据服务实现类
@@ -28,20 +29,15 @@ public class StatisticsServiceImpl implements StatisticsService {
     private StatisticsMapper statisticsMapper;
 
     @Autowired
-    private RedisUtil redisUtil;
+    private ReadThroughCache readThroughCache;
 
     @Override
     public StatisticsDTO.AdminStats getAdminStats() {
         log.info("获取管理员统计数据");
         String cacheKey = CacheKeyBuilder.of("hospital:admin:stats:overview").build();
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof StatisticsDTO.AdminStats) {
-            return (StatisticsDTO.AdminStats) cached;
-        }
-        StatisticsDTO.AdminStats data = statisticsMapper.getAdminStats();
         // 管理员统计数据，缓存 10 分钟
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.CONVERSATION_DETAIL.getSeconds(), TimeUnit.SECONDS);
-        return data;
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.CONVERSATION_DETAIL,
+                statisticsMapper::getAdminStats);
     }
 
     @Override
@@ -50,14 +46,9 @@ public class StatisticsServiceImpl implements StatisticsService {
         String cacheKey = CacheKeyBuilder.of("hospital:patient:stats:overview")
                 .append("patient", patientId)
                 .build();
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof StatisticsDTO.PatientStats) {
-            return (StatisticsDTO.PatientStats) cached;
-        }
-        StatisticsDTO.PatientStats data = statisticsMapper.getPatientStats(patientId);
         // 患者统计数据，缓存 10 分钟
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.CONVERSATION_DETAIL.getSeconds(), TimeUnit.SECONDS);
-        return data;
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.CONVERSATION_DETAIL,
+                () -> statisticsMapper.getPatientStats(patientId));
     }
 
     @Override
@@ -68,14 +59,9 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .append("doctor", doctorId)
                 .append("date", today)
                 .build();
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof StatisticsDTO.DoctorTodayStats) {
-            return (StatisticsDTO.DoctorTodayStats) cached;
-        }
-        StatisticsDTO.DoctorTodayStats data = statisticsMapper.getDoctorTodayStats(doctorId, today);
         // 医生今日统计，缓存 5 分钟
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.CONVERSATION_DETAIL.getSeconds(), TimeUnit.SECONDS);
-        return data;
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.CONVERSATION_DETAIL,
+                () -> statisticsMapper.getDoctorTodayStats(doctorId, today));
     }
 
     @Override
@@ -84,21 +70,18 @@ public class StatisticsServiceImpl implements StatisticsService {
         String cacheKey = CacheKeyBuilder.of("hospital:doctor:stats:review")
                 .append("doctor", doctorId)
                 .build();
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof StatisticsDTO.DoctorReviewStats) {
-            return (StatisticsDTO.DoctorReviewStats) cached;
-        }
-        StatisticsDTO.DoctorReviewStats data = statisticsMapper.getDoctorReviewStats(doctorId);
-        if (data == null) {
-            data = new StatisticsDTO.DoctorReviewStats();
-            data.setAvgRating(BigDecimal.ZERO);
-            data.setGoodRate(BigDecimal.ZERO);
-            data.setTotalReviews(0);
-            data.setMonthlyReviews(0);
-        }
         // 医生评价统计，缓存 15 分钟（使用 DOCTOR_DETAIL 策略，30分钟）
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.DOCTOR_DETAIL.getSeconds(), TimeUnit.SECONDS);
-        return data;
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.DOCTOR_DETAIL, () -> {
+            StatisticsDTO.DoctorReviewStats data = statisticsMapper.getDoctorReviewStats(doctorId);
+            if (data == null) {
+                data = new StatisticsDTO.DoctorReviewStats();
+                data.setAvgRating(BigDecimal.ZERO);
+                data.setGoodRate(BigDecimal.ZERO);
+                data.setTotalReviews(0);
+                data.setMonthlyReviews(0);
+            }
+            return data;
+        });
     }
 
     @Override
@@ -109,14 +92,10 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .append("year", now.getYear())
                 .append("month", now.getMonthValue())
                 .build();
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof StatisticsDTO.MonthlyStats) {
-            return (StatisticsDTO.MonthlyStats) cached;
-        }
-        StatisticsDTO.MonthlyStats data = statisticsMapper.getMonthlyStats(now.getYear(), now.getMonthValue());
         // 月度统计，缓存 30 分钟
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.DOCTOR_DETAIL.getSeconds(), TimeUnit.SECONDS);
-        return data;
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.DOCTOR_DETAIL,
+                () -> statisticsMapper.getMonthlyStats(now.getYear(), now.getMonthValue()),
+                CacheTags.APPOINTMENT_STATS);
     }
 
     @Override
@@ -128,23 +107,11 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .appendParamsHash(params)
                 .build();
 
-        // 尝试从缓存获取
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<StatisticsDTO.DepartmentStats> list = (List<StatisticsDTO.DepartmentStats>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-
-        // 从数据库查询
-        List<StatisticsDTO.DepartmentStats> data = statisticsMapper.getDepartmentStats(params);
-
-        // 存入缓存（30分钟）
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.DOCTOR_DETAIL.getSeconds(), TimeUnit.SECONDS);
-
-        return data;
+        // 缓存30分钟，回源可能在后台线程执行，使用参数副本
+        Map<String, Object> query = new HashMap<>(params);
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.DOCTOR_DETAIL,
+                () -> statisticsMapper.getDepartmentStats(query),
+                CacheTags.APPOINTMENT_STATS);
     }
 
     @Override
@@ -156,23 +123,11 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .appendParamsHash(params)
                 .build();
 
-        // 尝试从缓存获取
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<StatisticsDTO.DoctorStats> list = (List<StatisticsDTO.DoctorStats>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-
-        // 从数据库查询
-        List<StatisticsDTO.DoctorStats> data = statisticsMapper.getDoctorStats(params);
-
-        // 存入缓存（30分钟）
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.DOCTOR_DETAIL.getSeconds(), TimeUnit.SECONDS);
-
-        return data;
+        // 缓存30分钟，回源可能在后台线程执行，使用参数副本
+        Map<String, Object> query = new HashMap<>(params);
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.DOCTOR_DETAIL,
+                () -> statisticsMapper.getDoctorStats(query),
+                CacheTags.APPOINTMENT_STATS);
     }
 
     @Override
@@ -205,23 +160,12 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .append("end", endDate)
                 .build();
 
-        // 尝试从缓存获取
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<StatisticsDTO.TrendData> list = (List<StatisticsDTO.TrendData>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-
-        // 从数据库查询
-        List<StatisticsDTO.TrendData> data = statisticsMapper.getAppointmentTrend(startDate, endDate);
-
-        // 存入缓存（30分钟）
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.DOCTOR_DETAIL.getSeconds(), TimeUnit.SECONDS);
-
-        return data;
+        // 缓存30分钟
+        LocalDate start = startDate;
+        LocalDate end = endDate;
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.DOCTOR_DETAIL,
+                () -> statisticsMapper.getAppointmentTrend(start, end),
+                CacheTags.APPOINTMENT_STATS);
     }
 
     @Override
@@ -230,18 +174,10 @@ public class StatisticsServiceImpl implements StatisticsService {
         String cacheKey = CacheKeyBuilder.of("hospital:stats:recent")
                 .append("limit", 10)
                 .build();
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<StatisticsDTO.RecentAppointment> list = (List<StatisticsDTO.RecentAppointment>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-        List<StatisticsDTO.RecentAppointment> data = statisticsMapper.getRecentAppointments(10); // 默认获取10条
-        // 最近预约列表，缓存 5 分钟
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.CONVERSATION_DETAIL.getSeconds(), TimeUnit.SECONDS);
-        return data;
+        // 最近预约列表（默认10条），缓存 5 分钟
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.CONVERSATION_DETAIL,
+                () -> statisticsMapper.getRecentAppointments(10),
+                CacheTags.APPOINTMENT_STATS);
     }
 
     @Override
@@ -250,17 +186,8 @@ public class StatisticsServiceImpl implements StatisticsService {
         String cacheKey = CacheKeyBuilder.of("hospital:patient:stats:appointments:recent")
                 .append("patient", patientId)
                 .build();
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<StatisticsDTO.RecentAppointment> list = (List<StatisticsDTO.RecentAppointment>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-        List<StatisticsDTO.RecentAppointment> data = statisticsMapper.getPatientRecentAppointments(patientId, 5); // 默认获取5条
-        // 患者最近预约，缓存 5 分钟
-        redisUtil.set(cacheKey, data, CacheTtlPolicy.CONVERSATION_DETAIL.getSeconds(), TimeUnit.SECONDS);
-        return data;
+        // 患者最近预约（默认5条），缓存 5 分钟
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.CONVERSATION_DETAIL,
+                () -> statisticsMapper.getPatientRecentAppointments(patientId, 5));
     }
 }
@@ -1,12 +1,12 @@
 package com.hospital.service.impl;
 
-import com.alibaba.excel.EasyExcel;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hospital.common.constant.AppointmentStatus;
 import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.constant.CacheTags;
 import com.hospital.common.constant.SystemConstants;
 import com.hospital.config.SystemSettingManager;
 import com.hospital.config.UserConfig;
@@ -15,19 +15,27 @@ import com.hospital.entity.*;
 import com.hospital.mapper.*;
 import com.hospital.service.SystemService;
 import com.hospital.service.SystemSettingNacosSyncService;
+import com.hospital.util.AuthSessionCache;
+import com.hospital.util.CacheTtlPolicy;
+import com.hospital.util.ExcelStreamExporter;
+import com.hospital.util.ReadThroughCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -67,6 +75,12 @@ public class SystemServiceImpl implements SystemService {
     @Autowired
     private com.hospital.util.RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
+    @Autowired
+    private AuthSessionCache authSessionCache;
+
     @Autowired
     private SystemSettingManager systemSettingManager;
 
@@ -79,6 +93,12 @@ public class SystemServiceImpl implements SystemService {
     @Autowired
     private com.hospital.config.AvatarConfig avatarConfig;
 
+    /**
+     * 导出时每批读取的行数
+     */
+    @Value("${hospital.export.batch-size:1000}")
+    private int exportBatchSize;
+
     // ==================== 操作日志管理 ====================
 
     @Override
@@ -175,21 +195,12 @@ public class SystemServiceImpl implements SystemService {
 
         String cacheKey = redisUtil.buildCacheKey("hospital:admin:oplog:list", page, pageSize, filterParams);
 
-        if (page <= 2) {
-            Object cached = redisUtil.get(cacheKey);
-            if (cached != null) {
-                @SuppressWarnings("unchecked")
-                IPage<OperationLog> cachedPage = (IPage<OperationLog>) cached;
-                return cachedPage;
-            }
-        }
-
-        Page<OperationLog> pageObject = new Page<>(page, pageSize);
-        IPage<OperationLog> result = operationLogMapper.selectPage(pageObject, wrapper);
-        if (page <= 2) {
-            redisUtil.set(cacheKey, result, CacheConstants.OPLOG_TTL_SECONDS, TimeUnit.SECONDS);
-        }
-        return result;
+        long current = page;
+        long size = pageSize;
+        Supplier<IPage<OperationLog>> query = () -> operationLogMapper.selectPage(new Page<>(current, size), wrapper);
+        return page <= 2
+                ? readThroughCache.get(cacheKey, CacheConstants.OPLOG_TTL_SECONDS, query, CacheTags.OPLOG_LIST)
+                : query.get();
     }
 
     @Override
@@ -197,96 +208,119 @@ public class SystemServiceImpl implements SystemService {
         operationLogMapper.insert(operationLog);
         // 新增日志后，热门分页缓存失效（匹配新的:pX:sY:hZ 键格式）
         try {
-            redisUtil.deleteByPattern("hospital:admin:oplog:list:*");
+            redisUtil.invalidateTag(CacheTags.OPLOG_LIST);
+        } catch (Exception ignored) {}
+    }
+
+    @Override
+    public void recordOperationLogs(List<OperationLog> operationLogs) {
+        if (operationLogs == null || operationLogs.isEmpty()) {
+            return;
+        }
+        operationLogMapper.insertBatch(operationLogs);
+        // 每批只失效一次分页缓存
+        try {
+            redisUtil.invalidateTag(CacheTags.OPLOG_LIST);
         } catch (Exception ignored) {}
     }
 
     @Override
-    public byte[] exportOperationLogs(Map<String, Object> params) {
+    public void exportOperationLogs(Map<String, Object> params, OutputStream outputStream, LongConsumer progress) {
         log.info("导出操作日志，参数：{}", params);
 
-        try {
-            // 构建查询条件（不分页，获取所有符合条件的数据）
-            QueryWrapper<OperationLog> wrapper = new QueryWrapper<>();
-
-            boolean hasKeyword = false;
-            if (params.containsKey("keyword") && StringUtils.hasText((String) params.get("keyword"))) {
-                String keyword = (String) params.get("keyword");
-                hasKeyword = true;
-                wrapper.and(w ->
-                    w.like("username", keyword)
-                     .or()
-                     .like("operation_module", keyword)
-                     .or()
-                     .like("operation_desc", keyword)
-                );
+        // 按 (created_at, id) 键集分页逐批读取，不再限制导出条数
+        Function<OperationLog, List<OperationLog>> pageFetcher = last -> {
+            QueryWrapper<OperationLog> wrapper = buildOperationLogExportWrapper(params);
+            if (last != null) {
+                wrapper.and(w -> w.lt("created_at", last.getCreatedAt())
+                    .or(o -> o.eq("created_at", last.getCreatedAt()).lt("id", last.getId())));
             }
+            wrapper.orderByDesc("created_at", "id");
+            wrapper.last("LIMIT " + exportBatchSize);
+            return operationLogMapper.selectList(wrapper);
+        };
+
+        Function<List<OperationLog>, List<OperationLogExportDTO>> converter = logs -> logs.stream()
+            .map(log -> {
+                OperationLogExportDTO dto = new OperationLogExportDTO();
+                dto.setUsername(log.getUsername());
+                dto.setOperationModule(log.getOperationModule());
+                dto.setOperationType(log.getOperationType());
+                dto.setOperationDesc(log.getOperationDesc());
+                dto.setRequestMethod(log.getRequestMethod());
+                dto.setRequestUrl(log.getRequestUrl());
+                dto.setIpAddress(log.getIpAddress());
+                dto.setExecutionTime(log.getExecutionTime());
+                dto.setStatus(log.getStatus() == 1 ? "成功" : "失败");
+                dto.setCreatedAt(log.getCreatedAt() != null ? log.getCreatedAt().toString() : "");
+                return dto;
+            })
+            .collect(Collectors.toList());
 
-            // 用户名筛选（兼容旧参数，当未使用关键字查询时才使用）
-            if (!hasKeyword && params.containsKey("username") && StringUtils.hasText((String) params.get("username"))) {
-                wrapper.like("username", params.get("username"));
-            }
+        try {
+            long total = ExcelStreamExporter.export(outputStream, OperationLogExportDTO.class, "操作日志",
+                exportBatchSize, pageFetcher, converter, progress);
+            log.info("导出操作日志完成，记录数：{}", total);
+        } catch (Exception e) {
+            log.error("导出操作日志失败", e);
+            throw new RuntimeException("导出操作日志失败: " + e.getMessage());
+        }
+    }
 
-            // 操作模块筛选
-            if (params.containsKey("operationModule") && StringUtils.hasText((String) params.get("operationModule"))) {
-                wrapper.eq("operation_module", params.get("operationModule"));
-            }
+    @Override
+    public long countOperationLogs(Map<String, Object> params) {
+        Long count = operationLogMapper.selectCount(buildOperationLogExportWrapper(params));
+        return count != null ? count : 0L;
+    }
 
-            // 操作类型筛选
-            if (params.containsKey("operationType") && StringUtils.hasText((String) params.get("operationType"))) {
-                wrapper.eq("operation_type", params.get("operationType"));
-            }
+    /**
+     * 构建操作日志导出查询条件（不含排序和分页）
+     */
+    private QueryWrapper<OperationLog> buildOperationLogExportWrapper(Map<String, Object> params) {
+        QueryWrapper<OperationLog> wrapper = new QueryWrapper<>();
 
-            // 状态筛选
-            if (params.containsKey("status") && params.get("status") != null) {
-                wrapper.eq("status", params.get("status"));
-            }
+        boolean hasKeyword = false;
+        if (params.containsKey("keyword") && StringUtils.hasText((String) params.get("keyword"))) {
+            String keyword = (String) params.get("keyword");
+            hasKeyword = true;
+            wrapper.and(w ->
+                w.like("username", keyword)
+                 .or()
+                 .like("operation_module", keyword)
+                 .or()
+                 .like("operation_desc", keyword)
+            );
+        }
 
-            // 时间范围筛选
-            if (params.containsKey("startDate") && StringUtils.hasText((String) params.get("startDate"))) {
-                wrapper.ge("created_at", params.get("startDate"));
-            }
-            if (params.containsKey("endDate") && StringUtils.hasText((String) params.get("endDate"))) {
-                wrapper.le("created_at", params.get("endDate"));
-            }
+        // 用户名筛选（兼容旧参数，当未使用关键字查询时才使用）
+        if (!hasKeyword && params.containsKey("username") && StringUtils.hasText((String) params.get("username"))) {
+            wrapper.like("username", params.get("username"));
+        }
+
+        // 操作模块筛选
+        if (params.containsKey("operationModule") && StringUtils.hasText((String) params.get("operationModule"))) {
+            wrapper.eq("operation_module", params.get("operationModule"));
+        }
 
-            wrapper.orderByDesc("created_at");
-
-            // 查询所有符合条件的日志（限制最多10000条）
-            Page<OperationLog> page = new Page<>(1, 10000);
-            IPage<OperationLog> result = operationLogMapper.selectPage(page, wrapper);
-            List<OperationLog> logs = result.getRecords();
-
-            // 转换为导出DTO
-            List<OperationLogExportDTO> exportData = logs.stream()
-                .map(log -> {
-                    OperationLogExportDTO dto = new OperationLogExportDTO();
-                    dto.setUsername(log.getUsername());
-                    dto.setOperationModule(log.getOperationModule());
-                    dto.setOperationType(log.getOperationType());
-                    dto.setOperationDesc(log.getOperationDesc());
-                    dto.setRequestMethod(log.getRequestMethod());
-                    dto.setRequestUrl(log.getRequestUrl());
-                    dto.setIpAddress(log.getIpAddress());
-                    dto.setExecutionTime(log.getExecutionTime());
-                    dto.setStatus(log.getStatus() == 1 ? "成功" : "失败");
-                    dto.setCreatedAt(log.getCreatedAt() != null ? log.getCreatedAt().toString() : "");
-                    return dto;
-                })
-                .collect(Collectors.toList());
-
-            // 使用EasyExcel导出
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            EasyExcel.write(outputStream, OperationLogExportDTO.class)
-                .sheet("操作日志")
-                .doWrite(exportData);
-
-            return outputStream.toByteArray();
+        // 操作类型筛选
+        if (params.containsKey("operationType") && StringUtils.hasText((String) params.get("operationType"))) {
+            wrapper.eq("operation_type", params.get("operationType"));
+        }
 
-        } catch (Exception e) {
-            log.error("导出操作日志失败", e);
-            throw new RuntimeException("导出操作日志失败: " + e.getMessage());
+        // 状态筛选
+        if (params.containsKey("status") && params.get("status") != null) {
+            wrapper.eq("status", params.get("status"));
+        }
+
+        // 时间范围筛选
+        if (params.containsKey("startDate") && StringUtils.hasText((String) params.get("startDate"))) {
+            wrapper.ge("created_at", params.get("startDate"));
+        }
+        if (params.containsKey("endDate") && StringUtils.hasText((String) params.get("endDate"))) {
+            wrapper.le("created_at", params.get("endDate"));
         }
+
+        return wrapper;
     }
 
     // ==================== 系统配置管理 ====================
@@ -295,21 +329,12 @@ public class SystemServiceImpl implements SystemService {
     public List<SystemConfig> getSystemSettings() {
         log.info("获取系统设置");
         String cacheKey = "hospital:admin:config:list";
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<SystemConfig> list = (List<SystemConfig>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-
-        QueryWrapper<SystemConfig> wrapper = new QueryWrapper<>();
-        wrapper.orderByAsc("config_type");
-        List<SystemConfig> settings = systemConfigMapper.selectList(wrapper);
-        // TTL为-1表示永不过期
-        redisUtil.set(cacheKey, settings);
-        return settings;
+        // 永不过期
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT, () -> {
+            QueryWrapper<SystemConfig> wrapper = new QueryWrapper<>();
+            wrapper.orderByAsc("config_type");
+            return systemConfigMapper.selectList(wrapper);
+        });
     }
 
     @Override
@@ -376,60 +401,39 @@ public class SystemServiceImpl implements SystemService {
     public List<Dictionary> getDictionaryList() {
         log.info("获取数据字典列表");
         String cacheKey = CacheConstants.DICT_LIST_CACHE_KEY;
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<Dictionary> list = (List<Dictionary>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-
-        QueryWrapper<Dictionary> wrapper = new QueryWrapper<>();
-        wrapper.eq("status", 1)
-               .orderByAsc("dict_type", "dict_sort");
-        List<Dictionary> list = dictionaryMapper.selectList(wrapper);
-
-        // 设置兼容字段
-        for (Dictionary dict : list) {
-            if (dict.getDictLabel() != null) {
-                dict.setDictCode(dict.getDictLabel());
-                dict.setDictName(dict.getDictLabel());
-            }
-        }
-        // TTL为-1表示永不过期
-        redisUtil.set(cacheKey, list);
-        return list;
+        // 永不过期
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT, () -> {
+            QueryWrapper<Dictionary> wrapper = new QueryWrapper<>();
+            wrapper.eq("status", 1)
+                   .orderByAsc("dict_type", "dict_sort");
+            return fillDictCompatFields(dictionaryMapper.selectList(wrapper));
+        });
     }
 
     @Override
     public List<Dictionary> getDictionaryListByType(String type) {
         log.info("获取数据字典列表，类型：{}", type);
         String cacheKey = CacheConstants.DICT_LIST_CACHE_KEY + ":type:" + type;
-        Object cached = redisUtil.get(cacheKey);
-        if (cached instanceof List) {
-            try {
-                @SuppressWarnings("unchecked")
-                List<Dictionary> list = (List<Dictionary>) cached;
-                return list;
-            } catch (ClassCastException ignored) {}
-        }
-
-        QueryWrapper<Dictionary> wrapper = new QueryWrapper<>();
-        wrapper.eq("status", 1)
-               .eq("dict_type", type)
-               .orderByAsc("dict_sort");
-        List<Dictionary> list = dictionaryMapper.selectList(wrapper);
+        // 永不过期
+        return readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT, () -> {
+            QueryWrapper<Dictionary> wrapper = new QueryWrapper<>();
+            wrapper.eq("status", 1)
+                   .eq("dict_type", type)
+                   .orderByAsc("dict_sort");
+            return fillDictCompatFields(dictionaryMapper.selectList(wrapper));
+        });
+    }
 
-        // 设置兼容字段
+    /**
+     * 设置兼容字段
+     */
+    private List<Dictionary> fillDictCompatFields(List<Dictionary> list) {
         for (Dictionary dict : list) {
             if (dict.getDictLabel() != null) {
                 dict.setDictCode(dict.getDictLabel());
                 dict.setDictName(dict.getDictLabel());
             }
         }
-        // TTL为-1表示永不过期
-        redisUtil.set(cacheKey, list);
         return list;
     }
 
@@ -582,43 +586,36 @@ public class SystemServiceImpl implements SystemService {
 
         String cacheKey = redisUtil.buildCacheKey(CacheConstants.USER_LIST_CACHE_PREFIX, page, pageSize, filterParams);
 
-        if (page <= CacheConstants.USER_LIST_HOT_PAGES) {
-            Object cached = redisUtil.get(cacheKey);
-            if (cached instanceof IPage) {
-                @SuppressWarnings("unchecked")
-                IPage<User> cachedPage = (IPage<User>) cached;
-                return cachedPage;
+        long current = page;
+        long size = pageSize;
+        Supplier<IPage<User>> query = () -> {
+            IPage<User> result = userMapper.selectPage(new Page<>(current, size), wrapper);
+
+            // 为每个用户的头像生成签名URL并缓存
+            if (result.getRecords() != null && !result.getRecords().isEmpty()) {
+                result.getRecords().forEach(user -> {
+                    // 确保所有用户都有头像字段（即使为空也要处理）
+                    String avatarUrl = user.getAvatar();
+                    if (avatarUrl != null && !avatarUrl.isEmpty()) {
+                        String signedAvatarUrl = resolveAvatarUrlWithCache(avatarUrl, user.getId(),
+                            user.getRoleType() != null && user.getRoleType() == 2 ? "doctor" :
+                            user.getRoleType() != null && user.getRoleType() == 3 ? "admin" : "patient");
+                        user.setAvatar(signedAvatarUrl);
+                    } else {
+                        // 如果用户没有头像，设置默认头像
+                        String defaultAvatar = resolveAvatarUrlWithCache(null, user.getId(),
+                            user.getRoleType() != null && user.getRoleType() == 2 ? "doctor" :
+                            user.getRoleType() != null && user.getRoleType() == 3 ? "admin" : "patient");
+                        user.setAvatar(defaultAvatar);
+                    }
+                });
             }
-        }
-
-        Page<User> pageObject = new Page<>(page, pageSize);
-        IPage<User> result = userMapper.selectPage(pageObject, wrapper);
-
-        // 为每个用户的头像生成签名URL并缓存
-        if (result.getRecords() != null && !result.getRecords().isEmpty()) {
-            result.getRecords().forEach(user -> {
-                // 确保所有用户都有头像字段（即使为空也要处理）
-                String avatarUrl = user.getAvatar();
-                if (avatarUrl != null && !avatarUrl.isEmpty()) {
-                    String signedAvatarUrl = resolveAvatarUrlWithCache(avatarUrl, user.getId(),
-                        user.getRoleType() != null && user.getRoleType() == 2 ? "doctor" :
-                        user.getRoleType() != null && user.getRoleType() == 3 ? "admin" : "patient");
-                    user.setAvatar(signedAvatarUrl);
-                } else {
-                    // 如果用户没有头像，设置默认头像
-                    String defaultAvatar = resolveAvatarUrlWithCache(null, user.getId(),
-                        user.getRoleType() != null && user.getRoleType() == 2 ? "doctor" :
-                        user.getRoleType() != null && user.getRoleType() == 3 ? "admin" : "patient");
-                    user.setAvatar(defaultAvatar);
-                }
-            });
-        }
-
-        if (page <= CacheConstants.USER_LIST_HOT_PAGES) {
-            // TTL为-1表示永不过期
-            redisUtil.set(cacheKey, result);
-        }
-        return result;
+            return result;
+        };
+        // 热门分页永不过期
+        return page <= CacheConstants.USER_LIST_HOT_PAGES
+                ? readThroughCache.get(cacheKey, CacheTtlPolicy.PERMANENT, query)
+                : query.get();
     }
 
     /**
@@ -935,6 +932,7 @@ public class SystemServiceImpl implements SystemService {
                 redisUtil.delete(tokenKey);
             }
             redisUtil.delete(userTokenKey);
+            authSessionCache.revokeUser(userId);
 
             log.info("管理员强制下线成功：userId={}, 删除键：{} 和其令牌会话", userId, userTokenKey);
             return true;
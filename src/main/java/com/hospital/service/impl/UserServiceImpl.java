@@ -21,9 +21,12 @@ import com.hospital.entity.User;
 import com.hospital.mapper.AppointmentMapper;
 import com.hospital.mapper.DoctorMapper;
 import com.hospital.mapper.UserMapper;
+import com.hospital.service.DoctorService;
 import com.hospital.service.OssService;
 import com.hospital.service.UserService;
+import com.hospital.util.AuthSessionCache;
 import com.hospital.util.JwtUtil;
+import com.hospital.util.ReadThroughCache;
 import com.hospital.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -70,12 +73,21 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private ReadThroughCache readThroughCache;
+
+    @Autowired
+    private AuthSessionCache authSessionCache;
+
     @Autowired
     private OssConfig ossConfig;
 
     @Autowired
     private OssService ossService;
 
+    @Autowired
+    private DoctorService doctorService;
+
     @Autowired
     private SystemSettingManager systemSettingManager;
 
@@ -152,6 +164,7 @@ public class UserServiceImpl implements UserService {
                 String oldTokenKey = "hospital:auth:token:" + oldToken;
                 // 删除旧token的会话信息
                 redisUtil.delete(oldTokenKey);
+                authSessionCache.revokeUser(user.getId());
                 log.info("用户在其他设备登录，已使旧设备token失效: userId={}, oldToken={}",
                         user.getId(), oldToken.substring(0, Math.min(20, oldToken.length())) + "...");
             }
@@ -386,6 +399,7 @@ public class UserServiceImpl implements UserService {
             }
             // 删除令牌对应的会话键
             redisUtil.delete(tokenKey);
+            authSessionCache.revokeUser(userId);
 
             // ================== 更新最后登录时间 ==================
             try {
@@ -409,45 +423,16 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * 优先从Redis缓存中解析医生ID，缓存未命中时回源数据库
+     * 解析医生ID，复用医生服务的个人信息缓存
      */
     private Long resolveDoctorId(Long userId) {
-        String cacheKey = "hospital:doctor:profile:userId:" + userId;
-
-        // 1. 优先从缓存获取
-        try {
-            Object cachedDoctor = redisUtil.get(cacheKey);
-            if (cachedDoctor != null) {
-                if (cachedDoctor instanceof Doctor) {
-                    return ((Doctor) cachedDoctor).getId();
-                }
-                if (cachedDoctor instanceof Map) {
-                    Object idObj = ((Map<?, ?>) cachedDoctor).get("id");
-                    if (idObj != null) {
-                        return Long.valueOf(String.valueOf(idObj));
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.warn("从缓存获取医生信息失败: userId={}, error={}", userId, e.getMessage());
-        }
-
-        // 2. 回源数据库
         try {
-            Doctor doctor = doctorMapper.selectByUserId(userId);
-            if (doctor != null) {
-                // 缓存回填，减少后续查询压力
-                try {
-                    redisUtil.set(cacheKey, doctor, 10, TimeUnit.MINUTES);
-                } catch (Exception e) {
-                    log.warn("缓存医生信息失败: userId={}, error={}", userId, e.getMessage());
-                }
-                return doctor.getId();
-            }
+            Doctor doctor = doctorService.getDoctorProfileByUserId(userId).getData();
+            return doctor != null ? doctor.getId() : null;
         } catch (Exception e) {
-            log.warn("数据库查询医生信息失败: userId={}, error={}", userId, e.getMessage());
+            log.warn("查询医生信息失败: userId={}, error={}", userId, e.getMessage());
+            return null;
         }
-        return null;
     }
 
     private boolean isLoginLocked(Long userId) {
@@ -624,6 +609,7 @@ public class UserServiceImpl implements UserService {
                 try {
                     redisUtil.deleteByPattern("hospital:auth:user:" + userId + ":token");
                     redisUtil.deleteByPattern("hospital:auth:token:*");
+                    authSessionCache.revokeAll();
                 } catch (Exception ignored) {}
                 return Result.success("密码修改成功，请重新登录");
             } else {
@@ -713,18 +699,13 @@ public class UserServiceImpl implements UserService {
     public Result<com.hospital.dto.response.PatientAppointmentStatsResponse> getPatientAppointmentStats(Long patientId) {
         try {
             String cacheKey = "hospital:patient:appointment:stats:patient:" + patientId;
-            Object cached = redisUtil.get(cacheKey);
-
-            if (cached instanceof com.hospital.dto.response.PatientAppointmentStatsResponse) {
-                return Result.success((com.hospital.dto.response.PatientAppointmentStatsResponse) cached);
-            }
-
-            com.hospital.dto.response.PatientAppointmentStatsResponse stats = new com.hospital.dto.response.PatientAppointmentStatsResponse();
-            stats.setTotalAppointments(appointmentMapper.countByPatientId(patientId));
-            stats.setPendingAppointments(appointmentMapper.countPendingByPatientId(patientId));
-
             // 缓存5分钟
-            redisUtil.set(cacheKey, stats, 5, TimeUnit.MINUTES);
+            com.hospital.dto.response.PatientAppointmentStatsResponse stats = readThroughCache.get(cacheKey, 5 * 60, () -> {
+                com.hospital.dto.response.PatientAppointmentStatsResponse loaded = new com.hospital.dto.response.PatientAppointmentStatsResponse();
+                loaded.setTotalAppointments(appointmentMapper.countByPatientId(patientId));
+                loaded.setPendingAppointments(appointmentMapper.countPendingByPatientId(patientId));
+                return loaded;
+            });
 
             return Result.success(stats);
         } catch (Exception e) {
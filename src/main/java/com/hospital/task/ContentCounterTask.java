@@ -0,0 +1,49 @@
+package com.hospital.task;
+
+import com.hospital.service.ContentCounterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 内容计数落库任务
+ * 定期把Redis中累积的浏览、点赞、收藏增量批量写入数据库，每日重建一次热度排行
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class ContentCounterTask {
+
+    @Autowired
+    private ContentCounterService contentCounterService;
+
+    /**
+     * 增量落库（各节点均可执行，分片取出是原子的）
+     */
+    @Scheduled(fixedDelayString = "${hospital.counter.flush-interval-ms:5000}")
+    public void flush() {
+        try {
+            int updated = contentCounterService.flush();
+            if (updated > 0) {
+                log.debug("计数增量落库完成，共更新{}行", updated);
+            }
+        } catch (Exception e) {
+            log.warn("计数增量落库失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每日凌晨重建热度排行
+     */
+    @Scheduled(cron = "0 40 3 * * ?")
+    public void rebuildPopular() {
+        try {
+            contentCounterService.rebuildPopular();
+        } catch (Exception e) {
+            log.warn("重建热度排行失败: {}", e.getMessage());
+        }
+    }
+}
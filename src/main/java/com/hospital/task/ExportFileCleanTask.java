@@ -0,0 +1,36 @@
+package com.hospital.task;
+
+import com.hospital.service.ExportTaskService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 异步导出文件清理定时任务
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class ExportFileCleanTask {
+
+    @Autowired
+    private ExportTaskService exportTaskService;
+
+    /**
+     * 每小时清理一次过期的导出文件
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void cleanExpiredFiles() {
+        try {
+            int deleted = exportTaskService.cleanExpiredFiles();
+            if (deleted > 0) {
+                log.info("清理过期导出文件{}个", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理过期导出文件失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.hospital.task;
+
+import com.hospital.service.RecipeDictionaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 药膳名称词典刷新任务
+ * 启动后构建词典，之后定期检查药膳名称指纹，有变化时重建
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class RecipeDictionaryTask {
+
+    @Autowired
+    private RecipeDictionaryService recipeDictionaryService;
+
+    /**
+     * 启动后构建词典，构建完成前 AI 推荐结果回退到数据库模糊匹配
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        refresh();
+    }
+
+    /**
+     * 定期检查并按需重建
+     */
+    @Scheduled(initialDelayString = "${hospital.recipe-dictionary.refresh-interval-ms:60000}",
+            fixedDelayString = "${hospital.recipe-dictionary.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            recipeDictionaryService.refresh();
+        } catch (Exception e) {
+            log.warn("刷新药膳名称词典失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.hospital.task;
+
+import com.hospital.service.RecipeFeatureService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 药膳特征库刷新任务
+ * 启动后构建特征库，之后定期检查药膳数据指纹，有变化时重新编码
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class RecipeFeatureTask {
+
+    @Autowired
+    private RecipeFeatureService recipeFeatureService;
+
+    /**
+     * 启动后构建特征库，构建完成前内容推荐按字符串逐个打分
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        refresh();
+    }
+
+    /**
+     * 定期检查并按需重建
+     */
+    @Scheduled(initialDelayString = "${hospital.recommendation.content.refresh-interval-ms:60000}",
+            fixedDelayString = "${hospital.recommendation.content.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            recipeFeatureService.refresh();
+        } catch (Exception e) {
+            log.warn("刷新药膳特征库失败: {}", e.getMessage());
+        }
+    }
+}
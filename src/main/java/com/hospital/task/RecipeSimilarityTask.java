@@ -0,0 +1,45 @@
+package com.hospital.task;
+
+import com.hospital.service.RecipeSimilarityService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 药膳协同过滤模型构建任务
+ * 每个节点各自维护内存模型：启动后全量构建，之后定期重建修正增量更新的误差
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class RecipeSimilarityTask {
+
+    @Autowired
+    private RecipeSimilarityService recipeSimilarityService;
+
+    /**
+     * 启动后构建模型，构建完成前协同过滤推荐降级为热门药膳
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * 定期全量重建
+     */
+    @Scheduled(initialDelayString = "${hospital.recommendation.item-cf.rebuild-interval-ms:1800000}",
+            fixedDelayString = "${hospital.recommendation.item-cf.rebuild-interval-ms:1800000}")
+    public void rebuild() {
+        try {
+            recipeSimilarityService.rebuild();
+        } catch (Exception e) {
+            log.warn("重建药膳协同过滤模型失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.hospital.task;
+
+import com.hospital.config.ScheduleQuotaProperties;
+import com.hospital.service.ScheduleQuotaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 号源同步定时任务
+ * 负责Redis号源的预热、异步回写数据库以及与预约表的对账
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class ScheduleQuotaSyncTask {
+
+    @Autowired
+    private ScheduleQuotaService scheduleQuotaService;
+
+    @Autowired
+    private ScheduleQuotaProperties properties;
+
+    /**
+     * 启动后预热号源
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadOnStartup() {
+        preloadUpcomingSchedules();
+    }
+
+    /**
+     * 每天凌晨预热未来几天的号源
+     */
+    @Scheduled(cron = "0 5 0 * * ?")
+    public void preloadUpcomingSchedules() {
+        if (!scheduleQuotaService.isEnabled()) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            int loaded = scheduleQuotaService.preload(today, today.plusDays(Math.max(properties.getPreloadDays() - 1, 0)));
+            log.info("号源预热完成，新加载{}个排班", loaded);
+        } catch (Exception e) {
+            log.warn("号源预热失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将Redis中变更的号源回写数据库
+     */
+    @Scheduled(fixedDelayString = "${hospital.schedule.quota.flush-interval-ms:1000}")
+    public void flushDirtyQuota() {
+        if (!scheduleQuotaService.isEnabled()) {
+            return;
+        }
+        try {
+            int flushed = scheduleQuotaService.flushDirty();
+            if (flushed > 0) {
+                log.debug("号源回写完成: {}个排班", flushed);
+            }
+        } catch (Exception e) {
+            log.warn("号源回写失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每10分钟对账一次
+     */
+    @Scheduled(cron = "0 */10 * * * ?")
+    public void reconcileQuota() {
+        if (!scheduleQuotaService.isEnabled()) {
+            return;
+        }
+        try {
+            int corrected = scheduleQuotaService.reconcile();
+            if (corrected > 0) {
+                log.warn("号源对账完成，修正{}个排班", corrected);
+            }
+        } catch (Exception e) {
+            log.warn("号源对账失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.hospital.task;
+
+import com.hospital.service.SearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 搜索索引构建任务
+ * 每个节点各自维护内存索引：启动后全量构建，之后定期重建兜底未经应用写入的数据变更
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class SearchIndexTask {
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    /**
+     * 启动后构建索引，构建完成前搜索回退到数据库查询
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * 定期全量重建
+     */
+    @Scheduled(initialDelayString = "${hospital.search.index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${hospital.search.index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        try {
+            searchIndexService.rebuildAll();
+        } catch (Exception e) {
+            log.warn("重建搜索索引失败: {}", e.getMessage());
+        }
+    }
+}
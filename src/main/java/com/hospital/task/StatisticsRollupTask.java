@@ -0,0 +1,64 @@
+package com.hospital.task;
+
+import com.hospital.service.StatisticsRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 预约统计汇总定时任务
+ * 定时增量刷新有预约变更的日期，每日凌晨重建近期汇总
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class StatisticsRollupTask {
+
+    @Autowired
+    private StatisticsRollupService statisticsRollupService;
+
+    /**
+     * 启动后刷新一次，首次部署时回填汇总表
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshOnStartup() {
+        refresh();
+    }
+
+    /**
+     * 增量刷新有预约变更的日期
+     */
+    @Scheduled(fixedDelayString = "${hospital.statistics.rollup.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            int rebuilt = statisticsRollupService.refresh();
+            if (rebuilt > 0) {
+                log.debug("预约统计汇总刷新完成，共重建{}天", rebuilt);
+            }
+        } catch (Exception e) {
+            log.warn("预约统计汇总刷新失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每天凌晨3:30重建近期汇总
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void compact() {
+        try {
+            int rebuilt = statisticsRollupService.compact();
+            if (rebuilt >= 0) {
+                log.info("预约统计汇总重建完成，共重建{}天", rebuilt);
+            } else {
+                log.warn("预约统计汇总重建跳过：等待租约超时，其他节点仍在刷新");
+            }
+        } catch (Exception e) {
+            log.warn("预约统计汇总重建失败: {}", e.getMessage());
+        }
+    }
+}
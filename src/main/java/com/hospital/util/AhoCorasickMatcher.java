@@ -0,0 +1,226 @@
+package com.hospital.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick 多模式匹配器（不可变）
+ *
+ * 构建时把全部关键词插入字典树并计算失败指针，之后一次线性扫描即可找出文本中出现的所有关键词，
+ * 耗时与文本长度和命中数成正比，与关键词数量无关。
+ * 每个节点的出边以有序 char 数组存放，按字符二分查找。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public final class AhoCorasickMatcher<T> {
+
+    private static final char[] NO_CHARS = new char[0];
+
+    private static final int[] NO_TARGETS = new int[0];
+
+    private final char[][] edgeChars;
+
+    private final int[][] edgeTargets;
+
+    private final int[] fail;
+
+    /** 沿失败指针能到达的最近一个关键词结束节点，没有时为 -1 */
+    private final int[] outputLink;
+
+    /** 以该节点结束的关键词长度，0 表示不是关键词结尾 */
+    private final int[] keywordLength;
+
+    private final Object[] values;
+
+    private final int keywordCount;
+
+    private AhoCorasickMatcher(char[][] edgeChars, int[][] edgeTargets, int[] fail, int[] outputLink,
+                               int[] keywordLength, Object[] values, int keywordCount) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.outputLink = outputLink;
+        this.keywordLength = keywordLength;
+        this.values = values;
+        this.keywordCount = keywordCount;
+    }
+
+    /**
+     * 构建匹配器
+     *
+     * @param keywords 关键词 -> 命中时返回的值（空关键词忽略）
+     * @return 匹配器
+     */
+    public static <T> AhoCorasickMatcher<T> build(Map<String, T> keywords) {
+        // 先用 TreeMap 构建字典树，出边天然有序
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        List<Object> nodeValues = new ArrayList<>();
+        children.add(new TreeMap<>());
+        lengths.add(0);
+        nodeValues.add(null);
+        int keywordCount = 0;
+        for (Map.Entry<String, T> entry : keywords.entrySet()) {
+            String keyword = entry.getKey();
+            if (keyword == null || keyword.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                Integer next = children.get(node).get(keyword.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(keyword.charAt(i), next);
+                    children.add(new TreeMap<>());
+                    lengths.add(0);
+                    nodeValues.add(null);
+                }
+                node = next;
+            }
+            if (lengths.get(node) == 0) {
+                keywordCount++;
+            }
+            lengths.set(node, keyword.length());
+            nodeValues.set(node, entry.getValue());
+        }
+
+        int size = children.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        int[] keywordLength = new int[size];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> edges = children.get(node);
+            edgeChars[node] = edges.isEmpty() ? NO_CHARS : new char[edges.size()];
+            edgeTargets[node] = edges.isEmpty() ? NO_TARGETS : new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][i] = edge.getKey();
+                edgeTargets[node][i++] = edge.getValue();
+            }
+            keywordLength[node] = lengths.get(node);
+        }
+
+        // 按层次遍历计算失败指针：子节点的失败指针是父节点失败链上第一个有同字符出边的节点
+        int[] fail = new int[size];
+        int[] outputLink = new int[size];
+        outputLink[0] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            fail[child] = 0;
+            outputLink[child] = -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                int state = fail[node];
+                int target = transition(edgeChars, edgeTargets, state, c);
+                while (target < 0 && state != 0) {
+                    state = fail[state];
+                    target = transition(edgeChars, edgeTargets, state, c);
+                }
+                fail[child] = target >= 0 ? target : 0;
+                outputLink[child] = keywordLength[fail[child]] > 0 ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        return new AhoCorasickMatcher<>(edgeChars, edgeTargets, fail, outputLink, keywordLength,
+                nodeValues.toArray(), keywordCount);
+    }
+
+    /**
+     * 找出文本中出现的全部关键词（可重叠），按结束位置升序
+     */
+    public List<Match<T>> findAll(CharSequence text) {
+        List<Match<T>> matches = new ArrayList<>();
+        if (text == null || keywordCount == 0) {
+            return matches;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int target = transition(edgeChars, edgeTargets, state, c);
+            while (target < 0 && state != 0) {
+                state = fail[state];
+                target = transition(edgeChars, edgeTargets, state, c);
+            }
+            state = target >= 0 ? target : 0;
+            int output = keywordLength[state] > 0 ? state : outputLink[state];
+            while (output >= 0) {
+                matches.add(new Match<>(i + 1 - keywordLength[output], i + 1, value(output)));
+                output = outputLink[output];
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 找出文本中互不重叠的关键词：起点靠前者优先，起点相同时取最长的（如同时收录"山药粥"与"山药"时只命中前者）
+     */
+    public List<Match<T>> findLongest(CharSequence text) {
+        List<Match<T>> all = findAll(text);
+        all.sort(Comparator.comparingInt((Match<T> match) -> match.start)
+                .thenComparing(Comparator.comparingInt((Match<T> match) -> match.end).reversed()));
+        List<Match<T>> result = new ArrayList<>();
+        int covered = 0;
+        for (Match<T> match : all) {
+            if (match.start >= covered) {
+                result.add(match);
+                covered = match.end;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 关键词数量
+     */
+    public int size() {
+        return keywordCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int node) {
+        return (T) values[node];
+    }
+
+    private static int transition(char[][] edgeChars, int[][] edgeTargets, int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    /**
+     * 一次命中：文本区间 [start, end) 与关键词对应的值
+     */
+    public static final class Match<T> {
+        private final int start;
+        private final int end;
+        private final T value;
+
+        private Match(int start, int end, T value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.hospital.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.config.AuthSessionCacheProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已校验登录会话的本地缓存
+ *
+ * 请求携带的令牌通过签名和Redis会话校验后，按令牌的SHA-256摘要缓存在本地，
+ * 之后的请求在本地命中即可跳过JWT验签和Redis读取：
+ * 1. 滑动续期按会话限频（renewIntervalSeconds 内最多一次），并由定时任务合并为一次脚本调用批量提交；
+ * 2. 退出登录、强制下线、在其他设备登录时通过 Redis Pub/Sub 广播吊销，各节点清除该用户的本地会话；
+ * 3. 本地会话最长保留 localTtlSeconds，兜底丢失的吊销广播。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class AuthSessionCache {
+
+    /** 吊销广播中表示全部用户的消息 */
+    private static final String REVOKE_ALL = "*";
+
+    /**
+     * 批量续期：KEYS[i] 的过期时间设置为 ARGV[i] 秒，键不存在时忽略
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS do\n" +
+            "  redis.call('EXPIRE', KEYS[i], ARGV[i])\n" +
+            "end\n" +
+            "return #KEYS", Long.class);
+
+    /**
+     * 吊销版本号：每次本地吊销递增。校验Redis会话期间若发生吊销，则不写入本地缓存，
+     * 避免把吊销前读到的会话写回本地。
+     */
+    private final AtomicLong revocationVersion = new AtomicLong();
+
+    /** 待提交的续期：会话键 -> 续期请求 */
+    private final ConcurrentMap<String, Renewal> pendingRenewals = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private AuthSessionCacheProperties properties;
+
+    private Cache<String, AuthSession> sessions;
+
+    @PostConstruct
+    public void init() {
+        // 续期间隔不小于本地保留时间时，缓存条目总在首次续期前过期，命中缓存的请求永远不会续期
+        if (properties.isEnabled() && properties.getRenewIntervalSeconds() >= properties.getLocalTtlSeconds()) {
+            throw new IllegalStateException(String.format(
+                    "hospital.auth.session-cache.renew-interval-seconds(%d) 必须小于 local-ttl-seconds(%d)",
+                    properties.getRenewIntervalSeconds(), properties.getLocalTtlSeconds()));
+        }
+        sessions = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getLocalTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 查询本地缓存的会话，令牌已过期或未缓存时返回 null
+     *
+     * @param token 令牌
+     * @return 会话
+     */
+    public AuthSession get(String token) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String digest = digest(token);
+        AuthSession session = sessions.getIfPresent(digest);
+        if (session != null && session.getExpiresAt() <= System.currentTimeMillis()) {
+            sessions.invalidate(digest);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * 当前吊销版本号，在校验Redis会话之前读取，写入本地缓存时传入
+     */
+    public long version() {
+        return revocationVersion.get();
+    }
+
+    /**
+     * 缓存已校验的会话，校验期间发生过吊销时放弃写入
+     *
+     * @param token 令牌
+     * @param session 会话
+     * @param version 校验前读取的吊销版本号
+     */
+    public void put(String token, AuthSession session, long version) {
+        if (!properties.isEnabled() || revocationVersion.get() != version) {
+            return;
+        }
+        sessions.put(digest(token), session);
+    }
+
+    /**
+     * 登记滑动续期：距上次续期不足 renewIntervalSeconds 时忽略，否则等待下一次批量提交
+     *
+     * @param session 会话
+     * @param ttlSeconds 续期后的会话过期秒数
+     */
+    public void renew(AuthSession session, long ttlSeconds) {
+        long now = System.currentTimeMillis();
+        long last = session.renewedAt.get();
+        if (now - last < TimeUnit.SECONDS.toMillis(properties.getRenewIntervalSeconds())
+                || !session.renewedAt.compareAndSet(last, now)) {
+            return;
+        }
+        pendingRenewals.put(session.getTokenKey(), new Renewal(session.getUserTokenKey(), ttlSeconds));
+    }
+
+    /**
+     * 吊销用户的会话：清除本节点缓存并广播给其他节点
+     *
+     * @param userId 用户ID
+     */
+    public void revokeUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictUser(userId);
+        broadcast(String.valueOf(userId));
+    }
+
+    /**
+     * 吊销全部会话：清除本节点缓存并广播给其他节点
+     */
+    public void revokeAll() {
+        evictAll();
+        broadcast(REVOKE_ALL);
+    }
+
+    /**
+     * 处理其他节点发来的吊销广播
+     *
+     * @param message 用户ID，"*" 表示全部
+     */
+    public void handleRevokeMessage(String message) {
+        if (REVOKE_ALL.equals(message)) {
+            evictAll();
+            return;
+        }
+        try {
+            evictUser(Long.valueOf(message));
+        } catch (NumberFormatException e) {
+            log.warn("忽略无法解析的会话吊销消息: {}", message);
+        }
+    }
+
+    /**
+     * 批量提交待续期的会话
+     */
+    @Scheduled(fixedDelayString = "${hospital.auth.session-cache.renew-flush-ms:1000}")
+    public void flushRenewals() {
+        if (pendingRenewals.isEmpty()) {
+            return;
+        }
+        int batchSize = Math.max(1, properties.getRenewBatchSize());
+        List<String> keys = new ArrayList<>(batchSize * 2);
+        List<Object> ttls = new ArrayList<>(batchSize * 2);
+        Iterator<Map.Entry<String, Renewal>> iterator = pendingRenewals.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Renewal> entry = iterator.next();
+            iterator.remove();
+            keys.add(entry.getKey());
+            ttls.add(entry.getValue().ttlSeconds);
+            keys.add(entry.getValue().userTokenKey);
+            ttls.add(entry.getValue().ttlSeconds);
+            if (keys.size() >= batchSize * 2) {
+                submitRenewals(keys, ttls);
+                keys = new ArrayList<>(batchSize * 2);
+                ttls = new ArrayList<>(batchSize * 2);
+            }
+        }
+        if (!keys.isEmpty()) {
+            submitRenewals(keys, ttls);
+        }
+    }
+
+    private void submitRenewals(List<String> keys, List<Object> ttls) {
+        try {
+            redisUtil.executeScript(RENEW_SCRIPT, keys, ttls.toArray());
+        } catch (Exception e) {
+            // 续期失败只会让会话按原TTL过期，下一个续期周期会再次尝试
+            log.warn("批量续期登录会话失败: count={}, error={}", keys.size() / 2, e.getMessage());
+        }
+    }
+
+    private void evictUser(Long userId) {
+        revocationVersion.incrementAndGet();
+        sessions.asMap().values().removeIf(session -> userId.equals(session.getUserId()));
+    }
+
+    private void evictAll() {
+        revocationVersion.incrementAndGet();
+        sessions.invalidateAll();
+    }
+
+    private void broadcast(String message) {
+        try {
+            redisUtil.publish(CacheConstants.AUTH_REVOKE_CHANNEL, message);
+        } catch (Exception e) {
+            // 广播失败时其他节点的本地会话最迟在 localTtlSeconds 后过期
+            log.warn("广播会话吊销失败: message={}, error={}", message, e.getMessage());
+        }
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 已校验的登录会话
+     */
+    @Getter
+    public static class AuthSession {
+        private final Long userId;
+        private final String username;
+        private final Integer roleType;
+        /** 令牌过期时间（毫秒） */
+        private final long expiresAt;
+        /** Redis会话键 */
+        private final String tokenKey;
+        /** Redis用户最新令牌键 */
+        private final String userTokenKey;
+        /** 上次滑动续期时间（毫秒） */
+        private final AtomicLong renewedAt;
+
+        public AuthSession(Long userId, String username, Integer roleType, long expiresAt,
+                           String tokenKey, String userTokenKey) {
+            this.userId = userId;
+            this.username = username;
+            this.roleType = roleType;
+            this.expiresAt = expiresAt;
+            this.tokenKey = tokenKey;
+            this.userTokenKey = userTokenKey;
+            // 从0开始：写入本地缓存后的首个命中即登记一次批量续期，之后按 renewIntervalSeconds 限频
+            this.renewedAt = new AtomicLong(0L);
+        }
+    }
+
+    private static class Renewal {
+        private final String userTokenKey;
+        private final long ttlSeconds;
+
+        private Renewal(String userTokenKey, long ttlSeconds) {
+            this.userTokenKey = userTokenKey;
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+}
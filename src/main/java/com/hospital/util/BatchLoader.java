@@ -0,0 +1,86 @@
+package com.hospital.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 批量加载工具
+ * 收集去重后的ID，按块调用一次批量查询（如 selectBatchIds），再以ID为键在内存中关联，
+ * 用于替代列表中逐行 selectById 的 N+1 查询。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public final class BatchLoader {
+
+    /**
+     * 默认单次 IN 查询的ID数量
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private BatchLoader() {
+    }
+
+    /**
+     * 从列表元素中提取去重后的非空ID
+     *
+     * @param items 元素列表
+     * @param idGetter ID提取函数
+     * @return 去重后的ID集合（保持首次出现顺序）
+     */
+    public static <T, ID> Collection<ID> collectIds(Collection<T> items, Function<T, ID> idGetter) {
+        if (items == null || items.isEmpty()) {
+            return Collections.emptySet();
+        }
+        LinkedHashSet<ID> ids = new LinkedHashSet<>();
+        for (T item : items) {
+            if (item == null) {
+                continue;
+            }
+            ID id = idGetter.apply(item);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 按块批量加载并以ID建立索引
+     *
+     * @param ids ID集合
+     * @param chunkSize 每块大小
+     * @param loader 批量查询函数
+     * @param idGetter 结果的ID提取函数
+     * @return ID到实体的映射
+     */
+    public static <T, ID> Map<ID, T> loadByIds(Collection<ID> ids, int chunkSize,
+                                               Function<Collection<ID>, List<T>> loader,
+                                               Function<T, ID> idGetter) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        int size = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+        List<ID> idList = new ArrayList<>(ids);
+        Map<ID, T> result = new HashMap<>(idList.size() * 2);
+        for (int from = 0; from < idList.size(); from += size) {
+            List<T> rows = loader.apply(idList.subList(from, Math.min(from + size, idList.size())));
+            if (rows == null) {
+                continue;
+            }
+            for (T row : rows) {
+                if (row != null) {
+                    result.put(Objects.requireNonNull(idGetter.apply(row)), row);
+                }
+            }
+        }
+        return result;
+    }
+}
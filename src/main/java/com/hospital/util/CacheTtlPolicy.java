@@ -18,9 +18,6 @@ public enum CacheTtlPolicy {
     PERMANENT(-1, TimeUnit.SECONDS),
 
     // ==================== 短期缓存（秒级） ====================
-    /** 会话消息列表缓存（1分钟） */
-    CONVERSATION_MESSAGE_LIST(CacheConstants.CACHE_CONVERSATION_MESSAGE_LIST_TTL_SECONDS, TimeUnit.SECONDS),
-
     /** 会话列表缓存（2分钟） */
     CONVERSATION_LIST(CacheConstants.CACHE_CONVERSATION_LIST_TTL_SECONDS, TimeUnit.SECONDS),
 
@@ -0,0 +1,60 @@
+package com.hospital.util;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 读穿透缓存的存储结构：缓存值 + 逻辑过期时间 + 回源耗时
+ * Redis 中的物理TTL比逻辑TTL多出一段宽限期，逻辑过期后的宽限期内仍可返回旧值并在后台刷新。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Data
+@NoArgsConstructor
+public class CachedValue {
+
+    /**
+     * 缓存值
+     */
+    private Object value;
+
+    /**
+     * 逻辑过期时间戳（毫秒），0 表示永不过期
+     */
+    private long expireAt;
+
+    /**
+     * 本次回源耗时（毫秒），用于计算提前刷新概率
+     */
+    private long loadMillis;
+
+    public CachedValue(Object value, long ttlSeconds, long loadMillis) {
+        this.value = value;
+        this.expireAt = ttlSeconds > 0 ? System.currentTimeMillis() + ttlSeconds * 1000 : 0;
+        this.loadMillis = loadMillis;
+    }
+
+    /**
+     * 是否需要刷新：已逻辑过期，或按 XFetch 算法命中提前刷新
+     * 回源越慢、离过期越近，提前刷新的概率越大：now - loadMillis * beta * ln(rand) >= expireAt
+     *
+     * @param now 当前时间戳（毫秒）
+     * @param beta 提前刷新系数，小于等于0时只在过期后刷新
+     */
+    public boolean shouldRefresh(long now, double beta) {
+        if (expireAt <= 0) {
+            return false;
+        }
+        if (now >= expireAt) {
+            return true;
+        }
+        if (beta <= 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return now - Math.max(loadMillis, 1L) * beta * Math.log(random) >= expireAt;
+    }
+}
@@ -0,0 +1,80 @@
+package com.hospital.util;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Excel流式导出工具
+ * 按键集分页逐批读取数据，经转换后通过 EasyExcel 增量 ExcelWriter 直接写入输出流，
+ * 内存中只保留当前一批数据，导出行数不受限制。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public final class ExcelStreamExporter {
+
+    /**
+     * 默认每批读取行数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private ExcelStreamExporter() {
+    }
+
+    /**
+     * 流式导出
+     *
+     * @param outputStream 输出流（不会被关闭）
+     * @param headClass 导出DTO类型
+     * @param sheetName 工作表名称
+     * @param batchSize 每批行数
+     * @param pageFetcher 分页读取函数：入参为上一批的最后一行（首批为 null），返回下一批数据
+     * @param converter 批量转换函数（可在此批量关联查询）
+     * @param progress 进度回调（累计已写出的行数），可为 null
+     * @return 导出的总行数
+     */
+    public static <S, D> long export(OutputStream outputStream,
+                                     Class<D> headClass,
+                                     String sheetName,
+                                     int batchSize,
+                                     Function<S, List<S>> pageFetcher,
+                                     Function<List<S>, List<D>> converter,
+                                     LongConsumer progress) {
+        int size = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        ExcelWriter excelWriter = EasyExcel.write(outputStream, headClass).autoCloseStream(false).build();
+        long written = 0;
+        try {
+            WriteSheet writeSheet = EasyExcel.writerSheet(sheetName).build();
+            S last = null;
+            while (true) {
+                List<S> rows = pageFetcher.apply(last);
+                if (rows == null || rows.isEmpty()) {
+                    break;
+                }
+                excelWriter.write(converter.apply(rows), writeSheet);
+                written += rows.size();
+                if (progress != null) {
+                    progress.accept(written);
+                }
+                if (rows.size() < size) {
+                    break;
+                }
+                last = rows.get(rows.size() - 1);
+            }
+            if (written == 0) {
+                // 无数据时仍输出表头
+                excelWriter.write(Collections.emptyList(), writeSheet);
+            }
+        } finally {
+            excelWriter.finish();
+        }
+        return written;
+    }
+}
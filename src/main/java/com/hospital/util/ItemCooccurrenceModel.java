@@ -0,0 +1,433 @@
+package com.hospital.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 物品-物品协同过滤模型（基于共同收藏）
+ *
+ * 全部数据保存在基本类型数组中：物品ID排序后用下标表示，共同收藏次数以 CSR 稀疏矩阵
+ * （coOffsets / coItems / coCounts，每行按列下标升序）存放，每个物品预先算好按余弦相似度降序的前K个近邻。
+ * 推荐时只需遍历用户已收藏物品的近邻列表累加得分。
+ *
+ * 增量更新：收藏变化时只修改受影响的物品对——共同收藏次数记入增量表，重新计算这一对的相似度并更新双方的近邻列表；
+ * 物品收藏人数变化对其他物品对相似度的影响留给下一次全量重建。不在模型中的新物品同样等待重建。
+ * 近邻列表以不可变数组整体替换，读取无需加锁。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public final class ItemCooccurrenceModel {
+
+    private static final float[] EMPTY_SCORES = new float[0];
+
+    private static final int[] EMPTY_ITEMS = new int[0];
+
+    /** 排序后的物品ID，下标即物品在模型中的编号 */
+    private final long[] itemIds;
+
+    /** 每个物品在构建时的收藏人数 */
+    private final int[] userCounts;
+
+    private final int[] coOffsets;
+
+    private final int[] coItems;
+
+    private final int[] coCounts;
+
+    private final int topK;
+
+    /** 构建后收藏人数的变化量 */
+    private final AtomicIntegerArray userCountDeltas;
+
+    /** 构建后共同收藏次数的变化量：key 为 (较小下标 << 32 | 较大下标) */
+    private final ConcurrentHashMap<Long, Integer> pairDeltas = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<Neighbors> neighbors;
+
+    private final long pairCount;
+
+    private ItemCooccurrenceModel(long[] itemIds, int[] userCounts, int[] coOffsets, int[] coItems, int[] coCounts,
+                                  int topK) {
+        this.itemIds = itemIds;
+        this.userCounts = userCounts;
+        this.coOffsets = coOffsets;
+        this.coItems = coItems;
+        this.coCounts = coCounts;
+        this.topK = topK;
+        this.userCountDeltas = new AtomicIntegerArray(itemIds.length);
+        this.neighbors = new AtomicReferenceArray<>(itemIds.length);
+        this.pairCount = coItems.length / 2;
+        for (int i = 0; i < itemIds.length; i++) {
+            neighbors.set(i, topNeighbors(i));
+        }
+    }
+
+    /**
+     * 由收藏记录构建模型
+     *
+     * @param userIds 每条收藏的用户ID（须按用户ID有序，同一用户的收藏连续出现）
+     * @param recipeIds 每条收藏的物品ID
+     * @param size 收藏记录数
+     * @param topK 每个物品保留的近邻数
+     * @param maxItemsPerUser 收藏数超过该值的用户不参与共现统计（避免单个用户产生平方级的物品对）
+     * @return 模型
+     */
+    public static ItemCooccurrenceModel build(long[] userIds, long[] recipeIds, int size, int topK,
+                                              int maxItemsPerUser) {
+        long[] itemIds = distinct(recipeIds, size);
+        int[] itemIndexes = new int[size];
+        int[] userCounts = new int[itemIds.length];
+        for (int i = 0; i < size; i++) {
+            itemIndexes[i] = Arrays.binarySearch(itemIds, recipeIds[i]);
+        }
+
+        // 同一用户的收藏两两组成物品对，排序后相同物品对连续出现，顺序扫描即可得到共同收藏次数
+        long[] pairs = new long[Math.max(size, 16)];
+        int pairSize = 0;
+        int start = 0;
+        while (start < size) {
+            int end = start;
+            while (end < size && userIds[end] == userIds[start]) {
+                end++;
+            }
+            int[] userItems = distinct(itemIndexes, start, end);
+            for (int item : userItems) {
+                userCounts[item]++;
+            }
+            if (userItems.length <= maxItemsPerUser) {
+                for (int a = 0; a < userItems.length; a++) {
+                    for (int b = a + 1; b < userItems.length; b++) {
+                        if (pairSize == pairs.length) {
+                            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                        }
+                        pairs[pairSize++] = pairKey(userItems[a], userItems[b]);
+                    }
+                }
+            }
+            start = end;
+        }
+        Arrays.parallelSort(pairs, 0, pairSize);
+
+        // 统计每行非零元素数后填充对称的 CSR 矩阵
+        int[] degrees = new int[itemIds.length];
+        int unique = 0;
+        for (int i = 0; i < pairSize; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                degrees[(int) (pairs[i] >>> 32)]++;
+                degrees[(int) pairs[i]]++;
+                unique++;
+            }
+        }
+        int[] offsets = new int[itemIds.length + 1];
+        for (int i = 0; i < itemIds.length; i++) {
+            offsets[i + 1] = offsets[i] + degrees[i];
+        }
+        int[] cursor = Arrays.copyOf(offsets, itemIds.length);
+        int[] coItems = new int[unique * 2];
+        int[] coCounts = new int[unique * 2];
+        int i = 0;
+        while (i < pairSize) {
+            int j = i;
+            while (j < pairSize && pairs[j] == pairs[i]) {
+                j++;
+            }
+            int low = (int) (pairs[i] >>> 32);
+            int high = (int) pairs[i];
+            // 物品对按 (low, high) 升序处理，因此每一行写入的列下标天然有序
+            coItems[cursor[low]] = high;
+            coCounts[cursor[low]++] = j - i;
+            coItems[cursor[high]] = low;
+            coCounts[cursor[high]++] = j - i;
+            i = j;
+        }
+        return new ItemCooccurrenceModel(itemIds, userCounts, offsets, coItems, coCounts, topK);
+    }
+
+    /**
+     * 记录一次收藏或取消收藏
+     *
+     * @param recipeId 收藏变化的物品
+     * @param otherRecipeIds 该用户的其他收藏
+     * @param sign 收藏为 1，取消为 -1
+     * @return 物品是否在模型中
+     */
+    public boolean update(long recipeId, long[] otherRecipeIds, int sign) {
+        int item = Arrays.binarySearch(itemIds, recipeId);
+        if (item < 0) {
+            return false;
+        }
+        userCountDeltas.addAndGet(item, sign);
+        for (long otherId : otherRecipeIds) {
+            int other = Arrays.binarySearch(itemIds, otherId);
+            if (other < 0 || other == item) {
+                continue;
+            }
+            pairDeltas.merge(pairKey(Math.min(item, other), Math.max(item, other)), sign, Integer::sum);
+            float score = similarity(item, other);
+            neighbors.updateAndGet(item, current -> current.with(other, score, topK));
+            neighbors.updateAndGet(other, current -> current.with(item, score, topK));
+        }
+        return true;
+    }
+
+    /**
+     * 为收藏了给定物品的用户推荐
+     *
+     * @param favoriteRecipeIds 用户已收藏的物品
+     * @param limit 数量
+     * @return 推荐的物品ID，按得分降序；已收藏的物品不会出现
+     */
+    public long[] recommend(long[] favoriteRecipeIds, int limit) {
+        int[] favorites = new int[favoriteRecipeIds.length];
+        int favoriteSize = 0;
+        for (long recipeId : favoriteRecipeIds) {
+            int item = Arrays.binarySearch(itemIds, recipeId);
+            if (item >= 0) {
+                favorites[favoriteSize++] = item;
+            }
+        }
+        favorites = distinct(favorites, 0, favoriteSize);
+
+        float[] scores = new float[itemIds.length];
+        int[] touched = new int[Math.min(itemIds.length, Math.max(favorites.length * topK, 1))];
+        int touchedSize = 0;
+        for (int item : favorites) {
+            Neighbors list = neighbors.get(item);
+            for (int n = 0; n < list.items.length; n++) {
+                int candidate = list.items[n];
+                if (Arrays.binarySearch(favorites, candidate) >= 0) {
+                    continue;
+                }
+                if (scores[candidate] == 0) {
+                    if (touchedSize == touched.length) {
+                        touched = Arrays.copyOf(touched, Math.min(itemIds.length, touched.length * 2));
+                    }
+                    touched[touchedSize++] = candidate;
+                }
+                scores[candidate] += list.scores[n];
+            }
+        }
+        int[] top = topByScore(touched, touchedSize, scores, limit);
+        long[] result = new long[top.length];
+        for (int n = 0; n < top.length; n++) {
+            result[n] = itemIds[top[n]];
+        }
+        return result;
+    }
+
+    /**
+     * 模型中的物品数
+     */
+    public int itemCount() {
+        return itemIds.length;
+    }
+
+    /**
+     * 构建时存在共同收藏的物品对数
+     */
+    public long pairCount() {
+        return pairCount;
+    }
+
+    /**
+     * 当前的余弦相似度：共同收藏次数 / sqrt(两物品收藏人数之积)
+     */
+    private float similarity(int a, int b) {
+        int co = baseCooccurrence(a, b) + pairDeltas.getOrDefault(pairKey(Math.min(a, b), Math.max(a, b)), 0);
+        long countA = userCounts[a] + userCountDeltas.get(a);
+        long countB = userCounts[b] + userCountDeltas.get(b);
+        if (co <= 0 || countA <= 0 || countB <= 0) {
+            return 0f;
+        }
+        return (float) (co / Math.sqrt((double) countA * countB));
+    }
+
+    private int baseCooccurrence(int a, int b) {
+        int position = Arrays.binarySearch(coItems, coOffsets[a], coOffsets[a + 1], b);
+        return position >= 0 ? coCounts[position] : 0;
+    }
+
+    /**
+     * 取某一行中相似度最高的前K个物品
+     */
+    private Neighbors topNeighbors(int item) {
+        int from = coOffsets[item];
+        int length = coOffsets[item + 1] - from;
+        if (length == 0) {
+            return new Neighbors(EMPTY_ITEMS, EMPTY_SCORES);
+        }
+        // 以行内位置作为候选下标，行内列下标升序，得分相同时仍是物品下标小者优先
+        float[] scores = new float[length];
+        int[] positions = new int[length];
+        for (int n = 0; n < length; n++) {
+            positions[n] = n;
+            scores[n] = similarity(item, coItems[from + n]);
+        }
+        int[] top = topByScore(positions, length, scores, topK);
+        int[] topItems = new int[top.length];
+        float[] topScores = new float[top.length];
+        for (int n = 0; n < top.length; n++) {
+            topItems[n] = coItems[from + top[n]];
+            topScores[n] = scores[top[n]];
+        }
+        return new Neighbors(topItems, topScores);
+    }
+
+    /**
+     * 用大小为 k 的小顶堆选出得分最高的 k 个下标，返回按得分降序（得分相同时下标小者优先）
+     */
+    private static int[] topByScore(int[] candidates, int size, float[] scores, int k) {
+        int capacity = Math.min(k, size);
+        if (capacity <= 0) {
+            return EMPTY_ITEMS;
+        }
+        int[] heap = new int[capacity];
+        int heapSize = 0;
+        for (int n = 0; n < size; n++) {
+            int candidate = candidates[n];
+            if (scores[candidate] <= 0) {
+                continue;
+            }
+            if (heapSize < capacity) {
+                heap[heapSize] = candidate;
+                siftUp(heap, heapSize++, scores);
+            } else if (better(candidate, heap[0], scores)) {
+                heap[0] = candidate;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+        int[] result = new int[heapSize];
+        for (int n = heapSize - 1; n >= 0; n--) {
+            result[n] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+        return result;
+    }
+
+    private static boolean better(int a, int b, float[] scores) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int index, float[] scores) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(heap[parent], heap[index], scores)) {
+                break;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int index = 0;
+        while (true) {
+            int left = index * 2 + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(heap[left], heap[right], scores)) {
+                worst = right;
+            }
+            if (!better(heap[index], heap[worst], scores)) {
+                break;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] array, int a, int b) {
+        int tmp = array[a];
+        array[a] = array[b];
+        array[b] = tmp;
+    }
+
+    private static long pairKey(int low, int high) {
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    private static long[] distinct(long[] values, int size) {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    private static int[] distinct(int[] values, int from, int to) {
+        int[] sorted = Arrays.copyOfRange(values, from, to);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    /**
+     * 某个物品的近邻列表（按相似度降序，不可变）
+     */
+    private static final class Neighbors {
+        private final int[] items;
+        private final float[] scores;
+
+        private Neighbors(int[] items, float[] scores) {
+            this.items = items;
+            this.scores = scores;
+        }
+
+        /**
+         * 返回更新了某个近邻相似度后的新列表；相似度不大于0时移除
+         */
+        private Neighbors with(int item, float score, int topK) {
+            int existing = -1;
+            for (int n = 0; n < items.length; n++) {
+                if (items[n] == item) {
+                    existing = n;
+                    break;
+                }
+            }
+            if (existing < 0 && (score <= 0 || (items.length >= topK && score <= scores[items.length - 1]))) {
+                return this;
+            }
+            int size = items.length - (existing >= 0 ? 1 : 0);
+            int[] nextItems = new int[Math.min(size + (score > 0 ? 1 : 0), topK)];
+            float[] nextScores = new float[nextItems.length];
+            int written = 0;
+            boolean inserted = score <= 0;
+            for (int n = 0; n < items.length && written < nextItems.length; n++) {
+                if (n == existing) {
+                    continue;
+                }
+                if (!inserted && score > scores[n]) {
+                    nextItems[written] = item;
+                    nextScores[written++] = score;
+                    inserted = true;
+                    if (written == nextItems.length) {
+                        break;
+                    }
+                }
+                nextItems[written] = items[n];
+                nextScores[written++] = scores[n];
+            }
+            if (!inserted && written < nextItems.length) {
+                nextItems[written] = item;
+                nextScores[written++] = score;
+            }
+            return new Neighbors(nextItems, nextScores);
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.hospital.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.common.exception.BusinessException;
+import com.hospital.common.result.ResultCode;
+import com.hospital.config.DeepSeekConfig;
+import com.hospital.config.LlmGatewayProperties;
+import com.theokanning.openai.client.OpenAiApi;
+import com.theokanning.openai.completion.chat.ChatCompletionChoice;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.completion.chat.ChatMessageRole;
+import com.theokanning.openai.service.OpenAiService;
+import io.reactivex.disposables.Disposable;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 大模型调用网关（DeepSeek，OpenAI 兼容接口）
+ *
+ * 所有上游调用都是异步的：非流式调用通过 Retrofit 异步适配器由 OkHttp 回调完成，流式调用逐段推送给 SSE，
+ * 不占用请求线程等待上游。调用依次经过：
+ * 1. 规范化提示词响应缓存（Redis），命中直接返回
+ * 2. 相同提示词的进行中请求合并，只调用一次上游
+ * 3. 熔断：连续失败达到阈值后一段时间内直接拒绝，之后每个熔断窗口放行一个探测请求
+ * 4. 单用户排队与进行中请求上限；系统调用（userId 为空）共用一个较小的上限，不会占满全局并发
+ * 5. 全局并发舱壁：超出并发的请求进入有界 FIFO 队列，队列满或等待超时直接失败
+ * 调用失败时返回的 future 以异常结束，由调用方降级。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class LlmGateway {
+
+    public static final String EVENT_TOKEN = "token";
+    public static final String EVENT_DONE = "done";
+    public static final String EVENT_ERROR = "error";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private DeepSeekConfig deepSeekConfig;
+
+    @Autowired
+    private LlmGatewayProperties properties;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    private OkHttpClient httpClient;
+
+    private OpenAiApi api;
+
+    private OpenAiService streamingService;
+
+    private Semaphore permits;
+
+    private final Queue<PendingCall> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    private final Map<Long, Integer> userPending = new ConcurrentHashMap<>();
+
+    private final AtomicInteger systemPending = new AtomicInteger();
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(properties.getMaxConcurrent(), 1));
+        if (!StringUtils.hasText(deepSeekConfig.getApiKey())) {
+            log.warn("DeepSeek API Key未配置，AI功能将不可用");
+            return;
+        }
+        try {
+            httpClient = new OkHttpClient.Builder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .readTimeout(Duration.ofSeconds(30))
+                    .writeTimeout(Duration.ofSeconds(30))
+                    .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                            .header("Authorization", "Bearer " + deepSeekConfig.getApiKey())
+                            .header("Content-Type", "application/json")
+                            .build()))
+                    .build();
+
+            // DeepSeek 可能返回 SDK 不认识的字段
+            ObjectMapper retrofitObjectMapper = new ObjectMapper();
+            retrofitObjectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+            retrofitObjectMapper.configure(DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES, false);
+
+            // createAsync：请求由 OkHttp 调度线程执行并回调，订阅方不阻塞
+            Retrofit retrofit = new Retrofit.Builder()
+                    .baseUrl(deepSeekConfig.getApiUrl() + "/")
+                    .client(httpClient)
+                    .addConverterFactory(JacksonConverterFactory.create(retrofitObjectMapper))
+                    .addCallAdapterFactory(RxJava2CallAdapterFactory.createAsync())
+                    .build();
+            api = retrofit.create(OpenAiApi.class);
+            streamingService = new OpenAiService(api);
+            log.info("DeepSeek API服务初始化成功，API地址: {}", deepSeekConfig.getApiUrl());
+        } catch (Exception e) {
+            log.error("初始化DeepSeek API服务失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        PendingCall call;
+        while ((call = queue.poll()) != null) {
+            call.result.completeExceptionally(unavailable("服务正在关闭"));
+        }
+        if (httpClient != null) {
+            httpClient.dispatcher().executorService().shutdown();
+            httpClient.connectionPool().evictAll();
+        }
+    }
+
+    /**
+     * 上游客户端是否已初始化
+     */
+    public boolean isAvailable() {
+        return api != null;
+    }
+
+    /**
+     * 非流式对话补全
+     *
+     * @param userId 发起用户（用于单用户并发限制，系统调用传 null，计入系统调用上限）
+     * @param systemPrompt 系统提示词
+     * @param prompt 用户提示词
+     * @return 模型回答；失败、超时、熔断或排队已满时以异常结束
+     */
+    public CompletableFuture<String> complete(Long userId, String systemPrompt, String prompt) {
+        if (api == null) {
+            return failed(unavailable("AI服务暂不可用"));
+        }
+        String cacheKey = cacheKey(systemPrompt, prompt);
+        String cached = readCache(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(cacheKey, created);
+        if (existing != null) {
+            // 复制一份，调用方取消或追加超时不影响其他等待者
+            return existing.thenApply(response -> response);
+        }
+        created.orTimeout(properties.getRequestTimeoutMs(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> inFlight.remove(cacheKey, created));
+
+        ChatCompletionRequest request = buildRequest(systemPrompt, prompt);
+        submit(userId, created, () -> startCompletion(request, cacheKey, created));
+        return created.thenApply(response -> response);
+    }
+
+    /**
+     * 流式对话补全，逐段以 SSE 推送给浏览器
+     * 事件：token（增量文本）、done（结束）、error（失败原因）。
+     * 缓存命中时一次性推送完整回答；流式请求不与其他请求合并，完整结束后写入缓存供后续请求复用。
+     *
+     * @param userId 发起用户
+     * @param systemPrompt 系统提示词
+     * @param prompt 用户提示词
+     * @return SSE 发射器
+     */
+    public SseEmitter stream(Long userId, String systemPrompt, String prompt) {
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeoutMs());
+        if (streamingService == null) {
+            sendError(emitter, unavailable("AI服务暂不可用"));
+            return emitter;
+        }
+        String cacheKey = cacheKey(systemPrompt, prompt);
+        String cached = readCache(cacheKey);
+        if (cached != null) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_TOKEN).data(cached));
+                emitter.send(SseEmitter.event().name(EVENT_DONE).data(""));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
+        }
+
+        CompletableFuture<Void> lifetime = new CompletableFuture<>();
+        emitter.onTimeout(() -> lifetime.completeExceptionally(new TimeoutException("stream timeout")));
+        emitter.onCompletion(() -> lifetime.complete(null));
+        emitter.onError(error -> lifetime.complete(null));
+        lifetime.whenComplete((ignored, error) -> {
+            if (error != null) {
+                sendError(emitter, error);
+            }
+        });
+
+        ChatCompletionRequest request = buildRequest(systemPrompt, prompt);
+        submit(userId, lifetime, () -> startStream(request, cacheKey, emitter, lifetime));
+        return emitter;
+    }
+
+    /**
+     * 准入控制：熔断、单用户上限、全局舱壁
+     */
+    private void submit(Long userId, CompletableFuture<?> result, Runnable start) {
+        if (!circuitBreaker.allowRequest()) {
+            result.completeExceptionally(unavailable("AI服务暂不可用，请稍后再试"));
+            return;
+        }
+        if (!acquireUserSlot(userId)) {
+            result.completeExceptionally(unavailable("您有进行中的AI请求，请稍后再试"));
+            return;
+        }
+        result.whenComplete((ignored, error) -> releaseUserSlot(userId));
+
+        PendingCall call = new PendingCall(result, start, System.currentTimeMillis());
+        if (queue.isEmpty() && permits.tryAcquire()) {
+            run(call);
+            return;
+        }
+        if (queuedCount.incrementAndGet() > properties.getMaxQueued()) {
+            queuedCount.decrementAndGet();
+            result.completeExceptionally(unavailable("AI服务繁忙，请稍后再试"));
+            return;
+        }
+        queue.offer(call);
+        drain();
+    }
+
+    /**
+     * 有空闲许可时按 FIFO 启动排队请求；已结束（超时、取消）或等待过久的请求直接丢弃
+     */
+    private void drain() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            PendingCall call = queue.poll();
+            if (call == null) {
+                permits.release();
+                continue;
+            }
+            queuedCount.decrementAndGet();
+            if (call.result.isDone()) {
+                permits.release();
+                continue;
+            }
+            if (System.currentTimeMillis() - call.enqueuedAt > properties.getQueueTimeoutMs()) {
+                permits.release();
+                call.result.completeExceptionally(unavailable("AI服务繁忙，请稍后再试"));
+                continue;
+            }
+            run(call);
+        }
+    }
+
+    /**
+     * 已持有许可：请求结束时归还许可并启动下一个排队请求
+     */
+    private void run(PendingCall call) {
+        call.result.whenComplete((ignored, error) -> {
+            permits.release();
+            drain();
+        });
+        try {
+            call.start.run();
+        } catch (Exception e) {
+            circuitBreaker.onFailure();
+            call.result.completeExceptionally(e);
+        }
+    }
+
+    private void startCompletion(ChatCompletionRequest request, String cacheKey, CompletableFuture<String> result) {
+        Disposable subscription = api.createChatCompletion(request).subscribe(
+                completion -> {
+                    String content = contentOf(completion);
+                    if (content == null) {
+                        circuitBreaker.onFailure();
+                        result.completeExceptionally(new IllegalStateException("empty completion"));
+                        return;
+                    }
+                    circuitBreaker.onSuccess();
+                    writeCache(cacheKey, content);
+                    result.complete(content);
+                },
+                error -> {
+                    circuitBreaker.onFailure();
+                    log.warn("调用DeepSeek API失败: {}", error.getMessage());
+                    result.completeExceptionally(error);
+                });
+        result.whenComplete((response, error) -> {
+            subscription.dispose();
+            if (unwrap(error) instanceof TimeoutException) {
+                circuitBreaker.onFailure();
+            }
+        });
+    }
+
+    private void startStream(ChatCompletionRequest request, String cacheKey, SseEmitter emitter,
+                             CompletableFuture<Void> lifetime) {
+        StringBuilder text = new StringBuilder();
+        Disposable subscription = streamingService.streamChatCompletion(request).subscribe(
+                chunk -> {
+                    String token = tokenOf(chunk);
+                    if (!StringUtils.hasLength(token) || lifetime.isDone()) {
+                        return;
+                    }
+                    text.append(token);
+                    try {
+                        emitter.send(SseEmitter.event().name(EVENT_TOKEN).data(token));
+                    } catch (IOException e) {
+                        // 浏览器已断开，结束本次流式调用
+                        lifetime.complete(null);
+                    }
+                },
+                error -> {
+                    circuitBreaker.onFailure();
+                    log.warn("DeepSeek流式调用失败: {}", error.getMessage());
+                    lifetime.completeExceptionally(error);
+                },
+                () -> {
+                    circuitBreaker.onSuccess();
+                    if (text.length() > 0) {
+                        writeCache(cacheKey, text.toString());
+                    }
+                    try {
+                        emitter.send(SseEmitter.event().name(EVENT_DONE).data(""));
+                        emitter.complete();
+                    } catch (IOException | IllegalStateException e) {
+                        log.debug("推送流式结束事件失败: {}", e.getMessage());
+                    }
+                    lifetime.complete(null);
+                });
+        lifetime.whenComplete((ignored, error) -> {
+            subscription.dispose();
+            if (unwrap(error) instanceof TimeoutException) {
+                circuitBreaker.onFailure();
+            }
+        });
+    }
+
+    private ChatCompletionRequest buildRequest(String systemPrompt, String prompt) {
+        List<ChatMessage> messages = new ArrayList<>();
+        if (StringUtils.hasText(systemPrompt)) {
+            messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), systemPrompt));
+        }
+        messages.add(new ChatMessage(ChatMessageRole.USER.value(), prompt));
+        return ChatCompletionRequest.builder()
+                .model(deepSeekConfig.getModel())
+                .messages(messages)
+                .maxTokens(deepSeekConfig.getMaxTokens())
+                .temperature(deepSeekConfig.getTemperature())
+                .build();
+    }
+
+    /**
+     * 缓存键：模型参数与规范化后的提示词（全角转半角、合并空白）的哈希
+     */
+    private String cacheKey(String systemPrompt, String prompt) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("model", deepSeekConfig.getModel());
+        params.put("maxTokens", deepSeekConfig.getMaxTokens());
+        params.put("temperature", deepSeekConfig.getTemperature());
+        params.put("system", normalize(systemPrompt));
+        params.put("prompt", normalize(prompt));
+        return CacheKeyBuilder.of(CacheConstants.AI_LLM_RESPONSE_CACHE_PREFIX)
+                .appendParamsHash(params)
+                .build();
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private String readCache(String cacheKey) {
+        if (properties.getResponseCacheTtlSeconds() <= 0) {
+            return null;
+        }
+        try {
+            Object cached = redisUtil.get(cacheKey);
+            return cached instanceof String ? (String) cached : null;
+        } catch (Exception e) {
+            log.warn("读取AI回答缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCache(String cacheKey, String content) {
+        if (properties.getResponseCacheTtlSeconds() <= 0) {
+            return;
+        }
+        try {
+            redisUtil.set(cacheKey, content, properties.getResponseCacheTtlSeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入AI回答缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean acquireUserSlot(Long userId) {
+        if (userId == null) {
+            if (systemPending.incrementAndGet() > properties.getSystemMaxPending()) {
+                systemPending.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+        boolean[] acquired = {false};
+        userPending.compute(userId, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= properties.getPerUserMaxPending()) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private void releaseUserSlot(Long userId) {
+        if (userId == null) {
+            systemPending.decrementAndGet();
+            return;
+        }
+        userPending.computeIfPresent(userId, (key, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private static String contentOf(ChatCompletionResult completion) {
+        if (completion == null || completion.getChoices() == null || completion.getChoices().isEmpty()) {
+            return null;
+        }
+        ChatMessage message = completion.getChoices().get(0).getMessage();
+        return message != null ? message.getContent() : null;
+    }
+
+    private static String tokenOf(ChatCompletionChunk chunk) {
+        if (chunk == null || chunk.getChoices() == null || chunk.getChoices().isEmpty()) {
+            return null;
+        }
+        ChatCompletionChoice choice = chunk.getChoices().get(0);
+        return choice.getMessage() != null ? choice.getMessage().getContent() : null;
+    }
+
+    private static void sendError(SseEmitter emitter, Throwable error) {
+        Throwable cause = unwrap(error);
+        String message = cause instanceof BusinessException ? cause.getMessage()
+                : cause instanceof TimeoutException ? "AI回答超时，请稍后再试" : "AI服务暂不可用，请稍后再试";
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_ERROR).data(message));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("推送流式错误事件失败: {}", e.getMessage());
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static BusinessException unavailable(String message) {
+        return new BusinessException(ResultCode.AI_SERVICE_UNAVAILABLE, message);
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * 排队中的上游调用
+     */
+    private static final class PendingCall {
+        private final CompletableFuture<?> result;
+        private final Runnable start;
+        private final long enqueuedAt;
+
+        private PendingCall(CompletableFuture<?> result, Runnable start, long enqueuedAt) {
+            this.result = result;
+            this.start = start;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 连续失败计数熔断器
+     */
+    private final class CircuitBreaker {
+        private int consecutiveFailures;
+        private long openUntil;
+
+        /**
+         * 未熔断时放行；熔断窗口结束后放行一个探测请求并开启下一个窗口，探测成功即恢复
+         */
+        private synchronized boolean allowRequest() {
+            if (consecutiveFailures < properties.getFailureThreshold()) {
+                return true;
+            }
+            long now = System.currentTimeMillis();
+            if (now < openUntil) {
+                return false;
+            }
+            openUntil = now + properties.getOpenDurationMs();
+            return true;
+        }
+
+        private synchronized void onSuccess() {
+            if (consecutiveFailures >= properties.getFailureThreshold()) {
+                log.info("DeepSeek API恢复，熔断关闭");
+            }
+            consecutiveFailures = 0;
+        }
+
+        private synchronized void onFailure() {
+            consecutiveFailures++;
+            if (consecutiveFailures >= properties.getFailureThreshold()) {
+                if (consecutiveFailures == properties.getFailureThreshold()) {
+                    log.warn("DeepSeek API连续失败{}次，熔断{}ms", consecutiveFailures, properties.getOpenDurationMs());
+                }
+                openUntil = System.currentTimeMillis() + properties.getOpenDurationMs();
+            }
+        }
+    }
+}
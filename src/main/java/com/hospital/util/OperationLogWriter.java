@@ -0,0 +1,249 @@
+package com.hospital.util;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.config.OperationLogProperties;
+import com.hospital.entity.OperationLog;
+import com.hospital.service.SystemService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 操作日志异步批量写入器
+ * 请求线程只把日志放入有界缓冲区，后台线程攒满一批或等待超时后多行插入。
+ * 请求参数由调用方在执行目标方法之前通过 {@link #snapshot(Object)} 序列化（业务方法可能修改入参），
+ * 输出达到 maxPayloadLength 即停止，请求线程上的开销不随参数大小增长；
+ * 响应数据的序列化推迟到后台线程执行，因此提交的响应对象必须事实不可变，提交后不能再被修改。
+ * 缓冲区满时按配置丢弃或短暂阻塞，日志写入失败不影响业务请求。
+ * 应用关闭时（在数据源关闭之前）写完缓冲区中剩余的日志。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class OperationLogWriter {
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    private BlockingQueue<PendingLog> buffer;
+
+    private Thread flusher;
+
+    @Autowired
+    private SystemService systemService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OperationLogProperties properties;
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(Math.max(1, properties.getBufferCapacity()));
+        flusher = new Thread(this::runFlusher, "oplog-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 在调用线程上序列化数据，输出超过 maxPayloadLength 后立即停止并截断
+     *
+     * @param value 待序列化的数据
+     * @return JSON，超长时截断并以 ... 结尾；序列化失败时返回固定提示
+     */
+    public String snapshot(Object value) {
+        return serialize(value, "参数序列化失败");
+    }
+
+    /**
+     * 提交一条待写入的日志
+     *
+     * @param operationLog 日志（请求参数已由 {@link #snapshot(Object)} 写入）
+     * @param result 响应数据，可为 null；由后台线程序列化，提交后不能再被修改
+     */
+    public void submit(OperationLog operationLog, Object result) {
+        PendingLog pending = new PendingLog(operationLog, result);
+        boolean accepted;
+        if (properties.getOverflowPolicy() == OperationLogProperties.OverflowPolicy.BLOCK) {
+            try {
+                accepted = buffer.offer(pending, properties.getBlockTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = buffer.offer(pending);
+        }
+        if (!accepted) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * 应用关闭时停止后台线程并写完剩余日志，需在数据源关闭之前执行
+     */
+    @EventListener(ContextClosedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void shutdown() {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingLog> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+            log.info("应用关闭前已写入剩余操作日志: {}条", remaining.size());
+        }
+    }
+
+    private void runFlusher() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<PendingLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingLog first = buffer.poll(properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long waitNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || waitNanos <= 0) {
+                        break;
+                    }
+                    PendingLog next = buffer.poll(waitNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // 关闭时被中断：已从缓冲区取出的日志由本线程写完，剩余的由 shutdown 写入
+                    flush(batch);
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("操作日志后台写入异常: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<OperationLog> logs = new ArrayList<>(batch.size());
+        for (PendingLog pending : batch) {
+            OperationLog operationLog = pending.operationLog;
+            if (operationLog.getId() == null) {
+                operationLog.setId(IdWorker.getId());
+            }
+            if (pending.result != null) {
+                operationLog.setResponseData(serialize(pending.result, "响应序列化失败"));
+            }
+            logs.add(operationLog);
+        }
+        try {
+            systemService.recordOperationLogs(logs);
+        } catch (Exception e) {
+            log.error("批量保存操作日志失败: count={}, error={}", logs.size(), e.getMessage(), e);
+        }
+        long droppedCount = dropped.getAndSet(0);
+        if (droppedCount > 0) {
+            log.warn("操作日志缓冲区已满，丢弃{}条日志", droppedCount);
+        }
+    }
+
+    private String serialize(Object value, String fallback) {
+        BoundedWriter writer = new BoundedWriter(Math.max(0, properties.getMaxPayloadLength()));
+        try {
+            objectMapper.writeValue(writer, value);
+            return writer.toString();
+        } catch (Exception e) {
+            if (writer.truncated) {
+                return writer.toString() + "...";
+            }
+            log.warn("序列化操作日志数据失败: {}", e.getMessage());
+            return fallback;
+        }
+    }
+
+    /**
+     * 只保留前 max 个字符的输出，超出后抛出异常中止序列化
+     */
+    private static final class BoundedWriter extends Writer {
+        private final StringBuilder out = new StringBuilder();
+        private final int max;
+        private boolean truncated;
+
+        private BoundedWriter(int max) {
+            this.max = max;
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            int room = max - out.length();
+            if (len > room) {
+                out.append(chars, off, Math.max(room, 0));
+                truncated = true;
+                throw new IOException("payload exceeds " + max + " chars");
+            }
+            out.append(chars, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return out.toString();
+        }
+    }
+
+    /**
+     * 缓冲区中的一条日志及其待序列化的响应数据
+     */
+    private static final class PendingLog {
+        private final OperationLog operationLog;
+        private final Object result;
+
+        private PendingLog(OperationLog operationLog, Object result) {
+            this.operationLog = operationLog;
+            this.result = result;
+        }
+    }
+}
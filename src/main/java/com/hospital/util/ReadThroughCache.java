@@ -0,0 +1,379 @@
+package com.hospital.util;
+
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.config.CacheLoaderProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 读穿透缓存加载器
+ * 统一"读缓存 → 未命中查库 → 回写缓存"流程，并防止热点键过期时的缓存击穿：
+ * 1. 同一JVM内对同一键的并发未命中合并为一次回源，其余线程等待结果；
+ * 2. 跨节点通过 Redis 加载锁保证同一时刻只有一个节点回源，其他节点轮询等待其写入；
+ * 3. 按 XFetch 算法在逻辑过期前概率性地提前后台刷新；
+ * 4. 逻辑过期后的宽限期内直接返回旧值，同时后台刷新（stale-while-revalidate）。
+ *
+ * 缓存值以 {@link CachedValue} 包装存储，因此同一键只能通过本类读写。
+ * 仅走 Redis 时每次返回独立的对象，调用方可以在其上补充用户相关字段；走本地缓存时返回共享实例，必须只读。
+ * loader 可能在后台线程执行，不能依赖请求线程的上下文（如当前登录用户），所需参数应在调用前取出。
+ * 返回 null 的结果不缓存。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class ReadThroughCache {
+
+    /** 当前节点ID，作为加载锁的持有者标识 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /** 本JVM内正在回源的键 */
+    private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    /** 本JVM内正在后台刷新的键 */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private CacheLoaderProperties properties;
+
+    @Autowired
+    @Qualifier("cacheRefreshExecutor")
+    private Executor refreshExecutor;
+
+    /**
+     * 读取 Redis 缓存，未命中时回源加载
+     *
+     * @param key 键
+     * @param policy TTL策略
+     * @param loader 回源函数
+     * @param tags 缓存标签
+     * @return 缓存值或回源结果
+     */
+    public <T> T get(String key, CacheTtlPolicy policy, Supplier<T> loader, String... tags) {
+        return get(key, policy.getSeconds(), loader, tags);
+    }
+
+    /**
+     * 读取 Redis 缓存，未命中时回源加载
+     *
+     * @param key 键
+     * @param ttlSeconds 逻辑过期秒数，小于等于0表示永不过期
+     * @param loader 回源函数
+     * @param tags 缓存标签
+     * @return 缓存值或回源结果
+     */
+    public <T> T get(String key, long ttlSeconds, Supplier<T> loader, String... tags) {
+        return load(false, key, ttlSeconds, loader, tags);
+    }
+
+    /**
+     * 读取二级缓存（本地 + Redis），未命中时回源加载，适用于读多写少的公共数据
+     *
+     * @param key 键
+     * @param policy TTL策略
+     * @param loader 回源函数
+     * @param tags 缓存标签
+     * @return 缓存值或回源结果
+     */
+    public <T> T getWithLocal(String key, CacheTtlPolicy policy, Supplier<T> loader, String... tags) {
+        return getWithLocal(key, policy.getSeconds(), loader, tags);
+    }
+
+    /**
+     * 读取二级缓存（本地 + Redis），未命中时回源加载，适用于读多写少的公共数据
+     *
+     * @param key 键
+     * @param ttlSeconds 逻辑过期秒数，小于等于0表示永不过期
+     * @param loader 回源函数
+     * @param tags 缓存标签
+     * @return 缓存值或回源结果
+     */
+    public <T> T getWithLocal(String key, long ttlSeconds, Supplier<T> loader, String... tags) {
+        return load(true, key, ttlSeconds, loader, tags);
+    }
+
+    /**
+     * 批量读取 Redis 缓存：一次 MGET 读取全部键，未命中或已逻辑过期的键合并为一次批量回源并逐个回写
+     * 批量读取不做加载锁与提前刷新，适合列表页等一次读取多个独立键的场景。
+     *
+     * @param keys 键
+     * @param ttlSeconds 逻辑过期秒数，小于等于0表示永不过期
+     * @param loader 批量回源函数，入参为未命中的键，返回 键 → 值，不存在的键可以不返回
+     * @param tags 缓存标签
+     * @return 键 → 值，按入参顺序排列，缓存与数据源中都不存在的键不包含在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(List<String> keys, long ttlSeconds,
+                                     Function<List<String>, Map<String, T>> loader, String... tags) {
+        Map<String, T> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<Object> raws;
+        try {
+            raws = redisUtil.multiGet(keys);
+        } catch (Exception e) {
+            log.warn("批量读取缓存失败，按未命中处理: size={}, error={}", keys.size(), e.getMessage());
+            raws = Collections.nCopies(keys.size(), null);
+        }
+        long now = System.currentTimeMillis();
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Object raw = i < raws.size() ? raws.get(i) : null;
+            if (raw instanceof CachedValue && !((CachedValue) raw).shouldRefresh(now, 0)) {
+                result.put(keys.get(i), (T) ((CachedValue) raw).getValue());
+            } else {
+                result.put(keys.get(i), null);
+                missing.add(keys.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            long start = System.currentTimeMillis();
+            Map<String, T> loaded = loader.apply(missing);
+            long loadMillis = System.currentTimeMillis() - start;
+            for (String key : missing) {
+                T value = loaded != null ? loaded.get(key) : null;
+                result.put(key, value);
+                if (value == null) {
+                    continue;
+                }
+                try {
+                    write(false, key, new CachedValue(value, ttlSeconds, loadMillis), ttlSeconds, tags);
+                } catch (Exception e) {
+                    log.warn("写入缓存失败: key={}, error={}", key, e.getMessage());
+                }
+            }
+        }
+        result.values().removeIf(Objects::isNull);
+        return result;
+    }
+
+    /**
+     * 主动写入 Redis 缓存（如预热），写入失败时抛出异常
+     */
+    public void put(String key, Object value, CacheTtlPolicy policy, String... tags) {
+        put(key, value, policy.getSeconds(), tags);
+    }
+
+    /**
+     * 主动写入 Redis 缓存（如预热）
+     */
+    public void put(String key, Object value, long ttlSeconds, String... tags) {
+        write(false, key, new CachedValue(value, ttlSeconds, 0), ttlSeconds, tags);
+    }
+
+    /**
+     * 主动写入二级缓存（如预热），写入失败时抛出异常
+     */
+    public void putWithLocal(String key, Object value, CacheTtlPolicy policy, String... tags) {
+        putWithLocal(key, value, policy.getSeconds(), tags);
+    }
+
+    /**
+     * 主动写入二级缓存（如预热）
+     */
+    public void putWithLocal(String key, Object value, long ttlSeconds, String... tags) {
+        write(true, key, new CachedValue(value, ttlSeconds, 0), ttlSeconds, tags);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(boolean local, String key, long ttlSeconds, Supplier<T> loader, String[] tags) {
+        CachedValue cached = read(local, key);
+        if (cached != null) {
+            if (cached.shouldRefresh(System.currentTimeMillis(), properties.getEarlyRefreshBeta())) {
+                refreshAsync(local, key, ttlSeconds, loader, tags);
+            }
+            return (T) cached.getValue();
+        }
+        return (T) loadCoalesced(local, key, ttlSeconds, loader, tags);
+    }
+
+    /**
+     * 合并本JVM内对同一键的并发回源
+     */
+    private Object loadCoalesced(boolean local, String key, long ttlSeconds, Supplier<?> loader, String[] tags) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, future);
+        if (inFlight != null) {
+            Object value;
+            try {
+                value = inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            // 重新读取一次缓存，拿到独立反序列化的副本，避免多个请求共享并修改同一实例
+            CachedValue cached = value != null ? read(local, key) : null;
+            return cached != null ? cached.getValue() : value;
+        }
+        try {
+            Object value = loadWithLock(local, key, ttlSeconds, loader, tags);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 跨节点合并回源：抢到加载锁的节点查库，其他节点等待其写入缓存，等待超时或 Redis 不可用时自行回源
+     */
+    private Object loadWithLock(boolean local, String key, long ttlSeconds, Supplier<?> loader, String[] tags) {
+        String lockKey = CacheConstants.CACHE_LOAD_LOCK_PREFIX + key;
+        String lockValue = lockValue();
+        boolean locked = false;
+        try {
+            locked = Boolean.TRUE.equals(
+                    redisUtil.tryLock(lockKey, lockValue, properties.getLockSeconds(), TimeUnit.SECONDS));
+            // 抢到锁后再读一次：可能在上次读取与加锁之间已有节点写入
+            CachedValue cached = locked ? read(local, key) : waitForValue(local, key);
+            if (cached != null) {
+                return cached.getValue();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("缓存加载锁不可用，直接回源: key={}, error={}", key, e.getMessage());
+        }
+        try {
+            return loadAndStore(local, key, ttlSeconds, loader, tags);
+        } finally {
+            if (locked) {
+                releaseLock(lockKey, lockValue);
+            }
+        }
+    }
+
+    /**
+     * 轮询等待其他节点回源写入
+     */
+    private CachedValue waitForValue(boolean local, String key) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + properties.getLockWaitMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(properties.getPollIntervalMillis());
+            CachedValue cached = read(local, key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        log.debug("等待其他节点回源超时，直接回源: key={}", key);
+        return null;
+    }
+
+    /**
+     * 后台刷新：同一键在本JVM内只提交一次，跨节点只有抢到加载锁的节点执行
+     */
+    private void refreshAsync(boolean local, String key, long ttlSeconds, Supplier<?> loader, String[] tags) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                String lockKey = CacheConstants.CACHE_LOAD_LOCK_PREFIX + key;
+                String lockValue = lockValue();
+                boolean locked = false;
+                try {
+                    locked = Boolean.TRUE.equals(
+                            redisUtil.tryLock(lockKey, lockValue, properties.getLockSeconds(), TimeUnit.SECONDS));
+                    if (locked) {
+                        loadAndStore(local, key, ttlSeconds, loader, tags);
+                    }
+                } catch (Exception e) {
+                    log.warn("后台刷新缓存失败: key={}, error={}", key, e.getMessage());
+                } finally {
+                    if (locked) {
+                        releaseLock(lockKey, lockValue);
+                    }
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.debug("缓存刷新线程池已满，跳过本次刷新: key={}", key);
+        }
+    }
+
+    private Object loadAndStore(boolean local, String key, long ttlSeconds, Supplier<?> loader, String[] tags) {
+        long start = System.currentTimeMillis();
+        Object value = loader.get();
+        if (value != null) {
+            try {
+                write(local, key, new CachedValue(value, ttlSeconds, System.currentTimeMillis() - start),
+                        ttlSeconds, tags);
+            } catch (Exception e) {
+                log.warn("写入缓存失败: key={}, error={}", key, e.getMessage());
+            }
+        }
+        return value;
+    }
+
+    private CachedValue read(boolean local, String key) {
+        try {
+            Object raw = local ? twoLevelCache.get(key) : redisUtil.get(key);
+            // 非 CachedValue 的旧格式数据视为未命中，回源后覆盖
+            return raw instanceof CachedValue ? (CachedValue) raw : null;
+        } catch (Exception e) {
+            log.warn("读取缓存失败，按未命中处理: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(boolean local, String key, CachedValue entry, long ttlSeconds, String[] tags) {
+        if (entry.getValue() == null) {
+            return;
+        }
+        // 物理TTL = 逻辑TTL + 宽限期，宽限期内返回旧值并后台刷新
+        long physicalTtl = ttlSeconds > 0 ? ttlSeconds + properties.getStaleSeconds() : -1;
+        if (local) {
+            twoLevelCache.put(key, entry, physicalTtl, tags);
+        } else if (tags.length > 0) {
+            redisUtil.setWithTags(key, entry, physicalTtl, TimeUnit.SECONDS, tags);
+        } else if (physicalTtl > 0) {
+            redisUtil.set(key, entry, physicalTtl, TimeUnit.SECONDS);
+        } else {
+            redisUtil.set(key, entry);
+        }
+    }
+
+    private void releaseLock(String lockKey, String lockValue) {
+        try {
+            redisUtil.unlock(lockKey, lockValue);
+        } catch (Exception e) {
+            // 锁会在 lockSeconds 后自动过期
+            log.warn("释放缓存加载锁失败: key={}, error={}", lockKey, e.getMessage());
+        }
+    }
+
+    private String lockValue() {
+        return nodeId + ":" + Thread.currentThread().getId();
+    }
+}
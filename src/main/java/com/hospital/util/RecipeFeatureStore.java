@@ -0,0 +1,404 @@
+package com.hospital.util;
+
+import com.hospital.entity.HerbalRecipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 药膳内容特征库（不可变快照）
+ *
+ * 加载时把每个上架药膳编码为数值特征：适用体质位图、分类/季节/功效词ID（CSR 数组存放）、
+ * 当季标记位，以及由收藏数、浏览数算出的热度分。用户画像按同一套词表编码为权重数组，
+ * 打分只是对全部药膳的一次基本类型循环，加小顶堆取前K，请求时不做字符串切分与匹配。
+ *
+ * 打分规则与按字符串计算时一致：主体质 +3、次体质 +1.5；分类、季节、功效各词按用户收藏中出现次数乘以
+ * 1.2 / 0.8 / 0.3 累加；当季 +0.5；热度 min(收藏数, 200) × 0.01 + ln(浏览数 + 1) × 0.2。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public final class RecipeFeatureStore {
+
+    private static final double PRIMARY_CONSTITUTION_WEIGHT = 3.0;
+    private static final double SECONDARY_CONSTITUTION_WEIGHT = 1.5;
+    private static final double CATEGORY_WEIGHT = 1.2;
+    private static final double SEASON_WEIGHT = 0.8;
+    private static final double EFFECT_WEIGHT = 0.3;
+    private static final double CURRENT_SEASON_BONUS = 0.5;
+
+    private static final String[] SEASONS = {"SPRING", "SUMMER", "AUTUMN", "WINTER"};
+
+    /** 药膳ID，升序，下标即药膳在特征库中的编号 */
+    private final long[] ids;
+
+    private final String[] constitutionVocabulary;
+
+    /** 每个药膳的适用体质位图占用的 long 个数 */
+    private final int constitutionWords;
+
+    private final long[] constitutionBits;
+
+    private final Map<String, Integer> categoryVocabulary;
+    private final int[] categoryOffsets;
+    private final int[] categoryTokens;
+
+    private final Map<String, Integer> seasonVocabulary;
+    private final int[] seasonOffsets;
+    private final int[] seasonTokens;
+
+    private final Map<String, Integer> effectVocabulary;
+    private final int[] effectOffsets;
+    private final int[] effectTokens;
+
+    /** 按 SEASONS 顺序的当季标记位（季节字段包含该季节名） */
+    private final byte[] seasonFlags;
+
+    private final float[] popularity;
+
+    private RecipeFeatureStore(Builder builder) {
+        this.ids = builder.ids;
+        this.constitutionVocabulary = builder.constitution.vocabulary();
+        this.constitutionWords = Math.max(1, (constitutionVocabulary.length + 63) >>> 6);
+        this.constitutionBits = new long[ids.length * constitutionWords];
+        for (int i = 0; i < ids.length; i++) {
+            for (int n = builder.constitution.offsets[i]; n < builder.constitution.offsets[i + 1]; n++) {
+                int token = builder.constitution.tokens[n];
+                constitutionBits[i * constitutionWords + (token >>> 6)] |= 1L << (token & 63);
+            }
+        }
+        this.categoryVocabulary = builder.category.ids;
+        this.categoryOffsets = builder.category.offsets;
+        this.categoryTokens = builder.category.tokens;
+        this.seasonVocabulary = builder.season.ids;
+        this.seasonOffsets = builder.season.offsets;
+        this.seasonTokens = builder.season.tokens;
+        this.effectVocabulary = builder.effect.ids;
+        this.effectOffsets = builder.effect.offsets;
+        this.effectTokens = builder.effect.tokens;
+        this.seasonFlags = builder.seasonFlags;
+        this.popularity = builder.popularity;
+    }
+
+    /**
+     * 由上架药膳构建特征库
+     *
+     * @param recipes 药膳（需包含体质、季节、分类、功效、收藏数、浏览数）
+     * @return 特征库
+     */
+    public static RecipeFeatureStore build(List<HerbalRecipe> recipes) {
+        List<HerbalRecipe> sorted = new ArrayList<>(recipes.size());
+        for (HerbalRecipe recipe : recipes) {
+            if (recipe != null && recipe.getId() != null) {
+                sorted.add(recipe);
+            }
+        }
+        sorted.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+        Builder builder = new Builder(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            HerbalRecipe recipe = sorted.get(i);
+            builder.ids[i] = recipe.getId();
+            builder.constitution.add(i, tokens(recipe.getConstitutionType()));
+            builder.category.add(i, tokens(recipe.getCategory()));
+            builder.season.add(i, tokens(recipe.getSeason()));
+            builder.effect.add(i, tokens(recipe.getEfficacy()));
+
+            String season = recipe.getSeason() != null ? recipe.getSeason().toUpperCase(Locale.ROOT) : "";
+            for (int s = 0; s < SEASONS.length; s++) {
+                if (season.contains(SEASONS[s])) {
+                    builder.seasonFlags[i] |= (byte) (1 << s);
+                }
+            }
+
+            double score = 0;
+            if (recipe.getFavoriteCount() != null) {
+                score += Math.min(recipe.getFavoriteCount(), 200) * 0.01;
+            }
+            if (recipe.getViewCount() != null) {
+                score += Math.log(recipe.getViewCount() + 1) * 0.2;
+            }
+            builder.popularity[i] = (float) score;
+        }
+        return new RecipeFeatureStore(builder);
+    }
+
+    /**
+     * 按特征库的词表编码用户画像
+     *
+     * @param primaryConstitution 主体质（可为空）
+     * @param secondaryConstitution 次体质（可为空）
+     * @param favoriteRecipeIds 已收藏的药膳ID，偏好由其中仍上架的药膳统计，且不会被推荐
+     * @param currentSeason 当前季节（SPRING/SUMMER/AUTUMN/WINTER）
+     * @return 用户画像
+     */
+    public Profile encodeProfile(String primaryConstitution, String secondaryConstitution,
+                                 Collection<Long> favoriteRecipeIds, String currentSeason) {
+        Profile profile = new Profile();
+        profile.primaryMask = constitutionMask(primaryConstitution);
+        profile.secondaryMask = constitutionMask(secondaryConstitution);
+        profile.categoryWeights = new float[categoryVocabulary.size()];
+        profile.seasonWeights = new float[seasonVocabulary.size()];
+        profile.effectWeights = new float[effectVocabulary.size()];
+        int season = Arrays.asList(SEASONS).indexOf(currentSeason);
+        profile.currentSeasonFlag = season >= 0 ? (byte) (1 << season) : 0;
+
+        int[] favorites = new int[favoriteRecipeIds != null ? favoriteRecipeIds.size() : 0];
+        int favoriteSize = 0;
+        if (favoriteRecipeIds != null) {
+            for (Long id : favoriteRecipeIds) {
+                int index = id != null ? Arrays.binarySearch(ids, id) : -1;
+                if (index >= 0) {
+                    favorites[favoriteSize++] = index;
+                }
+            }
+        }
+        favorites = Arrays.copyOf(favorites, favoriteSize);
+        Arrays.sort(favorites);
+        int unique = 0;
+        for (int i = 0; i < favorites.length; i++) {
+            if (i > 0 && favorites[i] == favorites[i - 1]) {
+                continue;
+            }
+            int index = favorites[i];
+            favorites[unique++] = index;
+            accumulate(profile.categoryWeights, categoryOffsets, categoryTokens, index, CATEGORY_WEIGHT);
+            accumulate(profile.seasonWeights, seasonOffsets, seasonTokens, index, SEASON_WEIGHT);
+            accumulate(profile.effectWeights, effectOffsets, effectTokens, index, EFFECT_WEIGHT);
+        }
+        profile.favoriteIndexes = Arrays.copyOf(favorites, unique);
+        return profile;
+    }
+
+    /**
+     * 为用户画像打分并取得分最高的药膳
+     *
+     * @param profile 用户画像（须由本特征库编码）
+     * @param limit 数量
+     * @return 得分大于0的药膳ID，按得分降序（同分时ID小者优先）
+     */
+    public List<Long> recommend(Profile profile, int limit) {
+        int capacity = Math.min(limit, ids.length);
+        if (capacity <= 0) {
+            return Collections.emptyList();
+        }
+        int[] heap = new int[capacity];
+        double[] heapScores = new double[capacity];
+        int heapSize = 0;
+        int[] favorites = profile.favoriteIndexes;
+        int nextFavorite = 0;
+
+        for (int i = 0; i < ids.length; i++) {
+            if (nextFavorite < favorites.length && favorites[nextFavorite] == i) {
+                nextFavorite++;
+                continue;
+            }
+            double score = popularity[i];
+            int base = i * constitutionWords;
+            boolean primary = false;
+            boolean secondary = false;
+            for (int w = 0; w < constitutionWords; w++) {
+                primary |= (constitutionBits[base + w] & profile.primaryMask[w]) != 0;
+                secondary |= (constitutionBits[base + w] & profile.secondaryMask[w]) != 0;
+            }
+            if (primary) {
+                score += PRIMARY_CONSTITUTION_WEIGHT;
+            }
+            if (secondary) {
+                score += SECONDARY_CONSTITUTION_WEIGHT;
+            }
+            for (int n = categoryOffsets[i]; n < categoryOffsets[i + 1]; n++) {
+                score += profile.categoryWeights[categoryTokens[n]];
+            }
+            for (int n = seasonOffsets[i]; n < seasonOffsets[i + 1]; n++) {
+                score += profile.seasonWeights[seasonTokens[n]];
+            }
+            for (int n = effectOffsets[i]; n < effectOffsets[i + 1]; n++) {
+                score += profile.effectWeights[effectTokens[n]];
+            }
+            if ((seasonFlags[i] & profile.currentSeasonFlag) != 0) {
+                score += CURRENT_SEASON_BONUS;
+            }
+            if (score <= 0) {
+                continue;
+            }
+
+            // 小顶堆：堆顶是当前入选者中得分最低（同分时下标最大）的
+            if (heapSize < capacity) {
+                int child = heapSize++;
+                while (child > 0) {
+                    int parent = (child - 1) >>> 1;
+                    if (!worse(score, i, heapScores[parent], heap[parent])) {
+                        break;
+                    }
+                    heap[child] = heap[parent];
+                    heapScores[child] = heapScores[parent];
+                    child = parent;
+                }
+                heap[child] = i;
+                heapScores[child] = score;
+            } else if (worse(heapScores[0], heap[0], score, i)) {
+                siftDown(heap, heapScores, heapSize, i, score);
+            }
+        }
+
+        Long[] result = new Long[heapSize];
+        while (heapSize > 0) {
+            result[heapSize - 1] = ids[heap[0]];
+            heapSize--;
+            if (heapSize > 0) {
+                siftDown(heap, heapScores, heapSize, heap[heapSize], heapScores[heapSize]);
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * 特征库中的药膳数
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 把逗号、顿号、斜杠分隔的字段切分为大写词
+     */
+    public static List<String> tokens(String source) {
+        if (source == null || source.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalized = source.replace("、", ",")
+                .replace("，", ",")
+                .replace("/", ",");
+        List<String> tokens = new ArrayList<>();
+        for (String part : normalized.split(",")) {
+            String trimmed = part.trim();
+            if (!trimmed.isEmpty()) {
+                tokens.add(trimmed.toUpperCase(Locale.ROOT));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 体质词包含目标体质（忽略大小写）即置位，与按字符串包含判断一致
+     */
+    private long[] constitutionMask(String constitution) {
+        long[] mask = new long[constitutionWords];
+        if (constitution == null || constitution.trim().isEmpty()) {
+            return mask;
+        }
+        String target = constitution.toUpperCase(Locale.ROOT);
+        for (int token = 0; token < constitutionVocabulary.length; token++) {
+            if (constitutionVocabulary[token].contains(target)) {
+                mask[token >>> 6] |= 1L << (token & 63);
+            }
+        }
+        return mask;
+    }
+
+    private static void accumulate(float[] weights, int[] offsets, int[] tokens, int index, double weight) {
+        for (int n = offsets[index]; n < offsets[index + 1]; n++) {
+            weights[tokens[n]] += (float) weight;
+        }
+    }
+
+    /**
+     * a 是否排在 b 之后：得分更低，或同分时下标更大
+     */
+    private static boolean worse(double scoreA, int indexA, double scoreB, int indexB) {
+        return scoreA < scoreB || (scoreA == scoreB && indexA > indexB);
+    }
+
+    private static void siftDown(int[] heap, double[] heapScores, int size, int index, double score) {
+        int parent = 0;
+        while (true) {
+            int child = parent * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && worse(heapScores[child + 1], heap[child + 1], heapScores[child], heap[child])) {
+                child++;
+            }
+            if (!worse(heapScores[child], heap[child], score, index)) {
+                break;
+            }
+            heap[parent] = heap[child];
+            heapScores[parent] = heapScores[child];
+            parent = child;
+        }
+        heap[parent] = index;
+        heapScores[parent] = score;
+    }
+
+    /**
+     * 按特征库词表编码的用户画像
+     */
+    public static final class Profile {
+        private long[] primaryMask;
+        private long[] secondaryMask;
+        private float[] categoryWeights;
+        private float[] seasonWeights;
+        private float[] effectWeights;
+        private byte currentSeasonFlag;
+        /** 已收藏药膳的下标，升序 */
+        private int[] favoriteIndexes;
+    }
+
+    private static final class Builder {
+        private final long[] ids;
+        private final TokenColumn constitution;
+        private final TokenColumn category;
+        private final TokenColumn season;
+        private final TokenColumn effect;
+        private final byte[] seasonFlags;
+        private final float[] popularity;
+
+        private Builder(int size) {
+            this.ids = new long[size];
+            this.constitution = new TokenColumn(size);
+            this.category = new TokenColumn(size);
+            this.season = new TokenColumn(size);
+            this.effect = new TokenColumn(size);
+            this.seasonFlags = new byte[size];
+            this.popularity = new float[size];
+        }
+    }
+
+    /**
+     * 构建期的一列词特征：词表与按药膳排列的 CSR 词ID数组
+     */
+    private static final class TokenColumn {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final int[] offsets;
+        private int[] tokens = new int[16];
+
+        private TokenColumn(int size) {
+            this.offsets = new int[size + 1];
+        }
+
+        /** 须按下标顺序调用 */
+        private void add(int index, List<String> values) {
+            int size = offsets[index];
+            for (String value : values) {
+                if (size == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, tokens.length * 2);
+                }
+                tokens[size++] = ids.computeIfAbsent(value, key -> ids.size());
+            }
+            offsets[index + 1] = size;
+        }
+
+        private String[] vocabulary() {
+            String[] vocabulary = new String[ids.size()];
+            ids.forEach((value, id) -> vocabulary[id] = value);
+            return vocabulary;
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package com.hospital.util;
 
+import com.hospital.common.constant.CacheConstants;
 import com.hospital.common.constant.SystemConstants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import org.springframework.data.redis.core.ZSetOperations;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -25,9 +36,45 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class RedisUtil {
 
+    /**
+     * SCAN / 标签失效每批处理的键数
+     */
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    /**
+     * 登记标签成员并维护标签集合的过期时间（取成员中最长的TTL，有永久成员时不过期）
+     * KEYS[1]=标签集合 ARGV[1]=缓存键 ARGV[2]=缓存键TTL秒数（-1表示永久）
+     */
+    private static final RedisScript<Long> TAG_ADD_SCRIPT = new DefaultRedisScript<>(
+            "local existed = redis.call('EXISTS', KEYS[1])\n" +
+            "redis.call('SADD', KEYS[1], ARGV[1])\n" +
+            "local ttl = tonumber(ARGV[2])\n" +
+            "if ttl <= 0 then redis.call('PERSIST', KEYS[1]) return 1 end\n" +
+            "local current = redis.call('TTL', KEYS[1])\n" +
+            "if existed == 0 or (current >= 0 and current < ttl) then\n" +
+            "  redis.call('EXPIRE', KEYS[1], ttl)\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    /**
+     * 释放分布式锁：仅当锁仍由自己持有时删除
+     * KEYS[1]=锁键 ARGV[1]=加锁时写入的值
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "  return redis.call('DEL', KEYS[1])\n" +
+            "end\n" +
+            "return 0", Long.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 纯字符串模板：Lua脚本、计数器哈希等需要原样读写的场景使用，避免Jackson序列化带来的引号/类型信息
+     */
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
     /**
      * 设置缓存
      *
@@ -70,6 +117,20 @@ public class RedisUtil {
         return redisTemplate.opsForValue().get(key);
     }
 
+    /**
+     * 批量获取缓存（MGET），一次往返读取多个键
+     *
+     * @param keys 键
+     * @return 与键顺序一致的值列表，不存在的键对应 null
+     */
+    public List<Object> multiGet(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        return values != null ? values : Collections.nCopies(keys.size(), null);
+    }
+
     /**
      * 删除缓存
      *
@@ -87,7 +148,9 @@ public class RedisUtil {
     }
 
     /**
-     * 按模式删除缓存键（使用 keys 模式匹配，谨慎使用）
+     * 按模式删除缓存键（SCAN 增量遍历，不会像 KEYS 一样阻塞Redis）
+     * 遍历成本与库中键总数成正比，仅用于管理操作等低频场景；热点写路径请使用
+     * {@link #setWithTags} 写入并通过 {@link #invalidateTag} 失效。
      * 例如：deleteByPattern("doctor:list:dept:*")
      *
      * @param pattern 键模式（可包含通配符 *）
@@ -95,18 +158,77 @@ public class RedisUtil {
      */
     public Long deleteByPattern(String pattern) {
         try {
-            Set<String> keys = redisTemplate.keys(pattern);
-            if (keys == null || keys.isEmpty()) {
-                return 0L;
+            ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH_SIZE).build();
+            List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+            long deleted = 0;
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= SCAN_BATCH_SIZE) {
+                        deleted += deleteKeys(batch);
+                        batch.clear();
+                    }
+                }
             }
-            Long count = redisTemplate.delete(keys);
-            return count;
+            deleted += deleteKeys(batch);
+            return deleted;
         } catch (Exception e) {
             log.error("⚠️ Redis DELETE BY PATTERN失败: pattern={}, error={}", pattern, e.getMessage(), e);
             throw new RuntimeException("Redis操作失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 写入缓存并登记到标签集合，之后可通过 {@link #invalidateTag} 按标签批量失效
+     *
+     * @param key 键
+     * @param value 值
+     * @param timeout 过期时间，小于等于0表示永不过期
+     * @param unit 时间单位
+     * @param tags 标签（如 CacheTags.OPLOG_LIST）
+     */
+    public void setWithTags(String key, Object value, long timeout, TimeUnit unit, String... tags) {
+        long ttlSeconds = timeout > 0 ? Math.max(unit.toSeconds(timeout), 1L) : -1L;
+        // 先登记标签再写值：失效与写入并发时最多留下一个带TTL的旧值，不会出现未登记的键
+        for (String tag : tags) {
+            executeScript(TAG_ADD_SCRIPT, Collections.singletonList(CacheConstants.CACHE_TAG_PREFIX + tag),
+                    key, ttlSeconds);
+        }
+        if (ttlSeconds > 0) {
+            set(key, value, ttlSeconds, TimeUnit.SECONDS);
+        } else {
+            set(key, value);
+        }
+    }
+
+    /**
+     * 失效标签下的全部缓存键：分批 SPOP 标签成员并批量删除，成本与受影响的键数成正比
+     *
+     * @param tag 标签
+     * @return 被删除的键
+     */
+    public List<String> invalidateTag(String tag) {
+        String tagKey = CacheConstants.CACHE_TAG_PREFIX + tag;
+        List<String> removed = new ArrayList<>();
+        try {
+            while (true) {
+                List<String> members = sPop(tagKey, SCAN_BATCH_SIZE);
+                if (members.isEmpty()) {
+                    break;
+                }
+                deleteKeys(members);
+                removed.addAll(members);
+                if (members.size() < SCAN_BATCH_SIZE) {
+                    break;
+                }
+            }
+            return removed;
+        } catch (Exception e) {
+            log.error("⚠️ Redis 标签失效失败: tag={}, error={}", tag, e.getMessage(), e);
+            throw new RuntimeException("Redis操作失败: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 判断键是否存在
      *
@@ -183,6 +305,19 @@ public class RedisUtil {
         redisTemplate.delete(key);
     }
 
+    /**
+     * 释放分布式锁（校验持有者，锁已过期并被他人获取时不会误删）
+     *
+     * @param key 锁的key
+     * @param value 加锁时使用的value
+     * @return true-释放成功 false-锁已不属于自己
+     */
+    public boolean unlock(String key, String value) {
+        // 使用与 tryLock 相同的序列化方式传参，保证与已存储的值逐字节比较
+        Long result = redisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(key), value);
+        return result != null && result > 0;
+    }
+
     /**
      * 生成简化的缓存键（使用参数哈希值）
      * 将复杂的参数组合压缩成一个短的哈希字符串，避免层级过深
@@ -247,6 +382,182 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 批量写入字符串 Sorted Set 成员（已存在的成员更新分数）
+     *
+     * @param key 键
+     * @param members 成员与分数
+     * @return 新增的成员数
+     */
+    public Long zAddAsString(String key, Map<String, Double> members) {
+        if (members == null || members.isEmpty()) {
+            return 0L;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new java.util.HashSet<>(members.size());
+        members.forEach((member, score) -> tuples.add(ZSetOperations.TypedTuple.of(member, score)));
+        return stringRedisTemplate.opsForZSet().add(key, tuples);
+    }
+
+    /**
+     * 按分数升序读取字符串 Sorted Set 中分数在 [min, max] 内的前 count 个成员
+     *
+     * @param key 键
+     * @param min 最小分数
+     * @param max 最大分数
+     * @param count 最多返回的成员数
+     * @return 成员列表，按分数升序
+     */
+    public List<String> zRangeByScoreAsString(String key, double min, double max, long count) {
+        Set<String> members = stringRedisTemplate.opsForZSet().rangeByScore(key, min, max, 0, count);
+        return members != null ? new ArrayList<>(members) : Collections.emptyList();
+    }
+
+    /**
+     * 按分数降序读取字符串 Sorted Set 中指定排名范围的成员
+     *
+     * @param key 键
+     * @param start 开始位置
+     * @param end 结束位置
+     * @return 成员列表，按分数降序
+     */
+    public List<String> zReverseRangeAsString(String key, long start, long end) {
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(key, start, end);
+        return members != null ? new ArrayList<>(members) : Collections.emptyList();
+    }
+
+    /**
+     * 移除字符串 Sorted Set 成员
+     *
+     * @param key 键
+     * @param members 成员
+     * @return 移除的成员数
+     */
+    public Long zRemoveAsString(String key, Collection<String> members) {
+        if (members == null || members.isEmpty()) {
+            return 0L;
+        }
+        return stringRedisTemplate.opsForZSet().remove(key, members.toArray());
+    }
+
+    /**
+     * 执行Lua脚本（参数与返回值均按字符串处理）
+     *
+     * @param script 脚本
+     * @param keys 键列表
+     * @param args 参数（按 String.valueOf 转换）
+     * @return 脚本返回值
+     */
+    public <T> T executeScript(RedisScript<T> script, List<String> keys, Object... args) {
+        Object[] argv = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argv[i] = String.valueOf(args[i]);
+        }
+        try {
+            return stringRedisTemplate.execute(script, keys, argv);
+        } catch (Exception e) {
+            log.error("⚠️ Redis EVAL失败: keys={}, error={}", keys, e.getMessage(), e);
+            throw new RuntimeException("Redis操作失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取字符串哈希的单个字段
+     *
+     * @param key 键
+     * @param field 字段
+     * @return 字段值，不存在时返回 null
+     */
+    public String hGetAsString(String key, String field) {
+        Object value = stringRedisTemplate.opsForHash().get(key, field);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * 读取字符串哈希的全部字段
+     *
+     * @param key 键
+     * @return 字段与值，键不存在时返回空Map
+     */
+    public Map<String, String> hGetAllAsString(String key) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key);
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> result = new java.util.HashMap<>(entries.size());
+        entries.forEach((k, v) -> result.put(String.valueOf(k), v != null ? v.toString() : null));
+        return result;
+    }
+
+    /**
+     * 向字符串集合添加成员
+     *
+     * @param key 键
+     * @param members 成员
+     * @return 新增的成员数
+     */
+    public Long sAdd(String key, String... members) {
+        try {
+            return stringRedisTemplate.opsForSet().add(key, members);
+        } catch (Exception e) {
+            log.error("⚠️ Redis SADD失败: key={}, error={}", key, e.getMessage(), e);
+            throw new RuntimeException("Redis操作失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从字符串集合中随机弹出若干成员
+     *
+     * @param key 键
+     * @param count 最多弹出数量
+     * @return 弹出的成员，集合为空时返回空列表
+     */
+    public List<String> sPop(String key, long count) {
+        List<String> members = stringRedisTemplate.opsForSet().pop(key, count);
+        return members != null ? members : Collections.emptyList();
+    }
+
+    /**
+     * 获取字符串集合的全部成员
+     *
+     * @param key 键
+     * @return 成员，集合不存在时返回空集合
+     */
+    public Set<String> sMembers(String key) {
+        Set<String> members = stringRedisTemplate.opsForSet().members(key);
+        return members != null ? members : Collections.emptySet();
+    }
+
+    /**
+     * 从字符串集合中移除成员
+     *
+     * @param key 键
+     * @param members 成员
+     * @return 移除的成员数
+     */
+    public Long sRemove(String key, String... members) {
+        return stringRedisTemplate.opsForSet().remove(key, (Object[]) members);
+    }
+
+    /**
+     * 向频道发布字符串消息
+     *
+     * @param channel 频道
+     * @param message 消息
+     * @return 收到消息的订阅者数量
+     */
+    public Long publish(String channel, String message) {
+        return stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(
+                channel.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private long deleteKeys(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0L;
+        }
+        Long count = stringRedisTemplate.delete(keys);
+        return count != null ? count : 0L;
+    }
+
     /**
      * 生成参数哈希值（MD5前8位）
      * 
@@ -0,0 +1,607 @@
+package com.hospital.util;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 内存倒排索引
+ *
+ * 每种实体一个实例，文档由若干带权重的文本字段、分面字段（如分类、体质）和用于展示的标题/摘要组成。
+ * 查询按 {@link SearchTokenizer} 分词后所有词项都须命中（字母数字词项按前缀扩展），
+ * 按 BM25F 打分，分数相同时按热度排序，并可统计命中文档的分面取值。
+ * 读写通过读写锁隔离：查询并发执行，增量更新和整体替换持有写锁，整体替换在锁外构建新索引后一次切换。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public class SearchIndex {
+
+    /** 单个字母数字词项最多扩展的前缀匹配词数 */
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private final String[] fields;
+
+    private final float[] boosts;
+
+    private final float k1;
+
+    private final float b;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state;
+
+    /**
+     * @param fieldBoosts 文本字段及其权重（按声明顺序）
+     * @param k1 BM25 词频饱和参数
+     * @param b BM25 长度归一化参数
+     */
+    public SearchIndex(LinkedHashMap<String, Float> fieldBoosts, float k1, float b) {
+        this.fields = fieldBoosts.keySet().toArray(new String[0]);
+        this.boosts = new float[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            boosts[i] = fieldBoosts.get(fields[i]);
+        }
+        this.k1 = k1;
+        this.b = b;
+        this.state = new State(fields.length);
+    }
+
+    /**
+     * 用给定文档整体替换索引
+     */
+    public void replaceAll(Collection<Document> documents) {
+        State next = new State(fields.length);
+        for (Document document : documents) {
+            next.add(document, termFrequencies(document));
+        }
+        lock.writeLock().lock();
+        try {
+            state = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或替换单个文档
+     */
+    public void upsert(Document document) {
+        Map<String, int[]> termFrequencies = termFrequencies(document);
+        lock.writeLock().lock();
+        try {
+            state.remove(document.getId());
+            state.add(document, termFrequencies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除单个文档
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            state.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中的文档数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检索
+     */
+    public Result search(Query query) {
+        lock.readLock().lock();
+        try {
+            return doSearch(state, query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按标题（及附加提示词）前缀给出提示，按热度排序
+     *
+     * @param prefix 前缀
+     * @param limit 最大条数
+     * @return 提示
+     */
+    public List<Hit> suggest(String prefix, int limit) {
+        String normalized = SearchTokenizer.normalize(prefix).trim();
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new LinkedHashSet<>();
+            for (Map.Entry<String, Set<Long>> entry : state.suggestions.tailMap(normalized, true).entrySet()) {
+                if (!entry.getKey().startsWith(normalized) || ids.size() >= limit * 5) {
+                    break;
+                }
+                ids.addAll(entry.getValue());
+            }
+            List<Hit> hits = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Entry entry = state.docs.get(id);
+                if (entry != null) {
+                    hits.add(new Hit(id, 0, entry.title, entry.summary, entry.popularity));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::getPopularity).reversed());
+            return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按命中顺序排列批量查询出的记录，丢弃查询时已不存在的记录
+     *
+     * @param ids 命中的文档ID（按相关度排序）
+     * @param records 按ID批量查询出的记录
+     * @param idGetter 记录ID
+     * @return 排序后的记录
+     */
+    public static <T> List<T> orderByIds(List<Long> ids, Collection<T> records, Function<T, Long> idGetter) {
+        Map<Long, T> byId = new HashMap<>(records.size() * 2);
+        for (T record : records) {
+            byId.put(idGetter.apply(record), record);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T record = byId.get(id);
+            if (record != null) {
+                ordered.add(record);
+            }
+        }
+        return ordered;
+    }
+
+    private Result doSearch(State s, Query query) {
+        List<Group> groups = new ArrayList<>();
+        if (!addGroups(s, query.getKeyword(), -1, groups)) {
+            return Result.empty();
+        }
+        if (query.getFieldQueries() != null) {
+            for (Map.Entry<String, String> fieldQuery : query.getFieldQueries().entrySet()) {
+                int field = fieldIndex(fieldQuery.getKey());
+                if (field < 0 || !addGroups(s, fieldQuery.getValue(), field, groups)) {
+                    return Result.empty();
+                }
+            }
+        }
+        if (groups.isEmpty()) {
+            return Result.empty();
+        }
+
+        // 从命中文档最少的词项开始求交集
+        groups.sort(Comparator.comparingInt(group -> group.estimate(s)));
+        Set<Long> candidates = groups.get(0).matchingDocs(s);
+        for (int i = 1; i < groups.size() && !candidates.isEmpty(); i++) {
+            Group group = groups.get(i);
+            candidates.removeIf(id -> !group.matches(s, id));
+        }
+        if (query.getFilters() != null && !query.getFilters().isEmpty()) {
+            candidates.removeIf(id -> !matchesFilters(s.docs.get(id), query.getFilters(), query.getWildcardValue()));
+        }
+
+        int docCount = s.docs.size();
+        float[] avgLengths = new float[fields.length];
+        for (int f = 0; f < fields.length; f++) {
+            avgLengths[f] = docCount > 0 && s.totalLengths[f] > 0 ? (float) s.totalLengths[f] / docCount : 1f;
+        }
+        List<Hit> hits = new ArrayList<>(candidates.size());
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        Collection<String> facetNames = query.getFacets() != null ? query.getFacets() : Collections.emptyList();
+        facetNames.forEach(name -> facets.put(name, new HashMap<>()));
+        for (Long id : candidates) {
+            Entry entry = s.docs.get(id);
+            double score = 0;
+            for (Group group : groups) {
+                if (group.field < 0) {
+                    score += group.score(s, id, entry, docCount, avgLengths);
+                }
+            }
+            hits.add(new Hit(id, score, entry.title, entry.summary, entry.popularity));
+            for (String name : facetNames) {
+                Set<String> values = entry.facets.get(name);
+                if (values != null) {
+                    Map<String, Integer> counts = facets.get(name);
+                    values.forEach(value -> counts.merge(value, 1, Integer::sum));
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getScore).reversed()
+                .thenComparing(Comparator.comparingDouble(Hit::getPopularity).reversed())
+                .thenComparing(Comparator.comparingLong(Hit::getId).reversed()));
+
+        int from = Math.min(Math.max(query.getOffset(), 0), hits.size());
+        int to = Math.min(from + Math.max(query.getLimit(), 0), hits.size());
+        Map<String, Map<String, Integer>> sortedFacets = new LinkedHashMap<>();
+        facets.forEach((name, counts) -> {
+            Map<String, Integer> sorted = new LinkedHashMap<>();
+            counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+            sortedFacets.put(name, sorted);
+        });
+        return new Result(new ArrayList<>(hits.subList(from, to)), hits.size(), sortedFacets);
+    }
+
+    /**
+     * 把查询文本转换为词项组（组内任一词项命中即可，组之间须全部命中）；某个词项在索引中不存在时返回 false
+     */
+    private boolean addGroups(State s, String text, int field, List<Group> groups) {
+        if (text == null || text.trim().isEmpty()) {
+            return true;
+        }
+        for (SearchTokenizer.Token token : SearchTokenizer.tokenizeQuery(text)) {
+            List<String> terms = new ArrayList<>();
+            if (s.postings.containsKey(token.getText())) {
+                terms.add(token.getText());
+            }
+            if (!token.isHan()) {
+                NavigableSet<String> expansions = s.wordTerms.subSet(token.getText(), false,
+                        token.getText() + Character.MAX_VALUE, false);
+                for (String expansion : expansions) {
+                    if (terms.size() >= MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    terms.add(expansion);
+                }
+            }
+            if (terms.isEmpty()) {
+                return false;
+            }
+            groups.add(new Group(terms, field));
+        }
+        return true;
+    }
+
+    private boolean matchesFilters(Entry entry, Map<String, String> filters, String wildcardValue) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                continue;
+            }
+            Set<String> values = entry.facets.getOrDefault(filter.getKey(), Collections.emptySet());
+            boolean matched = false;
+            for (String value : values) {
+                if (value.equalsIgnoreCase(filter.getValue())
+                        || (wildcardValue != null && value.equalsIgnoreCase(wildcardValue))) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int fieldIndex(String name) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 统计各词项在每个字段中的词频
+     */
+    private Map<String, int[]> termFrequencies(Document document) {
+        Map<String, int[]> frequencies = new HashMap<>();
+        for (int f = 0; f < fields.length; f++) {
+            String text = document.getFields() != null ? document.getFields().get(fields[f]) : null;
+            if (text == null) {
+                continue;
+            }
+            for (String term : SearchTokenizer.tokenize(text)) {
+                frequencies.computeIfAbsent(term, t -> new int[fields.length])[f]++;
+            }
+        }
+        return frequencies;
+    }
+
+    /**
+     * 可整体替换的索引数据
+     */
+    private static class State {
+        private final Map<String, Map<Long, int[]>> postings = new HashMap<>();
+        /** 字母数字词项，用于前缀扩展 */
+        private final TreeSet<String> wordTerms = new TreeSet<>();
+        private final Map<Long, Entry> docs = new HashMap<>();
+        /** 归一化后的提示词 -> 文档ID */
+        private final TreeMap<String, Set<Long>> suggestions = new TreeMap<>();
+        private final long[] totalLengths;
+
+        private State(int fieldCount) {
+            this.totalLengths = new long[fieldCount];
+        }
+
+        private void add(Document document, Map<String, int[]> frequencies) {
+            int[] lengths = new int[totalLengths.length];
+            for (Map.Entry<String, int[]> term : frequencies.entrySet()) {
+                int[] tf = term.getValue();
+                for (int f = 0; f < tf.length; f++) {
+                    lengths[f] += tf[f];
+                }
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(document.getId(), tf);
+                if (isWord(term.getKey())) {
+                    wordTerms.add(term.getKey());
+                }
+            }
+            for (int f = 0; f < lengths.length; f++) {
+                totalLengths[f] += lengths[f];
+            }
+            Map<String, Set<String>> facets = new HashMap<>();
+            if (document.getFacets() != null) {
+                document.getFacets().forEach((name, values) -> {
+                    Set<String> cleaned = new HashSet<>();
+                    for (String value : values) {
+                        if (value != null && !value.trim().isEmpty()) {
+                            cleaned.add(value.trim());
+                        }
+                    }
+                    facets.put(name, cleaned);
+                });
+            }
+            List<String> suggestKeys = new ArrayList<>();
+            addSuggestKey(suggestKeys, document.getTitle());
+            if (document.getSuggestKeys() != null) {
+                document.getSuggestKeys().forEach(key -> addSuggestKey(suggestKeys, key));
+            }
+            for (String key : suggestKeys) {
+                suggestions.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(document.getId());
+            }
+            docs.put(document.getId(), new Entry(lengths, facets, document.getTitle(), document.getSummary(),
+                    document.getPopularity(), frequencies.keySet(), suggestKeys));
+        }
+
+        private void remove(long id) {
+            Entry entry = docs.remove(id);
+            if (entry == null) {
+                return;
+            }
+            for (int f = 0; f < entry.lengths.length; f++) {
+                totalLengths[f] -= entry.lengths[f];
+            }
+            for (String term : entry.terms) {
+                Map<Long, int[]> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                        wordTerms.remove(term);
+                    }
+                }
+            }
+            for (String key : entry.suggestKeys) {
+                Set<Long> ids = suggestions.get(key);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        suggestions.remove(key);
+                    }
+                }
+            }
+        }
+
+        private static void addSuggestKey(List<String> keys, String text) {
+            String key = SearchTokenizer.normalize(text).trim();
+            if (!key.isEmpty() && !keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+
+        private static boolean isWord(String term) {
+            return Character.UnicodeScript.of(term.codePointAt(0)) != Character.UnicodeScript.HAN;
+        }
+    }
+
+    /**
+     * 已索引文档的元数据
+     */
+    private static class Entry {
+        private final int[] lengths;
+        private final Map<String, Set<String>> facets;
+        private final String title;
+        private final String summary;
+        private final double popularity;
+        private final Set<String> terms;
+        private final List<String> suggestKeys;
+
+        private Entry(int[] lengths, Map<String, Set<String>> facets, String title, String summary,
+                      double popularity, Set<String> terms, List<String> suggestKeys) {
+            this.lengths = lengths;
+            this.facets = facets;
+            this.title = title;
+            this.summary = summary;
+            this.popularity = popularity;
+            this.terms = terms;
+            this.suggestKeys = suggestKeys;
+        }
+    }
+
+    /**
+     * 一个查询词项及其前缀扩展；field 为 -1 表示任意字段并参与打分，否则只匹配该字段（用于筛选）
+     */
+    private class Group {
+        private final List<String> terms;
+        private final int field;
+
+        private Group(List<String> terms, int field) {
+            this.terms = terms;
+            this.field = field;
+        }
+
+        private int estimate(State s) {
+            int size = 0;
+            for (String term : terms) {
+                size += s.postings.get(term).size();
+            }
+            return size;
+        }
+
+        private Set<Long> matchingDocs(State s) {
+            Set<Long> ids = new HashSet<>();
+            for (String term : terms) {
+                for (Map.Entry<Long, int[]> posting : s.postings.get(term).entrySet()) {
+                    if (field < 0 || posting.getValue()[field] > 0) {
+                        ids.add(posting.getKey());
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private boolean matches(State s, Long id) {
+            for (String term : terms) {
+                int[] tf = s.postings.get(term).get(id);
+                if (tf != null && (field < 0 || tf[field] > 0)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * BM25F：各字段词频按权重和长度归一化后累加，再做词频饱和；前缀扩展的多个词项取最高分
+         */
+        private double score(State s, Long id, Entry entry, int docCount, float[] avgLengths) {
+            double best = 0;
+            for (String term : terms) {
+                Map<Long, int[]> posting = s.postings.get(term);
+                int[] tf = posting.get(id);
+                if (tf == null) {
+                    continue;
+                }
+                double weighted = 0;
+                for (int f = 0; f < tf.length; f++) {
+                    if (tf[f] > 0) {
+                        weighted += boosts[f] * tf[f] / (1 - b + b * entry.lengths[f] / avgLengths[f]);
+                    }
+                }
+                int df = posting.size();
+                double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+                best = Math.max(best, idf * weighted * (k1 + 1) / (k1 + weighted));
+            }
+            return best;
+        }
+    }
+
+    /**
+     * 待索引的文档
+     */
+    @Getter
+    @Builder
+    public static class Document {
+        private final long id;
+        /** 展示用标题，同时作为前缀提示词 */
+        private final String title;
+        /** 展示用摘要 */
+        private final String summary;
+        /** 热度，分数相同时排序使用 */
+        private final double popularity;
+        /** 文本字段：字段名 -> 内容 */
+        private final Map<String, String> fields;
+        /** 分面字段：字段名 -> 取值 */
+        private final Map<String, Collection<String>> facets;
+        /** 附加的前缀提示词（如拼音） */
+        private final List<String> suggestKeys;
+    }
+
+    /**
+     * 检索条件
+     */
+    @Getter
+    @Builder
+    public static class Query {
+        /** 关键词，所有词项须在任意文本字段中命中 */
+        private final String keyword;
+        /** 限定字段的关键词：字段名 -> 关键词 */
+        private final Map<String, String> fieldQueries;
+        /** 分面筛选：字段名 -> 取值 */
+        private final Map<String, String> filters;
+        /** 分面中表示"适用全部"的取值，筛选时视为命中（如 ALL） */
+        private final String wildcardValue;
+        /** 需要统计的分面 */
+        private final Collection<String> facets;
+        private final int offset;
+        private final int limit;
+    }
+
+    /**
+     * 命中文档
+     */
+    @Getter
+    public static class Hit {
+        private final long id;
+        private final double score;
+        private final String title;
+        private final String summary;
+        private final double popularity;
+
+        private Hit(long id, double score, String title, String summary, double popularity) {
+            this.id = id;
+            this.score = score;
+            this.title = title;
+            this.summary = summary;
+            this.popularity = popularity;
+        }
+    }
+
+    /**
+     * 检索结果
+     */
+    @Getter
+    public static class Result {
+        private final List<Hit> hits;
+        private final int total;
+        /** 分面统计：字段名 -> (取值 -> 命中数)，按命中数降序 */
+        private final Map<String, Map<String, Integer>> facets;
+
+        private Result(List<Hit> hits, int total, Map<String, Map<String, Integer>> facets) {
+            this.hits = hits;
+            this.total = total;
+            this.facets = facets;
+        }
+
+        private static Result empty() {
+            return new Result(Collections.emptyList(), 0, Collections.emptyMap());
+        }
+    }
+}
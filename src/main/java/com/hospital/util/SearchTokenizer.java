@@ -0,0 +1,129 @@
+package com.hospital.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 全文检索分词器
+ *
+ * 文本先做 NFKC 归一化（全角转半角）并转小写，然后按字符类型切分：
+ * 连续的汉字索引为单字和相邻二字（bigram），连续的字母数字索引为整词，其余字符视为分隔符。
+ * 查询时汉字串只取二字（单个汉字取单字），所有词项都须命中，效果接近原先的 LIKE '%关键词%'。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 索引分词：汉字输出单字与二字，字母数字输出整词
+     *
+     * @param text 文本
+     * @return 词项（可重复，用于统计词频）
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (Token token : split(text)) {
+            if (token.han) {
+                int[] chars = token.text.codePoints().toArray();
+                for (int i = 0; i < chars.length; i++) {
+                    terms.add(new String(chars, i, 1));
+                    if (i + 1 < chars.length) {
+                        terms.add(new String(chars, i, 2));
+                    }
+                }
+            } else {
+                terms.add(token.text);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 查询分词：汉字串输出二字（单个汉字输出单字），字母数字输出整词
+     *
+     * @param text 查询文本
+     * @return 查询词项
+     */
+    public static List<Token> tokenizeQuery(String text) {
+        List<Token> tokens = new ArrayList<>();
+        for (Token token : split(text)) {
+            int[] chars = token.han ? token.text.codePoints().toArray() : null;
+            if (chars != null && chars.length > 1) {
+                for (int i = 0; i + 1 < chars.length; i++) {
+                    tokens.add(new Token(new String(chars, i, 2), true));
+                }
+            } else {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 归一化：NFKC + 小写，用于分词和前缀提示
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+    }
+
+    private static List<Token> split(String text) {
+        List<Token> tokens = new ArrayList<>();
+        String normalized = normalize(text);
+        StringBuilder run = new StringBuilder();
+        boolean runHan = false;
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            boolean han = Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+            boolean word = !han && Character.isLetterOrDigit(codePoint);
+            if ((!han && !word) || (run.length() > 0 && han != runHan)) {
+                flush(run, runHan, tokens);
+            }
+            if (han || word) {
+                run.appendCodePoint(codePoint);
+                runHan = han;
+            }
+        }
+        flush(run, runHan, tokens);
+        return tokens;
+    }
+
+    private static void flush(StringBuilder run, boolean han, List<Token> tokens) {
+        if (run.length() > 0) {
+            tokens.add(new Token(run.toString(), han));
+            run.setLength(0);
+        }
+    }
+
+    /**
+     * 分词结果
+     */
+    public static final class Token {
+        private final String text;
+        private final boolean han;
+
+        private Token(String text, boolean han) {
+            this.text = text;
+            this.han = han;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * 是否为汉字词项（字母数字词项查询时按前缀扩展）
+         */
+        public boolean isHan() {
+            return han;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.hospital.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.hospital.common.constant.CacheConstants;
+import com.hospital.config.LocalCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 二级缓存：Caffeine 本地缓存（L1）+ Redis（L2）
+ * 读取时优先命中本地缓存，未命中再读Redis并回填本地；写入和失效时先操作Redis，
+ * 再通过 Redis Pub/Sub 广播失效消息，其他节点收到后清除本地副本。
+ *
+ * 注意：本地缓存直接返回同一对象实例，调用方必须将取到的值视为只读。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Component
+public class TwoLevelCache {
+
+    /** 失效消息类型：单个键 */
+    private static final String TYPE_KEY = "K";
+
+    /** 失效消息类型：多个键（换行分隔） */
+    private static final String TYPE_KEYS = "M";
+
+    /** 多键失效消息中键的分隔符 */
+    private static final String KEY_SEPARATOR = "\n";
+
+    /** 失效消息分隔符（节点ID|类型|键） */
+    private static final String SEPARATOR = "|";
+
+    /** 当前节点ID，用于忽略自己发出的失效消息 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 失效版本号：每次本地失效递增。读Redis期间若发生失效，则不回填本地缓存，
+     * 避免把失效前读到的旧值写回L1。
+     */
+    private final AtomicLong invalidationVersion = new AtomicLong();
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private LocalCacheProperties properties;
+
+    private Cache<String, LocalEntry> localCache;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<String, LocalEntry>() {
+                    @Override
+                    public long expireAfterCreate(String key, LocalEntry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, LocalEntry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, LocalEntry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 读取缓存：L1 → L2，L2命中时回填L1
+     *
+     * @param key 键
+     * @return 缓存值，未命中返回 null
+     */
+    public Object get(String key) {
+        if (!properties.isEnabled()) {
+            return redisUtil.get(key);
+        }
+        LocalEntry entry = localCache.getIfPresent(key);
+        if (entry != null) {
+            return entry.value;
+        }
+        long version = invalidationVersion.get();
+        Object value = redisUtil.get(key);
+        if (value != null && invalidationVersion.get() == version) {
+            Long remaining = redisUtil.getExpire(key);
+            localCache.put(key, new LocalEntry(value, localTtlSeconds(remaining != null ? remaining : -1)));
+        }
+        return value;
+    }
+
+    /**
+     * 写入缓存（TTL取自缓存策略）并通知其他节点失效本地副本
+     *
+     * @param key 键
+     * @param value 值
+     * @param policy TTL策略
+     * @param tags 缓存标签，可通过 {@link #evictTag} 批量失效
+     */
+    public void put(String key, Object value, CacheTtlPolicy policy, String... tags) {
+        put(key, value, policy.getSeconds(), tags);
+    }
+
+    /**
+     * 写入缓存并通知其他节点失效本地副本
+     *
+     * @param key 键
+     * @param value 值
+     * @param ttlSeconds 过期秒数，小于等于0表示永不过期
+     * @param tags 缓存标签，可通过 {@link #evictTag} 批量失效
+     */
+    public void put(String key, Object value, long ttlSeconds, String... tags) {
+        if (value == null) {
+            return;
+        }
+        if (tags.length > 0) {
+            redisUtil.setWithTags(key, value, ttlSeconds, TimeUnit.SECONDS, tags);
+        } else if (ttlSeconds > 0) {
+            redisUtil.set(key, value, ttlSeconds, TimeUnit.SECONDS);
+        } else {
+            redisUtil.set(key, value);
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+        invalidateLocal(key);
+        localCache.put(key, new LocalEntry(value, localTtlSeconds(ttlSeconds)));
+        publish(TYPE_KEY, key);
+    }
+
+    /**
+     * 删除缓存并广播失效
+     *
+     * @param key 键
+     */
+    public void evict(String key) {
+        redisUtil.delete(key);
+        if (!properties.isEnabled()) {
+            return;
+        }
+        invalidateLocal(key);
+        publish(TYPE_KEY, key);
+    }
+
+    /**
+     * 按标签删除缓存并广播失效
+     *
+     * @param tag 缓存标签
+     */
+    public void evictTag(String tag) {
+        List<String> keys = redisUtil.invalidateTag(tag);
+        if (!properties.isEnabled() || keys.isEmpty()) {
+            return;
+        }
+        invalidationVersion.incrementAndGet();
+        localCache.invalidateAll(keys);
+        publish(TYPE_KEYS, String.join(KEY_SEPARATOR, keys));
+    }
+
+    /**
+     * 处理其他节点广播的失效消息
+     *
+     * @param message 消息体：节点ID|类型|键（多键时换行分隔）
+     */
+    public void handleInvalidateMessage(String message) {
+        if (message == null || !properties.isEnabled()) {
+            return;
+        }
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (TYPE_KEYS.equals(parts[1])) {
+            invalidationVersion.incrementAndGet();
+            localCache.invalidateAll(Arrays.asList(parts[2].split(KEY_SEPARATOR)));
+        } else {
+            invalidateLocal(parts[2]);
+        }
+    }
+
+    private void invalidateLocal(String key) {
+        invalidationVersion.incrementAndGet();
+        localCache.invalidate(key);
+    }
+
+    private void publish(String type, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.CACHE_INVALIDATE_CHANNEL,
+                    nodeId + SEPARATOR + type + SEPARATOR + key);
+        } catch (Exception e) {
+            // 广播失败时其他节点的本地副本最迟在 maxTtlSeconds 后过期
+            log.warn("发送缓存失效广播失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 本地缓存TTL：不超过键本身的剩余TTL和配置的上限
+     */
+    private long localTtlSeconds(long ttlSeconds) {
+        long max = properties.getMaxTtlSeconds();
+        return ttlSeconds > 0 ? Math.min(ttlSeconds, max) : max;
+    }
+
+    /**
+     * 本地缓存条目（值 + 该条目的TTL）
+     */
+    private static final class LocalEntry {
+        private final Object value;
+        private final long ttlNanos;
+
+        private LocalEntry(Object value, long ttlSeconds) {
+            this.value = value;
+            this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+}
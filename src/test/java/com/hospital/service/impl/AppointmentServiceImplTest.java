@@ -0,0 +1,149 @@
+package com.hospital.service.impl;
+
+import com.hospital.entity.Appointment;
+import com.hospital.entity.Department;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.User;
+import com.hospital.mapper.DepartmentMapper;
+import com.hospital.mapper.DoctorMapper;
+import com.hospital.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 预约列表批量关联查询测试：查询次数只随去重ID数按块增长，与列表行数无关
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@ExtendWith(MockitoExtension.class)
+class AppointmentServiceImplTest {
+
+    @Mock
+    private DoctorMapper doctorMapper;
+
+    @Mock
+    private DepartmentMapper departmentMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @InjectMocks
+    private AppointmentServiceImpl appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(appointmentService, "enrichChunkSize", 500);
+        ReflectionTestUtils.setField(appointmentService, "enrichParallelThreshold", 1000);
+        ReflectionTestUtils.setField(appointmentService, "batchQueryExecutor", (Executor) Runnable::run);
+        when(doctorMapper.selectBatchIds(anyCollection())).thenAnswer(inv -> ids(inv.getArgument(0)).stream()
+                .map(this::doctor).collect(Collectors.toList()));
+        when(departmentMapper.selectBatchIds(anyCollection())).thenAnswer(inv -> ids(inv.getArgument(0)).stream()
+                .map(this::department).collect(Collectors.toList()));
+        when(userMapper.selectBatchIds(anyCollection())).thenAnswer(inv -> ids(inv.getArgument(0)).stream()
+                .map(this::user).collect(Collectors.toList()));
+    }
+
+    @Test
+    void smallListIssuesOneQueryPerRelation() {
+        List<Appointment> appointments = appointments(200, 10, 3, 200);
+
+        appointmentService.enrichAppointmentList(appointments);
+
+        verify(doctorMapper, times(1)).selectBatchIds(anyCollection());
+        verify(departmentMapper, times(1)).selectBatchIds(anyCollection());
+        verify(userMapper, times(1)).selectBatchIds(anyCollection());
+        assertEnriched(appointments);
+    }
+
+    @Test
+    void largeListChunksDistinctIds() {
+        List<Appointment> appointments = appointments(10000, 40, 5, 1200);
+
+        appointmentService.enrichAppointmentList(appointments);
+
+        verify(doctorMapper, times(1)).selectBatchIds(anyCollection());
+        verify(departmentMapper, times(1)).selectBatchIds(anyCollection());
+        // 1200 个不同患者按每块 500 个拆成 3 次查询
+        verify(userMapper, times(3)).selectBatchIds(anyCollection());
+        assertEnriched(appointments);
+    }
+
+    @Test
+    void keepsAppointmentFeeWhenPresent() {
+        List<Appointment> appointments = appointments(2, 1, 1, 2);
+        appointments.get(0).setConsultationFee(new BigDecimal("88"));
+
+        appointmentService.enrichAppointmentList(appointments);
+
+        assertEquals(new BigDecimal("88"), appointments.get(0).getConsultationFee());
+        assertEquals(new BigDecimal("1"), appointments.get(1).getConsultationFee());
+    }
+
+    private List<Appointment> appointments(int rows, int doctors, int departments, int patients) {
+        List<Appointment> appointments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setId((long) i);
+            appointment.setDoctorId((long) (i % doctors + 1));
+            appointment.setCategoryId((long) (i % departments + 1));
+            appointment.setPatientId((long) (i % patients + 1));
+            appointments.add(appointment);
+        }
+        return appointments;
+    }
+
+    private void assertEnriched(List<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            assertEquals("doctor-" + appointment.getDoctorId(), appointment.getDoctorName());
+            assertEquals("dept-" + appointment.getCategoryId(), appointment.getDeptName());
+            assertEquals("patient-" + appointment.getPatientId(), appointment.getPatientName());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> ids(Collection<? extends Serializable> ids) {
+        return ((Collection<Long>) ids).stream().collect(Collectors.toList());
+    }
+
+    private Doctor doctor(Long id) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setDoctorName("doctor-" + id);
+        doctor.setConsultationFee(BigDecimal.valueOf(id));
+        return doctor;
+    }
+
+    private Department department(Long id) {
+        Department department = new Department();
+        department.setId(id);
+        department.setCategoryName("dept-" + id);
+        return department;
+    }
+
+    private User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setRealName("patient-" + id);
+        return user;
+    }
+}
@@ -0,0 +1,139 @@
+package com.hospital.service.impl;
+
+import com.hospital.annotation.RateLimit;
+import com.hospital.config.RateLimitProperties;
+import com.hospital.support.LuaRedisStub;
+import com.hospital.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * 限流脚本与本地预取测试：脚本在 LuaJ 上以内存 Redis 执行，时间参数由测试控制
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+class RateLimitServiceImplTest {
+
+    private static final String KEY = "hospital:ratelimit:test";
+
+    private final LuaRedisStub redis = new LuaRedisStub();
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+
+    private RedisUtil redisUtil;
+
+    private RateLimitServiceImpl rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = Mockito.mock(RedisUtil.class);
+        when(redisUtil.executeScript(any(), anyList(), any())).thenAnswer(inv -> {
+            RedisScript<?> script = inv.getArgument(0);
+            List<String> keys = inv.getArgument(1);
+            Object[] args = new Object[inv.getArguments().length - 2];
+            System.arraycopy(inv.getArguments(), 2, args, 0, args.length);
+            return redis.eval(script.getScriptAsString(), keys, args);
+        });
+        rateLimitService = new RateLimitServiceImpl();
+        ReflectionTestUtils.setField(rateLimitService, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(rateLimitService, "properties", properties);
+        rateLimitService.init();
+    }
+
+    @Test
+    void fixedWindowGrantsUpToLimit() {
+        assertEquals(3L, eval("FIXED_WINDOW_SCRIPT", 5, 1000, 3));
+        assertEquals(2L, eval("FIXED_WINDOW_SCRIPT", 5, 1000, 3));
+        assertEquals(0L, eval("FIXED_WINDOW_SCRIPT", 5, 1000, 1));
+        assertEquals("5", redis.get(KEY));
+        assertEquals(1000L, redis.ttl(KEY));
+    }
+
+    @Test
+    void slidingWindowReleasesPermitsAsTheWindowMoves() {
+        assertEquals(2L, eval("SLIDING_WINDOW_SCRIPT", 3, 1000, 2, 10_000, "a"));
+        assertEquals(1L, eval("SLIDING_WINDOW_SCRIPT", 3, 1000, 2, 10_500, "b"));
+        assertEquals(0L, eval("SLIDING_WINDOW_SCRIPT", 3, 1000, 1, 10_900, "c"));
+        // 10_000 的两条记录移出窗口，10_500 的一条仍在窗口内
+        assertEquals(2L, eval("SLIDING_WINDOW_SCRIPT", 3, 1000, 5, 11_000, "d"));
+        assertEquals(3, redis.zset(KEY).size());
+    }
+
+    @Test
+    void slidingWindowMembersDoNotCollideAcrossCalls() {
+        eval("SLIDING_WINDOW_SCRIPT", 10, 1000, 2, 10_000, "node:1");
+        eval("SLIDING_WINDOW_SCRIPT", 10, 1000, 2, 10_000, "node:2");
+
+        assertEquals(4, redis.zset(KEY).size());
+    }
+
+    @Test
+    void tokenBucketRefillsAtConfiguredRate() {
+        // 容量 10，1000ms 填满整桶，即每 100ms 补充 1 个
+        assertEquals(10L, eval("TOKEN_BUCKET_SCRIPT", 10, 1000, 20, 50_000));
+        assertEquals(0L, eval("TOKEN_BUCKET_SCRIPT", 10, 1000, 1, 50_050));
+        assertEquals(2L, eval("TOKEN_BUCKET_SCRIPT", 10, 1000, 5, 50_250));
+        // 长时间空闲后不超过桶容量
+        assertEquals(10L, eval("TOKEN_BUCKET_SCRIPT", 10, 1000, 50, 90_000));
+    }
+
+    @Test
+    void tokenBucketIgnoresClockGoingBackwards() {
+        assertEquals(5L, eval("TOKEN_BUCKET_SCRIPT", 5, 1000, 5, 50_000));
+        assertEquals(0L, eval("TOKEN_BUCKET_SCRIPT", 5, 1000, 1, 49_000));
+        assertEquals("50000", redis.hash(KEY).get("ts"));
+    }
+
+    @Test
+    void leasedPermitsAreServedLocally() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(rateLimitService.tryAcquire("rule", "k", 10, 60, RateLimit.Algorithm.FIXED_WINDOW, 5));
+        }
+        assertFalse(rateLimitService.tryAcquire("rule", "k", 10, 60, RateLimit.Algorithm.FIXED_WINDOW, 5));
+
+        // 10 次放行只访问 Redis 2 次，第 11 次再访问 1 次被拒绝
+        Mockito.verify(redisUtil, Mockito.times(3)).executeScript(any(), anyList(), any());
+        Map<String, Long> stats = rateLimitService.getStats().get("rule");
+        assertEquals(10L, stats.get("allowed"));
+        assertEquals(1L, stats.get("rejected"));
+    }
+
+    @Test
+    void smallLimitsAreNotLeased() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimitService.tryAcquire("login", "u", 5, 60, RateLimit.Algorithm.SLIDING_WINDOW, 0));
+        }
+        assertFalse(rateLimitService.tryAcquire("login", "u", 5, 60, RateLimit.Algorithm.SLIDING_WINDOW, 0));
+
+        Mockito.verify(redisUtil, Mockito.times(6)).executeScript(any(), anyList(), any());
+    }
+
+    @Test
+    void failsOpenOrClosedWhenRedisIsDown() {
+        Mockito.doThrow(new IllegalStateException("down")).when(redisUtil).executeScript(any(), anyList(), any());
+
+        assertTrue(rateLimitService.tryAcquire("rule", "k", 10, 60, RateLimit.Algorithm.TOKEN_BUCKET, 1));
+        properties.setFailOpen(false);
+        assertFalse(rateLimitService.tryAcquire("rule", "k", 10, 60, RateLimit.Algorithm.TOKEN_BUCKET, 1));
+    }
+
+    private Object eval(String scriptField, Object... args) {
+        RedisScript<?> script = (RedisScript<?>) ReflectionTestUtils.getField(RateLimitServiceImpl.class, scriptField);
+        return redis.eval(script.getScriptAsString(), Collections.singletonList(KEY), args);
+    }
+}
@@ -0,0 +1,172 @@
+package com.hospital.service.impl;
+
+import com.hospital.common.result.Result;
+import com.hospital.config.ScheduleBatchProperties;
+import com.hospital.dto.request.BatchCreateScheduleRequest;
+import com.hospital.entity.Schedule;
+import com.hospital.mapper.ScheduleMapper;
+import com.hospital.service.ScheduleCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量生成排班测试：冲突预查、分段提交与实际新建行数统计
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+@ExtendWith(MockitoExtension.class)
+class ScheduleServiceImplTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 5);
+
+    @Mock
+    private ScheduleMapper scheduleMapper;
+
+    @Mock
+    private ScheduleCacheService scheduleCacheService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ScheduleBatchProperties scheduleBatchProperties = new ScheduleBatchProperties();
+
+    @InjectMocks
+    private ScheduleServiceImpl scheduleService;
+
+    /** 模拟数据库中已存在的 医生:日期:时段，插入时按唯一键忽略 */
+    private final Set<String> stored = new HashSet<>();
+
+    /** 最近一次 insertBatch 实际写入的行数，供按ID回查时返回 */
+    private final AtomicLong lastInserted = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv -> {
+            TransactionCallback<?> callback = inv.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        lenient().when(scheduleMapper.insertBatch(anyList())).thenAnswer(inv -> {
+            List<Schedule> batch = inv.getArgument(0);
+            long inserted = batch.stream().filter(s -> stored.add(key(s))).count();
+            lastInserted.set(inserted);
+            // 驱动未开启 useAffectedRows 时未改动的行也计为1
+            return batch.size();
+        });
+        lenient().when(scheduleMapper.selectCount(any())).thenAnswer(inv -> lastInserted.get());
+    }
+
+    @Test
+    void skipsSlotsFoundByPrefetch() {
+        when(scheduleMapper.selectExistingSlots(anyCollection(), any(), any()))
+                .thenReturn(Collections.singletonList(existing(1L, START, "MORNING")));
+
+        Map<String, Object> data = run(request(Arrays.asList(1L, 2L), 2, "MORNING", "AFTERNOON"));
+
+        assertEquals(7, data.get("created"));
+        assertEquals(1, data.get("skipped"));
+        assertEquals(1, ((List<?>) data.get("conflicts")).size());
+        verify(scheduleCacheService).evictDoctor(1L);
+        verify(scheduleCacheService).evictDoctor(2L);
+    }
+
+    @Test
+    void countsOnlyRowsActuallyInserted() {
+        when(scheduleMapper.selectExistingSlots(anyCollection(), any(), any())).thenReturn(Collections.emptyList());
+        // 预查之后被并发请求写入的排班
+        stored.add(1L + ":" + START.plusDays(1) + ":MORNING");
+        stored.add(2L + ":" + START.plusDays(2) + ":MORNING");
+
+        Map<String, Object> data = run(request(Arrays.asList(1L, 2L), 3, "MORNING"));
+
+        assertEquals(4, data.get("created"));
+        assertEquals(2, data.get("skipped"));
+        assertTrue(((List<?>) data.get("conflicts")).isEmpty());
+    }
+
+    @Test
+    void commitsInChunksAndInsertsInBatches() {
+        scheduleBatchProperties.setCommitChunkSize(4);
+        scheduleBatchProperties.setInsertBatchSize(3);
+        when(scheduleMapper.selectExistingSlots(anyCollection(), any(), any())).thenReturn(Collections.emptyList());
+
+        Map<String, Object> data = run(request(Collections.singletonList(1L), 5, "MORNING", "EVENING"));
+
+        assertEquals(10, data.get("created"));
+        // 10 条按每段 4 条提交 3 次，每段再按每批 3 条插入：3+1、3+1、2
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(scheduleMapper, times(5)).insertBatch(anyList());
+    }
+
+    @Test
+    void doesNotEvictWhenNothingCreated() {
+        List<Schedule> all = new ArrayList<>();
+        all.add(existing(1L, START, "MORNING"));
+        when(scheduleMapper.selectExistingSlots(anyCollection(), any(), any())).thenReturn(all);
+
+        Map<String, Object> data = run(request(Collections.singletonList(1L), 1, "MORNING"));
+
+        assertEquals(0, data.get("created"));
+        assertEquals(1, data.get("skipped"));
+        verify(transactionTemplate, never()).execute(any());
+        verify(scheduleCacheService, never()).evictDoctor(any());
+    }
+
+    private Map<String, Object> run(BatchCreateScheduleRequest request) {
+        Result<Map<String, Object>> result = scheduleService.batchCreateSchedules(request);
+        assertEquals(200, result.getCode());
+        return result.getData();
+    }
+
+    private BatchCreateScheduleRequest request(List<Long> doctorIds, int days, String... slots) {
+        BatchCreateScheduleRequest request = new BatchCreateScheduleRequest();
+        request.setDoctorIds(doctorIds);
+        request.setStartDate(START);
+        request.setEndDate(START.plusDays(days - 1));
+        request.setTimeSlots(Arrays.asList(slots));
+        request.setTotalQuota(20);
+        return request;
+    }
+
+    private Schedule existing(Long doctorId, LocalDate date, String slot) {
+        Schedule schedule = new Schedule();
+        schedule.setDoctorId(doctorId);
+        schedule.setScheduleDate(date);
+        schedule.setTimeSlot(slot);
+        stored.add(key(schedule));
+        return schedule;
+    }
+
+    private static String key(Schedule schedule) {
+        return schedule.getDoctorId() + ":" + schedule.getScheduleDate() + ":" + schedule.getTimeSlot();
+    }
+}
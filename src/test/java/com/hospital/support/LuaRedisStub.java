@@ -0,0 +1,220 @@
+package com.hospital.support;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在内存中执行 Redis Lua 脚本的测试桩
+ * 用 LuaJ 运行脚本，redis.call 由内存中的字符串、哈希、有序集合实现，
+ * 只支持项目脚本用到的命令；过期时间只记录不生效，返回值按 Redis 规则转换（数字截断为整数、nil 为 null）。
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+public class LuaRedisStub {
+
+    private final Map<String, String> strings = new HashMap<>();
+
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+
+    private final Map<String, Map<String, Double>> zsets = new HashMap<>();
+
+    private final Map<String, Long> ttls = new HashMap<>();
+
+    /**
+     * 执行脚本
+     *
+     * @param script 脚本内容
+     * @param keys KEYS
+     * @param args ARGV，按 String.valueOf 转为字符串
+     * @return 脚本返回值：整数为 Long，表为 List，nil/false 为 null
+     */
+    public synchronized Object eval(String script, List<String> keys, Object... args) {
+        Globals globals = JsePlatform.standardGlobals();
+        LuaTable keyTable = new LuaTable();
+        for (int i = 0; i < keys.size(); i++) {
+            keyTable.set(i + 1, LuaValue.valueOf(keys.get(i)));
+        }
+        LuaTable argTable = new LuaTable();
+        for (int i = 0; i < args.length; i++) {
+            argTable.set(i + 1, LuaValue.valueOf(String.valueOf(args[i])));
+        }
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs varargs) {
+                List<String> command = new ArrayList<>(varargs.narg());
+                for (int i = 1; i <= varargs.narg(); i++) {
+                    command.add(varargs.arg(i).tojstring());
+                }
+                return toLua(execute(command));
+            }
+        });
+        globals.set("KEYS", keyTable);
+        globals.set("ARGV", argTable);
+        globals.set("redis", redis);
+        return fromLua(globals.load(script).call());
+    }
+
+    public synchronized String get(String key) {
+        return strings.get(key);
+    }
+
+    public synchronized void set(String key, String value) {
+        strings.put(key, value);
+    }
+
+    public synchronized Map<String, String> hash(String key) {
+        return new LinkedHashMap<>(hashes.getOrDefault(key, Map.of()));
+    }
+
+    public synchronized Map<String, Double> zset(String key) {
+        return new LinkedHashMap<>(zsets.getOrDefault(key, Map.of()));
+    }
+
+    public synchronized Long ttl(String key) {
+        return ttls.get(key);
+    }
+
+    private Object execute(List<String> command) {
+        String name = command.get(0).toUpperCase();
+        String key = command.size() > 1 ? command.get(1) : null;
+        switch (name) {
+            case "GET":
+                return strings.get(key);
+            case "SET":
+                strings.put(key, command.get(2));
+                return "OK";
+            case "DEL": {
+                long deleted = 0;
+                for (String k : command.subList(1, command.size())) {
+                    deleted += exists(k) ? 1 : 0;
+                    strings.remove(k);
+                    hashes.remove(k);
+                    zsets.remove(k);
+                    ttls.remove(k);
+                }
+                return deleted;
+            }
+            case "EXISTS":
+                return exists(key) ? 1L : 0L;
+            case "INCR":
+                return incrBy(key, 1);
+            case "INCRBY":
+                return incrBy(key, Long.parseLong(command.get(2)));
+            case "EXPIRE":
+                ttls.put(key, Long.parseLong(command.get(2)) * 1000);
+                return exists(key) ? 1L : 0L;
+            case "PEXPIRE":
+                ttls.put(key, Long.parseLong(command.get(2)));
+                return exists(key) ? 1L : 0L;
+            case "HGET":
+                return hashes.getOrDefault(key, Map.of()).get(command.get(2));
+            case "HMGET": {
+                List<Object> values = new ArrayList<>();
+                for (String field : command.subList(2, command.size())) {
+                    values.add(hashes.getOrDefault(key, Map.of()).get(field));
+                }
+                return values;
+            }
+            case "HSET": {
+                Map<String, String> hash = hashes.computeIfAbsent(key, k -> new LinkedHashMap<>());
+                long added = 0;
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    added += hash.put(command.get(i), command.get(i + 1)) == null ? 1 : 0;
+                }
+                return added;
+            }
+            case "ZADD": {
+                Map<String, Double> zset = zsets.computeIfAbsent(key, k -> new LinkedHashMap<>());
+                long added = 0;
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    added += zset.put(command.get(i + 1), Double.parseDouble(command.get(i))) == null ? 1 : 0;
+                }
+                return added;
+            }
+            case "ZCARD":
+                return (long) zsets.getOrDefault(key, Map.of()).size();
+            case "ZREMRANGEBYSCORE": {
+                Map<String, Double> zset = zsets.get(key);
+                if (zset == null) {
+                    return 0L;
+                }
+                double min = score(command.get(2));
+                double max = score(command.get(3));
+                int before = zset.size();
+                zset.values().removeIf(score -> score >= min && score <= max);
+                return (long) (before - zset.size());
+            }
+            default:
+                throw new UnsupportedOperationException("LuaRedisStub 不支持的命令: " + name);
+        }
+    }
+
+    private boolean exists(String key) {
+        return strings.containsKey(key) || hashes.containsKey(key) || zsets.containsKey(key);
+    }
+
+    private long incrBy(String key, long delta) {
+        long value = Long.parseLong(strings.getOrDefault(key, "0")) + delta;
+        strings.put(key, String.valueOf(value));
+        return value;
+    }
+
+    private static double score(String value) {
+        switch (value) {
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            case "+inf":
+            case "inf":
+                return Double.POSITIVE_INFINITY;
+            default:
+                return Double.parseDouble(value);
+        }
+    }
+
+    private static LuaValue toLua(Object value) {
+        if (value == null) {
+            return LuaValue.FALSE;
+        }
+        if (value instanceof Long) {
+            return LuaValue.valueOf(((Long) value).doubleValue());
+        }
+        if (value instanceof List) {
+            LuaTable table = new LuaTable();
+            List<?> list = (List<?>) value;
+            for (int i = 0; i < list.size(); i++) {
+                table.set(i + 1, toLua(list.get(i)));
+            }
+            return table;
+        }
+        return LuaValue.valueOf(String.valueOf(value));
+    }
+
+    private static Object fromLua(LuaValue value) {
+        if (value.isnil() || value == LuaValue.FALSE) {
+            return null;
+        }
+        if (value.type() == LuaValue.TNUMBER) {
+            return (long) value.todouble();
+        }
+        if (value.istable()) {
+            List<Object> list = new ArrayList<>();
+            for (int i = 1; i <= value.length(); i++) {
+                list.add(fromLua(value.get(i)));
+            }
+            return list;
+        }
+        return value.tojstring();
+    }
+}
@@ -0,0 +1,196 @@
+package com.hospital.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 物品协同过滤模型测试：与逐对计算余弦相似度的朴素实现对比，并覆盖增量更新与重度用户过滤
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+class ItemCooccurrenceModelTest {
+
+    @Test
+    void recommendsByCooccurrence() {
+        // 用户1、2 都收藏了 10 和 20，用户3 收藏了 10 和 30
+        ItemCooccurrenceModel model = build(new long[][]{{1, 10}, {1, 20}, {2, 10}, {2, 20}, {3, 10}, {3, 30}}, 10, 100);
+
+        assertEquals(3, model.itemCount());
+        assertEquals(2, model.pairCount());
+        assertArrayEquals(new long[]{20, 30}, model.recommend(new long[]{10}, 5));
+        assertArrayEquals(new long[]{10}, model.recommend(new long[]{20}, 5));
+        assertArrayEquals(new long[]{20}, model.recommend(new long[]{10}, 1));
+    }
+
+    @Test
+    void excludesFavoritesAndUnknownItems() {
+        ItemCooccurrenceModel model = build(new long[][]{{1, 10}, {1, 20}, {1, 30}}, 10, 100);
+
+        long[] result = model.recommend(new long[]{10, 20, 999, 10}, 5);
+
+        assertArrayEquals(new long[]{30}, result);
+        assertEquals(0, model.recommend(new long[]{999}, 5).length);
+    }
+
+    @Test
+    void skipsPairsOfHeavyUsers() {
+        ItemCooccurrenceModel model = build(new long[][]{{1, 10}, {1, 20}, {1, 30}, {2, 10}, {2, 40}}, 10, 2);
+
+        // 用户1 收藏了 3 个物品，超过上限不产生物品对，只有用户2 的 (10, 40)
+        assertEquals(1, model.pairCount());
+        assertArrayEquals(new long[]{40}, model.recommend(new long[]{10}, 5));
+    }
+
+    @Test
+    void incrementalUpdateAddsAndRemovesNeighbors() {
+        ItemCooccurrenceModel model = build(new long[][]{{1, 10}, {2, 20}, {3, 30}}, 10, 100);
+        assertEquals(0, model.recommend(new long[]{10}, 5).length);
+
+        // 用户1 在已收藏 10 的情况下收藏 20
+        assertTrue(model.update(20, new long[]{10}, 1));
+        assertArrayEquals(new long[]{20}, model.recommend(new long[]{10}, 5));
+        assertArrayEquals(new long[]{10}, model.recommend(new long[]{20}, 5));
+
+        // 取消后共同收藏次数回到 0，近邻被移除
+        assertTrue(model.update(20, new long[]{10}, -1));
+        assertEquals(0, model.recommend(new long[]{10}, 5).length);
+
+        assertFalse(model.update(999, new long[]{10}, 1));
+    }
+
+    @Test
+    void keepsOnlyTopKNeighbors() {
+        // 物品 1 与 2..6 都有共同收藏，2 的共同收藏次数最多
+        List<long[]> rows = new ArrayList<>();
+        long user = 1;
+        for (long other = 2; other <= 6; other++) {
+            for (int n = 0; n < (other == 2 ? 3 : 1); n++) {
+                rows.add(new long[]{user, 1});
+                rows.add(new long[]{user, other});
+                user++;
+            }
+        }
+        ItemCooccurrenceModel model = build(rows.toArray(new long[0][]), 2, 100);
+
+        assertArrayEquals(new long[]{2, 3}, model.recommend(new long[]{1}, 10));
+    }
+
+    @Test
+    void matchesBruteForceOnRandomData() {
+        Random random = new Random(42);
+        int topK = 5;
+        TreeMap<Long, TreeSet<Long>> favorites = new TreeMap<>();
+        for (long user = 1; user <= 300; user++) {
+            TreeSet<Long> items = new TreeSet<>();
+            int count = 1 + random.nextInt(8);
+            while (items.size() < count) {
+                // 偏向小ID，使热门物品之间有足够的共同收藏
+                items.add((long) Math.min(random.nextInt(60), random.nextInt(60)) + 1);
+            }
+            favorites.put(user, items);
+        }
+        List<long[]> rows = new ArrayList<>();
+        favorites.forEach((user, items) -> items.forEach(item -> rows.add(new long[]{user, item})));
+        ItemCooccurrenceModel model = build(rows.toArray(new long[0][]), topK, 100);
+        BruteForce reference = new BruteForce(favorites, topK);
+
+        for (int n = 0; n < 50; n++) {
+            long[] query = new long[1 + random.nextInt(4)];
+            for (int i = 0; i < query.length; i++) {
+                query[i] = random.nextInt(60) + 1;
+            }
+            assertArrayEquals(reference.recommend(query, 10), model.recommend(query, 10),
+                    "query=" + Arrays.toString(query));
+        }
+    }
+
+    private static ItemCooccurrenceModel build(long[][] rows, int topK, int maxItemsPerUser) {
+        long[] userIds = new long[rows.length];
+        long[] recipeIds = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            userIds[i] = rows[i][0];
+            recipeIds[i] = rows[i][1];
+        }
+        return ItemCooccurrenceModel.build(userIds, recipeIds, rows.length, topK, maxItemsPerUser);
+    }
+
+    /**
+     * 朴素实现：逐对计算余弦相似度，近邻与推荐的排序规则与模型一致
+     */
+    private static final class BruteForce {
+
+        private final long[] items;
+
+        private final Map<Long, float[]> similarities = new HashMap<>();
+
+        private final int topK;
+
+        BruteForce(Map<Long, TreeSet<Long>> favorites, int topK) {
+            this.topK = topK;
+            this.items = favorites.values().stream().flatMap(TreeSet::stream).distinct().sorted()
+                    .mapToLong(Long::longValue).toArray();
+            int[] counts = new int[items.length];
+            int[][] co = new int[items.length][items.length];
+            for (TreeSet<Long> userItems : favorites.values()) {
+                int[] indexes = userItems.stream().mapToInt(id -> Arrays.binarySearch(items, id)).toArray();
+                for (int a : indexes) {
+                    counts[a]++;
+                    for (int b : indexes) {
+                        if (a != b) {
+                            co[a][b]++;
+                        }
+                    }
+                }
+            }
+            for (int a = 0; a < items.length; a++) {
+                float[] row = new float[items.length];
+                for (int b = 0; b < items.length; b++) {
+                    if (co[a][b] > 0) {
+                        row[b] = (float) (co[a][b] / Math.sqrt((double) counts[a] * counts[b]));
+                    }
+                }
+                similarities.put(items[a], row);
+            }
+        }
+
+        long[] recommend(long[] favoriteIds, int limit) {
+            int[] favorites = Arrays.stream(favoriteIds).mapToInt(id -> Arrays.binarySearch(items, id))
+                    .filter(index -> index >= 0).distinct().sorted().toArray();
+            float[] scores = new float[items.length];
+            for (int item : favorites) {
+                float[] row = similarities.get(items[item]);
+                for (int neighbor : top(row, topK)) {
+                    if (Arrays.binarySearch(favorites, neighbor) < 0) {
+                        scores[neighbor] += row[neighbor];
+                    }
+                }
+            }
+            return Arrays.stream(top(scores, limit)).mapToLong(index -> items[index]).toArray();
+        }
+
+        private static int[] top(float[] scores, int k) {
+            List<Integer> candidates = new ArrayList<>();
+            for (int i = 0; i < scores.length; i++) {
+                if (scores[i] > 0) {
+                    candidates.add(i);
+                }
+            }
+            candidates.sort((a, b) -> scores[a] != scores[b] ? Float.compare(scores[b], scores[a]) : Integer.compare(a, b));
+            return candidates.stream().limit(k).mapToInt(Integer::intValue).toArray();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.hospital.util;
+
+import com.hospital.common.exception.BusinessException;
+import com.hospital.config.DeepSeekConfig;
+import com.hospital.config.LlmGatewayProperties;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 大模型调用网关测试：上游由 MockWebServer 模拟，覆盖进行中请求合并、排队超时与熔断探测
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+class LlmGatewayTest {
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final LlmGatewayProperties properties = new LlmGatewayProperties();
+
+    private LlmGateway gateway;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        DeepSeekConfig deepSeekConfig = new DeepSeekConfig();
+        deepSeekConfig.setApiKey("test-key");
+        String url = server.url("/").toString();
+        deepSeekConfig.setApiUrl(url.substring(0, url.length() - 1));
+        // 不走回答缓存，每次调用都到达合并与准入控制
+        properties.setResponseCacheTtlSeconds(0);
+        properties.setRequestTimeoutMs(5000);
+
+        gateway = new LlmGateway();
+        ReflectionTestUtils.setField(gateway, "deepSeekConfig", deepSeekConfig);
+        ReflectionTestUtils.setField(gateway, "properties", properties);
+        ReflectionTestUtils.setField(gateway, "redisUtil", Mockito.mock(RedisUtil.class));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        gateway.destroy();
+        server.shutdown();
+    }
+
+    @Test
+    void mergesIdenticalInFlightPrompts() throws Exception {
+        gateway.init();
+        server.enqueue(completion("合并后的回答").setBodyDelay(300, TimeUnit.MILLISECONDS));
+
+        CompletableFuture<String> first = gateway.complete(1L, "系统", "当归的功效");
+        // 规范化后相同：全角空格与多余空白
+        CompletableFuture<String> second = gateway.complete(2L, "系统", " 当归的功效　");
+
+        assertEquals("合并后的回答", first.get(5, TimeUnit.SECONDS));
+        assertEquals("合并后的回答", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void cancellingOneWaiterDoesNotCancelTheSharedCall() throws Exception {
+        gateway.init();
+        server.enqueue(completion("回答").setBodyDelay(300, TimeUnit.MILLISECONDS));
+
+        CompletableFuture<String> first = gateway.complete(1L, null, "枸杞");
+        CompletableFuture<String> second = gateway.complete(2L, null, "枸杞");
+        first.cancel(true);
+
+        assertEquals("回答", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void failsCallsThatWaitedInTheQueueTooLong() throws Exception {
+        properties.setMaxConcurrent(1);
+        properties.setQueueTimeoutMs(100);
+        gateway.init();
+        server.enqueue(completion("慢回答").setBodyDelay(400, TimeUnit.MILLISECONDS));
+
+        CompletableFuture<String> running = gateway.complete(1L, null, "第一个问题");
+        CompletableFuture<String> queued = gateway.complete(2L, null, "第二个问题");
+
+        assertEquals("慢回答", running.get(5, TimeUnit.SECONDS));
+        assertUnavailable(queued);
+        // 排队超时的请求没有到达上游
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() throws Exception {
+        properties.setMaxConcurrent(1);
+        properties.setMaxQueued(1);
+        gateway.init();
+        server.enqueue(completion("一").setBodyDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(completion("二"));
+
+        CompletableFuture<String> running = gateway.complete(1L, null, "问题一");
+        CompletableFuture<String> queued = gateway.complete(2L, null, "问题二");
+        CompletableFuture<String> rejected = gateway.complete(3L, null, "问题三");
+
+        assertUnavailable(rejected);
+        assertEquals("一", running.get(5, TimeUnit.SECONDS));
+        assertEquals("二", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void opensTheBreakerAndRecoversAfterASuccessfulProbe() throws Exception {
+        properties.setFailureThreshold(2);
+        properties.setOpenDurationMs(300);
+        gateway.init();
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        assertUpstreamFailure(gateway.complete(1L, null, "问题一"));
+        assertUpstreamFailure(gateway.complete(1L, null, "问题二"));
+
+        // 熔断期间直接拒绝，不访问上游
+        assertUnavailable(gateway.complete(1L, null, "问题三"));
+        assertEquals(2, server.getRequestCount());
+
+        // 熔断窗口结束后放行一个探测请求，探测失败继续熔断
+        Thread.sleep(350);
+        server.enqueue(new MockResponse().setResponseCode(500));
+        assertUpstreamFailure(gateway.complete(1L, null, "探测一"));
+        assertUnavailable(gateway.complete(1L, null, "问题四"));
+        assertEquals(3, server.getRequestCount());
+
+        // 探测成功后熔断关闭
+        Thread.sleep(350);
+        server.enqueue(completion("恢复"));
+        server.enqueue(completion("正常"));
+        assertEquals("恢复", gateway.complete(1L, null, "探测二").get(5, TimeUnit.SECONDS));
+        assertEquals("正常", gateway.complete(1L, null, "问题五").get(5, TimeUnit.SECONDS));
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    void failsFastWithoutApiKey() {
+        ReflectionTestUtils.setField(gateway, "deepSeekConfig", new DeepSeekConfig());
+        gateway.init();
+
+        assertUnavailable(gateway.complete(1L, null, "问题"));
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private static MockResponse completion(String content) {
+        String body = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"created\":1,\"model\":\"deepseek-chat\","
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"" + content + "\"},"
+                + "\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":1,\"completion_tokens\":1,\"total_tokens\":2}}";
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static void assertUnavailable(CompletableFuture<String> future) {
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BusinessException.class, error.getCause());
+    }
+
+    private static void assertUpstreamFailure(CompletableFuture<String> future) {
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertFalse(error.getCause() instanceof BusinessException, "应为上游调用失败: " + error.getCause());
+    }
+}
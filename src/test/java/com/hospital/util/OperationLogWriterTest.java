@@ -0,0 +1,185 @@
+package com.hospital.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.config.OperationLogProperties;
+import com.hospital.entity.OperationLog;
+import com.hospital.service.SystemService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * 操作日志批量写入器测试：攒批、超时写入、缓冲区满丢弃、关闭时写完剩余日志与参数截断
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+class OperationLogWriterTest {
+
+    private final List<List<OperationLog>> batches = new CopyOnWriteArrayList<>();
+
+    private final OperationLogProperties properties = new OperationLogProperties();
+
+    private SystemService systemService;
+
+    private OperationLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        properties.setBatchSize(3);
+        properties.setFlushIntervalMs(200L);
+        properties.setMaxPayloadLength(20);
+        systemService = Mockito.mock(SystemService.class);
+        doAnswer(inv -> {
+            batches.add(new ArrayList<>(inv.<List<OperationLog>>getArgument(0)));
+            return null;
+        }).when(systemService).recordOperationLogs(anyList());
+        writer = new OperationLogWriter();
+        ReflectionTestUtils.setField(writer, "systemService", systemService);
+        ReflectionTestUtils.setField(writer, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(writer, "properties", properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void groupsLogsIntoBatches() throws Exception {
+        writer.start();
+        for (int i = 0; i < 7; i++) {
+            writer.submit(log(i), null);
+        }
+
+        awaitRecorded(7);
+
+        assertEquals(Arrays.asList(3, 3, 1), batches.stream().map(List::size).collect(Collectors.toList()));
+        List<String> order = batches.stream().flatMap(List::stream)
+                .map(OperationLog::getOperationDesc).collect(Collectors.toList());
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5", "6"), order);
+        batches.stream().flatMap(List::stream).forEach(l -> assertNotNull(l.getId()));
+    }
+
+    @Test
+    void flushesPartialBatchAfterInterval() throws Exception {
+        writer.start();
+        long start = System.nanoTime();
+        writer.submit(log(0), null);
+
+        awaitRecorded(1);
+
+        assertEquals(1, batches.get(0).size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    }
+
+    @Test
+    void dropsWhenBufferIsFull() throws Exception {
+        properties.setBufferCapacity(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        doAnswer(inv -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            batches.add(new ArrayList<>(inv.<List<OperationLog>>getArgument(0)));
+            return null;
+        }).when(systemService).recordOperationLogs(anyList());
+        writer.start();
+
+        // 第一条日志的写入被阻塞后，缓冲区只能再容纳 2 条
+        writer.submit(log(0), null);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 8; i++) {
+            writer.submit(log(i), null);
+        }
+        assertEquals(5L, ((AtomicLong) ReflectionTestUtils.getField(writer, "dropped")).get());
+
+        release.countDown();
+        awaitRecorded(3);
+    }
+
+    @Test
+    void writesRemainingLogsOnShutdown() {
+        properties.setFlushIntervalMs(60_000L);
+        properties.setBatchSize(100);
+        writer.start();
+        for (int i = 0; i < 5; i++) {
+            writer.submit(log(i), null);
+        }
+
+        writer.shutdown();
+
+        assertEquals(5, batches.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void serializesResultOnFlushWithinLimit() throws Exception {
+        writer.start();
+        writer.submit(log(0), Collections.singletonMap("ok", true));
+        writer.submit(log(1), Collections.singletonMap("data", "0123456789abcdefghij"));
+
+        awaitRecorded(2);
+
+        List<OperationLog> logs = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        assertEquals("{\"ok\":true}", logs.get(0).getResponseData());
+        assertEquals("{\"data\":\"0123456789a...", logs.get(1).getResponseData());
+    }
+
+    @Test
+    void snapshotStopsAtMaxPayloadLength() {
+        writer.start();
+        Map<String, Object> args = new HashMap<>();
+        args.put("name", "a".repeat(100_000));
+
+        String snapshot = writer.snapshot(new Object[]{args});
+
+        assertEquals("[{\"name\":\"aaaaaaaaaa...", snapshot);
+        assertEquals("[1,\"x\"]", writer.snapshot(new Object[]{1, "x"}));
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterMutation() {
+        writer.start();
+        Map<String, Object> args = new HashMap<>();
+        args.put("id", 1);
+
+        String snapshot = writer.snapshot(new Object[]{args});
+        args.put("id", 2);
+
+        assertEquals("[{\"id\":1}]", snapshot);
+    }
+
+    private void awaitRecorded(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (batches.stream().mapToInt(List::size).sum() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, batches.stream().mapToInt(List::size).sum());
+    }
+
+    private static OperationLog log(int index) {
+        OperationLog operationLog = new OperationLog();
+        operationLog.setOperationDesc(String.valueOf(index));
+        return operationLog;
+    }
+}
@@ -0,0 +1,200 @@
+package com.hospital.util;
+
+import com.hospital.entity.HerbalRecipe;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 药膳内容特征库测试：与逐个药膳按字符串打分的朴素实现对比，并覆盖收藏排除与同分排序
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+class RecipeFeatureStoreTest {
+
+    private static final String[] CONSTITUTIONS = {"QI_DEFICIENCY", "YANG_DEFICIENCY", "YIN_DEFICIENCY",
+            "PHLEGM_DAMPNESS", "BLOOD_STASIS", "BALANCED"};
+    private static final String[] CATEGORIES = {"汤", "粥", "茶", "羹", "菜"};
+    private static final String[] SEASONS = {"SPRING", "SUMMER", "AUTUMN", "WINTER"};
+    private static final String[] EFFECTS = {"补气", "养血", "健脾", "安神", "祛湿", "清热", "润肺"};
+
+    @Test
+    void splitsTokensOnChineseAndAsciiSeparators() {
+        assertEquals(Arrays.asList("QI_DEFICIENCY", "YIN_DEFICIENCY", "BALANCED"),
+                RecipeFeatureStore.tokens("qi_deficiency、Yin_Deficiency ，/ balanced"));
+        assertTrue(RecipeFeatureStore.tokens(" ").isEmpty());
+        assertTrue(RecipeFeatureStore.tokens(null).isEmpty());
+    }
+
+    @Test
+    void scoresByConstitutionPreferencesAndSeason() {
+        RecipeFeatureStore store = RecipeFeatureStore.build(Arrays.asList(
+                recipe(1, "QI_DEFICIENCY", "汤", "WINTER", "补气", 0, 0),
+                recipe(2, "YIN_DEFICIENCY", "汤", "SUMMER", "养血", 0, 0),
+                recipe(3, "BALANCED", "茶", "SUMMER", "清热", 0, 0),
+                recipe(4, "QI_DEFICIENCY", "粥", "SPRING", "健脾", 0, 0)));
+
+        // 主体质 3 + 当季 0.5 > 收藏同分类 1.2 + 次体质 1.5
+        RecipeFeatureStore.Profile profile = store.encodeProfile("QI_DEFICIENCY", "YIN_DEFICIENCY",
+                Collections.singletonList(1L), "SPRING");
+
+        assertEquals(Arrays.asList(4L, 2L), store.recommend(profile, 10));
+        assertEquals(Collections.singletonList(4L), store.recommend(profile, 1));
+    }
+
+    @Test
+    void excludesFavoritesAndIgnoresUnknownIds() {
+        RecipeFeatureStore store = RecipeFeatureStore.build(Arrays.asList(
+                recipe(1, "BALANCED", "茶", "SUMMER", "清热", 10, 100),
+                recipe(2, "BALANCED", "茶", "SUMMER", "清热", 10, 100)));
+
+        RecipeFeatureStore.Profile profile = store.encodeProfile(null, null, Arrays.asList(2L, 2L, 99L, null), null);
+
+        assertEquals(Collections.singletonList(1L), store.recommend(profile, 10));
+    }
+
+    @Test
+    void breaksTiesBySmallerIdAndSkipsZeroScores() {
+        RecipeFeatureStore store = RecipeFeatureStore.build(Arrays.asList(
+                recipe(30, "BALANCED", null, null, null, 0, 0),
+                recipe(10, "BALANCED", null, null, null, 0, 0),
+                recipe(20, "BALANCED", null, null, null, 0, 0),
+                recipe(40, "QI_DEFICIENCY", null, null, null, 0, 0)));
+
+        RecipeFeatureStore.Profile profile = store.encodeProfile("balanced", null, null, "WINTER");
+
+        assertEquals(Arrays.asList(10L, 20L), store.recommend(profile, 2));
+        assertEquals(Arrays.asList(10L, 20L, 30L), store.recommend(profile, 10));
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    void matchesStringScoringOnRandomData() {
+        Random random = new Random(7);
+        List<HerbalRecipe> recipes = new ArrayList<>();
+        // 超过 64 个体质词，覆盖多个 long 的体质位图
+        for (long id = 1; id <= 400; id++) {
+            String constitution = pick(random, CONSTITUTIONS, 2)
+                    + (random.nextInt(5) == 0 ? ",TYPE_" + random.nextInt(100) : "");
+            recipes.add(recipe(id * 3, constitution, pick(random, CATEGORIES, 2), pick(random, SEASONS, 2),
+                    pick(random, EFFECTS, 3), random.nextInt(300), random.nextInt(5000)));
+        }
+        RecipeFeatureStore store = RecipeFeatureStore.build(recipes);
+
+        for (int n = 0; n < 50; n++) {
+            String primary = random.nextInt(4) == 0 ? null : CONSTITUTIONS[random.nextInt(CONSTITUTIONS.length)];
+            String secondary = random.nextBoolean() ? null : "TYPE_" + random.nextInt(100);
+            List<Long> favorites = new ArrayList<>();
+            for (int i = random.nextInt(10); i > 0; i--) {
+                favorites.add((long) (random.nextInt(1300) + 1));
+            }
+            String season = SEASONS[random.nextInt(SEASONS.length)];
+
+            RecipeFeatureStore.Profile profile = store.encodeProfile(primary, secondary, favorites, season);
+            assertEquals(reference(recipes, primary, secondary, favorites, season, 20), store.recommend(profile, 20),
+                    "primary=" + primary + ", secondary=" + secondary + ", favorites=" + favorites);
+        }
+    }
+
+    /**
+     * 朴素实现：逐个药膳按字符串字段打分，权重按 float 累加以与特征库的精度一致
+     */
+    private static List<Long> reference(List<HerbalRecipe> recipes, String primary, String secondary,
+                                        List<Long> favoriteIds, String season, int limit) {
+        Map<Long, HerbalRecipe> byId = recipes.stream().collect(Collectors.toMap(HerbalRecipe::getId, r -> r));
+        Set<Long> favorites = new TreeSet<>();
+        for (Long id : favoriteIds) {
+            if (byId.containsKey(id)) {
+                favorites.add(id);
+            }
+        }
+        Map<String, Float> categoryWeights = new HashMap<>();
+        Map<String, Float> seasonWeights = new HashMap<>();
+        Map<String, Float> effectWeights = new HashMap<>();
+        for (Long id : favorites) {
+            HerbalRecipe favorite = byId.get(id);
+            RecipeFeatureStore.tokens(favorite.getCategory()).forEach(t -> categoryWeights.merge(t, 1.2f, Float::sum));
+            RecipeFeatureStore.tokens(favorite.getSeason()).forEach(t -> seasonWeights.merge(t, 0.8f, Float::sum));
+            RecipeFeatureStore.tokens(favorite.getEfficacy()).forEach(t -> effectWeights.merge(t, 0.3f, Float::sum));
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (HerbalRecipe recipe : recipes) {
+            if (favorites.contains(recipe.getId())) {
+                continue;
+            }
+            double score = (float) (Math.min(recipe.getFavoriteCount(), 200) * 0.01
+                    + Math.log(recipe.getViewCount() + 1) * 0.2);
+            if (matches(recipe.getConstitutionType(), primary)) {
+                score += 3.0;
+            }
+            if (matches(recipe.getConstitutionType(), secondary)) {
+                score += 1.5;
+            }
+            for (String token : RecipeFeatureStore.tokens(recipe.getCategory())) {
+                score += categoryWeights.getOrDefault(token, 0f);
+            }
+            for (String token : RecipeFeatureStore.tokens(recipe.getSeason())) {
+                score += seasonWeights.getOrDefault(token, 0f);
+            }
+            for (String token : RecipeFeatureStore.tokens(recipe.getEfficacy())) {
+                score += effectWeights.getOrDefault(token, 0f);
+            }
+            if (recipe.getSeason().toUpperCase(Locale.ROOT).contains(season)) {
+                score += 0.5;
+            }
+            if (score > 0) {
+                scores.put(recipe.getId(), score);
+            }
+        }
+        return scores.keySet().stream()
+                .sorted((a, b) -> scores.get(a).equals(scores.get(b)) ? Long.compare(a, b)
+                        : Double.compare(scores.get(b), scores.get(a)))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static boolean matches(String constitutionType, String target) {
+        if (target == null) {
+            return false;
+        }
+        String upper = target.toUpperCase(Locale.ROOT);
+        return RecipeFeatureStore.tokens(constitutionType).stream().anyMatch(token -> token.contains(upper));
+    }
+
+    private static String pick(Random random, String[] values, int max) {
+        Set<String> picked = new HashSet<>();
+        for (int i = 1 + random.nextInt(max); i > 0; i--) {
+            picked.add(values[random.nextInt(values.length)]);
+        }
+        return String.join(random.nextBoolean() ? "," : "、", picked);
+    }
+
+    private static HerbalRecipe recipe(long id, String constitution, String category, String season, String efficacy,
+                                       int favoriteCount, int viewCount) {
+        HerbalRecipe recipe = new HerbalRecipe();
+        recipe.setId(id);
+        recipe.setConstitutionType(constitution);
+        recipe.setCategory(category);
+        recipe.setSeason(season);
+        recipe.setEfficacy(efficacy);
+        recipe.setFavoriteCount(favoriteCount);
+        recipe.setViewCount(viewCount);
+        return recipe;
+    }
+}
@@ -0,0 +1,151 @@
+package com.hospital.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 内存倒排索引测试：全词项命中、字段权重、前缀扩展、分面筛选与统计、增量更新和前缀提示
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        LinkedHashMap<String, Float> boosts = new LinkedHashMap<>();
+        boosts.put("title", 3f);
+        boosts.put("content", 1f);
+        index = new SearchIndex(boosts, 1.2f, 0.75f);
+        index.replaceAll(Arrays.asList(
+                doc(1, "当归补血汤", "补气生血，适用于血虚", 10, "QI_DEFICIENCY"),
+                doc(2, "四物汤", "当归、川芎、白芍、熟地，补血调经", 50, "BLOOD_DEFICIENCY"),
+                doc(3, "枸杞菊花茶", "清肝明目", 30, "ALL"),
+                doc(4, "Vitamin C 泡腾片", "vitamin supplement", 5, "BLOOD_DEFICIENCY")));
+    }
+
+    @Test
+    void requiresEveryQueryTermToMatch() {
+        assertEquals(Arrays.asList(1L, 2L), ids(search("当归 补血")));
+        assertEquals(Collections.singletonList(3L), ids(search("菊花")));
+        assertEquals(0, search("当归 菊花").getTotal());
+        assertEquals(0, search("不存在的词").getTotal());
+    }
+
+    @Test
+    void titleMatchesOutrankContentMatches() {
+        List<SearchIndex.Hit> hits = search("当归").getHits();
+
+        assertEquals(1L, hits.get(0).getId());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    void expandsWordPrefixes() {
+        assertEquals(Collections.singletonList(4L), ids(search("vita")));
+        assertEquals(Collections.singletonList(4L), ids(search("VITAMIN supp")));
+    }
+
+    @Test
+    void filtersByFacetAndCountsFacets() {
+        SearchIndex.Result result = index.search(SearchIndex.Query.builder()
+                .keyword("汤")
+                .filters(Collections.singletonMap("constitution", "BLOOD_DEFICIENCY"))
+                .wildcardValue("ALL")
+                .facets(Collections.singletonList("constitution"))
+                .limit(10)
+                .build());
+
+        assertEquals(Collections.singletonList(2L), ids(result));
+        assertEquals(Collections.singletonMap("BLOOD_DEFICIENCY", 1), result.getFacets().get("constitution"));
+
+        SearchIndex.Result wildcard = index.search(SearchIndex.Query.builder()
+                .filters(Collections.singletonMap("constitution", "QI_DEFICIENCY"))
+                .wildcardValue("ALL")
+                .fieldQueries(Collections.singletonMap("content", "明目"))
+                .limit(10)
+                .build());
+        assertEquals(Collections.singletonList(3L), ids(wildcard));
+    }
+
+    @Test
+    void breaksScoreTiesByPopularityAndPaginates() {
+        index.replaceAll(Arrays.asList(
+                doc(1, "菊花", "", 1, "ALL"),
+                doc(2, "菊花", "", 3, "ALL"),
+                doc(3, "菊花", "", 2, "ALL")));
+
+        SearchIndex.Result page = index.search(SearchIndex.Query.builder().keyword("菊花").offset(1).limit(1).build());
+
+        assertEquals(3, page.getTotal());
+        assertEquals(Collections.singletonList(3L), ids(page));
+    }
+
+    @Test
+    void upsertAndRemoveUpdateTheIndex() {
+        index.upsert(doc(3, "金银花茶", "清热解毒", 30, "ALL"));
+        assertEquals(0, search("菊花").getTotal());
+        assertEquals(Collections.singletonList(3L), ids(search("金银花")));
+
+        index.remove(3L);
+        assertEquals(0, search("金银花").getTotal());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void suggestsByTitlePrefixOrderedByPopularity() {
+        index.upsert(doc(5, "当归生姜羊肉汤", "", 99, "ALL"));
+
+        List<Long> suggestions = index.suggest("当归", 5).stream()
+                .map(SearchIndex.Hit::getId).collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(5L, 1L), suggestions);
+        assertTrue(index.suggest(" ", 5).isEmpty());
+    }
+
+    @Test
+    void ordersRecordsByHitOrder() {
+        List<Long> ordered = SearchIndex.orderByIds(Arrays.asList(3L, 1L, 9L, 2L),
+                Arrays.asList(1L, 2L, 3L), id -> id);
+
+        assertEquals(Arrays.asList(3L, 1L, 2L), ordered);
+    }
+
+    private SearchIndex.Result search(String keyword) {
+        return index.search(SearchIndex.Query.builder().keyword(keyword).limit(10).build());
+    }
+
+    private static List<Long> ids(SearchIndex.Result result) {
+        return result.getHits().stream().map(SearchIndex.Hit::getId).collect(Collectors.toList());
+    }
+
+    private static SearchIndex.Document doc(long id, String title, String content, double popularity,
+                                            String constitution) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("title", title);
+        fields.put("content", content);
+        Map<String, Collection<String>> facets = Collections.singletonMap("constitution",
+                Collections.singletonList(constitution));
+        return SearchIndex.Document.builder()
+                .id(id)
+                .title(title)
+                .summary(content)
+                .popularity(popularity)
+                .fields(fields)
+                .facets(facets)
+                .build();
+    }
+}
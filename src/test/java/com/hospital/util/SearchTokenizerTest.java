@@ -0,0 +1,59 @@
+package com.hospital.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 全文检索分词器测试
+ *
+ * @author Hospital Team
+ * @since 2025-12-20
+ */
+class SearchTokenizerTest {
+
+    @Test
+    void indexesHanCharactersAsUnigramsAndBigrams() {
+        assertEquals(Arrays.asList("当", "当归", "归", "归汤", "汤"), SearchTokenizer.tokenize("当归汤"));
+    }
+
+    @Test
+    void splitsMixedScriptsAndPunctuation() {
+        assertEquals(Arrays.asList("vitamin", "c", "补", "补充", "充"),
+                SearchTokenizer.tokenize("Vitamin-C，补充"));
+        assertEquals(Arrays.asList("b12", "片"), SearchTokenizer.tokenize("B12片"));
+    }
+
+    @Test
+    void normalizesFullWidthCharacters() {
+        assertEquals(Collections.singletonList("abc123"), SearchTokenizer.tokenize("ＡＢＣ１２３"));
+        assertEquals("abc", SearchTokenizer.normalize("ＡＢＣ"));
+        assertEquals("", SearchTokenizer.normalize(null));
+    }
+
+    @Test
+    void queriesHanRunsAsBigramsOnly() {
+        List<SearchTokenizer.Token> tokens = SearchTokenizer.tokenizeQuery("当归补血 tea");
+
+        assertEquals(Arrays.asList("当归", "归补", "补血", "tea"), texts(tokens));
+        assertTrue(tokens.get(0).isHan());
+        assertFalse(tokens.get(3).isHan());
+    }
+
+    @Test
+    void singleHanCharacterQueriesAsUnigram() {
+        assertEquals(Collections.singletonList("参"), texts(SearchTokenizer.tokenizeQuery(" 参 ")));
+        assertTrue(SearchTokenizer.tokenizeQuery("，。!").isEmpty());
+    }
+
+    private static List<String> texts(List<SearchTokenizer.Token> tokens) {
+        return tokens.stream().map(SearchTokenizer.Token::getText).collect(Collectors.toList());
+    }
+}